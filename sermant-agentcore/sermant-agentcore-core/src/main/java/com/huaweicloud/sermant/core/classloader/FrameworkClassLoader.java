@@ -20,20 +20,23 @@ import com.huaweicloud.sermant.core.common.CommonConstant;
 
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * 框架核心能力实现的类加载器
+ * <p>该类加载器可并行加载，自身加载的类由{@link LoadedClassCache}缓存
  *
  * @author luanwenfei
  * @since 2022-06-18
  */
 public class FrameworkClassLoader extends URLClassLoader {
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
     /**
      * 对FrameClassLoader已经加载的类进行管理
      */
-    private final Map<String, Class<?>> frameworkClassMap = new HashMap<>();
+    private final LoadedClassCache frameworkClassCache;
 
     /**
      * Constructor.
@@ -42,26 +45,20 @@ public class FrameworkClassLoader extends URLClassLoader {
      */
     public FrameworkClassLoader(URL[] urls) {
         super(urls);
+        this.frameworkClassCache = new LoadedClassCache(urls);
     }
 
     private Class<?> findFrameworkClass(String name) {
-        if (!frameworkClassMap.containsKey(name)) {
-            try {
-                frameworkClassMap.put(name, findClass(name));
-            } catch (ClassNotFoundException ignored) {
-                frameworkClassMap.put(name, null);
-            }
-        }
-        return frameworkClassMap.get(name);
+        return frameworkClassCache.getClass(name, this::findClass);
     }
 
     @Override
     public Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
         synchronized (getClassLoadingLock(name)) {
-            Class<?> clazz = null;
+            Class<?> clazz = findLoadedClass(name);
 
             // 对于core中已经加载的类则遵循双亲委派原则,其他类则破坏双亲委派机制
-            if (name != null && !name.startsWith("com.huaweicloud.sermant.core")) {
+            if (clazz == null && name != null && !name.startsWith("com.huaweicloud.sermant.core")) {
                 clazz = findFrameworkClass(name);
             }
             if (clazz == null) {
@@ -74,6 +71,12 @@ public class FrameworkClassLoader extends URLClassLoader {
         }
     }
 
+    @Override
+    protected void addURL(URL url) {
+        super.addURL(url);
+        frameworkClassCache.addUrl(url);
+    }
+
     @Override
     public URL getResource(String name) {
         URL url = null;
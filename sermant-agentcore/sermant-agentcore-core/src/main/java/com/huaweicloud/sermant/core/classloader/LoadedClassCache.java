@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.classloader;
+
+import com.huaweicloud.sermant.core.utils.JarFileUtils;
+
+import java.net.URL;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类加载器自身查找类的缓存，供可并行加载的类加载器使用
+ * <pre>
+ *     1.类加载器的URL均为本地jar包时，预先建立类名索引(包括manifest中Class-Path引用的jar包)，索引中不存在的类直接视为找不到，
+ *       无需遍历URL查找
+ *     2.无法建立索引时，找不到的类被记录下来，避免重复查找
+ * </pre>
+ * 已加载的类由类加载器的{@link ClassLoader#findLoadedClass}获取，调用{@link #getClass}前应先检查，缓存不重复记录
+ * <p>同名类的查找由类加载器的类加载锁保证串行，因此缓存本身无需加锁
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class LoadedClassCache {
+    /**
+     * 已查找过但找不到的类
+     */
+    private final Set<String> notFoundClasses = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 类名索引，存在非本地jar包的URL时为null
+     */
+    private volatile Set<String> classIndex;
+
+    /**
+     * 构造函数
+     *
+     * @param urls 类加载器的URL集
+     */
+    public LoadedClassCache(URL[] urls) {
+        this.classIndex = JarFileUtils.getClassNames(urls);
+    }
+
+    /**
+     * 通过查找器查找类，调用前需持有该类的类加载锁，且该类尚未被类加载器加载
+     *
+     * @param name   类全限定名
+     * @param finder 类查找器，一般为类加载器的findClass方法
+     * @return 类，若找不到则返回null
+     */
+    public Class<?> getClass(String name, ClassFinder finder) {
+        final Set<String> index = classIndex;
+        if (index != null && !index.contains(name) || notFoundClasses.contains(name)) {
+            return null;
+        }
+        try {
+            return finder.findClass(name);
+        } catch (ClassNotFoundException ignored) {
+            notFoundClasses.add(name);
+            return null;
+        }
+    }
+
+    /**
+     * 类加载器添加URL时调用，更新类名索引并清除找不到类的记录
+     *
+     * @param url 新增的URL
+     */
+    public synchronized void addUrl(URL url) {
+        final Set<String> index = classIndex;
+        if (index != null) {
+            final Set<String> classNames = JarFileUtils.getClassNames(url);
+            if (classNames == null) {
+                classIndex = null;
+            } else {
+                classNames.addAll(index);
+                classIndex = classNames;
+            }
+        }
+        notFoundClasses.clear();
+    }
+
+    /**
+     * 类查找器
+     *
+     * @since 2022-09-28
+     */
+    public interface ClassFinder {
+        /**
+         * 查找类
+         *
+         * @param name 类全限定名
+         * @return 类
+         * @throws ClassNotFoundException 找不到类
+         */
+        Class<?> findClass(String name) throws ClassNotFoundException;
+    }
+}
@@ -44,6 +44,11 @@ public class BootArgsIndexer {
      */
     private static final String CORE_VERSION;
 
+    /**
+     * agent根目录
+     */
+    private static File agentDir;
+
     /**
      * 核心功能实现包所在目录
      */
@@ -77,6 +82,10 @@ public class BootArgsIndexer {
         return CORE_VERSION;
     }
 
+    public static File getAgentDir() {
+        return agentDir;
+    }
+
     public static File getImplementDir() {
         return implementDir;
     }
@@ -111,6 +120,7 @@ public class BootArgsIndexer {
      * @param argsMap 启动参数
      */
     public static void build(Map<String, Object> argsMap) {
+        agentDir = new File(argsMap.get(CommonConstant.AGENT_ROOT_DIR_KEY).toString());
         implementDir = new File(argsMap.get(CommonConstant.CORE_IMPLEMENT_DIR_KEY).toString());
         if (!implementDir.exists() || !implementDir.isDirectory()) {
             LOGGER.warning("Implement directory not found! ");
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.exception;
+
+/**
+ * 网关请求异常, 未连接、等待应答超时或服务端处理失败时抛出
+ *
+ * @author lilai
+ * @since 2022-09-28
+ */
+public class GatewayRequestException extends RuntimeException {
+    private static final long serialVersionUID = -3264196744503926516L;
+
+    /**
+     * 构造方法
+     *
+     * @param message 异常信息
+     */
+    public GatewayRequestException(String message) {
+        super(message);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param message 异常信息
+     * @param cause 异常原因
+     */
+    public GatewayRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -19,8 +19,13 @@ package com.huaweicloud.sermant.core.plugin.agent;
 import com.huaweicloud.sermant.core.common.CommonConstant;
 import com.huaweicloud.sermant.core.common.LoggerFactory;
 import com.huaweicloud.sermant.core.config.ConfigManager;
+import com.huaweicloud.sermant.core.plugin.agent.cache.EnhanceCacheTransformer;
 import com.huaweicloud.sermant.core.plugin.agent.config.AgentConfig;
+import com.huaweicloud.sermant.core.plugin.agent.declarer.AbstractPluginDescription;
 import com.huaweicloud.sermant.core.plugin.agent.declarer.PluginDescription;
+import com.huaweicloud.sermant.core.plugin.agent.matcher.TypeNameTrie;
+import com.huaweicloud.sermant.core.plugin.agent.template.BootstrapDispatcher;
+import com.huaweicloud.sermant.core.plugin.agent.transformer.BootstrapTransformer;
 import com.huaweicloud.sermant.core.plugin.classloader.PluginClassLoader;
 
 import net.bytebuddy.ByteBuddy;
@@ -39,7 +44,6 @@ import java.security.ProtectionDomain;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
 import java.util.logging.Logger;
 
 /**
@@ -65,6 +69,22 @@ public class BufferedAgentBuilder {
      */
     private final AgentConfig config = ConfigManager.getConfig(AgentConfig.class);
 
+    /**
+     * 解析类型描述的策略，由{@link AgentConfig#getTypePoolCacheSize()}而定
+     */
+    private final AgentBuilder.PoolStrategy poolStrategy = config.getTypePoolCacheSize() > 0
+            ? new CachedPoolStrategy(config.getTypePoolCacheSize()) : AgentBuilder.PoolStrategy.Default.FAST;
+
+    /**
+     * 增强缓存的转换器，未开启增强缓存时为null
+     */
+    private final EnhanceCacheTransformer cacheTransformer = EnhanceCacheTransformer.build(config, poolStrategy);
+
+    /**
+     * 插件可能匹配的类名前缀树，存在无法仅通过类名判断的插件时为null
+     */
+    private TypeNameTrie nameFilter = new TypeNameTrie();
+
     /**
      * 构建行为集
      */
@@ -77,18 +97,24 @@ public class BufferedAgentBuilder {
      * 创建{@link BufferedAgentBuilder}并依据配置设置基础操作：
      * <pre>
      *     1.设置启动类加载器相关的增强策略，见{@link #setBootStrapStrategy}
-     *     2.设置增强扫描过滤规则，见{@link #setIgnoredRule}
-     *     3.设置增强时的扫描日志监听器，见{@link #setLogListener}
-     *     4.设置输出增强后字节码的监听器，见{@link #setOutputListener}
+     *     2.设置解析类型描述的策略，见{@link #setPoolStrategy}
+     *     3.设置增强扫描过滤规则，见{@link #setIgnoredRule}
+     *     4.设置增强时的扫描日志监听器，见{@link #setLogListener}
+     *     5.设置输出增强后字节码的监听器，见{@link #setOutputListener}
+     *     6.设置记录增强结果的增强缓存监听器，见{@link #setCacheListener}
+     *     7.设置统计增强结果的监听器，见{@link #setMetricsListener}
      * </pre>
      *
      * @return BufferedAgentBuilder实例
      */
     public static BufferedAgentBuilder build() {
         return new BufferedAgentBuilder().setBootStrapStrategy()
+                .setPoolStrategy()
                 .setIgnoredRule()
                 .setLogListener()
-                .setOutputListener();
+                .setOutputListener()
+                .setCacheListener()
+                .setMetricsListener();
     }
 
     /**
@@ -112,10 +138,27 @@ public class BufferedAgentBuilder {
         });
     }
 
+    /**
+     * 设置解析类型描述的策略
+     * <p>类型池缓存容量大于0时，使用按类加载器共享且容量有限的缓存类型池，见{@link CachedPoolStrategy}
+     * <p>同时优先使用类型池解析类型描述，避免匹配时触发类加载
+     *
+     * @return BufferedAgentBuilder本身
+     */
+    private BufferedAgentBuilder setPoolStrategy() {
+        if (!(poolStrategy instanceof CachedPoolStrategy)) {
+            return this;
+        }
+        return addAction(builder -> builder.with(poolStrategy)
+                .with(AgentBuilder.DescriptionStrategy.Default.POOL_FIRST));
+    }
+
     /**
      * 设置扫描的过滤规则
      * <p>注意，数组类型，8中基础类型，以及{@link PluginClassLoader}加载的类默认不增强，直接被过滤
      * <p>其他类若符合配置中{@link AgentConfig#getIgnoredPrefixes}指定的前缀之一，则被过滤
+     * <p>开启增强缓存时，已由增强缓存处理的类也将被过滤，见{@link EnhanceCacheTransformer#isResolved}
+     * <p>所有插件都能仅通过类名判断时，不可能被匹配的类也将被过滤，见{@link AbstractPluginDescription#fillNameFilter}
      *
      * @return BufferedAgentBuilder本身
      */
@@ -123,8 +166,11 @@ public class BufferedAgentBuilder {
         return addAction(new BuilderAction() {
             @Override
             public AgentBuilder process(AgentBuilder builder) {
+                final TypeNameTrie ignoredPrefixes = new TypeNameTrie();
+                for (String ignoredPrefix : config.getIgnoredPrefixes()) {
+                    ignoredPrefixes.addPrefix(ignoredPrefix);
+                }
                 return builder.ignore(new AgentBuilder.RawMatcher() {
-                    private final Set<String> ignoredPrefixes = config.getIgnoredPrefixes();
 
                     @Override
                     public boolean matches(TypeDescription typeDesc, ClassLoader classLoader, JavaModule module,
@@ -132,14 +178,16 @@ public class BufferedAgentBuilder {
                         if (typeDesc.isArray() || typeDesc.isPrimitive() || classLoader instanceof PluginClassLoader) {
                             return true;
                         }
-                        if (ignoredPrefixes.isEmpty()) {
-                            return false;
+                        if (cacheTransformer != null && cacheTransformer.isResolved(typeDesc.getName(), classLoader)) {
+                            return true;
                         }
                         final String typeName = typeDesc.getTypeName();
-                        for (String ignoredPrefix : ignoredPrefixes) {
-                            if (typeName.startsWith(ignoredPrefix)) {
-                                return true;
-                            }
+                        if (ignoredPrefixes.matches(typeName)) {
+                            return true;
+                        }
+                        if (nameFilter != null && !nameFilter.matches(typeName)) {
+                            EnhanceMetrics.recordRejected();
+                            return true;
                         }
                         return false;
                     }
@@ -222,27 +270,73 @@ public class BufferedAgentBuilder {
         }));
     }
 
+    /**
+     * 设置记录增强结果的增强缓存监听器，由{@link AgentConfig#isEnhanceCacheEnable()}而定，见{@link EnhanceCacheTransformer}
+     *
+     * @return BufferedAgentBuilder本身
+     */
+    private BufferedAgentBuilder setCacheListener() {
+        if (cacheTransformer == null) {
+            return this;
+        }
+        return addAction(builder -> builder.with(cacheTransformer));
+    }
+
+    /**
+     * 设置统计增强结果的监听器，并定期及在关闭时输出统计指标的概要，见{@link EnhanceMetrics}
+     *
+     * @return BufferedAgentBuilder本身
+     */
+    private BufferedAgentBuilder setMetricsListener() {
+        EnhanceMetrics.addSummaryHook();
+        return addAction(builder -> builder.with(EnhanceMetrics.listener()));
+    }
+
     /**
      * 添加插件
+     * <p>同时为每个插件构建各自的类名过滤器，见{@link AbstractPluginDescription#buildNameFilter}
+     * <p>插件可能匹配的类名还将填入全局的类名前缀树，存在无法仅通过类名判断的插件时，不再通过全局的类名前缀树过滤，其他插件仍使用各自的类名过滤器
      *
      * @param plugins 插件描述列表
      * @return BufferedAgentBuilder本身
      */
     public BufferedAgentBuilder addPlugins(Iterable<PluginDescription> plugins) {
+        if (cacheTransformer != null) {
+            cacheTransformer.addPlugins(plugins);
+        }
+        for (PluginDescription plugin : plugins) {
+            final boolean isNameFiltered = plugin instanceof AbstractPluginDescription
+                    && ((AbstractPluginDescription) plugin).buildNameFilter() != null;
+            if (nameFilter != null && (!isNameFiltered
+                    || !((AbstractPluginDescription) plugin).fillNameFilter(nameFilter))) {
+                nameFilter = null;
+            }
+        }
         return addAction(new BuilderAction() {
             @Override
             public AgentBuilder process(AgentBuilder builder) {
                 AgentBuilder newBuilder = builder;
                 for (PluginDescription plugin : plugins) {
-                    newBuilder = newBuilder.type(plugin).transform(plugin);
+                    newBuilder = newBuilder.type(EnhanceMetrics.timing(plugin)).transform(plugin);
                 }
                 return newBuilder;
             }
         });
     }
 
+    /**
+     * 关闭类名过滤，此后仅通过配置的前缀和插件描述器判断类是否需要增强
+     *
+     * @return BufferedAgentBuilder本身
+     */
+    public BufferedAgentBuilder disableNameFilter() {
+        nameFilter = null;
+        return this;
+    }
+
     /**
      * 添加行动
+     * <p>注意，类名过滤仅考虑插件，若行动中添加了其他类型匹配规则，需调用{@link #disableNameFilter}
      *
      * @param action 行动
      * @return BufferedAgentBuilder本身
@@ -254,16 +348,24 @@ public class BufferedAgentBuilder {
 
     /**
      * 构建{@link AgentBuilder}，执行所有{@link BuilderAction}并执行{@link AgentBuilder#installOn(Instrumentation)}
+     * <p>构建前将调度桥注入启动类加载器，并确保被增强类所在模块可读取调度桥，见{@link BootstrapTransformer#injectDispatcher}
+     * <p>开启增强缓存时，增强缓存的转换器先于byte-buddy的转换器注册，见{@link EnhanceCacheTransformer}
      *
      * @param instrumentation Instrumentation对象
      * @return 安装结果，可重置的转换器，若无类元信息改动，调用其reset方法即可重置
      */
     public ResettableClassFileTransformer install(Instrumentation instrumentation) {
         AgentBuilder builder = new AgentBuilder.Default(new ByteBuddy());
+        if (BootstrapTransformer.injectDispatcher(instrumentation)) {
+            builder = builder.assureReadEdgeTo(instrumentation, BootstrapDispatcher.class);
+        }
         for (BuilderAction action : actions) {
             builder = action.process(builder);
         }
         builder.disableClassFormatChanges();
+        if (cacheTransformer != null) {
+            instrumentation.addTransformer(cacheTransformer);
+        }
         return builder.installOn(instrumentation);
     }
 
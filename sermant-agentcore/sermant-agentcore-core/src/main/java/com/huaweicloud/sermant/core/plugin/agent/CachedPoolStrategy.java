@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent;
+
+import com.huaweicloud.sermant.core.plugin.agent.config.AgentConfig;
+
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.pool.TypePool;
+
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 带缓存的类型池策略，为每个类加载器维护一个有界的类型池缓存，使类的描述在多次匹配和增强间共享
+ * <p>缓存以类加载器为弱键，由于类的描述会间接持有类加载器，缓存本身以软引用持有，以免类加载器无法被回收
+ * <p>每个类加载器的缓存按最近最少使用的顺序淘汰，容量由{@link AgentConfig#getTypePoolCacheSize()}决定
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class CachedPoolStrategy extends AgentBuilder.PoolStrategy.WithTypePoolCache {
+    /**
+     * 类加载器的类型池缓存
+     */
+    private final Map<ClassLoader, SoftReference<TypePool.CacheProvider>> cacheProviders = new WeakHashMap<>();
+
+    /**
+     * 每个类加载器的缓存容量
+     */
+    private final int maxSize;
+
+    /**
+     * 启动类加载器的类型池缓存
+     */
+    private final TypePool.CacheProvider bootstrapCacheProvider;
+
+    /**
+     * 构造函数
+     *
+     * @param maxSize 每个类加载器的缓存容量
+     */
+    public CachedPoolStrategy(int maxSize) {
+        super(TypePool.Default.ReaderMode.FAST);
+        this.maxSize = maxSize;
+        this.bootstrapCacheProvider = new BoundedCacheProvider(maxSize);
+    }
+
+    @Override
+    protected TypePool.CacheProvider locate(ClassLoader classLoader) {
+        if (classLoader == null) {
+            return bootstrapCacheProvider;
+        }
+        synchronized (cacheProviders) {
+            final SoftReference<TypePool.CacheProvider> reference = cacheProviders.get(classLoader);
+            TypePool.CacheProvider cacheProvider = reference == null ? null : reference.get();
+            if (cacheProvider == null) {
+                cacheProvider = new BoundedCacheProvider(maxSize);
+                cacheProviders.put(classLoader, new SoftReference<>(cacheProvider));
+            }
+            return cacheProvider;
+        }
+    }
+
+    /**
+     * 有界的类型池缓存，按最近最少使用的顺序淘汰
+     *
+     * @since 2022-09-28
+     */
+    private static class BoundedCacheProvider implements TypePool.CacheProvider {
+        /**
+         * 类型解析结果
+         */
+        private final Map<String, TypePool.Resolution> resolutions;
+
+        BoundedCacheProvider(int maxSize) {
+            this.resolutions = new LinkedHashMap<String, TypePool.Resolution>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, TypePool.Resolution> eldest) {
+                    return size() > maxSize;
+                }
+            };
+            resolutions.put(Object.class.getName(), new TypePool.Resolution.Simple(TypeDescription.OBJECT));
+        }
+
+        @Override
+        public synchronized TypePool.Resolution find(String name) {
+            return resolutions.get(name);
+        }
+
+        @Override
+        public synchronized TypePool.Resolution register(String name, TypePool.Resolution resolution) {
+            final TypePool.Resolution cached = resolutions.get(name);
+            if (cached != null) {
+                return cached;
+            }
+            resolutions.put(name, resolution);
+            return resolution;
+        }
+
+        @Override
+        public synchronized void clear() {
+            resolutions.clear();
+        }
+    }
+}
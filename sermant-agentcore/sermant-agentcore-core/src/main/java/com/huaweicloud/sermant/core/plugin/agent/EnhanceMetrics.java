@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent;
+
+import com.huaweicloud.sermant.core.common.LoggerFactory;
+import com.huaweicloud.sermant.core.plugin.agent.declarer.PluginDescription;
+
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.utility.JavaModule;
+
+import java.security.ProtectionDomain;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * 字节码增强的统计指标，包括：
+ * <pre>
+ *     1.被类名过滤器直接排除的类数量，以及插件声明器通过类名跳过匹配的次数
+ *     2.被插件描述器匹配的次数，以及插件描述器匹配的总耗时
+ *     3.被增强、被忽略以及增强失败的类数量
+ * </pre>
+ * 类加载期间每隔{@link #SUMMARY_INTERVAL_MILLIS}输出一次统计指标的概要，关闭时再输出一次
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class EnhanceMetrics {
+    /**
+     * 日志
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger();
+
+    /**
+     * 被类名过滤器直接排除的类数量
+     */
+    private static final AtomicLong REJECTED_COUNT = new AtomicLong();
+
+    /**
+     * 插件声明器通过类名跳过匹配的次数
+     */
+    private static final AtomicLong SKIPPED_COUNT = new AtomicLong();
+
+    /**
+     * 被插件描述器匹配的次数
+     */
+    private static final AtomicLong MATCHED_COUNT = new AtomicLong();
+
+    /**
+     * 插件描述器匹配的总耗时，单位纳秒
+     */
+    private static final AtomicLong MATCH_NANOS = new AtomicLong();
+
+    /**
+     * 被增强的类数量
+     */
+    private static final AtomicLong TRANSFORMED_COUNT = new AtomicLong();
+
+    /**
+     * 被忽略的类数量，包括被类名过滤器排除的类
+     */
+    private static final AtomicLong IGNORED_COUNT = new AtomicLong();
+
+    /**
+     * 增强失败的类数量
+     */
+    private static final AtomicLong ERROR_COUNT = new AtomicLong();
+
+    /**
+     * 输出统计指标概要的最小间隔，单位毫秒
+     */
+    private static final long SUMMARY_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * 上次输出统计指标概要的时间
+     */
+    private static final AtomicLong LAST_SUMMARY_MILLIS = new AtomicLong(System.currentTimeMillis());
+
+    private EnhanceMetrics() {
+    }
+
+    public static long getRejectedCount() {
+        return REJECTED_COUNT.get();
+    }
+
+    public static long getSkippedCount() {
+        return SKIPPED_COUNT.get();
+    }
+
+    public static long getMatchedCount() {
+        return MATCHED_COUNT.get();
+    }
+
+    public static long getMatchNanos() {
+        return MATCH_NANOS.get();
+    }
+
+    public static long getTransformedCount() {
+        return TRANSFORMED_COUNT.get();
+    }
+
+    public static long getIgnoredCount() {
+        return IGNORED_COUNT.get();
+    }
+
+    public static long getErrorCount() {
+        return ERROR_COUNT.get();
+    }
+
+    /**
+     * 记录一个被类名过滤器直接排除的类
+     */
+    public static void recordRejected() {
+        REJECTED_COUNT.incrementAndGet();
+    }
+
+    /**
+     * 记录一次插件声明器通过类名跳过的匹配
+     */
+    public static void recordSkipped() {
+        SKIPPED_COUNT.incrementAndGet();
+    }
+
+    /**
+     * 包装插件描述器的匹配方法，统计匹配次数和耗时
+     *
+     * @param plugin 插件描述器
+     * @return 统计匹配次数和耗时的匹配器
+     */
+    public static AgentBuilder.RawMatcher timing(PluginDescription plugin) {
+        return new AgentBuilder.RawMatcher() {
+            @Override
+            public boolean matches(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module,
+                    Class<?> classBeingRedefined, ProtectionDomain protectionDomain) {
+                final long startTime = System.nanoTime();
+                try {
+                    final boolean isMatched =
+                            plugin.matches(typeDescription, classLoader, module, classBeingRedefined, protectionDomain);
+                    if (isMatched) {
+                        MATCHED_COUNT.incrementAndGet();
+                    }
+                    return isMatched;
+                } finally {
+                    MATCH_NANOS.addAndGet(System.nanoTime() - startTime);
+                }
+            }
+        };
+    }
+
+    /**
+     * 获取统计增强结果的监听器
+     *
+     * @return 监听器
+     */
+    public static AgentBuilder.Listener listener() {
+        return new AgentBuilder.Listener.Adapter() {
+            @Override
+            public void onTransformation(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module,
+                    boolean loaded, DynamicType dynamicType) {
+                TRANSFORMED_COUNT.incrementAndGet();
+                trySummary();
+            }
+
+            @Override
+            public void onIgnored(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module,
+                    boolean loaded) {
+                IGNORED_COUNT.incrementAndGet();
+                trySummary();
+            }
+
+            @Override
+            public void onError(String typeName, ClassLoader classLoader, JavaModule module, boolean loaded,
+                    Throwable throwable) {
+                ERROR_COUNT.incrementAndGet();
+                trySummary();
+            }
+        };
+    }
+
+    /**
+     * 距上次输出超过{@link #SUMMARY_INTERVAL_MILLIS}时输出统计指标的概要，并发时仅由一个线程输出
+     */
+    private static void trySummary() {
+        final long now = System.currentTimeMillis();
+        final long last = LAST_SUMMARY_MILLIS.get();
+        if (now - last >= SUMMARY_INTERVAL_MILLIS && LAST_SUMMARY_MILLIS.compareAndSet(last, now)) {
+            LOGGER.info("Enhance metrics: " + summary());
+        }
+    }
+
+    /**
+     * 添加在关闭时输出统计指标概要的钩子
+     */
+    public static void addSummaryHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                LOGGER.info("Enhance metrics: " + summary());
+            }
+        }));
+    }
+
+    /**
+     * 输出统计指标的概要
+     *
+     * @return 统计指标的概要
+     */
+    public static String summary() {
+        return String.format(Locale.ROOT,
+                "transformed: %d, ignored: %d (rejected by name: %d), errors: %d, matched: %d, "
+                        + "skipped by name: %d, match time: %d ms",
+                TRANSFORMED_COUNT.get(), IGNORED_COUNT.get(), REJECTED_COUNT.get(), ERROR_COUNT.get(),
+                MATCHED_COUNT.get(), SKIPPED_COUNT.get(), TimeUnit.NANOSECONDS.toMillis(MATCH_NANOS.get()));
+    }
+}
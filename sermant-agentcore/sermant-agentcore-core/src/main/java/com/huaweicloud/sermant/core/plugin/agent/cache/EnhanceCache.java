@@ -0,0 +1,638 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent.cache;
+
+import com.huaweicloud.sermant.core.common.BootArgsIndexer;
+import com.huaweicloud.sermant.core.common.CommonConstant;
+import com.huaweicloud.sermant.core.common.LoggerFactory;
+import com.huaweicloud.sermant.core.plugin.agent.config.AgentConfig;
+import com.huaweicloud.sermant.core.utils.FileUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * 增强缓存，持久化被增强类的增强结果，供后续启动时直接复用
+ * <p>缓存存放于以指纹命名的目录中，指纹由agent包、插件包、配置文件及应用classpath的文件信息计算而来，任一变更都将使缓存失效
+ * <p>缓存键仅用于检索，命中后仍需校验类名和类加载器类型，避免缓存键冲突时错误地跳过增强
+ * <p>缓存内容分为两部分：
+ * <pre>
+ *     1.未被增强的类，记录其缓存键、类名和类加载器类型，统一存放于{@link #IGNORED_INDEX_FILE_NAME}文件中，在关闭时写入
+ *     2.被增强的类，记录其增强后的字节码和被增强方法的方法键，每个类单独存放一个文件，在增强后立即写入
+ * </pre>
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class EnhanceCache {
+    /**
+     * 日志
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger();
+
+    /**
+     * 缓存文件的格式版本，格式或增强方式变更时需要递增
+     */
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * 默认的缓存目录名称
+     */
+    private static final String DEFAULT_CACHE_DIR_NAME = "cache";
+
+    /**
+     * 未被增强类的索引文件名称
+     */
+    private static final String IGNORED_INDEX_FILE_NAME = "ignored.idx";
+
+    /**
+     * 被增强类的缓存文件后缀
+     */
+    private static final String ENHANCED_FILE_SUFFIX = ".class";
+
+    /**
+     * 临时文件后缀
+     */
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    /**
+     * 指纹所取摘要的字节数
+     */
+    private static final int FINGERPRINT_BYTES = 8;
+
+    /**
+     * 缓存目录名称的格式，即指纹的格式
+     */
+    private static final Pattern FINGERPRINT_PATTERN = Pattern.compile("[0-9a-f]{16}");
+
+    /**
+     * 十六进制的基数
+     */
+    private static final int HEX_RADIX = 16;
+
+    /**
+     * 缓存目录
+     */
+    private final File cacheDir;
+
+    /**
+     * 启动时读取的未被增强类的缓存键，有序
+     */
+    private final long[] ignoredKeys;
+
+    /**
+     * 启动时读取的未被增强类，与{@link #ignoredKeys}一一对应
+     */
+    private final IgnoredClass[] ignoredClasses;
+
+    /**
+     * 本次启动新增的未被增强类，以缓存键为键
+     */
+    private final Map<Long, IgnoredClass> newIgnoredClasses = new ConcurrentHashMap<>();
+
+    /**
+     * 被增强类的缓存键
+     */
+    private final Set<Long> enhancedKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 命中缓存的次数
+     */
+    private final AtomicInteger hitCount = new AtomicInteger();
+
+    /**
+     * 未命中缓存的次数
+     */
+    private final AtomicInteger missCount = new AtomicInteger();
+
+    private EnhanceCache(File cacheDir, long[] ignoredKeys, IgnoredClass[] ignoredClasses) {
+        this.cacheDir = cacheDir;
+        this.ignoredKeys = ignoredKeys;
+        this.ignoredClasses = ignoredClasses;
+    }
+
+    /**
+     * 依据配置构建增强缓存，并在关闭时写入未被增强类的索引，见{@link #flush}
+     *
+     * @param config 增强配置
+     * @return 增强缓存，若未开启或缓存目录不可用，则返回null
+     */
+    public static EnhanceCache build(AgentConfig config) {
+        if (!config.isEnhanceCacheEnable()) {
+            return null;
+        }
+        final String cachePath = config.getEnhanceCachePath();
+        final File rootDir;
+        if (cachePath != null && !cachePath.isEmpty()) {
+            rootDir = new File(cachePath);
+        } else if (BootArgsIndexer.getAgentDir() != null) {
+            rootDir = new File(BootArgsIndexer.getAgentDir(), DEFAULT_CACHE_DIR_NAME);
+        } else {
+            LOGGER.warning("Enhance cache path is not specified, cache is disabled. ");
+            return null;
+        }
+        final String fingerprint;
+        try {
+            fingerprint = getFingerprint();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            LOGGER.log(Level.WARNING, "Compute fingerprint of enhance cache failed, cache is disabled. ", e);
+            return null;
+        }
+        removeStaleCaches(rootDir, fingerprint);
+        final EnhanceCache cache = load(new File(rootDir, fingerprint));
+        if (cache == null) {
+            return null;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                cache.flush();
+            }
+        }));
+        return cache;
+    }
+
+    /**
+     * 加载缓存目录中的增强缓存，目录不存在时创建
+     *
+     * @param cacheDir 缓存目录
+     * @return 增强缓存，若缓存目录不可用，则返回null
+     */
+    static EnhanceCache load(File cacheDir) {
+        if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+            LOGGER.warning(String.format(Locale.ROOT, "Create cache directory [%s] failed, cache is disabled. ",
+                    cacheDir.getPath()));
+            return null;
+        }
+        final Map<Long, IgnoredClass> ignoredIndex = readIgnoredIndex(new File(cacheDir, IGNORED_INDEX_FILE_NAME));
+        final long[] ignoredKeys = new long[ignoredIndex.size()];
+        final IgnoredClass[] ignoredClasses = new IgnoredClass[ignoredIndex.size()];
+        int index = 0;
+        for (Map.Entry<Long, IgnoredClass> entry : ignoredIndex.entrySet()) {
+            ignoredKeys[index] = entry.getKey();
+            ignoredClasses[index++] = entry.getValue();
+        }
+        final EnhanceCache cache = new EnhanceCache(cacheDir, ignoredKeys, ignoredClasses);
+        cache.loadEnhancedKeys();
+        LOGGER.info(String.format(Locale.ROOT, "Enhance cache [%s] loaded, %d ignored and %d enhanced classes. ",
+                cacheDir.getPath(), ignoredKeys.length, cache.enhancedKeys.size()));
+        return cache;
+    }
+
+    /**
+     * 计算类的缓存键，由类名、类加载器类型、字节码长度及字节码校验和构成
+     *
+     * @param typeName   类的全限定名
+     * @param loaderName 类加载器的类型名称
+     * @param length     字节码长度
+     * @param checksum   字节码校验和
+     * @return 缓存键
+     */
+    public static long getKey(String typeName, String loaderName, int length, int checksum) {
+        final int nameHash = (typeName.hashCode() * 31 + loaderName.hashCode()) * 31 + length;
+        return ((long) checksum << Integer.SIZE) | (nameHash & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 判断类是否在以往的启动中未被增强，缓存键命中后校验类名和类加载器类型
+     *
+     * @param key        缓存键
+     * @param typeName   类的全限定名
+     * @param loaderName 类加载器的类型名称
+     * @return 是否未被增强
+     */
+    public boolean isIgnored(long key, String typeName, String loaderName) {
+        final int index = Arrays.binarySearch(ignoredKeys, key);
+        final IgnoredClass ignoredClass = index >= 0 ? ignoredClasses[index] : newIgnoredClasses.get(key);
+        if (ignoredClass != null && ignoredClass.matches(typeName, loaderName)) {
+            hitCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 获取被增强类的缓存，将校验缓存中记录的类信息是否与当前类一致
+     *
+     * @param key        缓存键
+     * @param typeName   类的全限定名
+     * @param loaderName 类加载器的类型名称
+     * @param length     原字节码长度
+     * @param checksum   原字节码校验和
+     * @return 被增强类的缓存，若不存在或校验不通过，则返回null
+     */
+    public EnhancedClass getEnhanced(long key, String typeName, String loaderName, int length, int checksum) {
+        if (!enhancedKeys.contains(key)) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        final File file = getEnhancedFile(key);
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != FORMAT_VERSION || !typeName.equals(input.readUTF())
+                    || !loaderName.equals(input.readUTF()) || input.readInt() != length
+                    || input.readInt() != checksum) {
+                missCount.incrementAndGet();
+                return null;
+            }
+            final int methodKeySize = input.readInt();
+            final List<String> methodKeys = new ArrayList<>(methodKeySize);
+            for (int i = 0; i < methodKeySize; i++) {
+                methodKeys.add(input.readUTF());
+            }
+            final byte[] enhancedBytes = new byte[input.readInt()];
+            input.readFully(enhancedBytes);
+            hitCount.incrementAndGet();
+            return new EnhancedClass(methodKeys, enhancedBytes);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format(Locale.ROOT, "Read enhance cache of [%s] failed. ", typeName), e);
+            enhancedKeys.remove(key);
+            missCount.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * 记录未被增强的类，缓存键冲突时保留先记录的类
+     *
+     * @param key        缓存键
+     * @param typeName   类的全限定名
+     * @param loaderName 类加载器的类型名称
+     */
+    public void saveIgnored(long key, String typeName, String loaderName) {
+        newIgnoredClasses.putIfAbsent(key, new IgnoredClass(typeName, loaderName));
+    }
+
+    /**
+     * 写入被增强类的缓存
+     *
+     * @param key           缓存键
+     * @param typeName      类的全限定名
+     * @param loaderName    类加载器的类型名称
+     * @param length        原字节码长度
+     * @param checksum      原字节码校验和
+     * @param enhancedClass 增强结果
+     */
+    public void saveEnhanced(long key, String typeName, String loaderName, int length, int checksum,
+            EnhancedClass enhancedClass) {
+        final File tempFile;
+        try {
+            tempFile = File.createTempFile(typeName, TEMP_FILE_SUFFIX, cacheDir);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format(Locale.ROOT, "Write enhance cache of [%s] failed. ", typeName), e);
+            return;
+        }
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(tempFile)))) {
+            output.writeInt(FORMAT_VERSION);
+            output.writeUTF(typeName);
+            output.writeUTF(loaderName);
+            output.writeInt(length);
+            output.writeInt(checksum);
+            output.writeInt(enhancedClass.getMethodKeys().size());
+            for (String methodKey : enhancedClass.getMethodKeys()) {
+                output.writeUTF(methodKey);
+            }
+            output.writeInt(enhancedClass.getEnhancedBytes().length);
+            output.write(enhancedClass.getEnhancedBytes());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format(Locale.ROOT, "Write enhance cache of [%s] failed. ", typeName), e);
+            FileUtils.deleteDirs(tempFile);
+            return;
+        }
+        if (moveFile(tempFile, getEnhancedFile(key))) {
+            enhancedKeys.add(key);
+        }
+    }
+
+    /**
+     * 将本次启动新增的未被增强类写入索引文件
+     */
+    public void flush() {
+        LOGGER.info(String.format(Locale.ROOT, "Enhance cache hit %d times and missed %d times. ", hitCount.get(),
+                missCount.get()));
+        if (newIgnoredClasses.isEmpty()) {
+            return;
+        }
+        final Map<Long, IgnoredClass> ignoredIndex = new TreeMap<>();
+        for (int i = 0; i < ignoredKeys.length; i++) {
+            ignoredIndex.put(ignoredKeys[i], ignoredClasses[i]);
+        }
+        for (Map.Entry<Long, IgnoredClass> entry : newIgnoredClasses.entrySet()) {
+            ignoredIndex.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        File tempFile = null;
+        try {
+            tempFile = File.createTempFile(IGNORED_INDEX_FILE_NAME, TEMP_FILE_SUFFIX, cacheDir);
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(tempFile)))) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeInt(ignoredIndex.size());
+                for (Map.Entry<Long, IgnoredClass> entry : ignoredIndex.entrySet()) {
+                    output.writeLong(entry.getKey());
+                    output.writeUTF(entry.getValue().typeName);
+                    output.writeUTF(entry.getValue().loaderName);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Write ignored index of enhance cache failed. ", e);
+            if (tempFile != null) {
+                FileUtils.deleteDirs(tempFile);
+            }
+            return;
+        }
+        moveFile(tempFile, new File(cacheDir, IGNORED_INDEX_FILE_NAME));
+    }
+
+    /**
+     * 获取被增强类的缓存文件
+     *
+     * @param key 缓存键
+     * @return 缓存文件
+     */
+    private File getEnhancedFile(long key) {
+        return new File(cacheDir, String.format(Locale.ROOT, "%016x", key) + ENHANCED_FILE_SUFFIX);
+    }
+
+    /**
+     * 从缓存目录中检索所有被增强类的缓存键
+     */
+    private void loadEnhancedKeys() {
+        final File[] files = cacheDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            final String fileName = file.getName();
+            if (!fileName.endsWith(ENHANCED_FILE_SUFFIX)) {
+                continue;
+            }
+            final String keyStr = fileName.substring(0, fileName.length() - ENHANCED_FILE_SUFFIX.length());
+            if (FINGERPRINT_PATTERN.matcher(keyStr).matches()) {
+                enhancedKeys.add(Long.parseUnsignedLong(keyStr, HEX_RADIX));
+            }
+        }
+    }
+
+    /**
+     * 读取未被增强类的索引文件，相同的类加载器类型名称共用一个字符串
+     *
+     * @param file 索引文件
+     * @return 以缓存键排序的未被增强类，若文件不存在或格式不符，则返回空集合
+     */
+    private static Map<Long, IgnoredClass> readIgnoredIndex(File file) {
+        final Map<Long, IgnoredClass> ignoredIndex = new TreeMap<>();
+        if (!file.exists()) {
+            return ignoredIndex;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                return ignoredIndex;
+            }
+            final Map<String, String> loaderNames = new HashMap<>();
+            final int size = input.readInt();
+            for (int i = 0; i < size; i++) {
+                final long key = input.readLong();
+                final String typeName = input.readUTF();
+                final String loaderName = loaderNames.computeIfAbsent(input.readUTF(), name -> name);
+                ignoredIndex.put(key, new IgnoredClass(typeName, loaderName));
+            }
+            return ignoredIndex;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Read ignored index of enhance cache failed. ", e);
+            return new TreeMap<>();
+        }
+    }
+
+    /**
+     * 移除指纹不符的缓存目录
+     *
+     * @param rootDir     缓存根目录
+     * @param fingerprint 当前指纹
+     */
+    static void removeStaleCaches(File rootDir, String fingerprint) {
+        final File[] dirs = rootDir.listFiles();
+        if (dirs == null) {
+            return;
+        }
+        for (File dir : dirs) {
+            if (dir.isDirectory() && !dir.getName().equals(fingerprint)
+                    && FINGERPRINT_PATTERN.matcher(dir.getName()).matches() && !FileUtils.deleteDirs(dir)) {
+                LOGGER.warning(String.format(Locale.ROOT, "Remove stale enhance cache [%s] failed. ", dir.getPath()));
+            }
+        }
+    }
+
+    /**
+     * 以替换的方式移动文件，优先使用原子操作
+     *
+     * @param source 源文件
+     * @param target 目标文件
+     * @return 是否移动成功
+     */
+    private static boolean moveFile(File source, File target) {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException ignored) {
+            try {
+                Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                return true;
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, String.format(Locale.ROOT, "Move file [%s] failed. ", source.getPath()), e);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 计算缓存的指纹，包含以下内容：
+     * <pre>
+     *     1.缓存格式版本，agent版本及java版本
+     *     2.agent目录下的jar包，核心功能实现包，所有插件包及配置文件的路径、大小和修改时间
+     *     3.应用classpath中的条目，jar包计入其路径、大小和修改时间，文件夹仅计入路径
+     * </pre>
+     * 被缓存的类以其字节码校验和作为缓存键的一部分，应用类的变更已由缓存键体现，因此不遍历classpath中的文件夹
+     *
+     * @return 指纹
+     * @throws IOException              读取文件信息失败
+     * @throws NoSuchAlgorithmException 摘要算法不可用
+     */
+    private static String getFingerprint() throws IOException, NoSuchAlgorithmException {
+        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        update(digest, String.valueOf(FORMAT_VERSION));
+        update(digest, BootArgsIndexer.getCoreVersion());
+        update(digest, System.getProperty("java.version"));
+        final File agentDir = BootArgsIndexer.getAgentDir();
+        final File[] agentFiles = agentDir == null ? null : agentDir.listFiles();
+        if (agentFiles != null) {
+            Arrays.sort(agentFiles);
+            for (File agentFile : agentFiles) {
+                if (agentFile.isFile()) {
+                    updateFileStamp(digest, agentFile);
+                }
+            }
+        }
+        updateFileStamp(digest, new File(EnhanceCache.class.getProtectionDomain().getCodeSource().getLocation()
+                .getPath()));
+        updateFileStamp(digest, BootArgsIndexer.getImplementDir());
+        updateFileStamp(digest, BootArgsIndexer.getPluginPackageDir());
+        updateFileStamp(digest, BootArgsIndexer.getConfigFile());
+        updateFileStamp(digest, BootArgsIndexer.getPluginSettingFile());
+        final String classPath = System.getProperty("java.class.path");
+        if (classPath != null) {
+            for (String path : classPath.split(File.pathSeparator)) {
+                final File file = new File(path);
+                if (file.isDirectory()) {
+                    update(digest, file.getCanonicalPath());
+                } else {
+                    updateFileStamp(digest, file);
+                }
+            }
+        }
+        final byte[] bytes = digest.digest();
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < FINGERPRINT_BYTES; i++) {
+            sb.append(String.format(Locale.ROOT, "%02x", bytes[i]));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 将文件的路径、大小和修改时间计入摘要，文件夹将递归计入其中所有文件
+     *
+     * @param digest 摘要
+     * @param file   文件或文件夹，为null时不计入
+     * @throws IOException 获取文件路径失败
+     */
+    private static void updateFileStamp(MessageDigest digest, File file) throws IOException {
+        if (file == null) {
+            return;
+        }
+        update(digest, file.getCanonicalPath());
+        if (file.isDirectory()) {
+            final File[] children = file.listFiles();
+            if (children == null) {
+                return;
+            }
+            Arrays.sort(children);
+            for (File child : children) {
+                updateFileStamp(digest, child);
+            }
+        } else {
+            update(digest, file.length() + ":" + file.lastModified());
+        }
+    }
+
+    /**
+     * 将字符串计入摘要
+     *
+     * @param digest 摘要
+     * @param str    字符串
+     */
+    private static void update(MessageDigest digest, String str) {
+        digest.update(String.valueOf(str).getBytes(CommonConstant.DEFAULT_CHARSET));
+        digest.update((byte) 0);
+    }
+
+    /**
+     * 未被增强的类，用于校验缓存键命中的类是否与当前类一致
+     *
+     * @since 2022-09-28
+     */
+    private static class IgnoredClass {
+        /**
+         * 类的全限定名
+         */
+        private final String typeName;
+
+        /**
+         * 类加载器的类型名称
+         */
+        private final String loaderName;
+
+        IgnoredClass(String typeName, String loaderName) {
+            this.typeName = typeName;
+            this.loaderName = loaderName;
+        }
+
+        boolean matches(String otherTypeName, String otherLoaderName) {
+            return typeName.equals(otherTypeName) && loaderName.equals(otherLoaderName);
+        }
+    }
+
+    /**
+     * 被增强类的缓存，包含增强后的字节码及被增强方法的方法键
+     *
+     * @since 2022-09-28
+     */
+    public static class EnhancedClass {
+        /**
+         * 被增强方法的方法键，按拦截器数组集的下标排列
+         */
+        private final List<String> methodKeys;
+
+        /**
+         * 增强后的字节码
+         */
+        private final byte[] enhancedBytes;
+
+        /**
+         * 构造函数
+         *
+         * @param methodKeys    被增强方法的方法键
+         * @param enhancedBytes 增强后的字节码
+         */
+        public EnhancedClass(List<String> methodKeys, byte[] enhancedBytes) {
+            this.methodKeys = Collections.unmodifiableList(methodKeys);
+            this.enhancedBytes = enhancedBytes;
+        }
+
+        public List<String> getMethodKeys() {
+            return methodKeys;
+        }
+
+        public byte[] getEnhancedBytes() {
+            return enhancedBytes;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent.cache;
+
+import com.huaweicloud.sermant.core.common.LoggerFactory;
+import com.huaweicloud.sermant.core.plugin.agent.config.AgentConfig;
+import com.huaweicloud.sermant.core.plugin.agent.declarer.PluginDescription;
+import com.huaweicloud.sermant.core.plugin.agent.transformer.AdviceTransformer;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.utility.JavaModule;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * 增强缓存的转换器，需先于byte-buddy的转换器注册，对于非启动类加载器加载的类：
+ * <pre>
+ *     1.若以往的启动中该类未被增强，则记为已处理，byte-buddy将直接忽略该类
+ *     2.若以往的启动中该类已被增强，则重放插件对该类的匹配以注册拦截器，随后记为已处理并直接返回缓存的字节码
+ *     3.若没有缓存，则交由byte-buddy处理，并作为byte-buddy的监听器记录处理结果
+ * </pre>
+ * 已处理的类由byte-buddy的忽略规则检查，见{@link #isResolved}
+ * <p>注意，重定义的类、启动类加载器加载的类，以及增强结果依赖于类加载时初始化器的类都不会被缓存
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class EnhanceCacheTransformer extends AgentBuilder.Listener.Adapter implements ClassFileTransformer {
+    /**
+     * 日志
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger();
+
+    /**
+     * 线程正在处理的类
+     */
+    private static final ThreadLocal<ThreadState> THREAD_STATE = new ThreadLocal<ThreadState>() {
+        @Override
+        protected ThreadState initialValue() {
+            return new ThreadState();
+        }
+    };
+
+    /**
+     * 增强缓存
+     */
+    private final EnhanceCache cache;
+
+    /**
+     * 插件描述器列表，用于重放插件对被增强类的匹配和增强
+     */
+    private final List<PluginDescription> plugins = new ArrayList<>();
+
+    /**
+     * 重放时解析类型描述的策略，与byte-buddy共用
+     */
+    private final AgentBuilder.PoolStrategy poolStrategy;
+
+    EnhanceCacheTransformer(EnhanceCache cache, AgentBuilder.PoolStrategy poolStrategy) {
+        this.cache = cache;
+        this.poolStrategy = poolStrategy;
+    }
+
+    /**
+     * 依据配置构建增强缓存的转换器，见{@link EnhanceCache#build}
+     *
+     * @param config       增强配置
+     * @param poolStrategy 解析类型描述的策略
+     * @return 增强缓存的转换器，若未开启或缓存不可用，则返回null
+     */
+    public static EnhanceCacheTransformer build(AgentConfig config, AgentBuilder.PoolStrategy poolStrategy) {
+        final EnhanceCache cache = EnhanceCache.build(config);
+        return cache == null ? null : new EnhanceCacheTransformer(cache, poolStrategy);
+    }
+
+    /**
+     * 添加插件，需与添加至byte-buddy的插件顺序一致
+     *
+     * @param pluginDescriptions 插件描述列表
+     */
+    public void addPlugins(Iterable<PluginDescription> pluginDescriptions) {
+        for (PluginDescription plugin : pluginDescriptions) {
+            plugins.add(plugin);
+        }
+    }
+
+    /**
+     * 判断类是否已由增强缓存处理，检查后移除处理记录
+     *
+     * @param typeName    类的全限定名
+     * @param classLoader 类加载器
+     * @return 是否已处理
+     */
+    public boolean isResolved(String typeName, ClassLoader classLoader) {
+        final ThreadState state = THREAD_STATE.get();
+        final Record record = state.get(typeName, classLoader);
+        if (record == null || !record.isResolved) {
+            return false;
+        }
+        state.records.remove(typeName);
+        return true;
+    }
+
+    @Override
+    public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+            ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+        final ThreadState state = THREAD_STATE.get();
+        if (loader == null || className == null || classBeingRedefined != null || state.isTransforming) {
+            return null;
+        }
+        state.isTransforming = true;
+        try {
+            return doTransform(state, loader, className.replace('/', '.'), protectionDomain, classfileBuffer);
+        } finally {
+            state.isTransforming = false;
+        }
+    }
+
+    /**
+     * 计算类的缓存键并查询增强缓存
+     *
+     * @param state            线程的处理状态
+     * @param loader           类加载器
+     * @param typeName         类的全限定名
+     * @param protectionDomain 保护域
+     * @param classfileBuffer  原字节码
+     * @return 缓存的增强后字节码，若没有缓存，则返回null
+     */
+    private byte[] doTransform(ThreadState state, ClassLoader loader, String typeName,
+            ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(classfileBuffer, 0, classfileBuffer.length);
+        final Record record = new Record(loader, typeName, classfileBuffer.length, (int) crc32.getValue());
+        state.records.put(typeName, record);
+        if (cache.isIgnored(record.key, typeName, record.loaderName)) {
+            record.isResolved = true;
+            return null;
+        }
+        final EnhanceCache.EnhancedClass enhancedClass = cache.getEnhanced(record.key, typeName,
+                record.loaderName, record.length, record.checksum);
+        if (enhancedClass == null) {
+            return null;
+        }
+        if (!replay(loader, typeName, protectionDomain, classfileBuffer, enhancedClass.getMethodKeys())) {
+            return null;
+        }
+        record.isResolved = true;
+        return enhancedClass.getEnhancedBytes();
+    }
+
+    /**
+     * 重放插件对被增强类的匹配，仅为缓存的被增强方法注册拦截声明器，不再生成字节码
+     * <p>插件传入的构建器仅用于收集增强记录，不会被构建。缓存目录的指纹已涵盖插件和agent包，缓存键涵盖类名、类加载器类型和原字节码，
+     * 因此重放所得的被增强方法与缓存一致时，缓存的字节码即为本次增强的结果；否则移除重放产生的增强记录，视为没有缓存
+     *
+     * @param loader           类加载器
+     * @param typeName         类的全限定名
+     * @param protectionDomain 保护域
+     * @param classfileBuffer  原字节码
+     * @param methodKeys       缓存的被增强方法的方法键
+     * @return 是否重放成功
+     */
+    private boolean replay(ClassLoader loader, String typeName, ProtectionDomain protectionDomain,
+            byte[] classfileBuffer, List<String> methodKeys) {
+        final ClassFileLocator locator = new ClassFileLocator.Compound(
+                ClassFileLocator.Simple.of(typeName, classfileBuffer), ClassFileLocator.ForClassLoader.of(loader));
+        try {
+            final TypeDescription typeDesc = poolStrategy.typePool(locator, loader)
+                    .describe(typeName).resolve();
+            DynamicType.Builder<?> builder = new ByteBuddy().redefine(typeDesc, locator);
+            for (PluginDescription plugin : plugins) {
+                if (plugin.matches(typeDesc, loader, JavaModule.UNSUPPORTED, null, protectionDomain)) {
+                    builder = plugin.transform(builder, typeDesc, loader, JavaModule.UNSUPPORTED);
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, String.format(Locale.ROOT, "Replay enhancement of [%s] failed. ", typeName), e);
+            AdviceTransformer.removeEnhanceRecord(loader, typeName);
+            return false;
+        }
+        if (!methodKeys.equals(AdviceTransformer.getMethodKeys(loader, typeName))) {
+            LOGGER.warning(String.format(Locale.ROOT, "Enhance cache of [%s] is out of date. ", typeName));
+            AdviceTransformer.removeEnhanceRecord(loader, typeName);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void onTransformation(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module,
+            boolean loaded, DynamicType dynamicType) {
+        final String typeName = typeDescription.getName();
+        final Record record = THREAD_STATE.get().consume(typeName, classLoader);
+        if (record == null || record.isResolved || !dynamicType.getAuxiliaryTypes().isEmpty()
+                || dynamicType.hasAliveLoadedTypeInitializers()) {
+            return;
+        }
+        cache.saveEnhanced(record.key, typeName, record.loaderName, record.length, record.checksum,
+                new EnhanceCache.EnhancedClass(AdviceTransformer.getMethodKeys(classLoader, typeName),
+                        dynamicType.getBytes()));
+    }
+
+    @Override
+    public void onIgnored(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module,
+            boolean loaded) {
+        final Record record = THREAD_STATE.get().consume(typeDescription.getName(), classLoader);
+        if (record != null && !record.isResolved) {
+            cache.saveIgnored(record.key, typeDescription.getName(), record.loaderName);
+        }
+    }
+
+    @Override
+    public void onComplete(String typeName, ClassLoader classLoader, JavaModule module, boolean loaded) {
+        THREAD_STATE.get().consume(typeName, classLoader);
+    }
+
+    /**
+     * 线程的处理状态
+     *
+     * @since 2022-09-28
+     */
+    private static class ThreadState {
+        /**
+         * 正在处理的类的记录，以类的全限定名为键
+         */
+        private final Map<String, Record> records = new HashMap<>();
+
+        /**
+         * 是否正在处理，处理过程中触发的类加载不经过增强缓存
+         */
+        private boolean isTransforming;
+
+        /**
+         * 获取类的处理记录
+         *
+         * @param typeName    类的全限定名
+         * @param classLoader 类加载器
+         * @return 处理记录，若不存在或类加载器不一致，则返回null
+         */
+        private Record get(String typeName, ClassLoader classLoader) {
+            final Record record = records.get(typeName);
+            return record == null || record.classLoader != classLoader ? null : record;
+        }
+
+        /**
+         * 取出类的处理记录
+         *
+         * @param typeName    类的全限定名
+         * @param classLoader 类加载器
+         * @return 处理记录，若不存在或类加载器不一致，则返回null
+         */
+        private Record consume(String typeName, ClassLoader classLoader) {
+            final Record record = get(typeName, classLoader);
+            if (record != null) {
+                records.remove(typeName);
+            }
+            return record;
+        }
+    }
+
+    /**
+     * 类的处理记录
+     *
+     * @since 2022-09-28
+     */
+    private static class Record {
+        /**
+         * 类加载器
+         */
+        private final ClassLoader classLoader;
+
+        /**
+         * 类加载器的类型名称
+         */
+        private final String loaderName;
+
+        /**
+         * 原字节码长度
+         */
+        private final int length;
+
+        /**
+         * 原字节码校验和
+         */
+        private final int checksum;
+
+        /**
+         * 缓存键
+         */
+        private final long key;
+
+        /**
+         * 是否已由增强缓存处理
+         */
+        private boolean isResolved;
+
+        Record(ClassLoader classLoader, String typeName, int length, int checksum) {
+            this.classLoader = classLoader;
+            this.loaderName = classLoader.getClass().getName();
+            this.length = length;
+            this.checksum = checksum;
+            this.key = EnhanceCache.getKey(typeName, loaderName, length, checksum);
+        }
+    }
+}
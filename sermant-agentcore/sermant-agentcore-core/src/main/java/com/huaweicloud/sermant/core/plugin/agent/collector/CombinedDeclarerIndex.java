@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent.collector;
+
+import com.huaweicloud.sermant.core.plugin.agent.EnhanceMetrics;
+import com.huaweicloud.sermant.core.plugin.agent.declarer.PluginDeclarer;
+import com.huaweicloud.sermant.core.plugin.agent.matcher.ClassMatcher;
+import com.huaweicloud.sermant.core.plugin.agent.matcher.TypeNameTrie;
+
+import net.bytebuddy.description.type.TypeDescription;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 合并插件声明器的索引，用于查找被增强类对应的插件声明器
+ * <pre>
+ *     1.按名称匹配的插件声明器在构建时建立名称索引，构建后只读
+ *     2.模糊匹配的插件声明器在匹配时逐一判断，能仅通过类名判断的插件声明器先以类名过滤，匹配结果按线程暂存，由同一线程随后的增强操作取出
+ * </pre>
+ * byte-buddy对同一个类的匹配和增强在同一线程中完成，因此该索引无需加锁即可支持并行类加载，且不同类加载器加载的同名类互不影响
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+class CombinedDeclarerIndex {
+    /**
+     * 被增强类名与按名称匹配的插件声明器的索引
+     */
+    private final Map<String, List<PluginDeclarer>> nameIndex;
+
+    /**
+     * 模糊匹配的插件声明器列表
+     */
+    private final List<PluginDeclarer> fuzzyDeclarers;
+
+    /**
+     * 模糊匹配的插件声明器的类名过滤器，与{@link #fuzzyDeclarers}一一对应，无法仅通过类名判断的插件声明器对应null
+     */
+    private final TypeNameTrie[] fuzzyNameFilters;
+
+    /**
+     * 当前线程匹配成功且包含模糊匹配的插件声明器的匹配结果，以类名为键
+     */
+    private final ThreadLocal<Map<String, List<PluginDeclarer>>> matchedDeclarers =
+            ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * 构造函数
+     *
+     * @param nameIndex      被增强类名与按名称匹配的插件声明器的索引
+     * @param fuzzyDeclarers 模糊匹配的插件声明器列表
+     */
+    CombinedDeclarerIndex(Map<String, List<PluginDeclarer>> nameIndex, List<PluginDeclarer> fuzzyDeclarers) {
+        final Map<String, List<PluginDeclarer>> index = new HashMap<>();
+        for (Map.Entry<String, List<PluginDeclarer>> entry : nameIndex.entrySet()) {
+            index.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+        }
+        this.nameIndex = Collections.unmodifiableMap(index);
+        this.fuzzyDeclarers = Collections.unmodifiableList(new ArrayList<>(fuzzyDeclarers));
+        this.fuzzyNameFilters = new TypeNameTrie[this.fuzzyDeclarers.size()];
+        for (int i = 0; i < fuzzyNameFilters.length; i++) {
+            fuzzyNameFilters[i] = buildNameFilter(this.fuzzyDeclarers.get(i).getClassMatcher());
+        }
+    }
+
+    /**
+     * 构建类的匹配器的类名过滤器，见{@link ClassMatcher#getNamePrefixes(ClassMatcher)}
+     *
+     * @param matcher 类的匹配器
+     * @return 类名过滤器，若无法仅通过类名判断，则返回null
+     */
+    private static TypeNameTrie buildNameFilter(ClassMatcher matcher) {
+        final Set<String> prefixes = ClassMatcher.getNamePrefixes(matcher);
+        if (prefixes == null) {
+            return null;
+        }
+        final TypeNameTrie trie = new TypeNameTrie();
+        for (String prefix : prefixes) {
+            trie.addPrefix(prefix);
+        }
+        return trie;
+    }
+
+    /**
+     * 获取按名称匹配的被增强类名集
+     *
+     * @return 被增强类名集
+     */
+    Set<String> getTypeNames() {
+        return nameIndex.keySet();
+    }
+
+    /**
+     * 获取模糊匹配的插件声明器列表
+     *
+     * @return 模糊匹配的插件声明器列表
+     */
+    List<PluginDeclarer> getFuzzyDeclarers() {
+        return fuzzyDeclarers;
+    }
+
+    /**
+     * 判断类是否被任意插件声明器匹配，若被模糊匹配的插件声明器匹配，则暂存匹配结果供{@link #take}取出
+     *
+     * @param target 类的描述器
+     * @return 是否匹配
+     */
+    boolean match(TypeDescription target) {
+        final String typeName = target.getActualName();
+        final List<PluginDeclarer> namedDeclarers = nameIndex.get(typeName);
+        if (fuzzyDeclarers.isEmpty()) {
+            return namedDeclarers != null;
+        }
+        List<PluginDeclarer> declarers = null;
+        for (int i = 0; i < fuzzyNameFilters.length; i++) {
+            if (fuzzyNameFilters[i] != null && !fuzzyNameFilters[i].matches(typeName)) {
+                EnhanceMetrics.recordSkipped();
+                continue;
+            }
+            final PluginDeclarer pluginDeclarer = fuzzyDeclarers.get(i);
+            if (pluginDeclarer.getClassMatcher().matches(target)) {
+                if (declarers == null) {
+                    declarers = namedDeclarers == null ? new ArrayList<>() : new ArrayList<>(namedDeclarers);
+                }
+                declarers.add(pluginDeclarer);
+            }
+        }
+        final Map<String, List<PluginDeclarer>> matched = matchedDeclarers.get();
+        if (declarers == null) {
+            matched.remove(typeName);
+            return namedDeclarers != null;
+        }
+        matched.put(typeName, declarers);
+        return true;
+    }
+
+    /**
+     * 取出类对应的所有插件声明器，优先取出当前线程暂存的匹配结果，不存在时重新匹配
+     *
+     * @param target 类的描述器
+     * @return 插件声明器列表
+     */
+    List<PluginDeclarer> take(TypeDescription target) {
+        final String typeName = target.getActualName();
+        if (!fuzzyDeclarers.isEmpty()) {
+            final Map<String, List<PluginDeclarer>> matched = matchedDeclarers.get();
+            List<PluginDeclarer> declarers = matched.remove(typeName);
+            if (declarers == null && match(target)) {
+                declarers = matched.remove(typeName);
+            }
+            if (declarers != null) {
+                return declarers;
+            }
+        }
+        final List<PluginDeclarer> namedDeclarers = nameIndex.get(typeName);
+        return namedDeclarers == null ? Collections.emptyList() : namedDeclarers;
+    }
+}
@@ -25,6 +25,7 @@ import com.huaweicloud.sermant.core.plugin.agent.declarer.PluginDescription;
 import com.huaweicloud.sermant.core.plugin.agent.declarer.SuperTypeDeclarer;
 import com.huaweicloud.sermant.core.plugin.agent.matcher.ClassMatcher;
 import com.huaweicloud.sermant.core.plugin.agent.matcher.ClassTypeMatcher;
+import com.huaweicloud.sermant.core.plugin.agent.matcher.TypeNameTrie;
 import com.huaweicloud.sermant.core.plugin.agent.transformer.AdviceTransformer;
 import com.huaweicloud.sermant.core.plugin.agent.transformer.BootstrapTransformer;
 
@@ -34,11 +35,13 @@ import net.bytebuddy.utility.JavaModule;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.Set;
 
 /**
  * 插件收集器管理器，用于从所有插件收集器中获取插件描述器
@@ -166,6 +169,11 @@ public class PluginCollectorManager {
                 return declarer.getClassMatcher().matches(target);
             }
 
+            @Override
+            public boolean fillNameFilter(TypeNameTrie trie) {
+                return PluginCollectorManager.fillNameFilter(trie, declarer.getClassMatcher());
+            }
+
             @Override
             public DynamicType.Builder<?> transform(DynamicType.Builder<?> builder, TypeDescription typeDescription,
                 ClassLoader classLoader, JavaModule module) {
@@ -189,59 +197,38 @@ public class PluginCollectorManager {
      * @return 插件描述器集
      */
     private static List<PluginDescription> combineDeclarersByName(Iterable<? extends PluginDeclarer> declarers) {
-        final List<PluginDescription> plugins = new ArrayList<>();
-        final Map<String, List<PluginDeclarer>> nameCombinedMap = new HashMap<>();
-        for (PluginDeclarer pluginDeclarer : declarers) {
-            final ClassMatcher classMatcher = pluginDeclarer.getClassMatcher();
-            if (classMatcher instanceof ClassTypeMatcher) {
-                for (String typeName : ((ClassTypeMatcher) classMatcher).getTypeNames()) {
-                    List<PluginDeclarer> nameCombinedList = nameCombinedMap.get(typeName);
-                    if (nameCombinedList == null) {
-                        nameCombinedList = new ArrayList<>();
-                        nameCombinedMap.put(typeName, nameCombinedList);
-                    }
-                    nameCombinedList.add(pluginDeclarer);
-                }
-            } else {
-                plugins.add(describeDeclarer(pluginDeclarer));
-            }
-        }
+        final List<PluginDeclarer> fuzzyDeclarers = new ArrayList<>();
+        final Map<String, List<PluginDeclarer>> nameCombinedMap = indexDeclarersByName(declarers, fuzzyDeclarers);
+        final List<PluginDescription> plugins = describeDeclarers(fuzzyDeclarers);
         if (!nameCombinedMap.isEmpty()) {
-            plugins.add(createNameCombinedDescription(nameCombinedMap));
+            plugins.add(createCombinedDescription(
+                new CombinedDeclarerIndex(nameCombinedMap, Collections.<PluginDeclarer>emptyList())));
         }
         return plugins;
     }
 
     /**
-     * 创建根据名称合并插件声明器的插件描述器
+     * 合并所有插件声明器为一个插件描述器
      *
-     * @param nameCombinedMap 插件声明器及其声明的被增强类名集
+     * @param declarers 插件声明器集
      * @return 插件描述器
      */
-    private static PluginDescription createNameCombinedDescription(Map<String, List<PluginDeclarer>> nameCombinedMap) {
-        return new AbstractPluginDescription() {
-            @Override
-            public boolean matches(TypeDescription target) {
-                return nameCombinedMap.containsKey(target.getActualName());
-            }
-
-            @Override
-            public DynamicType.Builder<?> transform(DynamicType.Builder<?> builder, TypeDescription typeDescription,
-                ClassLoader classLoader, JavaModule module) {
-                return nameCombinedTransform(builder, typeDescription, classLoader, module, nameCombinedMap);
-            }
-        };
+    private static PluginDescription combineAllDeclarers(Iterable<? extends PluginDeclarer> declarers) {
+        final List<PluginDeclarer> fuzzyDeclarers = new ArrayList<>();
+        final Map<String, List<PluginDeclarer>> nameCombinedMap = indexDeclarersByName(declarers, fuzzyDeclarers);
+        return createCombinedDescription(new CombinedDeclarerIndex(nameCombinedMap, fuzzyDeclarers));
     }
 
     /**
-     * 合并所有插件声明器为一个插件描述器
+     * 按被增强类名索引使用{@link ClassTypeMatcher}的插件声明器，其他插件声明器放入模糊匹配的插件声明器列表
      *
-     * @param declarers 插件声明器集
-     * @return 插件描述器
+     * @param declarers      插件声明器集
+     * @param fuzzyDeclarers 模糊匹配的插件声明器列表
+     * @return 插件声明器及其声明的被增强类名集
      */
-    private static PluginDescription combineAllDeclarers(Iterable<? extends PluginDeclarer> declarers) {
+    private static Map<String, List<PluginDeclarer>> indexDeclarersByName(Iterable<? extends PluginDeclarer> declarers,
+        List<PluginDeclarer> fuzzyDeclarers) {
         final Map<String, List<PluginDeclarer>> nameCombinedMap = new HashMap<>();
-        final List<PluginDeclarer> combinedList = new ArrayList<>();
         for (PluginDeclarer pluginDeclarer : declarers) {
             final ClassMatcher classMatcher = pluginDeclarer.getClassMatcher();
             if (classMatcher instanceof ClassTypeMatcher) {
@@ -254,60 +241,83 @@ public class PluginCollectorManager {
                     nameCombinedList.add(pluginDeclarer);
                 }
             } else {
-                combinedList.add(pluginDeclarer);
+                fuzzyDeclarers.add(pluginDeclarer);
             }
         }
-        return createAllCombinedDescription(nameCombinedMap, combinedList);
+        return nameCombinedMap;
     }
 
     /**
-     * 创建合并全部插件声明器的插件描述器
+     * 创建合并插件声明器的插件描述器，见{@link CombinedDeclarerIndex}
      *
-     * @param nameCombinedMap 插件声明器及其声明的被增强类名集
-     * @param combinedList    其他模糊匹配的插件声明器列表
+     * @param index 合并插件声明器的索引
      * @return 插件描述器
      */
-    private static PluginDescription createAllCombinedDescription(Map<String, List<PluginDeclarer>> nameCombinedMap,
-        List<PluginDeclarer> combinedList) {
+    private static PluginDescription createCombinedDescription(CombinedDeclarerIndex index) {
         return new AbstractPluginDescription() {
             @Override
             public DynamicType.Builder<?> transform(DynamicType.Builder<?> builder, TypeDescription typeDescription,
                 ClassLoader classLoader, JavaModule module) {
-                return nameCombinedTransform(builder, typeDescription, classLoader, module, nameCombinedMap);
+                return combinedTransform(builder, typeDescription, classLoader, module, index.take(typeDescription));
             }
 
             @Override
             public boolean matches(TypeDescription target) {
-                final String typeName = target.getActualName();
-                for (PluginDeclarer pluginDeclarer : combinedList) {
-                    if (pluginDeclarer.getClassMatcher().matches(target)) {
-                        List<PluginDeclarer> declarers = nameCombinedMap.get(typeName);
-                        if (declarers == null) {
-                            declarers = new ArrayList<>();
-                            nameCombinedMap.put(typeName, declarers);
-                        }
-                        declarers.add(pluginDeclarer);
+                return index.match(target);
+            }
+
+            @Override
+            public boolean fillNameFilter(TypeNameTrie trie) {
+                for (String typeName : index.getTypeNames()) {
+                    trie.addName(typeName);
+                }
+                for (PluginDeclarer pluginDeclarer : index.getFuzzyDeclarers()) {
+                    if (!PluginCollectorManager.fillNameFilter(trie, pluginDeclarer.getClassMatcher())) {
+                        return false;
                     }
                 }
-                return nameCombinedMap.containsKey(typeName);
+                return true;
             }
         };
     }
 
     /**
-     * 处理按名称合并的插件声明器的{@link net.bytebuddy.agent.builder.AgentBuilder.Transformer#transform}方法
+     * 将类的匹配器可能匹配的类名前缀填入前缀树，见{@link ClassMatcher#getNamePrefixes(ClassMatcher)}
+     *
+     * @param trie    类名前缀树
+     * @param matcher 类的匹配器
+     * @return 是否能仅通过类名判断
+     */
+    private static boolean fillNameFilter(TypeNameTrie trie, ClassMatcher matcher) {
+        if (matcher instanceof ClassTypeMatcher) {
+            for (String typeName : ((ClassTypeMatcher) matcher).getTypeNames()) {
+                trie.addName(typeName);
+            }
+            return true;
+        }
+        final Set<String> prefixes = ClassMatcher.getNamePrefixes(matcher);
+        if (prefixes == null) {
+            return false;
+        }
+        for (String prefix : prefixes) {
+            trie.addPrefix(prefix);
+        }
+        return true;
+    }
+
+    /**
+     * 处理合并的插件声明器的{@link net.bytebuddy.agent.builder.AgentBuilder.Transformer#transform}方法
      *
      * @param builder         byte-buddy的动态构建器
      * @param typeDescription 被增强类的描述器
      * @param classLoader     被增强类的类加载器
      * @param module          byte-buddy的java模块对象
-     * @param nameCombinedMap 插件声明器及其声明的被增强类名集
+     * @param pluginDeclarers 被增强类对应的插件声明器列表
      * @return 构建器
      */
-    private static DynamicType.Builder<?> nameCombinedTransform(DynamicType.Builder<?> builder,
+    private static DynamicType.Builder<?> combinedTransform(DynamicType.Builder<?> builder,
         TypeDescription typeDescription, ClassLoader classLoader, JavaModule module,
-        Map<String, List<PluginDeclarer>> nameCombinedMap) {
-        final List<PluginDeclarer> pluginDeclarers = nameCombinedMap.remove(typeDescription.getActualName());
+        List<PluginDeclarer> pluginDeclarers) {
         final List<InterceptDeclarer> interceptDeclarers = new ArrayList<>();
         if (classLoader == null) {
             for (PluginDeclarer pluginDeclarer : pluginDeclarers) {
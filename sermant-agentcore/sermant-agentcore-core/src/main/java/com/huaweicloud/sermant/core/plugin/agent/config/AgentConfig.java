@@ -43,6 +43,11 @@ public class AgentConfig implements BaseConfig {
      */
     private Set<String> ignoredPrefixes = Collections.singleton("com.huawei.sermant");
 
+    /**
+     * 每个类加载器的类型池缓存容量，类型池缓存用于在多次匹配和增强间共享类的描述，小于等于0时不使用缓存
+     */
+    private int typePoolCacheSize = 4096;
+
     /**
      * 是否在增强过程中输出检索日志
      */
@@ -58,6 +63,23 @@ public class AgentConfig implements BaseConfig {
      */
     private CombineStrategy combineStrategy = CombineStrategy.ALL;
 
+    /**
+     * 是否复用执行上下文，开启后执行上下文将在被增强方法调用结束后回收至线程本地池中，以减少增强调用的对象创建
+     * <p>注意，开启时拦截器不可在被增强方法调用结束后继续持有执行上下文，如异步线程中引用执行上下文
+     */
+    private boolean isReuseExecuteContextEnable = false;
+
+    /**
+     * 是否开启增强缓存，开启后增强结果将被持久化，后续启动时未被增强的类将跳过匹配，以减少启动耗时
+     * <p>缓存以agent包、插件包、配置文件、应用classpath中的jar包及类自身字节码的变更作为失效依据，若被增强类的匹配结果受其他因素影响，需清空缓存目录
+     */
+    private boolean isEnhanceCacheEnable = false;
+
+    /**
+     * 增强缓存的存放路径，如果为空，则使用agent目录下的cache目录
+     */
+    private String enhanceCachePath;
+
     /**
      * agent服务黑名单
      */
@@ -71,6 +93,30 @@ public class AgentConfig implements BaseConfig {
         isEnhanceBootStrapEnable = enhanceBootStrapEnable;
     }
 
+    public boolean isReuseExecuteContextEnable() {
+        return isReuseExecuteContextEnable;
+    }
+
+    public void setReuseExecuteContextEnable(boolean reuseExecuteContextEnable) {
+        isReuseExecuteContextEnable = reuseExecuteContextEnable;
+    }
+
+    public boolean isEnhanceCacheEnable() {
+        return isEnhanceCacheEnable;
+    }
+
+    public void setEnhanceCacheEnable(boolean enhanceCacheEnable) {
+        isEnhanceCacheEnable = enhanceCacheEnable;
+    }
+
+    public String getEnhanceCachePath() {
+        return enhanceCachePath;
+    }
+
+    public void setEnhanceCachePath(String enhanceCachePath) {
+        this.enhanceCachePath = enhanceCachePath;
+    }
+
     public Set<String> getIgnoredPrefixes() {
         return ignoredPrefixes;
     }
@@ -79,6 +125,14 @@ public class AgentConfig implements BaseConfig {
         this.ignoredPrefixes = ignoredPrefixes;
     }
 
+    public int getTypePoolCacheSize() {
+        return typePoolCacheSize;
+    }
+
+    public void setTypePoolCacheSize(int typePoolCacheSize) {
+        this.typePoolCacheSize = typePoolCacheSize;
+    }
+
     public boolean isShowEnhanceLogEnable() {
         return isShowEnhanceLogEnable;
     }
@@ -16,6 +16,8 @@
 
 package com.huaweicloud.sermant.core.plugin.agent.declarer;
 
+import com.huaweicloud.sermant.core.plugin.agent.matcher.TypeNameTrie;
+
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.matcher.ElementMatcher;
 import net.bytebuddy.utility.JavaModule;
@@ -24,15 +26,46 @@ import java.security.ProtectionDomain;
 
 /**
  * 抽象的插件描述器，简化类的匹配方法，仅使用类的描述器匹配
+ * <p>构建类名过滤器后，不可能被该插件描述器匹配的类将仅通过类名排除，见{@link #buildNameFilter}
  *
  * @author HapThorin
  * @version 1.0.0
  * @since 2022-01-25
  */
 public abstract class AbstractPluginDescription implements ElementMatcher<TypeDescription>, PluginDescription {
+    /**
+     * 该插件描述器的类名过滤器，为null时不通过类名过滤
+     */
+    private TypeNameTrie nameFilter;
+
     @Override
     public boolean matches(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module,
             Class<?> classBeingRedefined, ProtectionDomain protectionDomain) {
+        if (nameFilter != null && !nameFilter.matches(typeDescription.getActualName())) {
+            return false;
+        }
         return matches(typeDescription);
     }
+
+    /**
+     * 构建该插件描述器的类名过滤器，需在匹配前调用，见{@link #fillNameFilter}
+     *
+     * @return 类名过滤器，若无法仅通过类名判断，则返回null
+     */
+    public TypeNameTrie buildNameFilter() {
+        final TypeNameTrie trie = new TypeNameTrie();
+        nameFilter = fillNameFilter(trie) ? trie : null;
+        return nameFilter;
+    }
+
+    /**
+     * 将可能被该插件描述器匹配的类名或类名前缀填入前缀树，用于在匹配前仅通过类名快速排除不可能被匹配的类
+     * <p>默认返回false，表示无法仅通过类名判断
+     *
+     * @param trie 类名前缀树
+     * @return 是否能仅通过类名判断
+     */
+    public boolean fillNameFilter(TypeNameTrie trie) {
+        return false;
+    }
 }
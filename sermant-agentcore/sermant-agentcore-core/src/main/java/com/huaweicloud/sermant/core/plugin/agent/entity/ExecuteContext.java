@@ -16,6 +16,9 @@
 
 package com.huaweicloud.sermant.core.plugin.agent.entity;
 
+import com.huaweicloud.sermant.core.config.ConfigManager;
+import com.huaweicloud.sermant.core.plugin.agent.config.AgentConfig;
+
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -23,6 +26,7 @@ import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * 插件的执行上下文，封装拦截器运作所需的所有参数
@@ -32,18 +36,38 @@ import java.util.Map;
  * @since 2022-01-25
  */
 public class ExecuteContext {
+    /**
+     * 局部属性的初始槽位数
+     */
+    private static final int LOCAL_FIELD_INIT_SLOTS = 4;
+
+    /**
+     * 每个线程最多缓存的执行上下文数量，嵌套的被增强方法调用会同时占用多个执行上下文
+     */
+    private static final int MAX_POOLED_SIZE = 16;
+
+    /**
+     * agent配置，首次获取到后缓存，是否复用执行上下文见{@link AgentConfig#isReuseExecuteContextEnable()}
+     */
+    private static volatile AgentConfig agentConfig;
+
+    /**
+     * 线程本地的执行上下文池，仅在复用执行上下文时使用
+     */
+    private static final ThreadLocal<ContextPool> CONTEXT_POOL = new ThreadLocal<>();
+
     /**
      * 被增强的类
      */
-    private final Class<?> rawCls;
+    private Class<?> rawCls;
     /**
      * 被增强的构造函数，注意：增强方法时为空
      */
-    private final Constructor<?> constructor;
+    private Constructor<?> constructor;
     /**
      * 被增强的方法，注意：增强构造函数时为空
      */
-    private final Method method;
+    private Method method;
     /**
      * 被增强的对象，注意：
      * <pre>
@@ -83,28 +107,118 @@ public class ExecuteContext {
     private Map<String, Object> extMemberFields;
 
     /**
-     * 贯穿调用流程的本地局部属性集
+     * 贯穿调用流程的本地局部属性名，以固定槽位存放，槽位不足时扩容
      */
-    private Map<String, Object> localFields;
+    private String[] localFieldNames;
+
+    /**
+     * 贯穿调用流程的本地局部属性值，与{@link #localFieldNames}一一对应
+     */
+    private Object[] localFieldValues;
+
+    /**
+     * 已使用的局部属性槽位数
+     */
+    private int localFieldSize;
 
     /**
      * 原生字段集，每次获取的字段都会暂时保存在此
      */
     private Map<String, Field> rawFields;
 
-    private ExecuteContext(Object object, Class<?> rawCls, Constructor<?> constructor, Method method,
+    private ExecuteContext() {
+    }
+
+    /**
+     * 是否复用执行上下文，配置未初始化时不复用
+     *
+     * @return 是否复用执行上下文
+     */
+    private static boolean isReuseEnable() {
+        AgentConfig config = agentConfig;
+        if (config == null) {
+            config = ConfigManager.getConfig(AgentConfig.class);
+            if (config == null) {
+                return false;
+            }
+            agentConfig = config;
+        }
+        return config.isReuseExecuteContextEnable();
+    }
+
+    /**
+     * 创建执行上下文，复用执行上下文时优先从线程本地池中获取
+     *
+     * @param object          被增强的对象
+     * @param rawCls          被增强的类
+     * @param constructor     被增强的构造函数
+     * @param method          被增强的方法
+     * @param arguments       入参
+     * @param extStaticFields 额外的静态属性集
+     * @param extMemberFields 额外的成员属性集
+     * @return 执行上下文
+     */
+    private static ExecuteContext create(Object object, Class<?> rawCls, Constructor<?> constructor, Method method,
             Object[] arguments, Map<String, Object> extStaticFields, Map<String, Object> extMemberFields) {
-        this.object = object;
-        this.rawCls = rawCls;
-        this.constructor = constructor;
-        this.method = method;
-        this.arguments = arguments;
-        this.isSkip = false;
-        this.result = null;
-        this.throwable = null;
-        this.extStaticFields = extStaticFields;
-        this.extMemberFields = extMemberFields;
-        this.localFields = null;
+        ExecuteContext context = null;
+        if (isReuseEnable()) {
+            final ContextPool pool = CONTEXT_POOL.get();
+            if (pool != null) {
+                context = pool.poll();
+            }
+        }
+        if (context == null) {
+            context = new ExecuteContext();
+        }
+        context.object = object;
+        context.rawCls = rawCls;
+        context.constructor = constructor;
+        context.method = method;
+        context.arguments = arguments;
+        context.extStaticFields = extStaticFields;
+        context.extMemberFields = extMemberFields;
+        return context;
+    }
+
+    /**
+     * 回收执行上下文，仅在复用执行上下文时生效，由增强模板在被增强方法调用结束后调用
+     * <p>回收后执行上下文的所有属性被清空，拦截器不可再持有该执行上下文
+     *
+     * @param context 执行上下文
+     */
+    public static void recycle(ExecuteContext context) {
+        if (context == null || !isReuseEnable()) {
+            return;
+        }
+        ContextPool pool = CONTEXT_POOL.get();
+        if (pool == null) {
+            pool = new ContextPool();
+            CONTEXT_POOL.set(pool);
+        }
+        context.reset();
+        pool.offer(context);
+    }
+
+    /**
+     * 清空执行上下文的所有属性，局部属性槽位保留以供复用
+     */
+    private void reset() {
+        object = null;
+        rawCls = null;
+        constructor = null;
+        method = null;
+        arguments = null;
+        isSkip = false;
+        result = null;
+        throwable = null;
+        extStaticFields = null;
+        extMemberFields = null;
+        rawFields = null;
+        if (localFieldSize > 0) {
+            Arrays.fill(localFieldNames, 0, localFieldSize, null);
+            Arrays.fill(localFieldValues, 0, localFieldSize, null);
+            localFieldSize = 0;
+        }
     }
 
     /**
@@ -118,7 +232,7 @@ public class ExecuteContext {
      */
     public static ExecuteContext forConstructor(Class<?> cls, Constructor<?> constructor, Object[] arguments,
             Map<String, Object> extStaticFields) {
-        return new ExecuteContext(null, cls, constructor, null, arguments, extStaticFields, null);
+        return create(null, cls, constructor, null, arguments, extStaticFields, null);
     }
 
     /**
@@ -133,7 +247,7 @@ public class ExecuteContext {
      */
     public static ExecuteContext forMemberMethod(Object object, Method method, Object[] arguments,
             Map<String, Object> extStaticFields, Map<String, Object> extMemberFields) {
-        return new ExecuteContext(object, object.getClass(), null, method, arguments, extStaticFields, extMemberFields);
+        return create(object, object.getClass(), null, method, arguments, extStaticFields, extMemberFields);
     }
 
     /**
@@ -147,7 +261,7 @@ public class ExecuteContext {
      */
     public static ExecuteContext forStaticMethod(Class<?> cls, Method method, Object[] arguments,
             Map<String, Object> extStaticFields) {
-        return new ExecuteContext(null, cls, null, method, arguments, extStaticFields, null);
+        return create(null, cls, null, method, arguments, extStaticFields, null);
     }
 
     /**
@@ -455,15 +569,18 @@ public class ExecuteContext {
     }
 
     /**
-     * 获取局部属性集
+     * 查找局部属性的槽位
      *
-     * @return 局部属性集
+     * @param fieldName 属性名
+     * @return 槽位下标，不存在时返回-1
      */
-    private Map<String, Object> getLocalFields() {
-        if (localFields == null) {
-            localFields = new HashMap<>();
+    private int indexOfLocalField(String fieldName) {
+        for (int i = 0; i < localFieldSize; i++) {
+            if (Objects.equals(localFieldNames[i], fieldName)) {
+                return i;
+            }
         }
-        return localFields;
+        return -1;
     }
 
     /**
@@ -473,7 +590,21 @@ public class ExecuteContext {
      * @param value     属性值
      */
     public void setLocalFieldValue(String fieldName, Object value) {
-        getLocalFields().put(fieldName, value);
+        final int index = indexOfLocalField(fieldName);
+        if (index >= 0) {
+            localFieldValues[index] = value;
+            return;
+        }
+        if (localFieldNames == null) {
+            localFieldNames = new String[LOCAL_FIELD_INIT_SLOTS];
+            localFieldValues = new Object[LOCAL_FIELD_INIT_SLOTS];
+        } else if (localFieldSize >= localFieldNames.length) {
+            localFieldNames = Arrays.copyOf(localFieldNames, localFieldSize << 1);
+            localFieldValues = Arrays.copyOf(localFieldValues, localFieldSize << 1);
+        }
+        localFieldNames[localFieldSize] = fieldName;
+        localFieldValues[localFieldSize] = value;
+        localFieldSize++;
     }
 
     /**
@@ -483,7 +614,8 @@ public class ExecuteContext {
      * @return 属性值
      */
     public Object getLocalFieldValue(String fieldName) {
-        return getLocalFields().get(fieldName);
+        final int index = indexOfLocalField(fieldName);
+        return index >= 0 ? localFieldValues[index] : null;
     }
 
     /**
@@ -541,8 +673,50 @@ public class ExecuteContext {
                 + ", throwable=" + throwable
                 + ", extStaticFields=" + extStaticFields
                 + ", extMemberFields=" + extMemberFields
-                + ", localFields=" + localFields
+                + ", localFields=" + localFieldsToString()
                 + ", rawFields=" + rawFields
                 + '}';
     }
+
+    /**
+     * 局部属性集的字符串形式
+     *
+     * @return 字符串
+     */
+    private String localFieldsToString() {
+        final StringBuilder sb = new StringBuilder().append('{');
+        for (int i = 0; i < localFieldSize; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(localFieldNames[i]).append('=').append(localFieldValues[i]);
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * 线程本地的执行上下文池
+     *
+     * @since 2022-09-28
+     */
+    private static class ContextPool {
+        private final ExecuteContext[] contexts = new ExecuteContext[MAX_POOLED_SIZE];
+
+        private int size;
+
+        ExecuteContext poll() {
+            if (size <= 0) {
+                return null;
+            }
+            final ExecuteContext context = contexts[--size];
+            contexts[size] = null;
+            return context;
+        }
+
+        void offer(ExecuteContext context) {
+            if (size < MAX_POOLED_SIZE) {
+                contexts[size++] = context;
+            }
+        }
+    }
 }
@@ -19,6 +19,8 @@ package com.huaweicloud.sermant.core.plugin.agent.matcher;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.matcher.ElementMatcher;
 
+import java.util.Set;
+
 /**
  * 类的模糊匹配器，提供相关的逻辑操作
  *
@@ -27,6 +29,16 @@ import net.bytebuddy.matcher.ElementMatcher;
  * @since 2022-01-24
  */
 public abstract class ClassFuzzyMatcher extends ClassMatcher {
+    /**
+     * 获取可能被匹配的类名前缀集，用于在匹配前仅通过类名快速排除不可能被匹配的类
+     * <p>默认返回null，表示无法仅通过类名判断
+     *
+     * @return 类名前缀集
+     */
+    public Set<String> getNamePrefixes() {
+        return null;
+    }
+
     /**
      * 逻辑操作{@code not}，原为假时返回真，否则返回假
      *
@@ -55,6 +67,13 @@ public abstract class ClassFuzzyMatcher extends ClassMatcher {
             public boolean matches(TypeDescription typeDescription) {
                 return thisMatcher.matches(typeDescription) && matcher.matches(typeDescription);
             }
+
+            @Override
+            public Set<String> getNamePrefixes() {
+                final Set<String> prefixes = thisMatcher.getNamePrefixes();
+                return prefixes == null && matcher instanceof ClassMatcher ? getNamePrefixes((ClassMatcher) matcher)
+                        : prefixes;
+            }
         };
     }
 
@@ -71,6 +90,11 @@ public abstract class ClassFuzzyMatcher extends ClassMatcher {
             public boolean matches(TypeDescription typeDescription) {
                 return thisMatcher.matches(typeDescription) || matcher.matches(typeDescription);
             }
+
+            @Override
+            public Set<String> getNamePrefixes() {
+                return matcher instanceof ClassMatcher ? unionNamePrefixes(thisMatcher, (ClassMatcher) matcher) : null;
+            }
         };
     }
 }
@@ -106,6 +106,11 @@ public abstract class ClassMatcher implements ElementMatcher<TypeDescription> {
             public boolean matches(TypeDescription typeDescription) {
                 return typeDescription.getActualName().startsWith(prefix);
             }
+
+            @Override
+            public Set<String> getNamePrefixes() {
+                return Collections.singleton(prefix);
+            }
         };
     }
 
@@ -312,6 +317,17 @@ public abstract class ClassMatcher implements ElementMatcher<TypeDescription> {
                 }
                 return true;
             }
+
+            @Override
+            public Set<String> getNamePrefixes() {
+                for (ClassMatcher matcher : matchers) {
+                    final Set<String> prefixes = getNamePrefixes(matcher);
+                    if (prefixes != null) {
+                        return prefixes;
+                    }
+                }
+                return null;
+            }
         };
     }
 
@@ -332,6 +348,45 @@ public abstract class ClassMatcher implements ElementMatcher<TypeDescription> {
                 }
                 return false;
             }
+
+            @Override
+            public Set<String> getNamePrefixes() {
+                return unionNamePrefixes(matchers);
+            }
         };
     }
+
+    /**
+     * 获取类的匹配器可能匹配的类名前缀集，类的类型匹配器的类型集也视为前缀集
+     *
+     * @param matcher 类的匹配器
+     * @return 类名前缀集，为null时表示无法仅通过类名判断
+     */
+    public static Set<String> getNamePrefixes(ClassMatcher matcher) {
+        if (matcher instanceof ClassTypeMatcher) {
+            return ((ClassTypeMatcher) matcher).getTypeNames();
+        }
+        if (matcher instanceof ClassFuzzyMatcher) {
+            return ((ClassFuzzyMatcher) matcher).getNamePrefixes();
+        }
+        return null;
+    }
+
+    /**
+     * 合并多个类的匹配器可能匹配的类名前缀集
+     *
+     * @param matchers 类的匹配器集
+     * @return 类名前缀集，其中之一为null时返回null
+     */
+    static Set<String> unionNamePrefixes(ClassMatcher... matchers) {
+        final Set<String> union = new HashSet<String>();
+        for (ClassMatcher matcher : matchers) {
+            final Set<String> prefixes = getNamePrefixes(matcher);
+            if (prefixes == null) {
+                return null;
+            }
+            union.addAll(prefixes);
+        }
+        return union;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent.matcher;
+
+import java.util.Arrays;
+
+/**
+ * 类名前缀树，由完整类名和类名前缀构建，用于仅通过类名快速判断类是否可能被匹配
+ * <p>注意，该前缀树应在构建完成后再并发读取
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class TypeNameTrie {
+    /**
+     * 根节点
+     */
+    private final Node root = new Node();
+
+    /**
+     * 添加完整类名，仅名称完全一致的类满足条件
+     *
+     * @param typeName 类全限定名
+     * @return TypeNameTrie本身
+     */
+    public TypeNameTrie addName(String typeName) {
+        getOrCreate(typeName).isNameEnd = true;
+        return this;
+    }
+
+    /**
+     * 添加类名前缀，名称以该前缀开头的类都满足条件
+     *
+     * @param prefix 类名前缀
+     * @return TypeNameTrie本身
+     */
+    public TypeNameTrie addPrefix(String prefix) {
+        getOrCreate(prefix).isPrefixEnd = true;
+        return this;
+    }
+
+    /**
+     * 判断前缀树是否为空
+     *
+     * @return 是否为空
+     */
+    public boolean isEmpty() {
+        return root.chars.length == 0 && !root.isNameEnd && !root.isPrefixEnd;
+    }
+
+    /**
+     * 判断类名是否满足条件，即与某个完整类名一致，或以某个类名前缀开头
+     *
+     * @param typeName 类全限定名
+     * @return 是否满足条件
+     */
+    public boolean matches(String typeName) {
+        Node node = root;
+        for (int i = 0; i < typeName.length(); i++) {
+            if (node.isPrefixEnd) {
+                return true;
+            }
+            node = node.get(typeName.charAt(i));
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.isPrefixEnd || node.isNameEnd;
+    }
+
+    /**
+     * 获取字符串对应的节点，不存在时创建
+     *
+     * @param str 字符串
+     * @return 节点
+     */
+    private Node getOrCreate(String str) {
+        Node node = root;
+        for (int i = 0; i < str.length(); i++) {
+            node = node.getOrCreate(str.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * 前缀树节点，子节点以字符有序存放，通过二分查找检索
+     *
+     * @since 2022-09-28
+     */
+    private static class Node {
+        /**
+         * 子节点的字符
+         */
+        private char[] chars = new char[0];
+
+        /**
+         * 子节点
+         */
+        private Node[] children = new Node[0];
+
+        /**
+         * 是否为完整类名的结尾
+         */
+        private boolean isNameEnd;
+
+        /**
+         * 是否为类名前缀的结尾
+         */
+        private boolean isPrefixEnd;
+
+        /**
+         * 获取字符对应的子节点
+         *
+         * @param chr 字符
+         * @return 子节点，不存在时返回null
+         */
+        private Node get(char chr) {
+            final int index = Arrays.binarySearch(chars, chr);
+            return index >= 0 ? children[index] : null;
+        }
+
+        /**
+         * 获取字符对应的子节点，不存在时按字符顺序插入
+         *
+         * @param chr 字符
+         * @return 子节点
+         */
+        private Node getOrCreate(char chr) {
+            final int index = Arrays.binarySearch(chars, chr);
+            if (index >= 0) {
+                return children[index];
+            }
+            final int insertIndex = -index - 1;
+            final int size = chars.length;
+            final char[] newChars = new char[size + 1];
+            final Node[] newChildren = new Node[size + 1];
+            System.arraycopy(chars, 0, newChars, 0, insertIndex);
+            System.arraycopy(children, 0, newChildren, 0, insertIndex);
+            System.arraycopy(chars, insertIndex, newChars, insertIndex + 1, size - insertIndex);
+            System.arraycopy(children, insertIndex, newChildren, insertIndex + 1, size - insertIndex);
+            final Node node = new Node();
+            newChars[insertIndex] = chr;
+            newChildren[insertIndex] = node;
+            chars = newChars;
+            children = newChildren;
+            return node;
+        }
+    }
+}
@@ -23,8 +23,6 @@ import net.bytebuddy.asm.Advice;
 import net.bytebuddy.implementation.bytecode.assign.Assigner;
 
 import java.lang.reflect.Method;
-import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 
 /**
@@ -43,11 +41,12 @@ public class AdviceStaticTemplate {
      *
      * @param cls             被增强的类
      * @param method          被增强的方法
-     * @param methodKey       方法键，用于查找模板类
      * @param arguments       方法入参
-     * @param interceptorMap  拦截器集
+     * @param interceptorArr  拦截器数组集
+     * @param index           被增强方法在拦截器数组集中的下标
      * @param extStaticFields 额外静态属性集
-     * @param interceptorItr  拦截器迭代器
+     * @param interceptors    拦截器数组
+     * @param cursor          已执行前置方法的拦截器数量
      * @param context         执行上下文
      * @return 是否跳过主要方法
      */
@@ -55,16 +54,19 @@ public class AdviceStaticTemplate {
     public static boolean onMethodEnter(
             @Advice.Origin Class<?> cls,
             @Advice.Origin Method method,
-            @Advice.Origin("#t\\##m#s") String methodKey,
             @Advice.AllArguments(readOnly = false, typing = Assigner.Typing.DYNAMIC) Object[] arguments,
-            @Advice.FieldValue(value = "_INTERCEPTOR_MAP_$SERMANT") Map<String, List<Interceptor>> interceptorMap,
+            @Advice.FieldValue(value = "_INTERCEPTOR_ARR_$SERMANT") Interceptor[][] interceptorArr,
+            @InterceptorIndex int index,
             @Advice.FieldValue(value = "_EXT_STATIC_FIELDS_$SERMANT",
                     readOnly = false, typing = Assigner.Typing.DYNAMIC) Map<String, Object> extStaticFields,
-            @Advice.Local(value = "_INTERCEPTOR_ITR_$SERMANT_LOCAL") ListIterator<Interceptor> interceptorItr,
+            @Advice.Local(value = "_INTERCEPTORS_$SERMANT_LOCAL") Interceptor[] interceptors,
+            @Advice.Local(value = "_INTERCEPTOR_CURSOR_$SERMANT_LOCAL") int cursor,
             @Advice.Local(value = "_EXECUTE_CONTEXT_$SERMANT_LOCAL") ExecuteContext context) {
-        interceptorItr = interceptorMap.get(methodKey).listIterator();
+        interceptors = interceptorArr[index];
         context = ExecuteContext.forStaticMethod(cls, method, arguments, extStaticFields);
-        context = CommonMethodAdviser.onMethodEnter(context, interceptorItr);
+        while (cursor < interceptors.length && !context.isSkip()) {
+            context = CommonMethodAdviser.onMethodEnter(context, interceptors[cursor++]);
+        }
         arguments = context.getArguments();
         extStaticFields = context.getExtStaticFields();
         return context.isSkip();
@@ -76,7 +78,8 @@ public class AdviceStaticTemplate {
      * @param result          方法调用结果
      * @param throwable       方法调用异常
      * @param extStaticFields 额外静态属性集
-     * @param interceptorItr  拦截器迭代器
+     * @param interceptors    拦截器数组
+     * @param cursor          已执行前置方法的拦截器数量
      * @param context         执行上下文
      */
     @Advice.OnMethodExit(suppress = Throwable.class, onThrowable = Throwable.class)
@@ -85,11 +88,15 @@ public class AdviceStaticTemplate {
             @Advice.Thrown Throwable throwable,
             @Advice.FieldValue(value = "_EXT_STATIC_FIELDS_$SERMANT",
                     readOnly = false, typing = Assigner.Typing.DYNAMIC) Map<String, Object> extStaticFields,
-            @Advice.Local(value = "_INTERCEPTOR_ITR_$SERMANT_LOCAL") ListIterator<Interceptor> interceptorItr,
+            @Advice.Local(value = "_INTERCEPTORS_$SERMANT_LOCAL") Interceptor[] interceptors,
+            @Advice.Local(value = "_INTERCEPTOR_CURSOR_$SERMANT_LOCAL") int cursor,
             @Advice.Local(value = "_EXECUTE_CONTEXT_$SERMANT_LOCAL") ExecuteContext context) {
         context = context.isSkip() ? context : context.afterMethod(result, throwable);
-        context = CommonMethodAdviser.onMethodExit(context, interceptorItr);
+        while (cursor > 0) {
+            context = CommonMethodAdviser.onMethodExit(context, interceptors[--cursor]);
+        }
         result = context.getResult();
         extStaticFields = context.getExtStaticFields();
+        ExecuteContext.recycle(context);
     }
 }
@@ -16,15 +16,10 @@
 
 package com.huaweicloud.sermant.core.plugin.agent.template;
 
-import com.huaweicloud.sermant.core.plugin.agent.transformer.BootstrapTransformer;
-
 import net.bytebuddy.asm.Advice;
 import net.bytebuddy.implementation.bytecode.assign.Assigner;
 
 import java.lang.reflect.Constructor;
-import java.util.List;
-import java.util.ListIterator;
-import java.util.Map;
 
 /**
  * 启动类构造函数advice模板
@@ -41,62 +36,49 @@ public class BootstrapConstTemplate {
     /**
      * 调用方法的前置触发点
      *
-     * @param cls            被增强的类
-     * @param constructor    构造函数
-     * @param methodKey      方法键，用于查找模板类
-     * @param arguments      方法入参
-     * @param contextCls     执行上下文Class
-     * @param adviserCls     通用adviser的Class
-     * @param interceptorItr 拦截器迭代器
-     * @param context        执行上下文
-     * @throws Exception 执行异常
+     * @param cls         被增强的类
+     * @param constructor 构造函数
+     * @param arguments   方法入参
+     * @param index       调度器下标
+     * @param dispatcher  调度器
+     * @param cursor      已执行前置方法的拦截器数量
+     * @param context     执行上下文
      */
     @Advice.OnMethodEnter(suppress = Throwable.class)
     public static void onMethodEnter(
             @Advice.Origin Class<?> cls,
             @Advice.Origin Constructor<?> constructor,
-            @Advice.Origin("#t\\##m#s") String methodKey,
             @Advice.AllArguments(readOnly = false, typing = Assigner.Typing.DYNAMIC) Object[] arguments,
-            @Advice.Local(value = "_CONTEXT_CLS_$SERMANT_LOCAL") Class<?> contextCls,
-            @Advice.Local(value = "_ADVISER_CLS_$SERMANT_LOCAL") Class<?> adviserCls,
-            @Advice.Local(value = "_INTERCEPTOR_ITR_$SERMANT_LOCAL") ListIterator<?> interceptorItr,
-            @Advice.Local(value = "_EXECUTE_CONTEXT_$SERMANT_LOCAL") Object context
-    ) throws Exception {
-        final ClassLoader loader = ClassLoader.getSystemClassLoader();
-        contextCls = loader.loadClass("com.huaweicloud.sermant.core.plugin.agent.entity.ExecuteContext");
-        adviserCls = loader.loadClass("com.huaweicloud.sermant.core.plugin.agent.template.CommonConstAdviser");
-        final String adviceClsName = "com.huaweicloud.sermant.core.plugin.agent.template.BootstrapConstTemplate_"
-                + Integer.toHexString(methodKey.hashCode());
-        final Class<?> templateCls = loader.loadClass(adviceClsName);
-        interceptorItr = ((List<?>) templateCls.getDeclaredField(BootstrapTransformer.INTERCEPTORS_FIELD_NAME)
-                .get(null)).listIterator();
-        context = contextCls.getDeclaredMethod("forConstructor", Class.class, Constructor.class, Object[].class,
-                Map.class).invoke(null, cls, constructor, arguments, null);
-        context = adviserCls.getDeclaredMethod("onMethodEnter", contextCls, ListIterator.class)
-                .invoke(null, context, interceptorItr);
-        arguments = (Object[]) contextCls.getDeclaredMethod("getArguments").invoke(context);
+            @InterceptorIndex int index,
+            @Advice.Local(value = "_DISPATCHER_$SERMANT_LOCAL") BootstrapDispatcher dispatcher,
+            @Advice.Local(value = "_INTERCEPTOR_CURSOR_$SERMANT_LOCAL") int cursor,
+            @Advice.Local(value = "_EXECUTE_CONTEXT_$SERMANT_LOCAL") Object context) {
+        dispatcher = BootstrapDispatcher.get(index);
+        context = dispatcher.forConstructor(cls, constructor, arguments);
+        while (cursor < dispatcher.size() && !dispatcher.isSkip(context)) {
+            context = dispatcher.before(context, cursor++);
+        }
+        arguments = dispatcher.getArguments(context);
     }
 
     /**
      * 调用方法的后置触发点
      *
-     * @param obj            被增强的对象
-     * @param contextCls     执行上下文Class
-     * @param adviserCls     通用adviser的Class
-     * @param interceptorItr 拦截器迭代器
-     * @param context        执行上下文
-     * @throws Exception 执行异常
+     * @param obj        被增强的对象
+     * @param dispatcher 调度器
+     * @param cursor     已执行前置方法的拦截器数量
+     * @param context    执行上下文
      */
     @Advice.OnMethodExit(suppress = Throwable.class)
     public static void onMethodExit(
             @Advice.This(typing = Assigner.Typing.DYNAMIC) Object obj,
-            @Advice.Local(value = "_CONTEXT_CLS_$SERMANT_LOCAL") Class<?> contextCls,
-            @Advice.Local(value = "_ADVISER_CLS_$SERMANT_LOCAL") Class<?> adviserCls,
-            @Advice.Local(value = "_INTERCEPTOR_ITR_$SERMANT_LOCAL") ListIterator<?> interceptorItr,
-            @Advice.Local(value = "_EXECUTE_CONTEXT_$SERMANT_LOCAL") Object context
-    ) throws Exception {
-        context = contextCls.getDeclaredMethod("afterConstructor", Object.class, Map.class).invoke(context, obj, null);
-        adviserCls.getDeclaredMethod("onMethodExit", contextCls, ListIterator.class)
-                .invoke(null, context, interceptorItr);
+            @Advice.Local(value = "_DISPATCHER_$SERMANT_LOCAL") BootstrapDispatcher dispatcher,
+            @Advice.Local(value = "_INTERCEPTOR_CURSOR_$SERMANT_LOCAL") int cursor,
+            @Advice.Local(value = "_EXECUTE_CONTEXT_$SERMANT_LOCAL") Object context) {
+        context = dispatcher.afterConstructor(context, obj);
+        while (cursor > 0) {
+            context = dispatcher.after(context, --cursor);
+        }
+        dispatcher.recycle(context);
     }
 }
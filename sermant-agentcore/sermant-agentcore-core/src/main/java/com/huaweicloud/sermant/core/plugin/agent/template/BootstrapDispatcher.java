@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent.template;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * 启动类增强的调度桥
+ * <p>该类会被注入到启动类加载器中，因此只能依赖jdk自带的类，被增强的启动类通过{@link #get}获取调度器后，仅需虚方法调用即可执行拦截器
+ * <p>执行上下文对启动类不可见，因此调度器的方法均以{@link Object}传递执行上下文
+ * <p>注意，该类必须在注入启动类加载器之后才能被引用，否则将由系统类加载器加载而无法被启动类访问
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-27
+ */
+public abstract class BootstrapDispatcher {
+    /**
+     * 调度器数组，下标在增强时被织入advice
+     */
+    private static volatile BootstrapDispatcher[] dispatchers = new BootstrapDispatcher[0];
+
+    /**
+     * 通过下标获取调度器
+     *
+     * @param index 调度器下标
+     * @return 调度器
+     */
+    public static BootstrapDispatcher get(int index) {
+        return dispatchers[index];
+    }
+
+    /**
+     * 注册调度器
+     *
+     * @param dispatcher 调度器
+     * @return 调度器下标
+     */
+    public static synchronized int register(BootstrapDispatcher dispatcher) {
+        final BootstrapDispatcher[] newDispatchers = Arrays.copyOf(dispatchers, dispatchers.length + 1);
+        newDispatchers[dispatchers.length] = dispatcher;
+        dispatchers = newDispatchers;
+        return dispatchers.length - 1;
+    }
+
+    /**
+     * 创建成员方法的执行上下文
+     *
+     * @param object    被增强的对象
+     * @param method    被增强的方法
+     * @param arguments 方法的入参
+     * @return 执行上下文
+     */
+    public abstract Object forMemberMethod(Object object, Method method, Object[] arguments);
+
+    /**
+     * 创建静态方法的执行上下文
+     *
+     * @param cls       被增强的类
+     * @param method    被增强的方法
+     * @param arguments 方法的入参
+     * @return 执行上下文
+     */
+    public abstract Object forStaticMethod(Class<?> cls, Method method, Object[] arguments);
+
+    /**
+     * 创建构造函数的执行上下文
+     *
+     * @param cls         被增强的类
+     * @param constructor 被增强的构造函数
+     * @param arguments   构造函数入参
+     * @return 执行上下文
+     */
+    public abstract Object forConstructor(Class<?> cls, Constructor<?> constructor, Object[] arguments);
+
+    /**
+     * 获取拦截器数量
+     *
+     * @return 拦截器数量
+     */
+    public abstract int size();
+
+    /**
+     * 执行单个拦截器的前置方法
+     *
+     * @param context 执行上下文
+     * @param index   拦截器下标
+     * @return 执行上下文
+     */
+    public abstract Object before(Object context, int index);
+
+    /**
+     * 执行单个拦截器的后置方法
+     *
+     * @param context 执行上下文
+     * @param index   拦截器下标
+     * @return 执行上下文
+     */
+    public abstract Object after(Object context, int index);
+
+    /**
+     * 适配增强静态方法和成员方法时的后置触发点
+     *
+     * @param context   执行上下文
+     * @param result    方法主要流程结果
+     * @param throwable 方法主要流程异常
+     * @return 执行上下文
+     */
+    public abstract Object afterMethod(Object context, Object result, Throwable throwable);
+
+    /**
+     * 适配增强构造函数时的后置触发点
+     *
+     * @param context 执行上下文
+     * @param thisObj 构造的对象
+     * @return 执行上下文
+     */
+    public abstract Object afterConstructor(Object context, Object thisObj);
+
+    /**
+     * 获取方法入参
+     *
+     * @param context 执行上下文
+     * @return 方法入参
+     */
+    public abstract Object[] getArguments(Object context);
+
+    /**
+     * 是否跳过被增强方法的主要流程
+     *
+     * @param context 执行上下文
+     * @return 是否跳过
+     */
+    public abstract boolean isSkip(Object context);
+
+    /**
+     * 获取方法调用结果
+     *
+     * @param context 执行上下文
+     * @return 方法调用结果
+     */
+    public abstract Object getResult(Object context);
+
+    /**
+     * 回收执行上下文
+     *
+     * @param context 执行上下文
+     */
+    public abstract void recycle(Object context);
+}
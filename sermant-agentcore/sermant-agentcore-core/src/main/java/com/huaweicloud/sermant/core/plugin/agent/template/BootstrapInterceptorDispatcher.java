@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent.template;
+
+import com.huaweicloud.sermant.core.plugin.agent.entity.ExecuteContext;
+import com.huaweicloud.sermant.core.plugin.agent.interceptor.Interceptor;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 启动类增强的拦截器调度器，{@link BootstrapDispatcher}的实现，每个被增强的启动类方法对应一个实例
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-27
+ */
+public class BootstrapInterceptorDispatcher extends BootstrapDispatcher {
+    /**
+     * 拦截器列表
+     */
+    private final List<Interceptor> interceptors;
+
+    /**
+     * 被增强的是否为构造函数
+     */
+    private final boolean isConstructor;
+
+    /**
+     * 构造方法
+     *
+     * @param interceptors  拦截器集
+     * @param isConstructor 被增强的是否为构造函数
+     */
+    public BootstrapInterceptorDispatcher(Collection<Interceptor> interceptors, boolean isConstructor) {
+        this.interceptors = new CopyOnWriteArrayList<>(interceptors);
+        this.isConstructor = isConstructor;
+    }
+
+    /**
+     * 将本调度器注册到{@link BootstrapDispatcher}中
+     * <p>注意，调用方不可直接将本类实例作为{@link BootstrapDispatcher}传递，否则校验调用方时会提前加载调度桥
+     *
+     * @return 调度器下标
+     */
+    public int register() {
+        return BootstrapDispatcher.register(this);
+    }
+
+    /**
+     * 添加拦截器，同一方法被多个插件增强时使用
+     *
+     * @param newInterceptors 拦截器集
+     */
+    public void addInterceptors(Collection<Interceptor> newInterceptors) {
+        interceptors.addAll(newInterceptors);
+    }
+
+    @Override
+    public Object forMemberMethod(Object object, Method method, Object[] arguments) {
+        return ExecuteContext.forMemberMethod(object, method, arguments, null, null);
+    }
+
+    @Override
+    public Object forStaticMethod(Class<?> cls, Method method, Object[] arguments) {
+        return ExecuteContext.forStaticMethod(cls, method, arguments, null);
+    }
+
+    @Override
+    public Object forConstructor(Class<?> cls, Constructor<?> constructor, Object[] arguments) {
+        return ExecuteContext.forConstructor(cls, constructor, arguments, null);
+    }
+
+    @Override
+    public int size() {
+        return interceptors.size();
+    }
+
+    @Override
+    public Object before(Object context, int index) {
+        final Interceptor interceptor = interceptors.get(index);
+        return isConstructor ? CommonConstAdviser.onMethodEnter((ExecuteContext) context, interceptor)
+                : CommonMethodAdviser.onMethodEnter((ExecuteContext) context, interceptor);
+    }
+
+    @Override
+    public Object after(Object context, int index) {
+        final Interceptor interceptor = interceptors.get(index);
+        return isConstructor ? CommonConstAdviser.onMethodExit((ExecuteContext) context, interceptor)
+                : CommonMethodAdviser.onMethodExit((ExecuteContext) context, interceptor);
+    }
+
+    @Override
+    public Object afterMethod(Object context, Object result, Throwable throwable) {
+        final ExecuteContext executeContext = (ExecuteContext) context;
+        return executeContext.isSkip() ? executeContext : executeContext.afterMethod(result, throwable);
+    }
+
+    @Override
+    public Object afterConstructor(Object context, Object thisObj) {
+        return ((ExecuteContext) context).afterConstructor(thisObj, null);
+    }
+
+    @Override
+    public Object[] getArguments(Object context) {
+        return ((ExecuteContext) context).getArguments();
+    }
+
+    @Override
+    public boolean isSkip(Object context) {
+        return ((ExecuteContext) context).isSkip();
+    }
+
+    @Override
+    public Object getResult(Object context) {
+        return ((ExecuteContext) context).getResult();
+    }
+
+    @Override
+    public void recycle(Object context) {
+        ExecuteContext.recycle((ExecuteContext) context);
+    }
+}
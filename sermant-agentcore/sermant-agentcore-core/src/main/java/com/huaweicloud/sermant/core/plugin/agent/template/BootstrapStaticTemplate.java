@@ -16,15 +16,10 @@
 
 package com.huaweicloud.sermant.core.plugin.agent.template;
 
-import com.huaweicloud.sermant.core.plugin.agent.transformer.BootstrapTransformer;
-
 import net.bytebuddy.asm.Advice;
 import net.bytebuddy.implementation.bytecode.assign.Assigner;
 
 import java.lang.reflect.Method;
-import java.util.List;
-import java.util.ListIterator;
-import java.util.Map;
 
 /**
  * 启动类静态方法advice模板
@@ -41,67 +36,54 @@ public class BootstrapStaticTemplate {
     /**
      * 调用方法的前置触发点
      *
-     * @param cls            被增强的类
-     * @param method         被增强的方法
-     * @param methodKey      方法键，用于查找模板类
-     * @param arguments      方法入参
-     * @param contextCls     执行上下文Class
-     * @param adviserCls     通用adviser的Class
-     * @param interceptorItr 拦截器迭代器
-     * @param context        执行上下文
+     * @param cls        被增强的类
+     * @param method     被增强的方法
+     * @param arguments  方法入参
+     * @param index      调度器下标
+     * @param dispatcher 调度器
+     * @param cursor     已执行前置方法的拦截器数量
+     * @param context    执行上下文
      * @return 是否跳过主要方法
-     * @throws Exception 执行异常
      */
     @Advice.OnMethodEnter(suppress = Throwable.class, skipOn = Advice.OnNonDefaultValue.class)
     public static boolean onMethodEnter(
             @Advice.Origin Class<?> cls,
             @Advice.Origin Method method,
-            @Advice.Origin("#t\\##m#s") String methodKey,
             @Advice.AllArguments(readOnly = false, typing = Assigner.Typing.DYNAMIC) Object[] arguments,
-            @Advice.Local(value = "_CONTEXT_CLS_$SERMANT_LOCAL") Class<?> contextCls,
-            @Advice.Local(value = "_ADVISER_CLS_$SERMANT_LOCAL") Class<?> adviserCls,
-            @Advice.Local(value = "_INTERCEPTOR_ITR_$SERMANT_LOCAL") ListIterator<?> interceptorItr,
-            @Advice.Local(value = "_EXECUTE_CONTEXT_$SERMANT_LOCAL") Object context
-    ) throws Exception {
-        final ClassLoader loader = ClassLoader.getSystemClassLoader();
-        contextCls = loader.loadClass("com.huaweicloud.sermant.core.plugin.agent.entity.ExecuteContext");
-        adviserCls = loader.loadClass("com.huaweicloud.sermant.core.plugin.agent.template.CommonMethodAdviser");
-        final String adviceClsName = "com.huaweicloud.sermant.core.plugin.agent.template.BootstrapStaticTemplate_"
-                + Integer.toHexString(methodKey.hashCode());
-        final Class<?> templateCls = loader.loadClass(adviceClsName);
-        interceptorItr = ((List<?>) templateCls.getDeclaredField(BootstrapTransformer.INTERCEPTORS_FIELD_NAME)
-                .get(null)).listIterator();
-        context = contextCls.getDeclaredMethod("forStaticMethod", Class.class, Method.class, Object[].class, Map.class)
-                .invoke(null, cls, method, arguments, null);
-        context = adviserCls.getDeclaredMethod("onMethodEnter", contextCls, ListIterator.class)
-                .invoke(null, context, interceptorItr);
-        arguments = (Object[]) contextCls.getDeclaredMethod("getArguments").invoke(context);
-        return (Boolean) contextCls.getDeclaredMethod("isSkip").invoke(context);
+            @InterceptorIndex int index,
+            @Advice.Local(value = "_DISPATCHER_$SERMANT_LOCAL") BootstrapDispatcher dispatcher,
+            @Advice.Local(value = "_INTERCEPTOR_CURSOR_$SERMANT_LOCAL") int cursor,
+            @Advice.Local(value = "_EXECUTE_CONTEXT_$SERMANT_LOCAL") Object context) {
+        dispatcher = BootstrapDispatcher.get(index);
+        context = dispatcher.forStaticMethod(cls, method, arguments);
+        while (cursor < dispatcher.size() && !dispatcher.isSkip(context)) {
+            context = dispatcher.before(context, cursor++);
+        }
+        arguments = dispatcher.getArguments(context);
+        return dispatcher.isSkip(context);
     }
 
     /**
      * 调用方法的后置触发点
      *
-     * @param result         方法调用结果
-     * @param throwable      方法调用异常
-     * @param contextCls     执行上下文Class
-     * @param adviserCls     通用adviser的Class
-     * @param interceptorItr 拦截器迭代器
-     * @param context        执行上下文
-     * @throws Exception 执行异常
+     * @param result     方法调用结果
+     * @param throwable  方法调用异常
+     * @param dispatcher 调度器
+     * @param cursor     已执行前置方法的拦截器数量
+     * @param context    执行上下文
      */
     @Advice.OnMethodExit(suppress = Throwable.class, onThrowable = Throwable.class)
     public static void onMethodExit(
             @Advice.Return(readOnly = false, typing = Assigner.Typing.DYNAMIC) Object result,
             @Advice.Thrown Throwable throwable,
-            @Advice.Local(value = "_CONTEXT_CLS_$SERMANT_LOCAL") Class<?> contextCls,
-            @Advice.Local(value = "_ADVISER_CLS_$SERMANT_LOCAL") Class<?> adviserCls,
-            @Advice.Local(value = "_INTERCEPTOR_ITR_$SERMANT_LOCAL") ListIterator<?> interceptorItr,
-            @Advice.Local(value = "_EXECUTE_CONTEXT_$SERMANT_LOCAL") Object context) throws Exception {
-        context = contextCls.getDeclaredMethod("afterMethod", Object.class, Throwable.class)
-                .invoke(context, result, throwable);
-        context = adviserCls.getDeclaredMethod("onMethodExit", contextCls, ListIterator.class)
-                .invoke(null, context, interceptorItr);
-        result = contextCls.getDeclaredMethod("getResult").invoke(context);
+            @Advice.Local(value = "_DISPATCHER_$SERMANT_LOCAL") BootstrapDispatcher dispatcher,
+            @Advice.Local(value = "_INTERCEPTOR_CURSOR_$SERMANT_LOCAL") int cursor,
+            @Advice.Local(value = "_EXECUTE_CONTEXT_$SERMANT_LOCAL") Object context) {
+        context = dispatcher.afterMethod(context, result, throwable);
+        while (cursor > 0) {
+            context = dispatcher.after(context, --cursor);
+        }
+        result = dispatcher.getResult(context);
+        dispatcher.recycle(context);
     }
 }
@@ -44,22 +44,35 @@ public class CommonBaseAdviser {
             ExceptionHandler beforeHandler) {
         ExecuteContext newContext = context;
         while (interceptorItr.hasNext()) {
-            final Interceptor interceptor = interceptorItr.next();
-            try {
-                final ExecuteContext tempContext = interceptor.before(newContext);
-                if (tempContext != null) {
-                    newContext = tempContext;
-                }
-                if (newContext.isSkip()) {
-                    return newContext;
-                }
-            } catch (Throwable t) {
-                beforeHandler.handle(context, interceptor, t);
+            newContext = onMethodEnter(newContext, interceptorItr.next(), beforeHandler);
+            if (newContext.isSkip()) {
+                return newContext;
             }
         }
         return newContext;
     }
 
+    /**
+     * 单个拦截器的前置触发点
+     *
+     * @param context       执行上下文
+     * @param interceptor   拦截器
+     * @param beforeHandler before的异常处理器
+     * @return 执行上下文
+     */
+    public static ExecuteContext onMethodEnter(ExecuteContext context, Interceptor interceptor,
+            ExceptionHandler beforeHandler) {
+        try {
+            final ExecuteContext tempContext = interceptor.before(context);
+            if (tempContext != null) {
+                return tempContext;
+            }
+        } catch (Throwable t) {
+            beforeHandler.handle(context, interceptor, t);
+        }
+        return context;
+    }
+
     /**
      * 后置触发点
      *
@@ -73,25 +86,40 @@ public class CommonBaseAdviser {
             ExceptionHandler onThrowHandler, ExceptionHandler afterHandler) {
         ExecuteContext newContext = context;
         while (interceptorItr.hasPrevious()) {
-            final Interceptor interceptor = interceptorItr.previous();
-            if (newContext.getThrowable() != null && onThrowHandler != null) {
-                try {
-                    final ExecuteContext tempContext = interceptor.onThrow(newContext);
-                    if (tempContext != null) {
-                        newContext = tempContext;
-                    }
-                } catch (Throwable t) {
-                    onThrowHandler.handle(newContext, interceptor, t);
-                }
-            }
+            newContext = onMethodExit(newContext, interceptorItr.previous(), onThrowHandler, afterHandler);
+        }
+        return newContext;
+    }
+
+    /**
+     * 单个拦截器的后置触发点
+     *
+     * @param context        执行上下文
+     * @param interceptor    拦截器
+     * @param onThrowHandler onThrow的异常处理器
+     * @param afterHandler   after的的异常处理器
+     * @return 执行上下文
+     */
+    public static ExecuteContext onMethodExit(ExecuteContext context, Interceptor interceptor,
+            ExceptionHandler onThrowHandler, ExceptionHandler afterHandler) {
+        ExecuteContext newContext = context;
+        if (newContext.getThrowable() != null && onThrowHandler != null) {
             try {
-                final ExecuteContext tempContext = interceptor.after(newContext);
+                final ExecuteContext tempContext = interceptor.onThrow(newContext);
                 if (tempContext != null) {
                     newContext = tempContext;
                 }
             } catch (Throwable t) {
-                afterHandler.handle(newContext, interceptor, t);
+                onThrowHandler.handle(newContext, interceptor, t);
+            }
+        }
+        try {
+            final ExecuteContext tempContext = interceptor.after(newContext);
+            if (tempContext != null) {
+                newContext = tempContext;
             }
+        } catch (Throwable t) {
+            afterHandler.handle(newContext, interceptor, t);
         }
         return newContext;
     }
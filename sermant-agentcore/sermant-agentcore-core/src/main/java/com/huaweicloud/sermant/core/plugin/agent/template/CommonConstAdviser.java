@@ -37,6 +37,18 @@ public class CommonConstAdviser {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger();
 
+    /**
+     * before的异常处理器
+     */
+    private static final CommonBaseAdviser.ExceptionHandler BEFORE_HANDLER =
+            (context, interceptor, throwable) -> logError("before initialize", context, interceptor, throwable);
+
+    /**
+     * after的异常处理器
+     */
+    private static final CommonBaseAdviser.ExceptionHandler AFTER_HANDLER =
+            (context, interceptor, throwable) -> logError("after initialize", context, interceptor, throwable);
+
     private CommonConstAdviser() {
     }
 
@@ -62,13 +74,7 @@ public class CommonConstAdviser {
      * @return 执行上下文
      */
     public static ExecuteContext onMethodEnter(ExecuteContext context, ListIterator<Interceptor> interceptorItr) {
-        return CommonBaseAdviser.onMethodEnter(context, interceptorItr,
-                new CommonBaseAdviser.ExceptionHandler() {
-                    @Override
-                    public void handle(ExecuteContext context, Interceptor interceptor, Throwable throwable) {
-                        logError("before initialize", context, interceptor, throwable);
-                    }
-                });
+        return CommonBaseAdviser.onMethodEnter(context, interceptorItr, BEFORE_HANDLER);
     }
 
     /**
@@ -79,12 +85,28 @@ public class CommonConstAdviser {
      * @return 执行上下文
      */
     public static ExecuteContext onMethodExit(ExecuteContext context, ListIterator<Interceptor> interceptorItr) {
-        return CommonBaseAdviser.onMethodExit(context, interceptorItr, null,
-                new CommonBaseAdviser.ExceptionHandler() {
-                    @Override
-                    public void handle(ExecuteContext context, Interceptor interceptor, Throwable throwable) {
-                        logError("after initialize", context, interceptor, throwable);
-                    }
-                });
+        return CommonBaseAdviser.onMethodExit(context, interceptorItr, null, AFTER_HANDLER);
+    }
+
+    /**
+     * 单个拦截器调用构造函数的前置触发点
+     *
+     * @param context     执行上下文
+     * @param interceptor 拦截器
+     * @return 执行上下文
+     */
+    public static ExecuteContext onMethodEnter(ExecuteContext context, Interceptor interceptor) {
+        return CommonBaseAdviser.onMethodEnter(context, interceptor, BEFORE_HANDLER);
+    }
+
+    /**
+     * 单个拦截器调用构造函数的后置触发点
+     *
+     * @param context     执行上下文
+     * @param interceptor 拦截器
+     * @return 执行上下文
+     */
+    public static ExecuteContext onMethodExit(ExecuteContext context, Interceptor interceptor) {
+        return CommonBaseAdviser.onMethodExit(context, interceptor, null, AFTER_HANDLER);
     }
 }
@@ -37,6 +37,24 @@ public class CommonMethodAdviser {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger();
 
+    /**
+     * before的异常处理器
+     */
+    private static final CommonBaseAdviser.ExceptionHandler BEFORE_HANDLER =
+            (context, interceptor, throwable) -> logError("before executing", context, interceptor, throwable);
+
+    /**
+     * onThrow的异常处理器
+     */
+    private static final CommonBaseAdviser.ExceptionHandler ON_THROW_HANDLER =
+            (context, interceptor, throwable) -> logError("while handling error from", context, interceptor, throwable);
+
+    /**
+     * after的异常处理器
+     */
+    private static final CommonBaseAdviser.ExceptionHandler AFTER_HANDLER =
+            (context, interceptor, throwable) -> logError("after executing", context, interceptor, throwable);
+
     private CommonMethodAdviser() {
     }
 
@@ -62,13 +80,7 @@ public class CommonMethodAdviser {
      * @return 执行上下文
      */
     public static ExecuteContext onMethodEnter(ExecuteContext context, ListIterator<Interceptor> interceptorItr) {
-        return CommonBaseAdviser.onMethodEnter(context, interceptorItr,
-                new CommonBaseAdviser.ExceptionHandler() {
-                    @Override
-                    public void handle(ExecuteContext context, Interceptor interceptor, Throwable throwable) {
-                        logError("before executing", context, interceptor, throwable);
-                    }
-                });
+        return CommonBaseAdviser.onMethodEnter(context, interceptorItr, BEFORE_HANDLER);
     }
 
     /**
@@ -79,18 +91,28 @@ public class CommonMethodAdviser {
      * @return 执行上下文
      */
     public static ExecuteContext onMethodExit(ExecuteContext context, ListIterator<Interceptor> interceptorItr) {
-        return CommonBaseAdviser.onMethodExit(context, interceptorItr,
-                new CommonBaseAdviser.ExceptionHandler() {
-                    @Override
-                    public void handle(ExecuteContext context, Interceptor interceptor, Throwable throwable) {
-                        logError("while handling error from", context, interceptor, throwable);
-                    }
-                },
-                new CommonBaseAdviser.ExceptionHandler() {
-                    @Override
-                    public void handle(ExecuteContext context, Interceptor interceptor, Throwable throwable) {
-                        logError("after executing", context, interceptor, throwable);
-                    }
-                });
+        return CommonBaseAdviser.onMethodExit(context, interceptorItr, ON_THROW_HANDLER, AFTER_HANDLER);
+    }
+
+    /**
+     * 单个拦截器调用方法的前置触发点
+     *
+     * @param context     执行上下文
+     * @param interceptor 拦截器
+     * @return 执行上下文
+     */
+    public static ExecuteContext onMethodEnter(ExecuteContext context, Interceptor interceptor) {
+        return CommonBaseAdviser.onMethodEnter(context, interceptor, BEFORE_HANDLER);
+    }
+
+    /**
+     * 单个拦截器调用方法的后置触发点
+     *
+     * @param context     执行上下文
+     * @param interceptor 拦截器
+     * @return 执行上下文
+     */
+    public static ExecuteContext onMethodExit(ExecuteContext context, Interceptor interceptor) {
+        return CommonBaseAdviser.onMethodExit(context, interceptor, ON_THROW_HANDLER, AFTER_HANDLER);
     }
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent.template;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 拦截器下标标记，增强时被绑定为被增强方法对应的下标常量，advice通过该下标直接获取拦截器
+ * <p>见{@link com.huaweicloud.sermant.core.plugin.agent.transformer.AdviceTransformer}及
+ * {@link com.huaweicloud.sermant.core.plugin.agent.transformer.BootstrapTransformer}
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-26
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface InterceptorIndex {
+}
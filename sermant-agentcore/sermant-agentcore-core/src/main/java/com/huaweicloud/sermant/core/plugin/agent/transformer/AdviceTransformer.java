@@ -22,6 +22,7 @@ import com.huaweicloud.sermant.core.plugin.agent.interceptor.Interceptor;
 import com.huaweicloud.sermant.core.plugin.agent.template.AdviceConstTemplate;
 import com.huaweicloud.sermant.core.plugin.agent.template.AdviceMemberTemplate;
 import com.huaweicloud.sermant.core.plugin.agent.template.AdviceStaticTemplate;
+import com.huaweicloud.sermant.core.plugin.agent.template.InterceptorIndex;
 import com.huaweicloud.sermant.core.plugin.agent.template.MethodKeyCreator;
 
 import net.bytebuddy.agent.builder.AgentBuilder;
@@ -31,18 +32,25 @@ import net.bytebuddy.description.modifier.Ownership;
 import net.bytebuddy.description.modifier.Visibility;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.dynamic.DynamicType;
-import net.bytebuddy.implementation.LoadedTypeInitializer;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.bytecode.ByteCodeAppender;
+import net.bytebuddy.implementation.bytecode.StackManipulation;
+import net.bytebuddy.implementation.bytecode.constant.ClassConstant;
+import net.bytebuddy.implementation.bytecode.member.FieldAccess;
+import net.bytebuddy.implementation.bytecode.member.MethodInvocation;
+import net.bytebuddy.jar.asm.MethodVisitor;
 import net.bytebuddy.matcher.ElementMatchers;
 import net.bytebuddy.utility.JavaModule;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 增强普通类的Transformer，advice风格
@@ -53,14 +61,22 @@ import java.util.Set;
  */
 public class AdviceTransformer implements AgentBuilder.Transformer {
     /**
-     * 超类校验集
+     * 被增强类中存放拦截器数组集的字段名称
      */
-    private static final Map<Integer, Set<Class<?>>> SUPERTYPE_VERIFY_MAP = new HashMap<>();
+    private static final String INTERCEPTOR_ARR_FIELD_NAME = "_INTERCEPTOR_ARR_$SERMANT";
 
     /**
-     * 拦截器全局集
+     * 超类校验集，以被增强类的类加载器为弱键，被增强类名为键，记录已实现的超类名称
      */
-    private static final Map<Integer, Map<String, List<Interceptor>>> INTERCEPTOR_GLOBAL_MAP = new HashMap<>();
+    private static final Map<ClassLoader, Map<String, Set<String>>> SUPERTYPE_VERIFY_MAP = new WeakHashMap<>();
+
+    /**
+     * 拦截声明器全局集，以被增强类的类加载器为弱键，被增强类名为键，按增强顺序记录各被增强方法的拦截声明器
+     * <p>拦截器的类可能由被增强类的类加载器定义，因此全局集仅记录拦截声明器，被增强类初始化时才获取拦截器并存入该类的静态字段，
+     * 随后移除对应记录，拦截器仅由被增强类引用，不会阻止类加载器被回收
+     */
+    private static final Map<ClassLoader, Map<String, Map<String, List<InterceptDeclarer>>>> DECLARER_GLOBAL_MAP =
+            new WeakHashMap<>();
 
     /**
      * 拦截声明器数组
@@ -80,10 +96,9 @@ public class AdviceTransformer implements AgentBuilder.Transformer {
     @Override
     public DynamicType.Builder<?> transform(DynamicType.Builder<?> builder, TypeDescription typeDesc,
             ClassLoader classLoader, JavaModule module) {
-        final int verifiedKey = Objects.hash(classLoader, typeDesc.getActualName());
         DynamicType.Builder<?> newBuilder = builder;
-        newBuilder = extendsFromSuperTypes(newBuilder, typeDesc, verifiedKey);
-        newBuilder = enhanceMethods(newBuilder, typeDesc, classLoader, verifiedKey);
+        newBuilder = extendsFromSuperTypes(newBuilder, typeDesc, classLoader);
+        newBuilder = enhanceMethods(newBuilder, typeDesc, classLoader);
         return newBuilder;
     }
 
@@ -93,27 +108,24 @@ public class AdviceTransformer implements AgentBuilder.Transformer {
      *
      * @param builder     构建器
      * @param typeDesc    类定义
-     * @param verifiedKey 校验键
+     * @param classLoader 被增强类的类加载器
      * @return 构建器
      */
     private DynamicType.Builder<?> extendsFromSuperTypes(DynamicType.Builder<?> builder, TypeDescription typeDesc,
-            int verifiedKey) {
+            ClassLoader classLoader) {
         if (superTypeDeclarers == null || superTypeDeclarers.length <= 0) {
             return builder;
         }
-        Set<Class<?>> superTypeSet = SUPERTYPE_VERIFY_MAP.get(verifiedKey);
-        if (superTypeSet == null) {
-            superTypeSet = new HashSet<>();
-            SUPERTYPE_VERIFY_MAP.put(verifiedKey, superTypeSet);
-        }
+        final Set<String> superTypeSet = getLoaderMap(SUPERTYPE_VERIFY_MAP, classLoader, true)
+                .computeIfAbsent(typeDesc.getActualName(), name -> new HashSet<>());
         DynamicType.Builder<?> newBuilder = builder;
         for (SuperTypeDeclarer superTypeDeclarer : superTypeDeclarers) {
             final Class<?> superType = superTypeDeclarer.getSuperType();
-            if (typeDesc.isAssignableTo(superType) || superTypeSet.contains(superType)) {
+            if (typeDesc.isAssignableTo(superType) || superTypeSet.contains(superType.getName())) {
                 continue;
             }
             newBuilder = superTypeDeclarer.resolve(superType, newBuilder);
-            superTypeSet.add(superType);
+            superTypeSet.add(superType.getName());
         }
         return newBuilder;
     }
@@ -129,26 +141,27 @@ public class AdviceTransformer implements AgentBuilder.Transformer {
      * @param builder     构建器
      * @param typeDesc    类定义
      * @param classLoader 被增强类的类加载器
-     * @param verifiedKey 校验键
      * @return 构建器
      */
     private DynamicType.Builder<?> enhanceMethods(DynamicType.Builder<?> builder, TypeDescription typeDesc,
-            ClassLoader classLoader, int verifiedKey) {
+            ClassLoader classLoader) {
         if (interceptDeclarers == null || interceptDeclarers.length <= 0) {
             return builder;
         }
         DynamicType.Builder<?> newBuilder = builder;
-        Map<String, List<Interceptor>> interceptorMap = INTERCEPTOR_GLOBAL_MAP.get(verifiedKey);
-        if (interceptorMap == null) {
-            interceptorMap = new HashMap<>();
-            INTERCEPTOR_GLOBAL_MAP.put(verifiedKey, interceptorMap);
-            newBuilder = defineEssentialFields(newBuilder, interceptorMap);
+        final Map<String, Map<String, List<InterceptDeclarer>>> loaderMap =
+                getLoaderMap(DECLARER_GLOBAL_MAP, classLoader, true);
+        Map<String, List<InterceptDeclarer>> declarerMap = loaderMap.get(typeDesc.getActualName());
+        if (declarerMap == null) {
+            declarerMap = new LinkedHashMap<>();
+            loaderMap.put(typeDesc.getActualName(), declarerMap);
+            newBuilder = defineEssentialFields(newBuilder);
         }
         for (MethodDescription.InDefinedShape methodDesc : typeDesc.getDeclaredMethods()) {
             if (methodDesc.isNative() || methodDesc.isAbstract()) {
                 continue;
             }
-            newBuilder = enhanceMethod(newBuilder, methodDesc, classLoader, interceptorMap);
+            newBuilder = enhanceMethod(newBuilder, methodDesc, classLoader, declarerMap);
         }
         return newBuilder;
     }
@@ -156,72 +169,194 @@ public class AdviceTransformer implements AgentBuilder.Transformer {
     /**
      * 为被增强类添加必要参数：
      * <pre>
-     *     1.用于存放拦截器的集合
+     *     1.用于存放拦截器的数组集，被增强类初始化时由拦截声明器集合获取，见{@link InterceptorArrAppender}
      *     2.用于存放额外静态属性的集合
      *     3.用于存放额外成员属性的集合
      * </pre>
      *
-     * @param builder        构建器
-     * @param interceptorMap 拦截器集合
+     * @param builder 构建器
      * @return 构建器
      */
-    private DynamicType.Builder<?> defineEssentialFields(DynamicType.Builder<?> builder,
-            Map<String, List<Interceptor>> interceptorMap) {
-        return builder.defineField("_INTERCEPTOR_MAP_$SERMANT", Map.class, Visibility.PRIVATE, Ownership.STATIC)
-                .initializer(new LoadedTypeInitializer.ForStaticField("_INTERCEPTOR_MAP_$SERMANT", interceptorMap))
+    private DynamicType.Builder<?> defineEssentialFields(DynamicType.Builder<?> builder) {
+        return builder.defineField(INTERCEPTOR_ARR_FIELD_NAME, Interceptor[][].class, Visibility.PRIVATE,
+                        Ownership.STATIC)
+                .initializer(InterceptorArrAppender.INSTANCE)
                 .defineField("_EXT_STATIC_FIELDS_$SERMANT", Map.class, Visibility.PRIVATE, Ownership.STATIC)
                 .defineField("_EXT_MEMBER_FIELDS_$SERMANT", Map.class, Visibility.PRIVATE, Ownership.MEMBER);
     }
 
     /**
      * 对单个方法进行增强
+     * <p>方法初次增强时，以其在拦截声明器集合中的下标作为常量织入advice，调用时直接通过下标获取拦截器数组
      *
-     * @param builder        构建器
-     * @param methodDesc     方法定义
-     * @param classLoader    加载被增强类的类加载器
-     * @param interceptorMap 拦截器集合
+     * @param builder     构建器
+     * @param methodDesc  方法定义
+     * @param classLoader 加载被增强类的类加载器
+     * @param declarerMap 拦截声明器集合
      * @return 构建器
      */
     private DynamicType.Builder<?> enhanceMethod(DynamicType.Builder<?> builder,
             MethodDescription.InDefinedShape methodDesc, ClassLoader classLoader,
-            Map<String, List<Interceptor>> interceptorMap) {
-        final List<Interceptor> declaredInterceptors = getInterceptors(methodDesc, classLoader);
-        if (declaredInterceptors.isEmpty()) {
+            Map<String, List<InterceptDeclarer>> declarerMap) {
+        final List<InterceptDeclarer> matchedDeclarers = getDeclarers(methodDesc, classLoader);
+        if (matchedDeclarers.isEmpty()) {
             return builder;
         }
         final String methodKey = MethodKeyCreator.getMethodDescKey(methodDesc);
-        final List<Interceptor> interceptors = interceptorMap.get(methodKey);
+        final List<InterceptDeclarer> declarers = declarerMap.get(methodKey);
         DynamicType.Builder<?> newBuilder = builder;
-        if (interceptors == null) {
+        if (declarers == null) {
+            final Class<?> templateCls;
             if (methodDesc.isStatic()) {
-                newBuilder = newBuilder.visit(Advice.to(AdviceStaticTemplate.class).on(ElementMatchers.is(methodDesc)));
+                templateCls = AdviceStaticTemplate.class;
             } else if (methodDesc.isConstructor()) {
-                newBuilder = newBuilder.visit(Advice.to(AdviceConstTemplate.class).on(ElementMatchers.is(methodDesc)));
+                templateCls = AdviceConstTemplate.class;
             } else {
-                newBuilder = newBuilder.visit(Advice.to(AdviceMemberTemplate.class).on(ElementMatchers.is(methodDesc)));
+                templateCls = AdviceMemberTemplate.class;
             }
-            interceptorMap.put(methodKey, declaredInterceptors);
+            newBuilder = newBuilder.visit(Advice.withCustomMapping()
+                    .bind(InterceptorIndex.class, declarerMap.size())
+                    .to(templateCls)
+                    .on(ElementMatchers.is(methodDesc)));
+            declarerMap.put(methodKey, matchedDeclarers);
         } else {
-            interceptors.addAll(declaredInterceptors);
+            declarers.addAll(matchedDeclarers);
         }
         return newBuilder;
     }
 
     /**
-     * 从拦截声明器中获取所有符合条件的拦截器
+     * 获取所有匹配方法且拦截器不为空的拦截声明器，同一个拦截声明器在同一个类加载器下共享拦截器，见{@link InterceptorRegistry}
      *
      * @param methodDesc  方法定义
      * @param classLoader 被增强类的类加载器
-     * @return 拦截器集合
+     * @return 拦截声明器集合
      */
-    private List<Interceptor> getInterceptors(MethodDescription.InDefinedShape methodDesc, ClassLoader classLoader) {
-        final List<Interceptor> interceptors = new ArrayList<>();
+    private List<InterceptDeclarer> getDeclarers(MethodDescription.InDefinedShape methodDesc,
+            ClassLoader classLoader) {
+        final List<InterceptDeclarer> declarers = new ArrayList<>();
         for (InterceptDeclarer declarer : interceptDeclarers) {
-            if (!declarer.getMethodMatcher().matches(methodDesc)) {
-                continue;
+            if (declarer.getMethodMatcher().matches(methodDesc)
+                    && InterceptorRegistry.getInterceptors(declarer, classLoader).length > 0) {
+                declarers.add(declarer);
+            }
+        }
+        return declarers;
+    }
+
+    /**
+     * 获取类加载器对应的增强记录
+     *
+     * @param globalMap   以类加载器为弱键的全局集
+     * @param classLoader 被增强类的类加载器
+     * @param isCreated   不存在时是否创建
+     * @param <T>         增强记录类型
+     * @return 以被增强类名为键的增强记录，若不存在且无需创建，则返回null
+     */
+    private static <T> Map<String, T> getLoaderMap(Map<ClassLoader, Map<String, T>> globalMap,
+            ClassLoader classLoader, boolean isCreated) {
+        synchronized (globalMap) {
+            Map<String, T> loaderMap = globalMap.get(classLoader);
+            if (loaderMap == null && isCreated) {
+                loaderMap = new ConcurrentHashMap<>();
+                globalMap.put(classLoader, loaderMap);
+            }
+            return loaderMap;
+        }
+    }
+
+    /**
+     * 获取被增强类的拦截器数组集，由被增强类的静态初始化块调用，见{@link InterceptorArrAppender}
+     * <p>按增强顺序从拦截器注册表获取各拦截声明器的共享拦截器，数组集下标与织入advice的常量一致，获取后移除该类的增强记录
+     *
+     * @param type 被增强类
+     * @return 拦截器数组集，若被增强类没有增强记录，则返回null
+     */
+    public static Interceptor[][] getInterceptorArr(Class<?> type) {
+        final ClassLoader classLoader = type.getClassLoader();
+        final Map<String, Map<String, List<InterceptDeclarer>>> loaderMap =
+                getLoaderMap(DECLARER_GLOBAL_MAP, classLoader, false);
+        final Map<String, List<InterceptDeclarer>> declarerMap =
+                loaderMap == null ? null : loaderMap.remove(type.getName());
+        if (declarerMap == null) {
+            return null;
+        }
+        final Interceptor[][] interceptorArr = new Interceptor[declarerMap.size()][];
+        int index = 0;
+        for (List<InterceptDeclarer> declarers : declarerMap.values()) {
+            final List<Interceptor> interceptors = new ArrayList<>();
+            for (InterceptDeclarer declarer : declarers) {
+                interceptors.addAll(Arrays.asList(InterceptorRegistry.getInterceptors(declarer, classLoader)));
             }
-            interceptors.addAll(Arrays.asList(declarer.getInterceptors(classLoader)));
+            interceptorArr[index++] = interceptors.toArray(new Interceptor[0]);
+        }
+        return interceptorArr;
+    }
+
+    /**
+     * 获取被增强类中所有被增强方法的方法键，按拦截器数组集的下标排列
+     *
+     * @param classLoader 被增强类的类加载器
+     * @param typeName    被增强类的全限定名
+     * @return 方法键列表，若被增强类没有增强记录，则返回空列表
+     */
+    public static List<String> getMethodKeys(ClassLoader classLoader, String typeName) {
+        final Map<String, Map<String, List<InterceptDeclarer>>> loaderMap =
+                getLoaderMap(DECLARER_GLOBAL_MAP, classLoader, false);
+        final Map<String, List<InterceptDeclarer>> declarerMap = loaderMap == null ? null : loaderMap.get(typeName);
+        return declarerMap == null ? new ArrayList<>() : new ArrayList<>(declarerMap.keySet());
+    }
+
+    /**
+     * 移除被增强类的增强记录，包括超类校验集和拦截声明器集合，移除后该类将被视为从未被增强
+     *
+     * @param classLoader 被增强类的类加载器
+     * @param typeName    被增强类的全限定名
+     */
+    public static void removeEnhanceRecord(ClassLoader classLoader, String typeName) {
+        final Map<String, Set<String>> superTypeMap = getLoaderMap(SUPERTYPE_VERIFY_MAP, classLoader, false);
+        if (superTypeMap != null) {
+            superTypeMap.remove(typeName);
+        }
+        final Map<String, Map<String, List<InterceptDeclarer>>> declarerMap =
+                getLoaderMap(DECLARER_GLOBAL_MAP, classLoader, false);
+        if (declarerMap != null) {
+            declarerMap.remove(typeName);
+        }
+    }
+
+    /**
+     * 拦截器数组集的初始化代码，织入被增强类的静态初始化块中，调用{@link #getInterceptorArr}为{@link
+     * #INTERCEPTOR_ARR_FIELD_NAME}字段赋值
+     * <p>注意，同一个类可能被多个插件增强，转换需要推迟到被增强类初始化时进行，以确保拦截声明器集合已经完整
+     * <p>初始化代码不依赖增强时生成的随机标识，因此增强后的字节码仅由原字节码和插件决定，可被缓存复用
+     *
+     * @since 2022-09-26
+     */
+    private enum InterceptorArrAppender implements ByteCodeAppender {
+        /**
+         * 单例
+         */
+        INSTANCE;
+
+        /**
+         * 获取拦截器数组集的方法
+         */
+        private final MethodDescription.InDefinedShape getterMethod = new TypeDescription.ForLoadedType(
+                AdviceTransformer.class).getDeclaredMethods().filter(ElementMatchers.named("getInterceptorArr"))
+                .getOnly();
+
+        @Override
+        public Size apply(MethodVisitor methodVisitor, Implementation.Context implementationContext,
+                MethodDescription instrumentedMethod) {
+            final TypeDescription instrumentedType = implementationContext.getInstrumentedType();
+            final StackManipulation.Size size = new StackManipulation.Compound(
+                    ClassConstant.of(instrumentedType),
+                    MethodInvocation.invoke(getterMethod),
+                    FieldAccess.forField(instrumentedType.getDeclaredFields()
+                            .filter(ElementMatchers.named(INTERCEPTOR_ARR_FIELD_NAME)).getOnly()).write()
+            ).apply(methodVisitor, implementationContext);
+            return new Size(size.getMaximalSize(), instrumentedMethod.getStackSize());
         }
-        return interceptors;
     }
 }
@@ -20,35 +20,40 @@ import com.huaweicloud.sermant.core.common.LoggerFactory;
 import com.huaweicloud.sermant.core.plugin.agent.declarer.InterceptDeclarer;
 import com.huaweicloud.sermant.core.plugin.agent.interceptor.Interceptor;
 import com.huaweicloud.sermant.core.plugin.agent.template.BootstrapConstTemplate;
+import com.huaweicloud.sermant.core.plugin.agent.template.BootstrapDispatcher;
+import com.huaweicloud.sermant.core.plugin.agent.template.BootstrapInterceptorDispatcher;
 import com.huaweicloud.sermant.core.plugin.agent.template.BootstrapMemberTemplate;
 import com.huaweicloud.sermant.core.plugin.agent.template.BootstrapStaticTemplate;
+import com.huaweicloud.sermant.core.plugin.agent.template.InterceptorIndex;
 import com.huaweicloud.sermant.core.plugin.agent.template.MethodKeyCreator;
-import com.huaweicloud.sermant.core.utils.ClassLoaderUtils;
 
-import net.bytebuddy.ByteBuddy;
 import net.bytebuddy.agent.builder.AgentBuilder;
 import net.bytebuddy.asm.Advice;
 import net.bytebuddy.description.method.MethodDescription;
 import net.bytebuddy.description.method.MethodList;
-import net.bytebuddy.description.modifier.Ownership;
-import net.bytebuddy.description.modifier.Visibility;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.dynamic.ClassFileLocator;
 import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassInjector;
 import net.bytebuddy.matcher.ElementMatchers;
 import net.bytebuddy.utility.JavaModule;
 
-import java.lang.reflect.InvocationTargetException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.instrument.Instrumentation;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
  * 启动类加载器加载类的Transformer，advice风格
+ * <p>被增强方法通过注入启动类加载器的{@link BootstrapDispatcher}调度拦截器，调度器下标在增强时作为常量织入advice
  *
  * @author HapThorin
  * @version 1.0.0
@@ -56,19 +61,26 @@ import java.util.logging.Logger;
  */
 public class BootstrapTransformer implements AgentBuilder.Transformer {
     /**
-     * bootstrap模板的字段名称
+     * 日志
      */
-    public static final String INTERCEPTORS_FIELD_NAME = "_INTERCEPTORS_$SERMANT";
+    private static final Logger LOGGER = LoggerFactory.getLogger();
 
     /**
-     * 日志
+     * 调度器全局集
      */
-    private static final Logger LOGGER = LoggerFactory.getLogger();
+    private static final Map<String, BootstrapInterceptorDispatcher> DISPATCHER_GLOBAL_MAP =
+            new ConcurrentHashMap<>();
+
+    /**
+     * 调度桥的全限定名，注入前不可直接引用{@link BootstrapDispatcher}
+     */
+    private static final String DISPATCHER_CLASS_NAME =
+            "com.huaweicloud.sermant.core.plugin.agent.template.BootstrapDispatcher";
 
     /**
-     * 拦截器全局集
+     * 调度桥是否已注入启动类加载器
      */
-    private static final Map<String, List<Interceptor>> INTERCEPTOR_GLOBAL_MAP = new HashMap<>();
+    private static volatile boolean isDispatcherInjected = false;
 
     /**
      * 拦截定义数组
@@ -84,10 +96,43 @@ public class BootstrapTransformer implements AgentBuilder.Transformer {
         this.interceptDeclarers = interceptDeclarers;
     }
 
+    /**
+     * 将调度桥{@link BootstrapDispatcher}注入启动类加载器，优先使用Unsafe注入，不可用时通过Instrumentation追加jar包
+     * <p>注入失败时，启动类加载器加载的类将不会被增强
+     *
+     * @param instrumentation Instrumentation对象
+     * @return 是否注入成功
+     */
+    public static synchronized boolean injectDispatcher(Instrumentation instrumentation) {
+        if (isDispatcherInjected) {
+            return true;
+        }
+        try {
+            final byte[] dispatcherBytes = ClassFileLocator.ForClassLoader.of(BootstrapTransformer.class
+                    .getClassLoader()).locate(DISPATCHER_CLASS_NAME).resolve();
+            final ClassInjector injector;
+            if (ClassInjector.UsingUnsafe.isAvailable()) {
+                injector = ClassInjector.UsingUnsafe.ofBootLoader();
+            } else {
+                final File folder = Files.createTempDirectory("sermant-bootstrap").toFile();
+                folder.deleteOnExit();
+                injector = ClassInjector.UsingInstrumentation.of(folder,
+                        ClassInjector.UsingInstrumentation.Target.BOOTSTRAP, instrumentation);
+            }
+            injector.injectRaw(Collections.singletonMap(DISPATCHER_CLASS_NAME, dispatcherBytes));
+            isDispatcherInjected = true;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warning(String.format(Locale.ROOT, "Inject [%s] into bootstrap class loader failed, "
+                    + "classes loaded by bootstrap class loader won't be enhanced: [%s]. ", DISPATCHER_CLASS_NAME,
+                    e.getMessage()));
+        }
+        return isDispatcherInjected;
+    }
+
     @Override
     public DynamicType.Builder<?> transform(DynamicType.Builder<?> builder, TypeDescription typeDesc,
             ClassLoader classLoader, JavaModule module) {
-        if (interceptDeclarers == null || interceptDeclarers.length <= 0) {
+        if (interceptDeclarers == null || interceptDeclarers.length <= 0 || !isDispatcherInjected) {
             return builder;
         }
         return enhanceMethods(builder, typeDesc, ClassLoader.getSystemClassLoader());
@@ -129,19 +174,13 @@ public class BootstrapTransformer implements AgentBuilder.Transformer {
         if (interceptors.isEmpty()) {
             return builder;
         }
-        try {
-            if (methodDesc.isStatic()) {
-                return resolve(builder, methodDesc, interceptors, BootstrapStaticTemplate.class, classLoader);
-            } else if (methodDesc.isConstructor()) {
-                return resolve(builder, methodDesc, interceptors, BootstrapConstTemplate.class, classLoader);
-            } else {
-                return resolve(builder, methodDesc, interceptors, BootstrapMemberTemplate.class, classLoader);
-            }
-        } catch (NoSuchFieldException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-            LOGGER.warning(String.format(Locale.ROOT, "Enhance [%s] failed for [%s], caused by [%s]. ",
-                    MethodKeyCreator.getMethodDescKey(methodDesc), e.getClass().getName(), e.getMessage()));
+        if (methodDesc.isStatic()) {
+            return resolve(builder, methodDesc, interceptors, BootstrapStaticTemplate.class);
+        } else if (methodDesc.isConstructor()) {
+            return resolve(builder, methodDesc, interceptors, BootstrapConstTemplate.class);
+        } else {
+            return resolve(builder, methodDesc, interceptors, BootstrapMemberTemplate.class);
         }
-        return builder;
     }
 
     /**
@@ -157,7 +196,7 @@ public class BootstrapTransformer implements AgentBuilder.Transformer {
             if (!declarer.getMethodMatcher().matches(methodDesc)) {
                 continue;
             }
-            interceptors.addAll(Arrays.asList(declarer.getInterceptors(classLoader)));
+            interceptors.addAll(Arrays.asList(InterceptorRegistry.getInterceptors(declarer, classLoader)));
         }
         return interceptors;
     }
@@ -165,118 +204,31 @@ public class BootstrapTransformer implements AgentBuilder.Transformer {
     /**
      * 处理方法增强
      * <pre>
-     *     1.依模板类创建增强Adviser
-     *     2.使用被增强类的类加载器定义该Adviser
-     *     3.为该Adviser添加增强的拦截器
-     *     4.在构建器中定义增强逻辑
+     *     1.方法初次增强时，为其创建调度器并注册到{@link BootstrapDispatcher}中
+     *     2.以调度器下标作为常量，在构建器中定义增强逻辑
+     *     3.方法已被增强时，仅为其调度器添加拦截器
      * </pre>
      *
      * @param builder      构建器
      * @param methodDesc   方法定义
      * @param interceptors 拦截器列表
      * @param templateCls  增强模板类
-     * @param classLoader  被增强类的类加载器
      * @return 构建器
-     * @throws InvocationTargetException 调用方法错误
-     * @throws IllegalAccessException    无法访问属性或方法，正常不会报出
-     * @throws NoSuchMethodException     无法找到方法，正常不会报出
-     * @throws NoSuchFieldException      找不到属性
      */
     private DynamicType.Builder<?> resolve(DynamicType.Builder<?> builder, MethodDescription.InDefinedShape methodDesc,
-            List<Interceptor> interceptors, Class<?> templateCls, ClassLoader classLoader)
-            throws InvocationTargetException, IllegalAccessException, NoSuchMethodException, NoSuchFieldException {
-        final String adviceClassName = getAdviceClassName(templateCls, methodDesc);
-        List<Interceptor> globalInterceptors = INTERCEPTOR_GLOBAL_MAP.get(adviceClassName);
-        if (globalInterceptors == null) {
-            globalInterceptors = new ArrayList<>(interceptors);
-            INTERCEPTOR_GLOBAL_MAP.put(adviceClassName, globalInterceptors);
-            final byte[] adviceClsBytes = createAdviceClass(templateCls, adviceClassName);
-            final Class<?> adviceCls = defineAdviceClass(adviceClassName, classLoader, adviceClsBytes);
-            prepareAdviceClass(adviceCls, interceptors);
-            return visitAdvice(builder, methodDesc, adviceCls, adviceClsBytes);
-        } else {
-            globalInterceptors.addAll(interceptors);
+            List<Interceptor> interceptors, Class<?> templateCls) {
+        final String methodKey = MethodKeyCreator.getMethodDescKey(methodDesc);
+        final BootstrapInterceptorDispatcher dispatcher = DISPATCHER_GLOBAL_MAP.get(methodKey);
+        if (dispatcher != null) {
+            dispatcher.addInterceptors(interceptors);
             return builder;
         }
-    }
-
-    /**
-     * 获取增强Adviser的全限定名
-     * <p>由模板类全限定名拼接被增强方法元信息的hash值所得，见于{@link MethodKeyCreator#getMethodDescKey}
-     *
-     * @param templateCls 增强模板类
-     * @param methodDesc  方法定义
-     * @return 增强Adviser全限定名
-     */
-    private String getAdviceClassName(Class<?> templateCls, MethodDescription.InDefinedShape methodDesc) {
-        return templateCls.getName() + "_"
-                + Integer.toHexString(MethodKeyCreator.getMethodDescKey(methodDesc).hashCode());
-    }
-
-    /**
-     * 使用byte-buddy依照增强模板类动态生成增强Adviser
-     *
-     * @param templateCls   增强模板类
-     * @param adviceClsName 增强Adviser全限定名
-     * @return 增强Adviser的字节码
-     */
-    private byte[] createAdviceClass(Class<?> templateCls, String adviceClsName) {
-        return new ByteBuddy().redefine(templateCls)
-                .name(adviceClsName)
-                .defineField(INTERCEPTORS_FIELD_NAME, List.class, Visibility.PUBLIC, Ownership.STATIC)
-                .make()
-                .getBytes();
-    }
-
-    /**
-     * 通过字节码，使用ClassLoader定义增强Adviser
-     *
-     * @param adviceClassName 增强Advice的全限定名
-     * @param classLoader    被增强类的ClassLoader
-     * @param adviceClsBytes 增强Adviser的字节码
-     * @return 增强Adviser的Class
-     * @throws InvocationTargetException 调用defineClass方法错误
-     * @throws IllegalAccessException    无法访问defineClass方法，正常不会报出
-     * @throws NoSuchMethodException     无法找到defineClass方法，正常不会报出
-     */
-    private Class<?> defineAdviceClass(String adviceClassName, ClassLoader classLoader, byte[] adviceClsBytes)
-            throws InvocationTargetException, IllegalAccessException, NoSuchMethodException {
-        return ClassLoaderUtils.defineClass(adviceClassName, classLoader, adviceClsBytes);
-    }
-
-    /**
-     * 初始化增强Adviser，为其添加方法拦截器集合
-     *
-     * @param adviceCls    增强Adviser的Class
-     * @param interceptors 拦截器集合
-     * @throws NoSuchFieldException   找不到属性
-     * @throws IllegalAccessException 无法访问属性
-     */
-    private void prepareAdviceClass(Class<?> adviceCls, List<Interceptor> interceptors)
-            throws NoSuchFieldException, IllegalAccessException {
-        adviceCls.getDeclaredField(INTERCEPTORS_FIELD_NAME).set(null, interceptors);
-    }
-
-    /**
-     * 在构建器中定义增强逻辑
-     *
-     * @param builder        构建器
-     * @param methodDesc     方法定义
-     * @param adviceCls      增强Adviser的Class
-     * @param adviceClsBytes 增强Adviser的字节码
-     * @return 构建器
-     */
-    private DynamicType.Builder<?> visitAdvice(DynamicType.Builder<?> builder,
-            MethodDescription.InDefinedShape methodDesc, Class<?> adviceCls, final byte[] adviceClsBytes) {
-        return builder.visit(Advice.to(adviceCls, new ClassFileLocator() {
-            @Override
-            public void close() {
-            }
-
-            @Override
-            public Resolution locate(String name) {
-                return new Resolution.Explicit(adviceClsBytes);
-            }
-        }).on(ElementMatchers.<MethodDescription>is(methodDesc)));
+        final BootstrapInterceptorDispatcher newDispatcher =
+                new BootstrapInterceptorDispatcher(interceptors, methodDesc.isConstructor());
+        DISPATCHER_GLOBAL_MAP.put(methodKey, newDispatcher);
+        return builder.visit(Advice.withCustomMapping()
+                .bind(InterceptorIndex.class, newDispatcher.register())
+                .to(templateCls)
+                .on(ElementMatchers.<MethodDescription>is(methodDesc)));
     }
 }
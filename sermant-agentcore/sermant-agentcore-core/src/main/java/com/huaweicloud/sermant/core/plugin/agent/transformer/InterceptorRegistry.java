@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent.transformer;
+
+import com.huaweicloud.sermant.core.plugin.agent.declarer.InterceptDeclarer;
+import com.huaweicloud.sermant.core.plugin.agent.interceptor.Interceptor;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 拦截器注册表，同一个拦截声明器在同一个类加载器下仅创建一次拦截器，由所有被增强类和被增强方法共享
+ * <p>注册表以类加载器和拦截声明器为弱键，并弱引用拦截器。拦截器的类可能由作为键的类加载器定义，强引用会使弱键始终可达，
+ * 导致类加载器无法被回收。拦截器仅由被增强类的拦截器数组集字段强引用，只要该类加载器下仍有被增强类存活，拦截器便不会被回收
+ * <p>拦截器在锁外创建，避免与类加载器的锁形成死锁，并发创建时以先注册的拦截器为准
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+final class InterceptorRegistry {
+    /**
+     * 拦截器注册表
+     */
+    private static final Map<ClassLoader, Map<InterceptDeclarer, SharedInterceptors>> REGISTRY =
+            new WeakHashMap<>();
+
+    private InterceptorRegistry() {
+    }
+
+    /**
+     * 获取拦截声明器在类加载器下的拦截器，不存在或已被回收时创建并注册，创建失败的空数组不会被注册
+     *
+     * @param declarer    拦截声明器
+     * @param classLoader 被增强类的类加载器
+     * @return 拦截器数组
+     */
+    static Interceptor[] getInterceptors(InterceptDeclarer declarer, ClassLoader classLoader) {
+        final Interceptor[] registered = find(declarer, classLoader);
+        if (registered != null) {
+            return registered;
+        }
+        final Interceptor[] interceptors = declarer.getInterceptors(classLoader);
+        if (interceptors == null || interceptors.length <= 0) {
+            return new Interceptor[0];
+        }
+        synchronized (REGISTRY) {
+            final Map<InterceptDeclarer, SharedInterceptors> declarerMap =
+                    REGISTRY.computeIfAbsent(classLoader, loader -> new WeakHashMap<>());
+            final SharedInterceptors existing = declarerMap.get(declarer);
+            final Interceptor[] existingInterceptors = existing == null ? null : existing.get();
+            if (existingInterceptors != null) {
+                return existingInterceptors;
+            }
+            declarerMap.put(declarer, new SharedInterceptors(interceptors));
+            return interceptors;
+        }
+    }
+
+    /**
+     * 查找已注册的拦截器
+     *
+     * @param declarer    拦截声明器
+     * @param classLoader 被增强类的类加载器
+     * @return 拦截器数组，若未注册或已被回收，则返回null
+     */
+    private static Interceptor[] find(InterceptDeclarer declarer, ClassLoader classLoader) {
+        synchronized (REGISTRY) {
+            final Map<InterceptDeclarer, SharedInterceptors> declarerMap = REGISTRY.get(classLoader);
+            final SharedInterceptors shared = declarerMap == null ? null : declarerMap.get(declarer);
+            return shared == null ? null : shared.get();
+        }
+    }
+
+    /**
+     * 弱引用的共享拦截器
+     *
+     * @since 2022-09-28
+     */
+    private static class SharedInterceptors {
+        /**
+         * 拦截器的弱引用
+         */
+        private final WeakReference<Interceptor>[] references;
+
+        @SuppressWarnings("unchecked")
+        SharedInterceptors(Interceptor[] interceptors) {
+            references = new WeakReference[interceptors.length];
+            for (int i = 0; i < interceptors.length; i++) {
+                references[i] = new WeakReference<>(interceptors[i]);
+            }
+        }
+
+        /**
+         * 获取拦截器
+         *
+         * @return 拦截器数组，若任一拦截器已被回收，则返回null
+         */
+        Interceptor[] get() {
+            final Interceptor[] interceptors = new Interceptor[references.length];
+            for (int i = 0; i < references.length; i++) {
+                interceptors[i] = references[i].get();
+                if (interceptors[i] == null) {
+                    return null;
+                }
+            }
+            return interceptors;
+        }
+    }
+}
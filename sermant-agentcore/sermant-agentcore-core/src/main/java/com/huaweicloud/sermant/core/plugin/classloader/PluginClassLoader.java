@@ -16,23 +16,27 @@
 
 package com.huaweicloud.sermant.core.plugin.classloader;
 
+import com.huaweicloud.sermant.core.classloader.LoadedClassCache;
 import com.huaweicloud.sermant.core.config.ConfigManager;
 import com.huaweicloud.sermant.core.plugin.agent.config.AgentConfig;
 
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Set;
 
 /**
  * 插件类加载器，用于加载插件服务包
+ * <p>该类加载器可并行加载，自身加载的类由{@link LoadedClassCache}缓存
  *
  * @author HapThorin
  * @version 1.0.0
  * @since 2021-11-12
  */
 public class PluginClassLoader extends URLClassLoader {
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
     /**
      * 不优先使用PluginClassLoader加载的全限定名前缀
      */
@@ -41,10 +45,11 @@ public class PluginClassLoader extends URLClassLoader {
     /**
      * 对ClassLoader内部已加载的Class的管理
      */
-    private final Map<String, Class<?>> pluginClassMap = new HashMap<>();
+    private final LoadedClassCache pluginClassCache;
 
     public PluginClassLoader(URL[] urls) {
         super(urls);
+        this.pluginClassCache = new LoadedClassCache(urls);
     }
 
     /**
@@ -54,14 +59,7 @@ public class PluginClassLoader extends URLClassLoader {
      * @return Class对象
      */
     private Class<?> loadPluginClass(String name) {
-        if (!pluginClassMap.containsKey(name)) {
-            try {
-                pluginClassMap.put(name, findClass(name));
-            } catch (ClassNotFoundException ignored) {
-                pluginClassMap.put(name, null);
-            }
-        }
-        return pluginClassMap.get(name);
+        return pluginClassCache.getClass(name, this::findClass);
     }
 
     private boolean ifExclude(String name) {
@@ -76,8 +74,8 @@ public class PluginClassLoader extends URLClassLoader {
     @Override
     public Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
         synchronized (getClassLoadingLock(name)) {
-            Class<?> clazz = null;
-            if (!ifExclude(name)) {
+            Class<?> clazz = findLoadedClass(name);
+            if (clazz == null && !ifExclude(name)) {
                 clazz = loadPluginClass(name);
             }
             if (clazz == null) {
@@ -93,5 +91,6 @@ public class PluginClassLoader extends URLClassLoader {
     @Override
     public void addURL(URL url) {
         super.addURL(url);
+        pluginClassCache.addUrl(url);
     }
 }
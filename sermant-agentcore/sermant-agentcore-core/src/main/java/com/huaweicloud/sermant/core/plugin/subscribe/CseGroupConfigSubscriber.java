@@ -25,6 +25,7 @@ import com.huaweicloud.sermant.core.plugin.subscribe.processor.ConfigProcessor;
 import com.huaweicloud.sermant.core.plugin.subscribe.processor.IntegratedEventListenerAdapter;
 import com.huaweicloud.sermant.core.service.dynamicconfig.DynamicConfigService;
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigListener;
+import com.huaweicloud.sermant.core.service.dynamicconfig.config.DynamicConfig;
 import com.huaweicloud.sermant.core.utils.LabelGroupUtils;
 import com.huaweicloud.sermant.core.utils.StringUtils;
 
@@ -78,7 +79,12 @@ public class CseGroupConfigSubscriber extends AbstractGroupConfigSubscriber {
         super(dynamicConfigService, pluginName);
         this.serviceName = serviceName;
         this.config = ConfigManager.getConfig(ServiceMeta.class);
-        this.configOrderIntegratedProcessor = new ConfigOrderIntegratedProcessor(listener);
+        this.configOrderIntegratedProcessor = new ConfigOrderIntegratedProcessor(listener, getCoalesceWindow());
+    }
+
+    private long getCoalesceWindow() {
+        final DynamicConfig dynamicConfig = ConfigManager.getConfig(DynamicConfig.class);
+        return dynamicConfig == null ? 0L : dynamicConfig.getEventCoalesceWindow();
     }
 
     @Override
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.huaweicloud.sermant.core.plugin.subscribe.processor;
+
+import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEvent;
+import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEventType;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 合并事件, 窗口期内的多个配置事件按配置键合并后一次性下发
+ * <p>键、组、内容与最后一个合并事件一致, 以兼容仅处理单个事件的监听器</p>
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class BatchConfigEvent extends OrderConfigEvent {
+    private static final long serialVersionUID = -2370165421730598213L;
+
+    private final List<OrderConfigEvent> events;
+
+    /**
+     * 构造器
+     *
+     * @param events  按配置键合并后的事件, 按首次变更顺序排列, 不可为空
+     * @param allData 所有数据
+     */
+    public BatchConfigEvent(List<OrderConfigEvent> events, Map<String, Object> allData) {
+        this(events.get(events.size() - 1), events, allData);
+    }
+
+    private BatchConfigEvent(OrderConfigEvent lastEvent, List<OrderConfigEvent> events, Map<String, Object> allData) {
+        super(lastEvent.getKey(), lastEvent.getGroup(), lastEvent.getContent(), resolveEventType(events), allData);
+        this.events = Collections.unmodifiableList(events);
+    }
+
+    /**
+     * 合并后的事件, 每个配置键仅保留一个事件
+     *
+     * @return 合并事件
+     */
+    public List<OrderConfigEvent> getEvents() {
+        return events;
+    }
+
+    private static DynamicConfigEventType resolveEventType(List<OrderConfigEvent> events) {
+        final DynamicConfigEventType eventType = events.get(0).getEventType();
+        for (DynamicConfigEvent event : events) {
+            if (event.getEventType() != eventType) {
+                return DynamicConfigEventType.MODIFY;
+            }
+        }
+        return eventType;
+    }
+}
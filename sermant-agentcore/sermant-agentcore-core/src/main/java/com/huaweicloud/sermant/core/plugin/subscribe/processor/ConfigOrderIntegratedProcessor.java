@@ -17,6 +17,7 @@
 
 package com.huaweicloud.sermant.core.plugin.subscribe.processor;
 
+import com.huaweicloud.sermant.core.common.LoggerFactory;
 import com.huaweicloud.sermant.core.operation.OperationManager;
 import com.huaweicloud.sermant.core.operation.converter.api.YamlConverter;
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEvent;
@@ -24,16 +25,26 @@ import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEv
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigListener;
 import com.huaweicloud.sermant.core.utils.MapUtils;
 import com.huaweicloud.sermant.core.utils.StringUtils;
+import com.huaweicloud.sermant.core.utils.ThreadFactoryUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * 多个标签场景, 根据指定优先级集中处理, 基于优先级覆盖配置顺序
+ * <p>指定合并窗口后, 窗口期内的事件按配置键合并, 窗口结束时统一下发, 全量数据仅构建一次</p>
+ * <p>所有处理器共用一个守护调度线程下发合并后的事件, 处理器被丢弃时无需释放线程</p>
  *
  * @author zhouss
  * @since 2022-04-22
@@ -44,6 +55,8 @@ public class ConfigOrderIntegratedProcessor implements ConfigProcessor {
      */
     private static final int CAP_SIZE = 8;
 
+    private static final Logger LOGGER = LoggerFactory.getLogger();
+
     /**
      * 原监听器
      */
@@ -56,13 +69,36 @@ public class ConfigOrderIntegratedProcessor implements ConfigProcessor {
 
     private final YamlConverter yamlConverter = OperationManager.getOperation(YamlConverter.class);
 
+    /**
+     * 事件合并窗口, 单位毫秒, 小于等于0则不合并
+     */
+    private final long coalesceWindow;
+
+    /**
+     * 窗口期内待下发的事件, key: 配置键, 按首次变更顺序排列
+     */
+    private final Map<String, DynamicConfigEvent> pendingEvents = new LinkedHashMap<>(CAP_SIZE);
+
+    private boolean isFlushScheduled;
+
     /**
      * 构造器
      *
      * @param listener 原始监听器
      */
     public ConfigOrderIntegratedProcessor(DynamicConfigListener listener) {
+        this(listener, 0L);
+    }
+
+    /**
+     * 构造器
+     *
+     * @param listener 原始监听器
+     * @param coalesceWindow 事件合并窗口, 单位毫秒, 小于等于0则每个事件立即下发
+     */
+    public ConfigOrderIntegratedProcessor(DynamicConfigListener listener, long coalesceWindow) {
         this.originListener = listener;
+        this.coalesceWindow = coalesceWindow;
     }
 
     /**
@@ -83,10 +119,82 @@ public class ConfigOrderIntegratedProcessor implements ConfigProcessor {
     public final void process(String rawGroup, DynamicConfigEvent event) {
         final Optional<ConfigDataHolder> targetHolder = findTargetHolder(rawGroup);
         synchronized (this) {
-            originListener.process(targetHolder.map(dataHolder -> rebuildEvent(dataHolder, event)).orElse(event));
+            if (coalesceWindow <= 0 || !targetHolder.isPresent()) {
+                flushPendingEvents();
+                originListener.process(targetHolder.map(dataHolder -> rebuildEvent(dataHolder, event)).orElse(event));
+                return;
+            }
+            if (!updateHolder(targetHolder.get(), event)) {
+                flushPendingEvents();
+                originListener.process(event);
+                return;
+            }
+            pendingEvents.merge(event.getKey(), event, ConfigOrderIntegratedProcessor::mergeEvent);
+            if (!isFlushScheduled) {
+                isFlushScheduled = true;
+                FlushExecutorHolder.EXECUTOR.schedule(this::flush, coalesceWindow, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private synchronized void flush() {
+        isFlushScheduled = false;
+        try {
+            flushPendingEvents();
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.WARNING, String.format(Locale.ENGLISH,
+                "Failed to dispatch coalesced config events, reason: %s", ex.getMessage()), ex);
         }
     }
 
+    /**
+     * 下发窗口期内合并后的事件, 全量数据仅构建一次并由所有事件共享
+     */
+    private void flushPendingEvents() {
+        if (pendingEvents.isEmpty()) {
+            return;
+        }
+        final Map<String, Object> allData = buildOrderData();
+        final List<OrderConfigEvent> events = new ArrayList<>(pendingEvents.size());
+        for (DynamicConfigEvent event : pendingEvents.values()) {
+            events.add(new OrderConfigEvent(event.getKey(), event.getGroup(),
+                yamlConverter.dump(buildOrderData(event)), event.getEventType(), allData));
+        }
+        pendingEvents.clear();
+        if (originListener.isSupportBatch()) {
+            originListener.process(new BatchConfigEvent(events, allData));
+            return;
+        }
+        for (OrderConfigEvent event : events) {
+            originListener.process(event);
+        }
+    }
+
+    /**
+     * 合并同一配置键的事件, 内容在下发时根据数据持有器重新构建, 此处仅需确定事件类型
+     *
+     * @param olderEvent 窗口期内已有的事件
+     * @param newerEvent 新事件
+     * @return 合并后的事件
+     */
+    private static DynamicConfigEvent mergeEvent(DynamicConfigEvent olderEvent, DynamicConfigEvent newerEvent) {
+        final DynamicConfigEventType olderType = olderEvent.getEventType();
+        final DynamicConfigEventType newerType = newerEvent.getEventType();
+        if (newerType == DynamicConfigEventType.DELETE) {
+            return newerEvent;
+        }
+        if (olderType == DynamicConfigEventType.DELETE) {
+            // 删除后重新创建, 对下游而言为修改
+            return DynamicConfigEvent.modifyEvent(newerEvent.getKey(), newerEvent.getGroup(), newerEvent.getContent());
+        }
+        if (olderType == DynamicConfigEventType.INIT || olderType == DynamicConfigEventType.CREATE) {
+            // 下游尚未感知该配置, 保持首次的事件类型
+            return new DynamicConfigEvent(newerEvent.getKey(), newerEvent.getGroup(), newerEvent.getContent(),
+                olderType);
+        }
+        return newerEvent;
+    }
+
     /**
      * 重构事件
      *
@@ -151,4 +259,14 @@ public class ConfigOrderIntegratedProcessor implements ConfigProcessor {
     private Optional<ConfigDataHolder> findTargetHolder(String group) {
         return dataHolders.stream().filter(dataHolder -> StringUtils.equals(dataHolder.getGroup(), group)).findAny();
     }
+
+    /**
+     * 合并事件的调度线程, 首次使用时创建
+     *
+     * @since 2022-04-22
+     */
+    private static class FlushExecutorHolder {
+        private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryUtils("config-event-coalescer", true));
+    }
 }
@@ -156,7 +156,7 @@ public abstract class DynamicConfigService implements BaseService, KeyService, K
 
     @Override
     public boolean removeConfigListener(String key, String group) {
-        if (checkKey(key)) {
+        if (!checkKey(key)) {
             return false;
         }
         return doRemoveConfigListener(key, fixGroup(group));
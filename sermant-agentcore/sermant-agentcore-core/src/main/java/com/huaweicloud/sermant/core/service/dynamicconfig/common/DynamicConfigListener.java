@@ -30,4 +30,15 @@ public interface DynamicConfigListener extends EventListener {
      * @param event config change event
      */
     void process(DynamicConfigEvent event);
+
+    /**
+     * Whether the listener accepts coalesced events. When it does, a burst of changes is delivered as a single
+     * {@link com.huaweicloud.sermant.core.plugin.subscribe.processor.BatchConfigEvent}, otherwise the merged events
+     * are delivered one per key.
+     *
+     * @return whether batch events are supported
+     */
+    default boolean isSupportBatch() {
+        return false;
+    }
 }
@@ -56,6 +56,24 @@ public class DynamicConfig implements BaseConfig {
     @ConfigFieldKey("dynamicConfigType")
     private String serviceType = "NOP";
 
+    /**
+     * 是否开启本地快照，开启后订阅的配置将持久化至本地，启动时优先使用快照，配置中心不可用时快照中的配置仍然生效
+     */
+    @ConfigFieldKey("isSnapshotEnable")
+    private boolean isSnapshotEnable = false;
+
+    /**
+     * 本地快照文件路径，为空时使用{@code ${user.home}/.sermant/snapshot/${appName}.snapshot}
+     */
+    @ConfigFieldKey("snapshotPath")
+    private String snapshotPath = "";
+
+    /**
+     * 配置事件合并窗口，单位毫秒，窗口期内同一配置键的多次变更合并后一次下发，小于等于0则不合并
+     */
+    @ConfigFieldKey("eventCoalesceWindow")
+    private long eventCoalesceWindow = 0L;
+
     public int getTimeoutValue() {
         return timeoutValue;
     }
@@ -72,6 +90,18 @@ public class DynamicConfig implements BaseConfig {
         return DynamicConfigServiceType.valueOf(serviceType.toUpperCase(Locale.ROOT));
     }
 
+    public boolean isSnapshotEnable() {
+        return isSnapshotEnable;
+    }
+
+    public String getSnapshotPath() {
+        return snapshotPath;
+    }
+
+    public long getEventCoalesceWindow() {
+        return eventCoalesceWindow;
+    }
+
     public void setTimeoutValue(int timeoutValue) {
         this.timeoutValue = timeoutValue;
     }
@@ -87,4 +117,16 @@ public class DynamicConfig implements BaseConfig {
     public void setServiceType(String serviceType) {
         this.serviceType = serviceType;
     }
+
+    public void setSnapshotEnable(boolean isSnapshotEnable) {
+        this.isSnapshotEnable = isSnapshotEnable;
+    }
+
+    public void setSnapshotPath(String snapshotPath) {
+        this.snapshotPath = snapshotPath;
+    }
+
+    public void setEventCoalesceWindow(long eventCoalesceWindow) {
+        this.eventCoalesceWindow = eventCoalesceWindow;
+    }
 }
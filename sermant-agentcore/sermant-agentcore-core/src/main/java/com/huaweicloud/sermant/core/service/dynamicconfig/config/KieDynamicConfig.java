@@ -33,7 +33,16 @@ public class KieDynamicConfig implements BaseConfig {
      */
     private String project = "default";
 
+    /**
+     * 是否合并订阅，开启后所有长轮询标签组共用一个异步长轮询请求，由客户端按标签分发数据
+     */
+    private boolean isMergedSubscribeEnable = false;
+
     public String getProject() {
         return project;
     }
+
+    public boolean isMergedSubscribeEnable() {
+        return isMergedSubscribeEnable;
+    }
 }
@@ -16,6 +16,7 @@
 
 package com.huaweicloud.sermant.core.service.send.api;
 
+import com.huaweicloud.sermant.core.exception.GatewayRequestException;
 import com.huaweicloud.sermant.core.service.BaseService;
 
 /**
@@ -32,4 +33,17 @@ public interface GatewayClient extends BaseService {
      * @param typeNum 数据类型号
      */
     void send(byte[] data, int typeNum);
+
+    /**
+     * 向统一网关发送请求并同步等待应答, 请求不经过批量发送队列
+     *
+     * @param data 请求数据字节
+     * @param typeNum 请求类型号
+     * @param timeoutMs 等待应答的超时时间, 单位毫秒
+     * @return 应答数据字节
+     * @throws GatewayRequestException 未连接、等待应答超时或服务端处理失败
+     */
+    default byte[] request(byte[] data, int typeNum, long timeoutMs) {
+        throw new UnsupportedOperationException("Request is not supported by " + getClass().getName());
+    }
 }
@@ -35,6 +35,36 @@ public class BackendConfig implements BaseConfig {
 
     private int httpPort;
 
+    /**
+     * 发送队列容量，队列满时按{@link #sendOverflowPolicy}处理
+     */
+    private int sendQueueSize = 4096;
+
+    /**
+     * 单次发送的最大消息数，待发送消息数达到该值时立即发送
+     */
+    private int sendBatchSize = 256;
+
+    /**
+     * 单次发送的最大字节数，待发送字节数达到该值时立即发送
+     */
+    private int sendBatchBytes = 1024 * 1024;
+
+    /**
+     * 发送间隔，单位毫秒，未达到发送阈值的消息最多等待该时长
+     */
+    private long sendInterval = 1000L;
+
+    /**
+     * 发送队列满时的处理策略
+     */
+    private OverflowPolicy sendOverflowPolicy = OverflowPolicy.DISCARD;
+
+    /**
+     * 发送队列满且处理策略为{@link OverflowPolicy#WAIT}时，调用方的最长等待时间，单位毫秒
+     */
+    private long sendOverflowWaitTime = 10L;
+
     public String getNettyIp() {
         return nettyIp;
     }
@@ -66,4 +96,69 @@ public class BackendConfig implements BaseConfig {
     public void setHttpPort(int httpPort) {
         this.httpPort = httpPort;
     }
+
+    public int getSendQueueSize() {
+        return sendQueueSize;
+    }
+
+    public void setSendQueueSize(int sendQueueSize) {
+        this.sendQueueSize = sendQueueSize;
+    }
+
+    public int getSendBatchSize() {
+        return sendBatchSize;
+    }
+
+    public void setSendBatchSize(int sendBatchSize) {
+        this.sendBatchSize = sendBatchSize;
+    }
+
+    public int getSendBatchBytes() {
+        return sendBatchBytes;
+    }
+
+    public void setSendBatchBytes(int sendBatchBytes) {
+        this.sendBatchBytes = sendBatchBytes;
+    }
+
+    public long getSendInterval() {
+        return sendInterval;
+    }
+
+    public void setSendInterval(long sendInterval) {
+        this.sendInterval = sendInterval;
+    }
+
+    public OverflowPolicy getSendOverflowPolicy() {
+        return sendOverflowPolicy;
+    }
+
+    public void setSendOverflowPolicy(OverflowPolicy sendOverflowPolicy) {
+        this.sendOverflowPolicy = sendOverflowPolicy;
+    }
+
+    public long getSendOverflowWaitTime() {
+        return sendOverflowWaitTime;
+    }
+
+    public void setSendOverflowWaitTime(long sendOverflowWaitTime) {
+        this.sendOverflowWaitTime = sendOverflowWaitTime;
+    }
+
+    /**
+     * 发送队列满时的处理策略
+     *
+     * @since 2022-09-28
+     */
+    public enum OverflowPolicy {
+        /**
+         * 直接丢弃新消息
+         */
+        DISCARD,
+
+        /**
+         * 调用方等待队列空出，最多等待{@link BackendConfig#getSendOverflowWaitTime()}毫秒，超时后丢弃新消息
+         */
+        WAIT
+    }
 }
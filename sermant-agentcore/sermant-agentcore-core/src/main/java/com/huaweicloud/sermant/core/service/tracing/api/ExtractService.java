@@ -29,7 +29,8 @@ import com.huaweicloud.sermant.core.service.tracing.common.TracingRequest;
 public interface ExtractService<T> {
     /**
      * 跨进程链路追踪，需要将SpanContext从协议载体中取出，
-     * TRACE_ID->TraceId、PARENT_SPAN_ID->ParentSpanId、SPAN_ID_PREFIX->SpanIdPrefix为必选项
+     * TRACE_ID->TraceId、PARENT_SPAN_ID->ParentSpanId、SPAN_ID_PREFIX->SpanIdPrefix为必选项，
+     * SAMPLED->{@link TracingRequest#setSampledValue(String)}为可选项，用于沿用上游的采样结果
      *
      * @param tracingRequest SpanStart生命周期所需构建数据
      * @param carrier 协议载体
@@ -29,7 +29,9 @@ import com.huaweicloud.sermant.core.service.tracing.common.SpanEvent;
 public interface InjectService<T> {
     /**
      * 跨进程链路追踪，需要将SpanContext内容放入协议载体，
-     * TraceId->TRACE_ID、ParentSpanId->PARENT_SPAN_ID、NextSpanIdPrefix->SPAN_ID_PREFIX为必选项
+     * TraceId->TRACE_ID、ParentSpanId->PARENT_SPAN_ID、NextSpanIdPrefix->SPAN_ID_PREFIX为必选项，
+     * SampledValue->SAMPLED为可选项，用于向下游透传采样结果。链路未被采样时{@link SpanEvent#isSampled()}为false，
+     * 此时仅需透传SAMPLED
      *
      * @param spanEvent span信息
      * @param carrier SpanContext携带载体
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.huaweicloud.sermant.core.service.tracing.api;
+
+import com.huaweicloud.sermant.core.service.tracing.common.TracingRequest;
+
+/**
+ * 链路采样器，在当前进程的入口Span开始时决定整条链路是否采集
+ * <p>未被采样的请求仅在线程变量中记录采样结果，不创建SpanEvent，并通过{@link InjectService}将采样结果透传至下游。
+ * 可通过SPI机制在{@code META-INF/services}中声明自定义实现，未声明时根据{@code tracing.config}配置创建
+ *
+ * @author luanwenfei
+ * @since 2022-09-28
+ */
+@FunctionalInterface
+public interface Sampler {
+    /**
+     * 判断当前请求是否采样，上游透传的采样结果见{@link TracingRequest#getSampled()}
+     *
+     * @param tracingRequest 调用链路追踪生命周期时需要传入的参数
+     * @return 是否采样
+     */
+    boolean shouldSample(TracingRequest tracingRequest);
+}
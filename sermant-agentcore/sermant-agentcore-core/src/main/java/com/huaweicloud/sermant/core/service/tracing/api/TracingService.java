@@ -37,6 +37,21 @@ public interface TracingService extends BaseService {
      */
     Optional<SpanEventContext> getContext();
 
+    /**
+     * 捕获当前线程的上下文快照，用于向异步任务传递链路上下文，为避免每次提交任务产生额外对象，不使用Optional包装
+     *
+     * @return 上下文快照，当前线程没有上下文时返回null
+     */
+    SpanEventContext captureContext();
+
+    /**
+     * 将上下文快照恢复到当前线程，用于异步任务执行前后切换上下文
+     *
+     * @param spanEventContext {@link #captureContext()}得到的上下文快照或此前返回的上下文，为null时清空当前线程的上下文
+     * @return 恢复前当前线程的上下文，没有时返回null
+     */
+    SpanEventContext restoreContext(SpanEventContext spanEventContext);
+
     /**
      * 工作单元开始生命周期，用于非Provider和Consumer场景的工作单元
      *
@@ -16,20 +16,34 @@
 
 package com.huaweicloud.sermant.core.service.tracing.common;
 
+import com.huaweicloud.sermant.core.utils.StringUtils;
+
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * Span实体数据
+ * <p>子Span的spanId在首次获取时才拼接，标签集合在首次添加标签时才创建。开启复用时，已发送的SpanEvent通过{@link #reset()}
+ * 清空后重新用于新的Span，回收后不可再持有
  *
  * @author luanwenfei
  * @since 2022-02-28
  */
 public class SpanEvent {
+    /**
+     * spanId各级之间的分隔符
+     */
+    static final String SPAN_ID_SEPARATOR = "-";
+
     private String traceId;
 
     private String spanId;
 
+    /**
+     * 子Span在当前进程内的序号，用于延迟拼接spanId，小于0表示spanId已直接设置
+     */
+    private transient int spanIdIndex = -1;
+
     private String parentSpanId;
 
     private transient String spanIdPrefix;
@@ -59,6 +73,16 @@ public class SpanEvent {
 
     private long endTime;
 
+    /**
+     * 单调时钟的开始时间，单位纳秒，仅用于计算耗时
+     */
+    private transient long startNanoTime;
+
+    /**
+     * 耗时，单位纳秒
+     */
+    private long duration;
+
     private boolean isError;
 
     private String errorInfo;
@@ -68,6 +92,16 @@ public class SpanEvent {
      */
     private boolean isAsync;
 
+    /**
+     * 所属链路是否被采样，未被采样的SpanEvent仅用于向下游透传采样结果
+     */
+    private transient boolean isSampled = true;
+
+    /**
+     * 是否被跨线程传递的上下文快照引用，被引用的SpanEvent不可回收复用
+     */
+    private transient boolean isShared;
+
     /**
      * 调用当前Span所标识工作单元的节点信息
      */
@@ -78,7 +112,7 @@ public class SpanEvent {
      */
     private TargetInfo targetInfo;
 
-    private Map<String, String> tags = new LinkedHashMap<>();
+    private Map<String, String> tags;
 
     /**
      * 无参构造方法
@@ -92,10 +126,52 @@ public class SpanEvent {
      * @param spanEvent ParentSpan
      */
     public SpanEvent(SpanEvent spanEvent) {
+        initChildrenSpan(spanEvent, -1);
+    }
+
+    /**
+     * 以ParentSpan的链路信息初始化当前Span，用于新建或复用的ChildrenSpan
+     *
+     * @param spanEvent ParentSpan
+     * @param index 当前Span在进程内的序号，小于0时不设置spanId
+     */
+    public void initChildrenSpan(SpanEvent spanEvent, int index) {
         this.parentSpan = spanEvent;
         this.traceId = spanEvent.getTraceId();
         this.parentSpanId = spanEvent.getSpanId();
         this.spanIdPrefix = spanEvent.getSpanIdPrefix();
+        this.spanIdIndex = index;
+    }
+
+    /**
+     * 清空所有属性，用于回收复用，标签集合清空后保留
+     */
+    public void reset() {
+        traceId = null;
+        spanId = null;
+        spanIdIndex = -1;
+        parentSpanId = null;
+        spanIdPrefix = null;
+        nextSpanIdPrefix = null;
+        className = null;
+        method = null;
+        parentSpan = null;
+        operationDescription = null;
+        type = null;
+        startTime = 0L;
+        endTime = 0L;
+        startNanoTime = 0L;
+        duration = 0L;
+        isError = false;
+        errorInfo = null;
+        isAsync = false;
+        isSampled = true;
+        isShared = false;
+        sourceInfo = null;
+        targetInfo = null;
+        if (tags != null) {
+            tags.clear();
+        }
     }
 
     /**
@@ -108,7 +184,16 @@ public class SpanEvent {
         if (key == null || value == null) {
             return;
         }
-        this.tags.put(key, value);
+        getTags().put(key, value);
+    }
+
+    /**
+     * 是否含有标签，不会创建标签集合
+     *
+     * @return 是否含有标签
+     */
+    public boolean hasTags() {
+        return tags != null && !tags.isEmpty();
     }
 
     public String getTraceId() {
@@ -119,7 +204,19 @@ public class SpanEvent {
         this.traceId = traceId;
     }
 
+    /**
+     * 获取spanId，子Span的spanId在首次获取时由前缀与序号拼接
+     *
+     * @return spanId
+     */
     public String getSpanId() {
+        if (spanId == null && spanIdIndex >= 0) {
+            if (StringUtils.isBlank(spanIdPrefix)) {
+                spanId = String.valueOf(spanIdIndex);
+            } else {
+                spanId = spanIdPrefix + SPAN_ID_SEPARATOR + spanIdIndex;
+            }
+        }
         return spanId;
     }
 
@@ -207,6 +304,22 @@ public class SpanEvent {
         this.endTime = endTime;
     }
 
+    public long getStartNanoTime() {
+        return startNanoTime;
+    }
+
+    public void setStartNanoTime(long startNanoTime) {
+        this.startNanoTime = startNanoTime;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public void setDuration(long duration) {
+        this.duration = duration;
+    }
+
     public boolean isError() {
         return isError;
     }
@@ -231,6 +344,31 @@ public class SpanEvent {
         isAsync = async;
     }
 
+    public boolean isSampled() {
+        return isSampled;
+    }
+
+    public void setSampled(boolean sampled) {
+        isSampled = sampled;
+    }
+
+    /**
+     * 获取透传至下游的采样标识，对应{@link TracingHeader#SAMPLED}
+     *
+     * @return 采样标识取值
+     */
+    public String getSampledValue() {
+        return isSampled ? TracingHeader.SAMPLED_VALUE : TracingHeader.NOT_SAMPLED_VALUE;
+    }
+
+    public boolean isShared() {
+        return isShared;
+    }
+
+    public void setShared(boolean shared) {
+        isShared = shared;
+    }
+
     public SourceInfo getSourceInfo() {
         return sourceInfo;
     }
@@ -247,7 +385,15 @@ public class SpanEvent {
         this.targetInfo = targetInfo;
     }
 
+    /**
+     * 获取标签集合，不存在时创建
+     *
+     * @return 标签集合
+     */
     public Map<String, String> getTags() {
+        if (tags == null) {
+            tags = new LinkedHashMap<>();
+        }
         return tags;
     }
 
@@ -19,6 +19,10 @@ package com.huaweicloud.sermant.core.service.tracing.common;
 import com.huaweicloud.sermant.core.utils.StringUtils;
 import com.huaweicloud.sermant.core.utils.TracingUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -28,9 +32,12 @@ import java.util.concurrent.atomic.AtomicInteger;
  * @since 2022-03-03
  */
 public class SpanEventContext {
-    private static final String SPAN_ID_SEPARATOR = "-";
+    SpanEvent spanEvent;
 
-    SpanEvent spanEvent = new SpanEvent();
+    /**
+     * 跨线程传递时的起始SpanEvent，属于提交任务的线程，仅作为当前线程内Span的父Span，非跨线程传递的上下文中为null
+     */
+    private SpanEvent baseSpanEvent;
 
     /**
      * 当前已有span的计数
@@ -42,12 +49,30 @@ public class SpanEventContext {
      */
     private AtomicInteger nextSpanIdCount = new AtomicInteger(0);
 
+    /**
+     * 上下文创建时的墙上时钟，单位毫秒，Span的开始与结束时间由此加上单调时钟的偏移得到
+     */
+    private final long anchorTimeMillis;
+
+    /**
+     * 上下文创建时的单调时钟，单位纳秒
+     */
+    private final long anchorNanoTime;
+
+    /**
+     * 尾部采样时暂存的已结束SpanEvent，入口Span结束后决定是否发送
+     */
+    private List<SpanEvent> bufferedSpanEvents;
+
     /**
      * 通过TracingRequest创建SpanEventContext
      *
      * @param tracingRequest 传递Span信息
      */
     public SpanEventContext(TracingRequest tracingRequest) {
+        this.anchorTimeMillis = System.currentTimeMillis();
+        this.anchorNanoTime = System.nanoTime();
+        this.spanEvent = new SpanEvent();
         checkAndSetTraceId(tracingRequest.getTraceId());
         checkAndSetSpanId(tracingRequest.getSpanIdPrefix());
         this.spanEvent.setParentSpanId(tracingRequest.getParentSpanId());
@@ -57,6 +82,21 @@ public class SpanEventContext {
         this.spanEvent.setSourceInfo(tracingRequest.getSourceInfo());
     }
 
+    /**
+     * 创建用于跨线程传递的上下文快照，与原上下文共享Span计数器及时钟锚点，快照中新建的Span均为原上下文当前Span的子Span
+     *
+     * @param spanEventContext 提交任务线程的上下文
+     */
+    public SpanEventContext(SpanEventContext spanEventContext) {
+        this.anchorTimeMillis = spanEventContext.anchorTimeMillis;
+        this.anchorNanoTime = spanEventContext.anchorNanoTime;
+        spanEventContext.spanEvent.setShared(true);
+        this.spanEvent = spanEventContext.spanEvent;
+        this.baseSpanEvent = spanEventContext.spanEvent;
+        this.spanIdCount = spanEventContext.spanIdCount;
+        this.nextSpanIdCount = spanEventContext.nextSpanIdCount;
+    }
+
     private void checkAndSetTraceId(String traceId) {
         // 校验数据为透传链路 还是 新建链路，如果traceId为空则需要新建链路并生成traceId
         if (StringUtils.isBlank(traceId)) {
@@ -71,7 +111,7 @@ public class SpanEventContext {
         if (StringUtils.isBlank(spanIdPrefix)) {
             this.spanEvent.setSpanId(String.valueOf(this.spanIdCount.getAndIncrement()));
         } else {
-            this.spanEvent.setSpanId(spanIdPrefix + SPAN_ID_SEPARATOR + this.spanIdCount.getAndIncrement());
+            this.spanEvent.setSpanId(spanIdPrefix + SpanEvent.SPAN_ID_SEPARATOR + this.spanIdCount.getAndIncrement());
         }
     }
 
@@ -79,13 +119,43 @@ public class SpanEventContext {
      * 当触发非onEntry事件时添加的span均为子span
      */
     public void addChildrenSpan() {
-        this.spanEvent = new SpanEvent(this.spanEvent);
-        if (StringUtils.isBlank(this.spanEvent.getSpanIdPrefix())) {
-            this.spanEvent.setSpanId(String.valueOf(this.spanIdCount.getAndIncrement()));
-            return;
+        addChildrenSpan(new SpanEvent());
+    }
+
+    /**
+     * 以给定的SpanEvent作为当前Span的子Span，用于复用已回收的SpanEvent，spanId在首次获取时拼接
+     *
+     * @param childrenSpanEvent 新建或已重置的SpanEvent
+     */
+    public void addChildrenSpan(SpanEvent childrenSpanEvent) {
+        SpanEvent parentSpanEvent = this.spanEvent;
+        childrenSpanEvent.initChildrenSpan(parentSpanEvent, this.spanIdCount.getAndIncrement());
+        if (parentSpanEvent == this.baseSpanEvent) {
+            childrenSpanEvent.setAsync(true);
         }
-        this.spanEvent
-            .setSpanId(this.spanEvent.getSpanIdPrefix() + SPAN_ID_SEPARATOR + this.spanIdCount.getAndIncrement());
+        this.spanEvent = childrenSpanEvent;
+    }
+
+    /**
+     * 记录当前Span的开始时间
+     */
+    public void startSpanEvent() {
+        long nanoTime = System.nanoTime();
+        this.spanEvent.setStartNanoTime(nanoTime);
+        this.spanEvent.setStartTime(toTimeMillis(nanoTime));
+    }
+
+    /**
+     * 记录当前Span的结束时间及纳秒精度的耗时
+     */
+    public void finishSpanEvent() {
+        long nanoTime = System.nanoTime();
+        this.spanEvent.setDuration(nanoTime - this.spanEvent.getStartNanoTime());
+        this.spanEvent.setEndTime(toTimeMillis(nanoTime));
+    }
+
+    private long toTimeMillis(long nanoTime) {
+        return this.anchorTimeMillis + TimeUnit.NANOSECONDS.toMillis(nanoTime - this.anchorNanoTime);
     }
 
     /**
@@ -93,7 +163,37 @@ public class SpanEventContext {
      */
     public void configNextSpanIdPrefix() {
         this.spanEvent.setNextSpanIdPrefix(
-            this.spanEvent.getSpanId() + SPAN_ID_SEPARATOR + this.nextSpanIdCount.getAndIncrement());
+            this.spanEvent.getSpanId() + SpanEvent.SPAN_ID_SEPARATOR + this.nextSpanIdCount.getAndIncrement());
+    }
+
+    /**
+     * 暂存已结束的SpanEvent
+     *
+     * @param finishedSpanEvent 已结束的SpanEvent
+     */
+    public void bufferSpanEvent(SpanEvent finishedSpanEvent) {
+        if (bufferedSpanEvents == null) {
+            bufferedSpanEvents = new ArrayList<>();
+        }
+        bufferedSpanEvents.add(finishedSpanEvent);
+    }
+
+    /**
+     * 取出暂存的SpanEvent
+     *
+     * @return 暂存的SpanEvent
+     */
+    public List<SpanEvent> drainBufferedSpanEvents() {
+        if (bufferedSpanEvents == null) {
+            return Collections.emptyList();
+        }
+        List<SpanEvent> result = bufferedSpanEvents;
+        bufferedSpanEvents = null;
+        return result;
+    }
+
+    public SpanEvent getBaseSpanEvent() {
+        return baseSpanEvent;
     }
 
     public SpanEvent getSpanEvent() {
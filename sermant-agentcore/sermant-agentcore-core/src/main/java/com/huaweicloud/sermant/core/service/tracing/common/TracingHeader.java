@@ -34,7 +34,21 @@ public enum TracingHeader {
     /**
      * 标识下一进程的SpanId生成前缀
      */
-    SPAN_ID_PREFIX("sermant-span-id-prefix");
+    SPAN_ID_PREFIX("sermant-span-id-prefix"),
+    /**
+     * 标识上游的采样结果，取值为{@link #SAMPLED_VALUE}或{@link #NOT_SAMPLED_VALUE}，缺省时由当前进程决定
+     */
+    SAMPLED("sermant-sampled");
+
+    /**
+     * 采样标识取值：已采样
+     */
+    public static final String SAMPLED_VALUE = "1";
+
+    /**
+     * 采样标识取值：未采样
+     */
+    public static final String NOT_SAMPLED_VALUE = "0";
 
     private final String value;
 
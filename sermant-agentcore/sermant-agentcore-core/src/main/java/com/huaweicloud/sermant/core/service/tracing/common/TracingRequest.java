@@ -43,6 +43,11 @@ public class TracingRequest {
 
     private TargetInfo targetInfo;
 
+    /**
+     * 上游透传的采样结果，为null时表示上游未决定
+     */
+    private Boolean sampled;
+
     /**
      * 构造函数
      *
@@ -126,4 +131,27 @@ public class TracingRequest {
     public void setTargetInfo(TargetInfo targetInfo) {
         this.targetInfo = targetInfo;
     }
+
+    public Boolean getSampled() {
+        return sampled;
+    }
+
+    public void setSampled(Boolean sampled) {
+        this.sampled = sampled;
+    }
+
+    /**
+     * 根据{@link TracingHeader#SAMPLED}的取值设置上游透传的采样结果
+     *
+     * @param sampledValue 采样标识取值
+     */
+    public void setSampledValue(String sampledValue) {
+        if (TracingHeader.SAMPLED_VALUE.equals(sampledValue)) {
+            this.sampled = Boolean.TRUE;
+        } else if (TracingHeader.NOT_SAMPLED_VALUE.equals(sampledValue)) {
+            this.sampled = Boolean.FALSE;
+        } else {
+            this.sampled = null;
+        }
+    }
 }
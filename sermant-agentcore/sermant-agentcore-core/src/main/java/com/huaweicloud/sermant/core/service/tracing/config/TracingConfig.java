@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.huaweicloud.sermant.core.service.tracing.config;
+
+import com.huaweicloud.sermant.core.config.common.BaseConfig;
+import com.huaweicloud.sermant.core.config.common.ConfigTypeKey;
+
+/**
+ * 链路追踪配置
+ *
+ * @author luanwenfei
+ * @since 2022-09-28
+ */
+@ConfigTypeKey("tracing.config")
+public class TracingConfig implements BaseConfig {
+    /**
+     * 采样器类型，声明了自定义{@code Sampler}实现时该配置不生效
+     */
+    private SamplerType samplerType = SamplerType.ALWAYS;
+
+    /**
+     * 概率采样的采样率，取值范围为[0, 1]
+     */
+    private double sampleRate = 1.0d;
+
+    /**
+     * 限流采样时，每个入口方法每秒最多采样的链路数
+     */
+    private int rateLimit = 100;
+
+    /**
+     * 是否优先使用上游透传的采样结果
+     */
+    private boolean isParentBased = true;
+
+    /**
+     * 是否开启尾部采样，开启后仅发送慢调用或出现异常的链路
+     */
+    private boolean isTailSamplingEnable = false;
+
+    /**
+     * 尾部采样的慢调用阈值，单位毫秒
+     */
+    private long slowThreshold = 1000L;
+
+    /**
+     * 是否复用SpanEvent，开启后已发送或被尾部采样丢弃的SpanEvent回收至对象池，插件不可在Span结束后继续持有SpanEvent
+     */
+    private boolean isSpanReuseEnable = false;
+
+    public SamplerType getSamplerType() {
+        return samplerType;
+    }
+
+    public void setSamplerType(SamplerType samplerType) {
+        this.samplerType = samplerType;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public int getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(int rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    public boolean isParentBased() {
+        return isParentBased;
+    }
+
+    public void setParentBased(boolean parentBased) {
+        isParentBased = parentBased;
+    }
+
+    public boolean isTailSamplingEnable() {
+        return isTailSamplingEnable;
+    }
+
+    public void setTailSamplingEnable(boolean tailSamplingEnable) {
+        isTailSamplingEnable = tailSamplingEnable;
+    }
+
+    public long getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    public void setSlowThreshold(long slowThreshold) {
+        this.slowThreshold = slowThreshold;
+    }
+
+    public boolean isSpanReuseEnable() {
+        return isSpanReuseEnable;
+    }
+
+    public void setSpanReuseEnable(boolean spanReuseEnable) {
+        isSpanReuseEnable = spanReuseEnable;
+    }
+
+    /**
+     * 采样器类型
+     *
+     * @since 2022-09-28
+     */
+    public enum SamplerType {
+        /**
+         * 全部采样
+         */
+        ALWAYS,
+
+        /**
+         * 按采样率随机采样
+         */
+        PROBABILITY,
+
+        /**
+         * 按入口方法限流采样
+         */
+        RATE_LIMITING
+    }
+}
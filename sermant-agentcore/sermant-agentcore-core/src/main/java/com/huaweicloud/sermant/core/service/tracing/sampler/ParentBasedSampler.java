@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.huaweicloud.sermant.core.service.tracing.sampler;
+
+import com.huaweicloud.sermant.core.service.tracing.api.Sampler;
+import com.huaweicloud.sermant.core.service.tracing.common.TracingRequest;
+
+/**
+ * 基于上游采样结果的采样器，上游透传了采样结果时沿用，否则由根采样器决定
+ *
+ * @author luanwenfei
+ * @since 2022-09-28
+ */
+public class ParentBasedSampler implements Sampler {
+    private final Sampler rootSampler;
+
+    /**
+     * 构造函数
+     *
+     * @param rootSampler 链路起点使用的采样器
+     */
+    public ParentBasedSampler(Sampler rootSampler) {
+        this.rootSampler = rootSampler;
+    }
+
+    @Override
+    public boolean shouldSample(TracingRequest tracingRequest) {
+        Boolean sampled = tracingRequest.getSampled();
+        return sampled == null ? rootSampler.shouldSample(tracingRequest) : sampled;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.huaweicloud.sermant.core.service.tracing.sampler;
+
+import com.huaweicloud.sermant.core.service.tracing.api.Sampler;
+import com.huaweicloud.sermant.core.service.tracing.common.TracingRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 概率采样器，按采样率随机决定是否采样
+ *
+ * @author luanwenfei
+ * @since 2022-09-28
+ */
+public class ProbabilitySampler implements Sampler {
+    private final double sampleRate;
+
+    /**
+     * 构造函数
+     *
+     * @param sampleRate 采样率，取值范围为[0, 1]
+     */
+    public ProbabilitySampler(double sampleRate) {
+        this.sampleRate = Math.max(0.0d, Math.min(sampleRate, 1.0d));
+    }
+
+    @Override
+    public boolean shouldSample(TracingRequest tracingRequest) {
+        return ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
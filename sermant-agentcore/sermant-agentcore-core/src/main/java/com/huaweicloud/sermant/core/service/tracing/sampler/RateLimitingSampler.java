@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.huaweicloud.sermant.core.service.tracing.sampler;
+
+import com.huaweicloud.sermant.core.service.tracing.api.Sampler;
+import com.huaweicloud.sermant.core.service.tracing.common.TracingRequest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 限流采样器，为每个入口方法（类名+方法名）维护一个令牌桶，每秒最多采样{@code rateLimit}条链路
+ * <p>令牌桶以GCRA算法实现，仅记录下一个令牌的理论到达时间，获取令牌为一次CAS操作。入口方法数超过
+ * {@link #MAX_BUCKET_COUNT}后，新出现的方法共用一个令牌桶，避免方法名不收敛时内存无限增长
+ *
+ * @author luanwenfei
+ * @since 2022-09-28
+ */
+public class RateLimitingSampler implements Sampler {
+    /**
+     * 最多维护的令牌桶个数
+     */
+    private static final int MAX_BUCKET_COUNT = 1024;
+
+    private final Map<String, Map<String, TokenBucket>> buckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong bucketCount = new AtomicLong();
+
+    private final TokenBucket sharedBucket = new TokenBucket();
+
+    private final int rateLimit;
+
+    private final long intervalNanos;
+
+    private final long burstNanos = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 构造函数
+     *
+     * @param rateLimit 每个入口方法每秒最多采样的链路数，不大于0时不采样
+     */
+    public RateLimitingSampler(int rateLimit) {
+        this.rateLimit = rateLimit;
+        this.intervalNanos = rateLimit > 0 ? TimeUnit.SECONDS.toNanos(1) / rateLimit : 0L;
+    }
+
+    @Override
+    public boolean shouldSample(TracingRequest tracingRequest) {
+        return rateLimit > 0 && getBucket(tracingRequest).tryAcquire();
+    }
+
+    private TokenBucket getBucket(TracingRequest tracingRequest) {
+        String className = String.valueOf(tracingRequest.getClassName());
+        String method = String.valueOf(tracingRequest.getMethod());
+        Map<String, TokenBucket> methodBuckets = buckets.get(className);
+        if (methodBuckets != null) {
+            TokenBucket bucket = methodBuckets.get(method);
+            if (bucket != null) {
+                return bucket;
+            }
+        }
+        if (bucketCount.get() >= MAX_BUCKET_COUNT) {
+            return sharedBucket;
+        }
+        methodBuckets = buckets.computeIfAbsent(className, key -> new ConcurrentHashMap<>());
+        return methodBuckets.computeIfAbsent(method, key -> {
+            bucketCount.incrementAndGet();
+            return new TokenBucket();
+        });
+    }
+
+    /**
+     * 令牌桶
+     *
+     * @since 2022-09-28
+     */
+    private class TokenBucket {
+        /**
+         * 已发放令牌的理论到达时间，超前当前时间不超过一秒时可继续发放
+         */
+        private final AtomicLong arrivalTime = new AtomicLong(System.nanoTime());
+
+        boolean tryAcquire() {
+            long now = System.nanoTime();
+            while (true) {
+                long current = arrivalTime.get();
+                long next = (current - now > 0 ? current : now) + intervalNanos;
+                if (next - now > burstNanos) {
+                    return false;
+                }
+                if (arrivalTime.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.huaweicloud.sermant.core.service.tracing.sampler;
+
+import com.huaweicloud.sermant.core.classloader.ClassLoaderManager;
+import com.huaweicloud.sermant.core.common.LoggerFactory;
+import com.huaweicloud.sermant.core.service.tracing.api.Sampler;
+import com.huaweicloud.sermant.core.service.tracing.config.TracingConfig;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+import java.util.logging.Logger;
+
+/**
+ * 采样器工厂
+ *
+ * @author luanwenfei
+ * @since 2022-09-28
+ */
+public class SamplerFactory {
+    private static final Logger LOGGER = LoggerFactory.getLogger();
+
+    private SamplerFactory() {
+    }
+
+    /**
+     * 创建采样器，优先使用通过SPI声明的自定义采样器，否则根据配置创建，开启{@link TracingConfig#isParentBased()}时
+     * 沿用上游透传的采样结果
+     *
+     * @param config 链路追踪配置
+     * @return 采样器
+     */
+    public static Sampler create(TracingConfig config) {
+        Sampler sampler = loadCustomSampler();
+        if (sampler == null) {
+            sampler = createSampler(config);
+        }
+        return config.isParentBased() ? new ParentBasedSampler(sampler) : sampler;
+    }
+
+    private static Sampler loadCustomSampler() {
+        Iterator<Sampler> iterator =
+            ServiceLoader.load(Sampler.class, ClassLoaderManager.getFrameworkClassLoader()).iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        Sampler sampler = iterator.next();
+        LOGGER.info("Use custom tracing sampler: " + sampler.getClass().getName());
+        return sampler;
+    }
+
+    private static Sampler createSampler(TracingConfig config) {
+        TracingConfig.SamplerType samplerType = config.getSamplerType();
+        if (samplerType == TracingConfig.SamplerType.PROBABILITY) {
+            return new ProbabilitySampler(config.getSampleRate());
+        }
+        if (samplerType == TracingConfig.SamplerType.RATE_LIMITING) {
+            return new RateLimitingSampler(config.getRateLimit());
+        }
+        return tracingRequest -> true;
+    }
+}
@@ -16,10 +16,20 @@
 
 package com.huaweicloud.sermant.core.utils;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 
 /**
  * jar包工具类
@@ -29,6 +39,16 @@ import java.util.jar.JarFile;
  * @since 2021-11-29
  */
 public class JarFileUtils {
+    /**
+     * 类文件后缀
+     */
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    /**
+     * jar包元信息目录
+     */
+    private static final String META_INF_DIR = "META-INF/";
+
     private JarFileUtils() {
     }
 
@@ -53,4 +73,58 @@ public class JarFileUtils {
     public static URL getJarUrl(Class<?> cls) {
         return cls.getProtectionDomain().getCodeSource().getLocation();
     }
+
+    /**
+     * 获取jar包集中所有类的全限定名，包括jar包manifest中Class-Path引用的jar包，多版本jar包中META-INF下的类不计入
+     * <p>与{@link java.net.URLClassLoader}一致，不存在的jar包将被忽略
+     *
+     * @param urls jar包URL集
+     * @return 类全限定名集，若存在非本地jar包的URL或读取失败，则返回null
+     */
+    public static Set<String> getClassNames(URL... urls) {
+        final Set<String> classNames = new HashSet<>();
+        final Set<String> visitedUrls = new HashSet<>();
+        final Deque<URL> pendingUrls = new ArrayDeque<>(Arrays.asList(urls));
+        while (!pendingUrls.isEmpty()) {
+            final URL url = pendingUrls.poll();
+            if (!"file".equals(url.getProtocol()) || !url.getPath().endsWith(".jar")) {
+                return null;
+            }
+            if (!visitedUrls.add(url.toString())) {
+                continue;
+            }
+            final File file;
+            try {
+                file = new File(url.toURI());
+            } catch (URISyntaxException | IllegalArgumentException ignored) {
+                return null;
+            }
+            if (!file.exists()) {
+                continue;
+            }
+            try (JarFile jarFile = new JarFile(file)) {
+                final Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    final String entryName = entries.nextElement().getName();
+                    if (entryName.endsWith(CLASS_FILE_SUFFIX) && !entryName.startsWith(META_INF_DIR)) {
+                        classNames.add(entryName.substring(0, entryName.length() - CLASS_FILE_SUFFIX.length())
+                                .replace('/', '.'));
+                    }
+                }
+                final Manifest manifest = jarFile.getManifest();
+                final String classPath =
+                        manifest == null ? null : manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+                if (classPath != null) {
+                    for (String path : classPath.trim().split("\\s+")) {
+                        if (!path.isEmpty()) {
+                            pendingUrls.add(new URL(url, path));
+                        }
+                    }
+                }
+            } catch (IOException ignored) {
+                return null;
+            }
+        }
+        return classNames;
+    }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.classloader;
+
+import net.bytebuddy.ByteBuddy;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * 框架类加载器测试
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class FrameworkClassLoaderTest {
+    private static final int THREAD_COUNT = 8;
+
+    private static final String ABSENT_PREFIX = "com.example.absent.Absent";
+
+    private static final String DEP_CLASS = "com.example.dep.Dependency";
+
+    @Test
+    public void testParallelLoadClass() throws Exception {
+        final URL jarUrl = ByteBuddy.class.getProtectionDomain().getCodeSource().getLocation();
+        final List<String> classNames = listClassNames(jarUrl);
+        for (int i = 0; i < classNames.size() / 2; i++) {
+            classNames.add(ABSENT_PREFIX + i);
+        }
+        final FrameworkClassLoader classLoader = new FrameworkClassLoader(new URL[]{jarUrl});
+        final ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            final List<Future<List<Class<?>>>> futures = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                final List<String> shuffled = new ArrayList<>(classNames);
+                Collections.shuffle(shuffled, new Random(i));
+                futures.add(executor.submit(new Callable<List<Class<?>>>() {
+                    @Override
+                    public List<Class<?>> call() {
+                        return loadClasses(classLoader, shuffled);
+                    }
+                }));
+            }
+            for (Future<List<Class<?>>> future : futures) {
+                for (Class<?> clazz : future.get()) {
+                    Assertions.assertSame(classLoader, clazz.getClassLoader());
+                    Assertions.assertSame(clazz, classLoader.loadClass(clazz.getName()));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testLoadManifestClassPath() throws Exception {
+        final File dir = Files.createTempDirectory("manifest-class-path").toFile();
+        try {
+            final File depJar = new File(dir, "dep.jar");
+            new ByteBuddy().subclass(Object.class).name(DEP_CLASS).make().toJar(depJar);
+            final File mainJar = new File(dir, "main.jar");
+            final Manifest manifest = new Manifest();
+            manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+            manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, depJar.getName());
+            new JarOutputStream(new FileOutputStream(mainJar), manifest).close();
+            final FrameworkClassLoader classLoader = new FrameworkClassLoader(new URL[]{mainJar.toURI().toURL()});
+            final Class<?> clazz = classLoader.loadClass(DEP_CLASS);
+            Assertions.assertSame(classLoader, clazz.getClassLoader());
+            Assertions.assertSame(clazz, classLoader.loadClass(DEP_CLASS));
+            try {
+                classLoader.loadClass(ABSENT_PREFIX);
+                Assertions.fail();
+            } catch (ClassNotFoundException ignored) {
+                // 索引中不存在的类应找不到
+            }
+        } finally {
+            for (File file : dir.listFiles()) {
+                Assertions.assertTrue(file.delete());
+            }
+            Assertions.assertTrue(dir.delete());
+        }
+    }
+
+    private static List<Class<?>> loadClasses(ClassLoader classLoader, List<String> classNames) {
+        final List<Class<?>> classes = new ArrayList<>();
+        for (String className : classNames) {
+            try {
+                classes.add(classLoader.loadClass(className));
+                Assertions.assertFalse(className.startsWith(ABSENT_PREFIX));
+            } catch (ClassNotFoundException ignored) {
+                Assertions.assertTrue(className.startsWith(ABSENT_PREFIX));
+            } catch (LinkageError ignored) {
+                // 部分可选依赖不存在的类无法链接，不影响测试
+            }
+        }
+        return classes;
+    }
+
+    private static List<String> listClassNames(URL jarUrl) throws Exception {
+        final List<String> classNames = new ArrayList<>();
+        try (JarFile jarFile = new JarFile(new File(jarUrl.toURI()))) {
+            final Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                final String name = entries.nextElement().getName();
+                if (name.endsWith(".class") && !name.startsWith("META-INF") && !name.contains("-")) {
+                    classNames.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                }
+            }
+        } catch (IOException e) {
+            Assertions.fail(e.getMessage());
+        }
+        return classNames;
+    }
+}
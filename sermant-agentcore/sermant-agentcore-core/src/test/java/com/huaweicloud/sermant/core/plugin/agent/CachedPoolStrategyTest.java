@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent;
+
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.pool.TypePool;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * 带缓存的类型池策略测试
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class CachedPoolStrategyTest {
+    @Test
+    public void testLocatePerClassLoader() {
+        final CachedPoolStrategy strategy = new CachedPoolStrategy(16);
+        final ClassLoader loader = new URLClassLoader(new URL[0], null);
+        final ClassLoader otherLoader = new URLClassLoader(new URL[0], null);
+        final TypePool.CacheProvider bootstrapProvider = strategy.locate(null);
+        Assertions.assertNotNull(bootstrapProvider);
+        Assertions.assertSame(bootstrapProvider, strategy.locate(null));
+        final TypePool.CacheProvider provider = strategy.locate(loader);
+        Assertions.assertSame(provider, strategy.locate(loader));
+        Assertions.assertNotSame(provider, bootstrapProvider);
+        Assertions.assertNotSame(provider, strategy.locate(otherLoader));
+    }
+
+    @Test
+    public void testRegister() {
+        final TypePool.CacheProvider provider = new CachedPoolStrategy(16).locate(null);
+        final TypePool.Resolution objectResolution = provider.find(Object.class.getName());
+        Assertions.assertNotNull(objectResolution);
+        Assertions.assertEquals(TypeDescription.OBJECT, objectResolution.resolve());
+        final TypePool.Resolution first = resolution(String.class);
+        Assertions.assertSame(first, provider.register(String.class.getName(), first));
+        Assertions.assertSame(first, provider.register(String.class.getName(), resolution(String.class)));
+        Assertions.assertSame(first, provider.find(String.class.getName()));
+        provider.clear();
+        Assertions.assertNull(provider.find(String.class.getName()));
+        Assertions.assertNull(provider.find(Object.class.getName()));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        final TypePool.CacheProvider provider = new CachedPoolStrategy(2).locate(null);
+        provider.register(String.class.getName(), resolution(String.class));
+        provider.register(Integer.class.getName(), resolution(Integer.class));
+        Assertions.assertNull(provider.find(Object.class.getName()));
+        Assertions.assertNotNull(provider.find(String.class.getName()));
+        provider.register(Long.class.getName(), resolution(Long.class));
+        Assertions.assertNull(provider.find(Integer.class.getName()));
+        Assertions.assertNotNull(provider.find(String.class.getName()));
+        Assertions.assertNotNull(provider.find(Long.class.getName()));
+    }
+
+    private static TypePool.Resolution resolution(Class<?> type) {
+        return new TypePool.Resolution.Simple(TypeDescription.ForLoadedType.of(type));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent.cache;
+
+import com.huaweicloud.sermant.core.utils.FileUtils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * 增强缓存测试
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class EnhanceCacheTest {
+    private static final String LOADER_NAME = "test.Loader";
+
+    private File rootDir;
+
+    private File cacheDir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        rootDir = Files.createTempDirectory("enhance-cache").toFile();
+        cacheDir = new File(rootDir, "0123456789abcdef");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        FileUtils.deleteDirs(rootDir);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final EnhanceCache cache = EnhanceCache.load(cacheDir);
+        Assertions.assertNotNull(cache);
+        final long ignoredKey = EnhanceCache.getKey("a.Ignored", LOADER_NAME, 10, 1);
+        final long enhancedKey = EnhanceCache.getKey("a.Enhanced", LOADER_NAME, 20, 2);
+        Assertions.assertFalse(cache.isIgnored(ignoredKey, "a.Ignored", LOADER_NAME));
+        cache.saveIgnored(ignoredKey, "a.Ignored", LOADER_NAME);
+        Assertions.assertTrue(cache.isIgnored(ignoredKey, "a.Ignored", LOADER_NAME));
+        final byte[] bytes = {1, 2, 3};
+        cache.saveEnhanced(enhancedKey, "a.Enhanced", LOADER_NAME, 20, 2,
+                new EnhanceCache.EnhancedClass(Arrays.asList("m1", "m2"), bytes));
+        cache.flush();
+
+        final EnhanceCache reloaded = EnhanceCache.load(cacheDir);
+        Assertions.assertNotNull(reloaded);
+        Assertions.assertTrue(reloaded.isIgnored(ignoredKey, "a.Ignored", LOADER_NAME));
+        Assertions.assertFalse(reloaded.isIgnored(enhancedKey, "a.Enhanced", LOADER_NAME));
+        final EnhanceCache.EnhancedClass enhancedClass =
+                reloaded.getEnhanced(enhancedKey, "a.Enhanced", LOADER_NAME, 20, 2);
+        Assertions.assertNotNull(enhancedClass);
+        Assertions.assertEquals(Arrays.asList("m1", "m2"), enhancedClass.getMethodKeys());
+        Assertions.assertArrayEquals(bytes, enhancedClass.getEnhancedBytes());
+    }
+
+    @Test
+    public void testInvalidation() {
+        final EnhanceCache cache = EnhanceCache.load(cacheDir);
+        Assertions.assertNotNull(cache);
+        final long key = EnhanceCache.getKey("a.Enhanced", LOADER_NAME, 20, 2);
+        cache.saveEnhanced(key, "a.Enhanced", LOADER_NAME, 20, 2,
+                new EnhanceCache.EnhancedClass(Collections.singletonList("m1"), new byte[]{1}));
+        Assertions.assertNull(cache.getEnhanced(key, "a.Enhanced", LOADER_NAME, 20, 3));
+        Assertions.assertNull(cache.getEnhanced(key, "a.Enhanced", LOADER_NAME, 21, 2));
+        Assertions.assertNull(cache.getEnhanced(key, "a.Enhanced", "other.Loader", 20, 2));
+        Assertions.assertNull(cache.getEnhanced(key + 1, "a.Enhanced", LOADER_NAME, 20, 2));
+        Assertions.assertNotNull(cache.getEnhanced(key, "a.Enhanced", LOADER_NAME, 20, 2));
+
+        final File staleDir = new File(rootDir, "fedcba9876543210");
+        final File otherDir = new File(rootDir, "not-a-cache");
+        Assertions.assertTrue(staleDir.mkdirs() && otherDir.mkdirs());
+        EnhanceCache.removeStaleCaches(rootDir, cacheDir.getName());
+        Assertions.assertFalse(staleDir.exists());
+        Assertions.assertTrue(otherDir.exists());
+        Assertions.assertTrue(cacheDir.exists());
+    }
+
+    @Test
+    public void testKeyCollision() {
+        final EnhanceCache cache = EnhanceCache.load(cacheDir);
+        Assertions.assertNotNull(cache);
+        final long key = EnhanceCache.getKey("a.Ignored", LOADER_NAME, 10, 1);
+        cache.saveIgnored(key, "a.Ignored", LOADER_NAME);
+        cache.saveIgnored(key, "a.Collided", LOADER_NAME);
+        Assertions.assertFalse(cache.isIgnored(key, "a.Collided", LOADER_NAME));
+        Assertions.assertFalse(cache.isIgnored(key, "a.Ignored", "other.Loader"));
+        cache.flush();
+
+        final EnhanceCache reloaded = EnhanceCache.load(cacheDir);
+        Assertions.assertNotNull(reloaded);
+        Assertions.assertTrue(reloaded.isIgnored(key, "a.Ignored", LOADER_NAME));
+        Assertions.assertFalse(reloaded.isIgnored(key, "a.Collided", LOADER_NAME));
+        reloaded.saveIgnored(key, "a.Collided", LOADER_NAME);
+        Assertions.assertFalse(reloaded.isIgnored(key, "a.Collided", LOADER_NAME));
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent.cache;
+
+import com.huaweicloud.sermant.core.plugin.agent.declarer.InterceptDeclarer;
+import com.huaweicloud.sermant.core.plugin.agent.declarer.PluginDescription;
+import com.huaweicloud.sermant.core.plugin.agent.entity.ExecuteContext;
+import com.huaweicloud.sermant.core.plugin.agent.interceptor.Interceptor;
+import com.huaweicloud.sermant.core.plugin.agent.matcher.MethodMatcher;
+import com.huaweicloud.sermant.core.plugin.agent.transformer.AdviceTransformer;
+import com.huaweicloud.sermant.core.utils.FileUtils;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.utility.JavaModule;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 增强缓存转换器测试，模拟两次启动，第二次启动时由缓存处理未被增强的类，重放被增强类的匹配并直接返回缓存的字节码
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class EnhanceCacheTransformerTest {
+    private final List<String> records = new ArrayList<>();
+
+    private File cacheDir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        cacheDir = Files.createTempDirectory("enhance-cache").toFile();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        FileUtils.deleteDirs(cacheDir);
+    }
+
+    @Test
+    public void testResolveFromCache() throws Exception {
+        final TestPlugin plugin = new TestPlugin("greet");
+        final DefiningClassLoader firstLoader = new DefiningClassLoader();
+        final EnhanceCache firstCache = EnhanceCache.load(cacheDir);
+        final EnhanceCacheTransformer first = createTransformer(firstCache, plugin);
+        Assertions.assertNull(transform(first, firstLoader, IgnoredTarget.class));
+        first.onIgnored(TypeDescription.ForLoadedType.of(IgnoredTarget.class), firstLoader, null, false);
+        Assertions.assertNull(transform(first, firstLoader, CachedTarget.class));
+        final DynamicType.Unloaded<?> dynamicType = plugin.transform(new ByteBuddy().rebase(CachedTarget.class),
+                TypeDescription.ForLoadedType.of(CachedTarget.class), firstLoader, null).make();
+        first.onTransformation(TypeDescription.ForLoadedType.of(CachedTarget.class), firstLoader, null, false,
+                dynamicType);
+        Assertions.assertFalse(first.isResolved(CachedTarget.class.getName(), firstLoader));
+        firstCache.flush();
+
+        final DefiningClassLoader secondLoader = new DefiningClassLoader();
+        final EnhanceCacheTransformer second =
+                createTransformer(EnhanceCache.load(cacheDir), new TestPlugin("greet"));
+        Assertions.assertNull(transform(second, secondLoader, IgnoredTarget.class));
+        Assertions.assertTrue(second.isResolved(IgnoredTarget.class.getName(), secondLoader));
+        final byte[] enhancedBytes = transform(second, secondLoader, CachedTarget.class);
+        Assertions.assertArrayEquals(dynamicType.getBytes(), enhancedBytes);
+        Assertions.assertTrue(second.isResolved(CachedTarget.class.getName(), secondLoader));
+        Assertions.assertFalse(second.isResolved(CachedTarget.class.getName(), secondLoader));
+
+        final Class<?> enhanced = secondLoader.define(CachedTarget.class.getName(), enhancedBytes);
+        final Object target = enhanced.getConstructor().newInstance();
+        Assertions.assertEquals("hello world", enhanced.getMethod("greet", String.class).invoke(target, "world"));
+        Assertions.assertEquals(Collections.singletonList("before:greet"), records);
+    }
+
+    @Test
+    public void testOutOfDateCache() throws Exception {
+        final TestPlugin plugin = new TestPlugin("greet");
+        final DefiningClassLoader firstLoader = new DefiningClassLoader();
+        final EnhanceCacheTransformer first = createTransformer(EnhanceCache.load(cacheDir), plugin);
+        Assertions.assertNull(transform(first, firstLoader, CachedTarget.class));
+        final DynamicType.Unloaded<?> dynamicType = plugin.transform(new ByteBuddy().rebase(CachedTarget.class),
+                TypeDescription.ForLoadedType.of(CachedTarget.class), firstLoader, null).make();
+        first.onTransformation(TypeDescription.ForLoadedType.of(CachedTarget.class), firstLoader, null, false,
+                dynamicType);
+
+        final DefiningClassLoader secondLoader = new DefiningClassLoader();
+        final EnhanceCacheTransformer second =
+                createTransformer(EnhanceCache.load(cacheDir), new TestPlugin("other"));
+        Assertions.assertNull(transform(second, secondLoader, CachedTarget.class));
+        Assertions.assertFalse(second.isResolved(CachedTarget.class.getName(), secondLoader));
+        Assertions.assertTrue(AdviceTransformer.getMethodKeys(secondLoader, CachedTarget.class.getName()).isEmpty());
+    }
+
+    private static EnhanceCacheTransformer createTransformer(EnhanceCache cache, PluginDescription plugin) {
+        Assertions.assertNotNull(cache);
+        final EnhanceCacheTransformer transformer =
+                new EnhanceCacheTransformer(cache, AgentBuilder.PoolStrategy.Default.FAST);
+        transformer.addPlugins(Collections.singletonList(plugin));
+        return transformer;
+    }
+
+    private static byte[] transform(EnhanceCacheTransformer transformer, ClassLoader loader, Class<?> type)
+            throws IOException {
+        final byte[] bytes = ClassFileLocator.ForClassLoader.read(type);
+        return transformer.transform(loader, type.getName().replace('.', '/'), null, null, bytes);
+    }
+
+    /**
+     * 被增强类
+     *
+     * @since 2022-09-28
+     */
+    public static class CachedTarget {
+        public String greet(String name) {
+            return "hello " + name;
+        }
+
+        public String other() {
+            return "other";
+        }
+    }
+
+    /**
+     * 未被增强的类
+     *
+     * @since 2022-09-28
+     */
+    public static class IgnoredTarget {
+    }
+
+    /**
+     * 仅增强{@link CachedTarget}指定方法的插件
+     *
+     * @since 2022-09-28
+     */
+    private class TestPlugin implements PluginDescription {
+        private final AdviceTransformer transformer;
+
+        TestPlugin(String methodName) {
+            final Interceptor interceptor = new Interceptor() {
+                @Override
+                public ExecuteContext before(ExecuteContext context) {
+                    records.add("before:" + context.getMethod().getName());
+                    return context;
+                }
+
+                @Override
+                public ExecuteContext after(ExecuteContext context) {
+                    return context;
+                }
+
+                @Override
+                public ExecuteContext onThrow(ExecuteContext context) {
+                    return context;
+                }
+            };
+            this.transformer = new AdviceTransformer(new InterceptDeclarer[]{
+                InterceptDeclarer.build(MethodMatcher.nameEquals(methodName), interceptor)
+            }, null);
+        }
+
+        @Override
+        public boolean matches(TypeDescription typeDescription, ClassLoader classLoader, JavaModule module,
+                Class<?> classBeingRedefined, ProtectionDomain protectionDomain) {
+            return typeDescription.getName().equals(CachedTarget.class.getName());
+        }
+
+        @Override
+        public DynamicType.Builder<?> transform(DynamicType.Builder<?> builder, TypeDescription typeDescription,
+                ClassLoader classLoader, JavaModule module) {
+            return transformer.transform(builder, typeDescription, classLoader, module);
+        }
+    }
+
+    /**
+     * 定义被增强类的类加载器，每次模拟启动使用新的实例
+     *
+     * @since 2022-09-28
+     */
+    private static class DefiningClassLoader extends ClassLoader {
+        DefiningClassLoader() {
+            super(EnhanceCacheTransformerTest.class.getClassLoader());
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
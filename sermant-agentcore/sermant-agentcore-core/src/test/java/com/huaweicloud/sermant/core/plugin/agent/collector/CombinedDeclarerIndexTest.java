@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent.collector;
+
+import com.huaweicloud.sermant.core.plugin.agent.declarer.AbstractPluginDeclarer;
+import com.huaweicloud.sermant.core.plugin.agent.declarer.InterceptDeclarer;
+import com.huaweicloud.sermant.core.plugin.agent.declarer.PluginDeclarer;
+import com.huaweicloud.sermant.core.plugin.agent.matcher.ClassMatcher;
+import com.huaweicloud.sermant.core.plugin.agent.matcher.ClassTypeMatcher;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.pool.TypePool;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * 合并插件声明器的索引测试，模拟多线程并行加载大量类时的匹配和增强
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class CombinedDeclarerIndexTest {
+    private static final int THREAD_COUNT = 16;
+
+    private static final int ROUND_COUNT = 4;
+
+    @Test
+    public void testParallelMatchAndTake() throws Exception {
+        final List<TypeDescription> types = describeTypes(ByteBuddy.class);
+        Assertions.assertTrue(types.size() > 1000);
+        final List<PluginDeclarer> declarers = new ArrayList<>();
+        declarers.add(new TestDeclarer(ClassMatcher.nameEquals(ByteBuddy.class.getName())));
+        declarers.add(new TestDeclarer(ClassMatcher.nameContains(ByteBuddy.class.getName(),
+                TypePool.Default.class.getName())));
+        declarers.add(new TestDeclarer(ClassMatcher.isExtendedFrom(ClassFileLocator.class)));
+        declarers.add(new TestDeclarer(ClassMatcher.namePrefixedWith("net.bytebuddy.matcher.")));
+        declarers.add(new TestDeclarer(ClassMatcher.nameSuffixedWith("Builder")));
+        final List<PluginDeclarer> fuzzyDeclarers = new ArrayList<>();
+        final Map<String, List<PluginDeclarer>> nameIndex = new HashMap<>();
+        for (PluginDeclarer declarer : declarers) {
+            if (declarer.getClassMatcher() instanceof ClassTypeMatcher) {
+                for (String typeName : ((ClassTypeMatcher) declarer.getClassMatcher()).getTypeNames()) {
+                    nameIndex.computeIfAbsent(typeName, key -> new ArrayList<>()).add(declarer);
+                }
+            } else {
+                fuzzyDeclarers.add(declarer);
+            }
+        }
+        final CombinedDeclarerIndex index = new CombinedDeclarerIndex(nameIndex, fuzzyDeclarers);
+        final Map<String, List<PluginDeclarer>> expected = new HashMap<>();
+        for (TypeDescription type : types) {
+            final List<PluginDeclarer> matched = new ArrayList<>();
+            for (PluginDeclarer declarer : declarers) {
+                if (declarer.getClassMatcher().matches(type)) {
+                    matched.add(declarer);
+                }
+            }
+            expected.put(type.getActualName(), matched);
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            final List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                final long seed = i;
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return matchAndTake(index, types, expected, new Random(seed));
+                    }
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                Assertions.assertEquals(types.size() * ROUND_COUNT, future.get().intValue());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 乱序匹配并取出插件声明器，相邻两个类交错匹配和取出，模拟匹配过程中触发的嵌套类加载
+     *
+     * @param index    合并插件声明器的索引
+     * @param types    类的描述器列表
+     * @param expected 期望的匹配结果
+     * @param random   随机数
+     * @return 校验通过的次数
+     */
+    private static int matchAndTake(CombinedDeclarerIndex index, List<TypeDescription> types,
+            Map<String, List<PluginDeclarer>> expected, Random random) {
+        final List<TypeDescription> shuffled = new ArrayList<>(types);
+        int count = 0;
+        for (int round = 0; round < ROUND_COUNT; round++) {
+            Collections.shuffle(shuffled, random);
+            for (int i = 0; i + 1 < shuffled.size(); i += 2) {
+                final TypeDescription outer = shuffled.get(i);
+                final TypeDescription inner = shuffled.get(i + 1);
+                final boolean isOuterMatched = index.match(outer);
+                final boolean isInnerMatched = index.match(inner);
+                count += check(index, inner, isInnerMatched, expected) + check(index, outer, isOuterMatched, expected);
+            }
+            if (shuffled.size() % 2 == 1) {
+                final TypeDescription last = shuffled.get(shuffled.size() - 1);
+                count += check(index, last, index.match(last), expected);
+            }
+        }
+        return count;
+    }
+
+    private static int check(CombinedDeclarerIndex index, TypeDescription type, boolean isMatched,
+            Map<String, List<PluginDeclarer>> expected) {
+        final List<PluginDeclarer> declarers = expected.get(type.getActualName());
+        Assertions.assertEquals(!declarers.isEmpty(), isMatched, type.getActualName());
+        if (isMatched) {
+            Assertions.assertEquals(declarers, index.take(type), type.getActualName());
+        }
+        return 1;
+    }
+
+    private static List<TypeDescription> describeTypes(Class<?> cls) throws IOException {
+        final File jar = new File(cls.getProtectionDomain().getCodeSource().getLocation().getPath());
+        final List<TypeDescription> types = new ArrayList<>();
+        final TypePool pool = new TypePool.Default(new TypePool.CacheProvider.Simple(),
+                ClassFileLocator.ForClassLoader.of(cls.getClassLoader()), TypePool.Default.ReaderMode.FAST,
+                TypePool.ClassLoading.ofBootLoader());
+        try (JarFile jarFile = new JarFile(jar)) {
+            final Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                final String name = entries.nextElement().getName();
+                if (name.endsWith(".class") && !name.contains("-") && !name.startsWith("META-INF")) {
+                    types.add(pool.describe(
+                            name.substring(0, name.length() - ".class".length()).replace('/', '.')).resolve());
+                }
+            }
+        }
+        return types;
+    }
+
+    /**
+     * 测试用的插件声明器
+     *
+     * @since 2022-09-28
+     */
+    private static class TestDeclarer extends AbstractPluginDeclarer {
+        private final ClassMatcher classMatcher;
+
+        TestDeclarer(ClassMatcher classMatcher) {
+            this.classMatcher = classMatcher;
+        }
+
+        @Override
+        public ClassMatcher getClassMatcher() {
+            return classMatcher;
+        }
+
+        @Override
+        public InterceptDeclarer[] getInterceptDeclarers(ClassLoader classLoader) {
+            return new InterceptDeclarer[0];
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent.entity;
+
+import com.huaweicloud.sermant.core.config.ConfigManager;
+import com.huaweicloud.sermant.core.config.common.BaseConfig;
+import com.huaweicloud.sermant.core.config.utils.ConfigKeyUtil;
+import com.huaweicloud.sermant.core.plugin.agent.config.AgentConfig;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 执行上下文测试，包括局部属性槽位及执行上下文的复用
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class ExecuteContextTest {
+    private AgentConfig agentConfig;
+
+    private boolean isOriginReuseEnable;
+
+    private Method method;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        agentConfig = ConfigManager.getConfig(AgentConfig.class);
+        if (agentConfig == null) {
+            agentConfig = new AgentConfig();
+            getConfigMap().put(ConfigKeyUtil.getTypeKey(AgentConfig.class), agentConfig);
+        }
+        isOriginReuseEnable = agentConfig.isReuseExecuteContextEnable();
+        method = Object.class.getMethod("toString");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        agentConfig.setReuseExecuteContextEnable(isOriginReuseEnable);
+    }
+
+    @Test
+    public void testLocalFields() {
+        final ExecuteContext context = ExecuteContext.forMemberMethod(this, method, new Object[0], null, null);
+        for (int i = 0; i < 10; i++) {
+            context.setLocalFieldValue("field" + i, i);
+        }
+        context.setLocalFieldValue("field3", "changed");
+        Assertions.assertEquals(9, context.getLocalFieldValue("field9"));
+        Assertions.assertEquals("changed", context.getLocalFieldValue("field3"));
+        Assertions.assertNull(context.getLocalFieldValue("absent"));
+        Assertions.assertNull(context.getLocalFieldValue(null));
+        context.setLocalFieldValue(null, "nullKey");
+        Assertions.assertEquals("nullKey", context.getLocalFieldValue(null));
+        Assertions.assertEquals(0, context.getLocalFieldValue("field0"));
+    }
+
+    @Test
+    public void testReuse() {
+        agentConfig.setReuseExecuteContextEnable(true);
+        final Object[] arguments = new Object[]{"arg"};
+        final Map<String, Object> staticFields = Collections.emptyMap();
+        final ExecuteContext context = ExecuteContext.forMemberMethod(this, method, arguments, staticFields, null);
+        context.setLocalFieldValue("key", "value");
+        context.skip("result");
+        context.afterMethod("result", new IllegalStateException());
+        ExecuteContext.recycle(context);
+        Assertions.assertNull(context.getObject());
+        Assertions.assertNull(context.getLocalFieldValue("key"));
+
+        final ExecuteContext reused = ExecuteContext.forStaticMethod(Object.class, method, null, null);
+        Assertions.assertSame(context, reused);
+        Assertions.assertSame(Object.class, reused.getRawCls());
+        Assertions.assertNull(reused.getObject());
+        Assertions.assertNull(reused.getArguments());
+        Assertions.assertNull(reused.getThrowable());
+        Assertions.assertNull(reused.getResult());
+        Assertions.assertFalse(reused.isSkip());
+        Assertions.assertNull(reused.getLocalFieldValue("key"));
+
+        final ExecuteContext nested = ExecuteContext.forStaticMethod(Object.class, method, null, null);
+        Assertions.assertNotSame(reused, nested);
+        ExecuteContext.recycle(nested);
+        ExecuteContext.recycle(reused);
+        Assertions.assertSame(reused, ExecuteContext.forStaticMethod(Object.class, method, null, null));
+        Assertions.assertSame(nested, ExecuteContext.forStaticMethod(Object.class, method, null, null));
+    }
+
+    @Test
+    public void testReuseDisabled() {
+        agentConfig.setReuseExecuteContextEnable(false);
+        final ExecuteContext context = ExecuteContext.forStaticMethod(Object.class, method, null, null);
+        context.setLocalFieldValue("key", "value");
+        ExecuteContext.recycle(context);
+        Assertions.assertEquals("value", context.getLocalFieldValue("key"));
+        Assertions.assertSame(Object.class, context.getRawCls());
+        Assertions.assertNotSame(context, ExecuteContext.forStaticMethod(Object.class, method, null, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, BaseConfig> getConfigMap() throws ReflectiveOperationException {
+        final Field field = ConfigManager.class.getDeclaredField("CONFIG_MAP");
+        field.setAccessible(true);
+        return (Map<String, BaseConfig>) field.get(null);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent.matcher;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 类名前缀树测试
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class TypeNameTrieTest {
+    @Test
+    public void testEmpty() {
+        final TypeNameTrie trie = new TypeNameTrie();
+        Assertions.assertTrue(trie.isEmpty());
+        Assertions.assertFalse(trie.matches("com.example.Foo"));
+        Assertions.assertFalse(trie.matches(""));
+        Assertions.assertFalse(new TypeNameTrie().addName("com.example.Foo").isEmpty());
+        Assertions.assertFalse(new TypeNameTrie().addPrefix("").isEmpty());
+    }
+
+    @Test
+    public void testName() {
+        final TypeNameTrie trie = new TypeNameTrie().addName("com.example.Foo").addName("com.example.FooBar");
+        Assertions.assertTrue(trie.matches("com.example.Foo"));
+        Assertions.assertTrue(trie.matches("com.example.FooBar"));
+        Assertions.assertFalse(trie.matches("com.example.Fo"));
+        Assertions.assertFalse(trie.matches("com.example.FooBa"));
+        Assertions.assertFalse(trie.matches("com.example.Foo$Inner"));
+        Assertions.assertFalse(trie.matches("com.example.Bar"));
+    }
+
+    @Test
+    public void testPrefix() {
+        final TypeNameTrie trie = new TypeNameTrie().addPrefix("com.example.").addName("org.example.Foo");
+        Assertions.assertTrue(trie.matches("com.example."));
+        Assertions.assertTrue(trie.matches("com.example.Foo"));
+        Assertions.assertTrue(trie.matches("com.example.sub.Bar$Inner"));
+        Assertions.assertFalse(trie.matches("com.example"));
+        Assertions.assertFalse(trie.matches("com.examples.Foo"));
+        Assertions.assertTrue(trie.matches("org.example.Foo"));
+        Assertions.assertFalse(trie.matches("org.example.FooBar"));
+        Assertions.assertTrue(new TypeNameTrie().addPrefix("").matches("any.Type"));
+    }
+
+    @Test
+    public void testUnorderedInsertion() {
+        final TypeNameTrie trie = new TypeNameTrie();
+        final String[] names = {"c.Z", "c.A", "c.M", "b.B", "a.A", "c.B", "c.Y"};
+        for (String name : names) {
+            trie.addName(name);
+        }
+        for (String name : names) {
+            Assertions.assertTrue(trie.matches(name), name);
+        }
+        Assertions.assertFalse(trie.matches("c.C"));
+        Assertions.assertFalse(trie.matches("d.A"));
+    }
+}
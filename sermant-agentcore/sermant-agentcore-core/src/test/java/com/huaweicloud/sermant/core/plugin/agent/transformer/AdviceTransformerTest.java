@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent.transformer;
+
+import com.huaweicloud.sermant.core.plugin.agent.declarer.InterceptDeclarer;
+import com.huaweicloud.sermant.core.plugin.agent.entity.ExecuteContext;
+import com.huaweicloud.sermant.core.plugin.agent.interceptor.Interceptor;
+import com.huaweicloud.sermant.core.plugin.agent.matcher.MethodMatcher;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 普通类增强测试，校验advice通过下标常量获取到的拦截器与被增强方法一一对应
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class AdviceTransformerTest {
+    private static final int GC_ROUNDS = 50;
+
+    private static final long GC_INTERVAL_MS = 20L;
+
+    @Test
+    public void testDispatchByIndex() throws Exception {
+        final List<String> records = new ArrayList<>();
+        final InterceptDeclarer[] declarers = {
+            InterceptDeclarer.build(MethodMatcher.nameEquals("greet"), new RecordInterceptor("first", records)),
+            InterceptDeclarer.build(MethodMatcher.nameEquals("twice"), new RecordInterceptor("static", records)),
+            InterceptDeclarer.build(MethodMatcher.isConstructor(), new RecordInterceptor("const", records)),
+            InterceptDeclarer.build(MethodMatcher.nameEquals("greet"), new RecordInterceptor("second", records))
+        };
+        final Class<?> enhanced = enhance(DispatchTarget.class, new AdviceTransformer(declarers, null));
+
+        final Object target = enhanced.getConstructor().newInstance();
+        Assertions.assertEquals("[const.before:<init>, const.after:<init>]", records.toString());
+        records.clear();
+
+        Assertions.assertEquals("hello world", enhanced.getMethod("greet", String.class).invoke(target, "world"));
+        Assertions.assertEquals("[first.before:greet, second.before:greet, second.after:greet, first.after:greet]",
+                records.toString());
+        records.clear();
+
+        Assertions.assertEquals(6, enhanced.getMethod("twice", int.class).invoke(null, 3));
+        Assertions.assertEquals("[static.before:twice, static.after:twice]", records.toString());
+        records.clear();
+
+        Assertions.assertEquals("untouched", enhanced.getMethod("other").invoke(target));
+        Assertions.assertTrue(records.isEmpty());
+    }
+
+    @Test
+    public void testSkipAndChangeArguments() throws Exception {
+        final List<String> records = new ArrayList<>();
+        final Interceptor skipInterceptor = new RecordInterceptor("skip", records) {
+            @Override
+            public ExecuteContext before(ExecuteContext context) {
+                super.before(context);
+                return context.skip("skipped");
+            }
+        };
+        final Interceptor argsInterceptor = new RecordInterceptor("args", records) {
+            @Override
+            public ExecuteContext before(ExecuteContext context) {
+                super.before(context);
+                return context.changeArgs(new Object[]{"sermant"});
+            }
+        };
+        final InterceptDeclarer[] declarers = {
+            InterceptDeclarer.build(MethodMatcher.nameEquals("other"), skipInterceptor),
+            InterceptDeclarer.build(MethodMatcher.nameEquals("greet"), argsInterceptor)
+        };
+        final Class<?> enhanced = enhance(DispatchTarget.class, new AdviceTransformer(declarers, null));
+        final Object target = enhanced.getConstructor().newInstance();
+        Assertions.assertEquals("skipped", enhanced.getMethod("other").invoke(target));
+        Assertions.assertEquals("hello sermant", enhanced.getMethod("greet", String.class).invoke(target, "world"));
+        Assertions.assertEquals("[skip.before:other, skip.after:other, args.before:greet, args.after:greet]",
+                records.toString());
+    }
+
+    @Test
+    public void testReleaseClassLoader() throws Exception {
+        final WeakReference<ClassLoader> loaderRef = enhanceInThrowawayLoader();
+        for (int i = 0; i < GC_ROUNDS && loaderRef.get() != null; i++) {
+            System.gc();
+            Thread.sleep(GC_INTERVAL_MS);
+        }
+        Assertions.assertNull(loaderRef.get());
+    }
+
+    private static WeakReference<ClassLoader> enhanceInThrowawayLoader() throws Exception {
+        final InterceptDeclarer declarer = new InterceptDeclarer() {
+            @Override
+            public MethodMatcher getMethodMatcher() {
+                return MethodMatcher.nameEquals("greet");
+            }
+
+            @Override
+            public Interceptor[] getInterceptors(ClassLoader classLoader) {
+                try {
+                    return new Interceptor[]{(Interceptor) classLoader.loadClass(
+                            LoaderBoundInterceptor.class.getName()).getConstructor().newInstance()};
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        final ThrowawayClassLoader classLoader = new ThrowawayClassLoader();
+        final Class<?> enhanced = enhance(classLoader, DispatchTarget.class,
+                new AdviceTransformer(new InterceptDeclarer[]{declarer}, null));
+        final Object target = enhanced.getConstructor().newInstance();
+        Assertions.assertEquals("hello sermant", enhanced.getMethod("greet", String.class).invoke(target, "world"));
+        Assertions.assertSame(classLoader, classLoader.loadClass(LoaderBoundInterceptor.class.getName())
+                .getClassLoader());
+        return new WeakReference<>(classLoader);
+    }
+
+    private static Class<?> enhance(Class<?> type, AdviceTransformer transformer) {
+        return enhance(new DefiningClassLoader(), type, transformer);
+    }
+
+    private static Class<?> enhance(DefiningClassLoader classLoader, Class<?> type, AdviceTransformer transformer) {
+        final byte[] bytes = transformer.transform(new ByteBuddy().redefine(type),
+                TypeDescription.ForLoadedType.of(type), classLoader, null).make().getBytes();
+        return classLoader.define(type.getName(), bytes);
+    }
+
+    /**
+     * 被增强类
+     *
+     * @since 2022-09-28
+     */
+    public static class DispatchTarget {
+        public String greet(String name) {
+            return "hello " + name;
+        }
+
+        public static int twice(int value) {
+            return value * 2;
+        }
+
+        public String other() {
+            return "untouched";
+        }
+    }
+
+    /**
+     * 记录调用的拦截器
+     *
+     * @since 2022-09-28
+     */
+    private static class RecordInterceptor implements Interceptor {
+        private final String name;
+
+        private final List<String> records;
+
+        RecordInterceptor(String name, List<String> records) {
+            this.name = name;
+            this.records = records;
+        }
+
+        @Override
+        public ExecuteContext before(ExecuteContext context) {
+            records.add(name + ".before:" + getMethodName(context));
+            return context;
+        }
+
+        @Override
+        public ExecuteContext after(ExecuteContext context) {
+            records.add(name + ".after:" + getMethodName(context));
+            return context;
+        }
+
+        @Override
+        public ExecuteContext onThrow(ExecuteContext context) {
+            records.add(name + ".onThrow:" + getMethodName(context));
+            return context;
+        }
+
+        private static String getMethodName(ExecuteContext context) {
+            return context.getMethod() == null ? "<init>" : context.getMethod().getName();
+        }
+    }
+
+    /**
+     * 由被增强类的类加载器定义的拦截器，将参数替换为sermant
+     *
+     * @since 2022-09-28
+     */
+    public static class LoaderBoundInterceptor implements Interceptor {
+        @Override
+        public ExecuteContext before(ExecuteContext context) {
+            return context.changeArgs(new Object[]{"sermant"});
+        }
+
+        @Override
+        public ExecuteContext after(ExecuteContext context) {
+            return context;
+        }
+
+        @Override
+        public ExecuteContext onThrow(ExecuteContext context) {
+            return context;
+        }
+    }
+
+    /**
+     * 定义被增强类的类加载器，增强记录以该类加载器为键
+     *
+     * @since 2022-09-28
+     */
+    private static class DefiningClassLoader extends ClassLoader {
+        DefiningClassLoader() {
+            super(AdviceTransformerTest.class.getClassLoader());
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * 用后即弃的类加载器，自行定义{@link LoaderBoundInterceptor}，模拟由webapp类加载器加载的拦截器
+     *
+     * @since 2022-09-28
+     */
+    private static class ThrowawayClassLoader extends DefiningClassLoader {
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!LoaderBoundInterceptor.class.getName().equals(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                final Class<?> loaded = findLoadedClass(name);
+                if (loaded != null) {
+                    return loaded;
+                }
+                return define(name, ClassFileLocator.ForClassLoader.read(LoaderBoundInterceptor.class));
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent.transformer;
+
+import com.huaweicloud.sermant.core.plugin.agent.declarer.InterceptDeclarer;
+import com.huaweicloud.sermant.core.plugin.agent.entity.ExecuteContext;
+import com.huaweicloud.sermant.core.plugin.agent.interceptor.Interceptor;
+import com.huaweicloud.sermant.core.plugin.agent.matcher.MethodMatcher;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.type.TypeDescription;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 启动类增强测试，校验advice通过织入的下标从调度桥获取调度器并执行拦截器
+ * <p>测试中不注入启动类加载器，被增强类与调度桥由同一类加载器可见，调度流程与启动类一致
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class BootstrapTransformerTest {
+    @Test
+    public void testDispatchThroughBridge() throws Exception {
+        final Field injectedField = BootstrapTransformer.class.getDeclaredField("isDispatcherInjected");
+        injectedField.setAccessible(true);
+        final boolean isOriginInjected = injectedField.getBoolean(null);
+        injectedField.setBoolean(null, true);
+        try {
+            final List<String> records = new ArrayList<>();
+            final Interceptor argsInterceptor = new RecordInterceptor("args", records) {
+                @Override
+                public ExecuteContext before(ExecuteContext context) {
+                    super.before(context);
+                    return context.changeArgs(new Object[]{"sermant"});
+                }
+            };
+            final InterceptDeclarer[] declarers = {
+                InterceptDeclarer.build(MethodMatcher.nameEquals("greet"), new RecordInterceptor("first", records)),
+                InterceptDeclarer.build(MethodMatcher.nameEquals("greet"), argsInterceptor),
+                InterceptDeclarer.build(MethodMatcher.nameEquals("twice"), new RecordInterceptor("static", records)),
+                InterceptDeclarer.build(MethodMatcher.isConstructor(), new RecordInterceptor("const", records))
+            };
+            final Class<?> enhanced = enhance(BootstrapTarget.class, new BootstrapTransformer(declarers));
+
+            final Object target = enhanced.getConstructor().newInstance();
+            Assertions.assertEquals("[const.before:<init>, const.after:<init>]", records.toString());
+            records.clear();
+
+            Assertions.assertEquals("hello sermant", enhanced.getMethod("greet", String.class).invoke(target, "world"));
+            Assertions.assertEquals("[first.before:greet, args.before:greet, args.after:greet, first.after:greet]",
+                    records.toString());
+            records.clear();
+
+            Assertions.assertEquals(6, enhanced.getMethod("twice", int.class).invoke(null, 3));
+            Assertions.assertEquals("[static.before:twice, static.after:twice]", records.toString());
+            records.clear();
+
+            Assertions.assertEquals("untouched", enhanced.getMethod("other").invoke(target));
+            Assertions.assertTrue(records.isEmpty());
+        } finally {
+            injectedField.setBoolean(null, isOriginInjected);
+        }
+    }
+
+    private static Class<?> enhance(Class<?> type, BootstrapTransformer transformer) {
+        final DefiningClassLoader classLoader = new DefiningClassLoader();
+        final byte[] bytes = transformer.transform(new ByteBuddy().redefine(type),
+                TypeDescription.ForLoadedType.of(type), classLoader, null).make().getBytes();
+        return classLoader.define(type.getName(), bytes);
+    }
+
+    /**
+     * 被增强类
+     *
+     * @since 2022-09-28
+     */
+    public static class BootstrapTarget {
+        public String greet(String name) {
+            return "hello " + name;
+        }
+
+        public static int twice(int value) {
+            return value * 2;
+        }
+
+        public String other() {
+            return "untouched";
+        }
+    }
+
+    /**
+     * 记录调用的拦截器
+     *
+     * @since 2022-09-28
+     */
+    private static class RecordInterceptor implements Interceptor {
+        private final String name;
+
+        private final List<String> records;
+
+        RecordInterceptor(String name, List<String> records) {
+            this.name = name;
+            this.records = records;
+        }
+
+        @Override
+        public ExecuteContext before(ExecuteContext context) {
+            records.add(name + ".before:" + getMethodName(context));
+            return context;
+        }
+
+        @Override
+        public ExecuteContext after(ExecuteContext context) {
+            records.add(name + ".after:" + getMethodName(context));
+            return context;
+        }
+
+        @Override
+        public ExecuteContext onThrow(ExecuteContext context) {
+            records.add(name + ".onThrow:" + getMethodName(context));
+            return context;
+        }
+
+        private static String getMethodName(ExecuteContext context) {
+            return context.getMethod() == null ? "<init>" : context.getMethod().getName();
+        }
+    }
+
+    /**
+     * 定义被增强类的类加载器
+     *
+     * @since 2022-09-28
+     */
+    private static class DefiningClassLoader extends ClassLoader {
+        DefiningClassLoader() {
+            super(BootstrapTransformerTest.class.getClassLoader());
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.agent.transformer;
+
+import com.huaweicloud.sermant.core.plugin.agent.declarer.InterceptDeclarer;
+import com.huaweicloud.sermant.core.plugin.agent.entity.ExecuteContext;
+import com.huaweicloud.sermant.core.plugin.agent.interceptor.Interceptor;
+import com.huaweicloud.sermant.core.plugin.agent.matcher.MethodMatcher;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 拦截器注册表测试
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class InterceptorRegistryTest {
+    @Test
+    public void testSharedPerClassLoader() {
+        final CountingDeclarer declarer = new CountingDeclarer();
+        final ClassLoader loader = new URLClassLoader(new URL[0]);
+        final Interceptor[] first = InterceptorRegistry.getInterceptors(declarer, loader);
+        Assertions.assertSame(first[0], InterceptorRegistry.getInterceptors(declarer, loader)[0]);
+        Assertions.assertEquals(1, declarer.created.get());
+        final Interceptor[] other = InterceptorRegistry.getInterceptors(declarer, new URLClassLoader(new URL[0]));
+        Assertions.assertNotSame(first[0], other[0]);
+        Assertions.assertEquals(2, declarer.created.get());
+    }
+
+    @Test
+    public void testSurviveGcWhileReferenced() throws Exception {
+        final CountingDeclarer declarer = new CountingDeclarer();
+        final ClassLoader loader = new URLClassLoader(new URL[0]);
+
+        // 模拟被增强类的拦截器数组集字段对拦截器的强引用
+        final Interceptor[] holder = InterceptorRegistry.getInterceptors(declarer, loader);
+        holder[0].before(null);
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        final Interceptor[] interceptors = InterceptorRegistry.getInterceptors(declarer, loader);
+        Assertions.assertEquals(1, declarer.created.get());
+        Assertions.assertSame(holder[0], interceptors[0]);
+        Assertions.assertEquals(1, ((StatefulInterceptor) interceptors[0]).count.get());
+    }
+
+    @Test
+    public void testEmptyNotRegistered() {
+        final CountingDeclarer declarer = new CountingDeclarer();
+        declarer.isEmpty = true;
+        final ClassLoader loader = new URLClassLoader(new URL[0]);
+        Assertions.assertEquals(0, InterceptorRegistry.getInterceptors(declarer, loader).length);
+        declarer.isEmpty = false;
+        Assertions.assertEquals(1, InterceptorRegistry.getInterceptors(declarer, loader).length);
+        Assertions.assertEquals(2, declarer.created.get());
+    }
+
+    /**
+     * 每次获取拦截器时都会创建新拦截器的声明器
+     *
+     * @since 2022-09-28
+     */
+    private static class CountingDeclarer extends InterceptDeclarer {
+        private final AtomicInteger created = new AtomicInteger();
+
+        private boolean isEmpty;
+
+        @Override
+        public MethodMatcher getMethodMatcher() {
+            return MethodMatcher.any();
+        }
+
+        @Override
+        public Interceptor[] getInterceptors(ClassLoader classLoader) {
+            created.incrementAndGet();
+            if (isEmpty) {
+                return new Interceptor[0];
+            }
+            return new Interceptor[]{new StatefulInterceptor()};
+        }
+    }
+
+    /**
+     * 带状态的拦截器
+     *
+     * @since 2022-09-28
+     */
+    private static class StatefulInterceptor implements Interceptor {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public ExecuteContext before(ExecuteContext context) {
+            count.incrementAndGet();
+            return context;
+        }
+
+        @Override
+        public ExecuteContext after(ExecuteContext context) {
+            return context;
+        }
+
+        @Override
+        public ExecuteContext onThrow(ExecuteContext context) {
+            return context;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.core.plugin.subscribe.processor;
+
+import com.huaweicloud.sermant.core.operation.OperationManager;
+import com.huaweicloud.sermant.core.operation.converter.api.YamlConverter;
+import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEvent;
+import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEventType;
+import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigListener;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 配置事件合并测试
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class ConfigOrderIntegratedProcessorTest {
+    private static final String GROUP = "app=demo";
+
+    private static final long COALESCE_WINDOW = 200L;
+
+    private static final int BURST_SIZE = 200;
+
+    private static final int KEY_COUNT = 50;
+
+    private MockedStatic<OperationManager> operationManagerMockedStatic;
+
+    @BeforeEach
+    public void setUp() {
+        operationManagerMockedStatic = Mockito.mockStatic(OperationManager.class);
+        operationManagerMockedStatic.when(() -> OperationManager.getOperation(YamlConverter.class))
+            .thenReturn(new SimpleYamlConverter());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        operationManagerMockedStatic.close();
+    }
+
+    @Test
+    public void testProcessWithoutCoalesce() {
+        final List<DynamicConfigEvent> received = new CopyOnWriteArrayList<>();
+        final ConfigOrderIntegratedProcessor processor = new ConfigOrderIntegratedProcessor(received::add);
+        processor.addHolder(new ConfigDataHolder(GROUP, 1));
+        processor.process(GROUP, DynamicConfigEvent.createEvent("rule.a", GROUP, "a: 1"));
+        processor.process(GROUP, DynamicConfigEvent.modifyEvent("rule.a", GROUP, "a: 2"));
+        Assertions.assertEquals(2, received.size());
+        Assertions.assertEquals("2", ((OrderConfigEvent) received.get(1)).getAllData().get("a"));
+    }
+
+    @Test
+    public void testCoalesceToBatchEvent() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<DynamicConfigEvent> received = new CopyOnWriteArrayList<>();
+        final ConfigOrderIntegratedProcessor processor = new ConfigOrderIntegratedProcessor(
+            new BatchListener(received, latch), COALESCE_WINDOW);
+        processor.addHolder(new ConfigDataHolder(GROUP, 1));
+        for (int i = 0; i < BURST_SIZE; i++) {
+            final String key = "rule." + (i % KEY_COUNT);
+            processor.process(GROUP, i < KEY_COUNT ? DynamicConfigEvent.createEvent(key, GROUP, key + ": " + i)
+                : DynamicConfigEvent.modifyEvent(key, GROUP, key + ": " + i));
+        }
+        processor.process(GROUP, DynamicConfigEvent.deleteEvent("rule.0", GROUP, ""));
+        Assertions.assertTrue(latch.await(COALESCE_WINDOW * 10, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(1, received.size());
+        final BatchConfigEvent batchEvent = (BatchConfigEvent) received.get(0);
+        Assertions.assertEquals(KEY_COUNT, batchEvent.getEvents().size());
+        Assertions.assertEquals(DynamicConfigEventType.DELETE, batchEvent.getEvents().get(0).getEventType());
+        Assertions.assertEquals(DynamicConfigEventType.CREATE, batchEvent.getEvents().get(1).getEventType());
+        Assertions.assertEquals(DynamicConfigEventType.MODIFY, batchEvent.getEventType());
+        Assertions.assertEquals(KEY_COUNT - 1, batchEvent.getAllData().size());
+        Assertions.assertEquals(String.valueOf(BURST_SIZE - 1), batchEvent.getAllData().get("rule.49"));
+        for (OrderConfigEvent event : batchEvent.getEvents()) {
+            Assertions.assertSame(batchEvent.getAllData(), event.getAllData());
+        }
+    }
+
+    @Test
+    public void testCoalescePerKeyForPlainListener() throws InterruptedException {
+        final List<DynamicConfigEvent> received = new CopyOnWriteArrayList<>();
+        final ConfigOrderIntegratedProcessor processor = new ConfigOrderIntegratedProcessor(received::add,
+            COALESCE_WINDOW);
+        processor.addHolder(new ConfigDataHolder(GROUP, 1));
+        processor.process(GROUP, DynamicConfigEvent.deleteEvent("rule.a", GROUP, ""));
+        processor.process(GROUP, DynamicConfigEvent.createEvent("rule.a", GROUP, "a: 1"));
+        processor.process(GROUP, DynamicConfigEvent.createEvent("rule.b", GROUP, "b: 1"));
+        processor.process(GROUP, DynamicConfigEvent.modifyEvent("rule.b", GROUP, "b: 2"));
+        Assertions.assertTrue(received.isEmpty());
+        Thread.sleep(COALESCE_WINDOW * 3);
+        Assertions.assertEquals(2, received.size());
+        Assertions.assertEquals(DynamicConfigEventType.MODIFY, received.get(0).getEventType());
+        Assertions.assertEquals(DynamicConfigEventType.CREATE, received.get(1).getEventType());
+        Assertions.assertEquals("b=2", received.get(1).getContent());
+    }
+
+    /**
+     * 支持合并事件的监听器
+     *
+     * @since 2022-09-28
+     */
+    static class BatchListener implements DynamicConfigListener {
+        private final List<DynamicConfigEvent> received;
+
+        private final CountDownLatch latch;
+
+        BatchListener(List<DynamicConfigEvent> received, CountDownLatch latch) {
+            this.received = received;
+            this.latch = latch;
+        }
+
+        @Override
+        public void process(DynamicConfigEvent event) {
+            received.add(event);
+            latch.countDown();
+        }
+
+        @Override
+        public boolean isSupportBatch() {
+            return true;
+        }
+    }
+
+    /**
+     * 仅支持单层键值的yaml转换, 测试使用
+     *
+     * @since 2022-09-28
+     */
+    static class SimpleYamlConverter implements YamlConverter {
+        @Override
+        public <T> Optional<T> convert(String source, Class<? super T> type) {
+            final Map<String, Object> result = new HashMap<>();
+            for (String line : source.split("\n")) {
+                final int index = line.indexOf(':');
+                if (index > 0) {
+                    result.put(line.substring(0, index).trim(), line.substring(index + 1).trim());
+                }
+            }
+            return Optional.of((T) result);
+        }
+
+        @Override
+        public <T> Optional<T> convert(Reader reader, Class<? super T> type) {
+            return Optional.empty();
+        }
+
+        @Override
+        public String dump(Object data) {
+            return ((Map<?, ?>) data).entrySet().stream().map(Object::toString).reduce((a, b) -> a + "\n" + b)
+                .orElse("");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.huaweicloud.sermant.core.service.tracing.sampler;
+
+import com.huaweicloud.sermant.core.service.tracing.api.Sampler;
+import com.huaweicloud.sermant.core.service.tracing.common.TracingHeader;
+import com.huaweicloud.sermant.core.service.tracing.common.TracingRequest;
+import com.huaweicloud.sermant.core.service.tracing.config.TracingConfig;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 采样器测试
+ *
+ * @author luanwenfei
+ * @since 2022-09-28
+ */
+public class SamplerTest {
+    private static final int RATE_LIMIT = 10;
+
+    private static final int REQUEST_COUNT = 1000;
+
+    /**
+     * 测试限流采样器按入口方法分别限流
+     */
+    @Test
+    public void testRateLimitingSampler() {
+        Sampler sampler = new RateLimitingSampler(RATE_LIMIT);
+        TracingRequest first = new TracingRequest("com.demo.Service", "first");
+        TracingRequest second = new TracingRequest("com.demo.Service", "second");
+        Assertions.assertEquals(RATE_LIMIT, countSampled(sampler, first));
+        Assertions.assertEquals(RATE_LIMIT, countSampled(sampler, second));
+        Assertions.assertEquals(0, countSampled(new RateLimitingSampler(0), first));
+    }
+
+    /**
+     * 测试概率采样器的边界采样率
+     */
+    @Test
+    public void testProbabilitySampler() {
+        TracingRequest request = new TracingRequest("com.demo.Service", "method");
+        Assertions.assertEquals(0, countSampled(new ProbabilitySampler(0.0d), request));
+        Assertions.assertEquals(REQUEST_COUNT, countSampled(new ProbabilitySampler(1.0d), request));
+        int sampled = countSampled(new ProbabilitySampler(0.5d), request);
+        Assertions.assertTrue(sampled > 0 && sampled < REQUEST_COUNT);
+    }
+
+    /**
+     * 测试基于上游采样结果的采样器沿用上游决定
+     */
+    @Test
+    public void testParentBasedSampler() {
+        TracingConfig config = new TracingConfig();
+        config.setSamplerType(TracingConfig.SamplerType.PROBABILITY);
+        config.setSampleRate(0.0d);
+        Sampler sampler = SamplerFactory.create(config);
+        TracingRequest request = new TracingRequest("com.demo.Service", "method");
+        Assertions.assertFalse(sampler.shouldSample(request));
+        request.setSampledValue(TracingHeader.SAMPLED_VALUE);
+        Assertions.assertTrue(sampler.shouldSample(request));
+        request.setSampledValue(TracingHeader.NOT_SAMPLED_VALUE);
+        Assertions.assertFalse(sampler.shouldSample(request));
+        config.setParentBased(false);
+        request.setSampledValue(TracingHeader.SAMPLED_VALUE);
+        Assertions.assertFalse(SamplerFactory.create(config).shouldSample(request));
+    }
+
+    private static int countSampled(Sampler sampler, TracingRequest request) {
+        int count = 0;
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            if (sampler.shouldSample(request)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -16,11 +16,16 @@
 
 package com.huaweicloud.sermant.implement.service.dynamicconfig;
 
+import com.huaweicloud.sermant.core.common.BootArgsIndexer;
 import com.huaweicloud.sermant.core.service.dynamicconfig.DynamicConfigService;
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigListener;
+import com.huaweicloud.sermant.core.utils.StringUtils;
 import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.KieDynamicConfigService;
+import com.huaweicloud.sermant.implement.service.dynamicconfig.snapshot.DynamicConfigSnapshot;
+import com.huaweicloud.sermant.implement.service.dynamicconfig.snapshot.SnapshotListener;
 import com.huaweicloud.sermant.implement.service.dynamicconfig.zookeeper.ZooKeeperDynamicConfigService;
 
+import java.io.File;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,6 +42,11 @@ public class BufferedDynamicConfigService extends DynamicConfigService {
      */
     private final DynamicConfigService service;
 
+    /**
+     * 本地快照，未开启时为null
+     */
+    private DynamicConfigSnapshot snapshot;
+
     /**
      * 构造方法
      */
@@ -53,12 +63,91 @@ public class BufferedDynamicConfigService extends DynamicConfigService {
 
     @Override
     public void start() {
+        if (CONFIG.isSnapshotEnable()) {
+            snapshot = new DynamicConfigSnapshot(getSnapshotFile());
+            snapshot.load();
+        }
         service.start();
     }
 
     @Override
     public void stop() {
         service.stop();
+        if (snapshot != null) {
+            snapshot.close();
+        }
+    }
+
+    private File getSnapshotFile() {
+        if (!StringUtils.isBlank(CONFIG.getSnapshotPath())) {
+            return new File(CONFIG.getSnapshotPath());
+        }
+        final String appName = BootArgsIndexer.getAppName();
+        return new File(System.getProperty("user.home") + File.separator + ".sermant" + File.separator + "snapshot",
+            (StringUtils.isBlank(appName) ? "default" : appName) + ".snapshot");
+    }
+
+    private DynamicConfigListener wrapListener(String subscription, DynamicConfigListener listener) {
+        if (snapshot == null || listener == null) {
+            return listener;
+        }
+        return new SnapshotListener(subscription, listener, snapshot);
+    }
+
+    /**
+     * 订阅时若需要通知已有配置, 则先以快照通知, 订阅完成后再以配置中心返回的数据校正
+     *
+     * @param listener 监听器
+     * @param ifNotify 是否通知已有配置
+     * @param query 订阅后查询配置中心中订阅的配置键, 用于确认配置是否存在以及配置中心是否应答
+     * @param subscribe 订阅操作
+     * @return 是否订阅成功
+     */
+    private boolean subscribeWithSnapshot(DynamicConfigListener listener, boolean ifNotify, KeysQuery query,
+            Subscribe subscribe) {
+        if (!(listener instanceof SnapshotListener) || !ifNotify) {
+            return subscribe.apply(listener);
+        }
+        final SnapshotListener snapshotListener = (SnapshotListener) listener;
+        snapshotListener.serveSnapshot();
+        try {
+            return subscribe.apply(snapshotListener);
+        } finally {
+            snapshotListener.reconcile(query.query().orElse(null));
+        }
+    }
+
+    /**
+     * 查询组下的配置键, 组下没有配置时初始化不会产生事件, 需通过查询确认配置中心是否应答
+     *
+     * @param group 组
+     * @return 配置键, 配置中心未应答时为空
+     */
+    private Optional<List<String>> queryKeysFromGroup(String group) {
+        if (service instanceof KieDynamicConfigService) {
+            return ((KieDynamicConfigService) service).queryKeysFromGroup(fixGroup(group));
+        }
+        if (service instanceof ZooKeeperDynamicConfigService) {
+            return ((ZooKeeperDynamicConfigService) service).queryKeysFromGroup(fixGroup(group));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 查询单个配置键是否存在, 配置中心不可用时初始化事件的内容同样为空, 需通过查询确认配置是否已删除
+     *
+     * @param key 键
+     * @param group 组
+     * @return 存在时为仅包含该键的集合, 不存在时为空集合, 配置中心未应答时为空
+     */
+    private Optional<List<String>> queryKey(String key, String group) {
+        if (service instanceof KieDynamicConfigService) {
+            return ((KieDynamicConfigService) service).queryKey(key, fixGroup(group));
+        }
+        if (service instanceof ZooKeeperDynamicConfigService) {
+            return ((ZooKeeperDynamicConfigService) service).queryKey(key, fixGroup(group));
+        }
+        return Optional.empty();
     }
 
     @Override
@@ -93,32 +182,40 @@ public class BufferedDynamicConfigService extends DynamicConfigService {
 
     @Override
     public boolean addConfigListener(String key, DynamicConfigListener listener) {
-        return service.addConfigListener(key, listener);
+        return service.addConfigListener(key,
+            wrapListener(SnapshotListener.keySubscription(key, fixGroup(null)), listener));
     }
 
     @Override
     public boolean addConfigListener(String key, String group, DynamicConfigListener listener) {
-        return service.addConfigListener(key, group, listener);
+        return service.addConfigListener(key, group,
+            wrapListener(SnapshotListener.keySubscription(key, fixGroup(group)), listener));
     }
 
     @Override
     public boolean addConfigListener(String key, DynamicConfigListener listener, boolean ifNotify) {
-        return service.addConfigListener(key, listener, ifNotify);
+        return addConfigListener(key, null, listener, ifNotify);
     }
 
     @Override
     public boolean addConfigListener(String key, String group, DynamicConfigListener listener, boolean ifNotify) {
-        return service.addConfigListener(key, group, listener, ifNotify);
+        return subscribeWithSnapshot(wrapListener(SnapshotListener.keySubscription(key, fixGroup(group)), listener),
+            ifNotify, () -> queryKey(key, group),
+            curListener -> service.addConfigListener(key, group, curListener, ifNotify));
     }
 
     @Override
     public boolean removeConfigListener(String key) {
-        return service.removeConfigListener(key);
+        return removeConfigListener(key, null);
     }
 
     @Override
     public boolean removeConfigListener(String key, String group) {
-        return service.removeConfigListener(key, group);
+        final boolean isRemoved = service.removeConfigListener(key, group);
+        if (isRemoved && snapshot != null) {
+            snapshot.removeSubscription(SnapshotListener.keySubscription(key, fixGroup(group)));
+        }
+        return isRemoved;
     }
 
     @Override
@@ -128,17 +225,24 @@ public class BufferedDynamicConfigService extends DynamicConfigService {
 
     @Override
     public boolean addGroupListener(String group, DynamicConfigListener listener) {
-        return service.addGroupListener(group, listener);
+        return service.addGroupListener(group,
+            wrapListener(SnapshotListener.groupSubscription(fixGroup(group)), listener));
     }
 
     @Override
     public boolean addGroupListener(String group, DynamicConfigListener listener, boolean ifNotify) {
-        return service.addGroupListener(group, listener, ifNotify);
+        return subscribeWithSnapshot(wrapListener(SnapshotListener.groupSubscription(fixGroup(group)), listener),
+            ifNotify, () -> queryKeysFromGroup(group),
+            curListener -> service.addGroupListener(group, curListener, ifNotify));
     }
 
     @Override
     public boolean removeGroupListener(String group) {
-        return service.removeGroupListener(group);
+        final boolean isRemoved = service.removeGroupListener(group);
+        if (isRemoved && snapshot != null) {
+            snapshot.removeSubscription(SnapshotListener.groupSubscription(fixGroup(group)));
+        }
+        return isRemoved;
     }
 
     @Override
@@ -180,4 +284,33 @@ public class BufferedDynamicConfigService extends DynamicConfigService {
     public boolean doRemoveGroupListener(String group) {
         return service.doRemoveGroupListener(group);
     }
+
+    /**
+     * 订阅操作
+     *
+     * @since 2022-09-28
+     */
+    private interface Subscribe {
+        /**
+         * 执行订阅
+         *
+         * @param listener 监听器
+         * @return 是否订阅成功
+         */
+        boolean apply(DynamicConfigListener listener);
+    }
+
+    /**
+     * 订阅后查询配置中心中订阅的配置键
+     *
+     * @since 2022-09-28
+     */
+    private interface KeysQuery {
+        /**
+         * 执行查询
+         *
+         * @return 配置键, 配置中心未应答时为空
+         */
+        Optional<List<String>> query();
+    }
 }
@@ -60,6 +60,11 @@ public class KieDynamicConfigService extends DynamicConfigService {
         subscriberManager = new SubscriberManager(serverAddress, project);
     }
 
+    @Override
+    public void stop() {
+        subscriberManager.close();
+    }
+
     @Override
     public boolean doRemoveGroupListener(String group) {
         return updateGroupListener(group, null, false, false);
@@ -82,18 +87,29 @@ public class KieDynamicConfigService extends DynamicConfigService {
 
     @Override
     public boolean addConfigListener(String key, String group, DynamicConfigListener listener, boolean ifNotify) {
-        if (!LabelGroupUtils.isLabelGroup(group)) {
-            // 增加标签group判断, 对不规则的group进行适配处理
-            group = LabelGroupUtils
-                .createLabelGroup(Collections.singletonMap(fixSeparator(group, true), fixSeparator(key, false)));
-        }
-        return subscriberManager.addConfigListener(key, group, listener, ifNotify);
+        return subscriberManager.addConfigListener(key, toLabelGroup(key, group), listener, ifNotify);
     }
 
     @Override
     public boolean doRemoveConfigListener(String key, String group) {
-        // 不支持移除单个监听器
-        return false;
+        return subscriberManager.removeConfigListener(key, toLabelGroup(key, group));
+    }
+
+    /**
+     * 单个键订阅使用的标签组
+     *
+     * @param key 键
+     * @param group 组
+     * @return 标签组
+     */
+    private String toLabelGroup(String key, String group) {
+        if (LabelGroupUtils.isLabelGroup(group)) {
+            return group;
+        }
+
+        // 增加标签group判断, 对不规则的group进行适配处理
+        return LabelGroupUtils
+            .createLabelGroup(Collections.singletonMap(fixSeparator(group, true), fixSeparator(key, false)));
     }
 
     @Override
@@ -137,6 +153,37 @@ public class KieDynamicConfigService extends DynamicConfigService {
         return Collections.emptyList();
     }
 
+    /**
+     * 查询组下的配置键，与{@link #doListKeysFromGroup(String)}不同，查询失败时返回空
+     *
+     * @param group 组
+     * @return 配置键，查询失败时为空
+     */
+    public Optional<List<String>> queryKeysFromGroup(String group) {
+        final KieResponse kieResponse =
+            subscriberManager.queryConfigurations(null, LabelGroupUtils.getLabelCondition(group));
+        if (!isValidResponse(kieResponse)) {
+            return Optional.empty();
+        }
+        final List<String> keys = new ArrayList<>(kieResponse.getData().size());
+        for (KieConfigEntity entity : kieResponse.getData()) {
+            keys.add(entity.getKey());
+        }
+        return Optional.of(keys);
+    }
+
+    /**
+     * 查询单个键订阅的配置键是否存在，查询失败时返回空
+     *
+     * @param key 键
+     * @param group 组
+     * @return 配置存在时为仅包含该键的集合，不存在时为空集合，查询失败时为空
+     */
+    public Optional<List<String>> queryKey(String key, String group) {
+        return queryKeysFromGroup(toLabelGroup(key, group)).map(keys -> keys.contains(key)
+            ? Collections.singletonList(key) : Collections.emptyList());
+    }
+
     private boolean isValidResponse(KieResponse kieResponse) {
         return kieResponse != null && kieResponse.getData() != null;
     }
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.http;
+
+import com.huaweicloud.sermant.core.common.LoggerFactory;
+import com.huaweicloud.sermant.core.utils.ThreadFactoryUtils;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import javax.net.ssl.SSLException;
+
+/**
+ * 基于netty的异步http客户端，仅支持GET请求，用于长轮询等需要长时间等待响应的场景
+ * <p>所有请求共用一个IO线程，响应或异常通过回调返回，回调在IO线程中执行，不可在回调中执行阻塞操作
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class AsyncHttpClient {
+    private static final Logger LOGGER = LoggerFactory.getLogger();
+
+    private static final String HTTPS = "https";
+
+    private static final int HTTP_PORT = 80;
+
+    private static final int HTTPS_PORT = 443;
+
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+
+    /**
+     * 单个响应的最大字节数
+     */
+    private static final int MAX_CONTENT_LENGTH = 16 * 1024 * 1024;
+
+    private final EventLoopGroup eventLoopGroup = new NioEventLoopGroup(1, new ThreadFactoryUtils("kie-async-http"));
+
+    private volatile SslContext sslContext;
+
+    /**
+     * 发起异步GET请求，请求失败、超时或连接被关闭时回调{@link HttpResult#error()}
+     *
+     * @param url 请求地址
+     * @param timeoutMs 读取响应的超时时间
+     * @param callback 响应回调
+     * @return 异步请求, 可用于取消请求
+     */
+    public AsyncRequest doGet(String url, long timeoutMs, Consumer<HttpResult> callback) {
+        final ResponseHandler responseHandler = new ResponseHandler(callback);
+        try {
+            final URI uri = URI.create(url);
+            final boolean isHttps = HTTPS.equalsIgnoreCase(uri.getScheme());
+            final SslContext curSslContext = isHttps ? getSslContext() : null;
+            final String host = uri.getHost();
+            final int port = uri.getPort() > 0 ? uri.getPort() : (isHttps ? HTTPS_PORT : HTTP_PORT);
+            final Bootstrap bootstrap = new Bootstrap().group(eventLoopGroup).channel(NioSocketChannel.class)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, CONNECT_TIMEOUT_MS)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel channel) {
+                        final ChannelPipeline pipeline = channel.pipeline();
+                        if (curSslContext != null) {
+                            pipeline.addLast(curSslContext.newHandler(channel.alloc(), host, port));
+                        }
+                        pipeline.addLast(new ReadTimeoutHandler(timeoutMs, TimeUnit.MILLISECONDS));
+                        pipeline.addLast(new HttpClientCodec());
+                        pipeline.addLast(new HttpObjectAggregator(MAX_CONTENT_LENGTH));
+                        pipeline.addLast(responseHandler);
+                    }
+                });
+            final String path = uri.getRawQuery() == null ? uri.getRawPath()
+                : uri.getRawPath() + "?" + uri.getRawQuery();
+            final FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, path);
+            request.headers().set(HttpHeaderNames.HOST, uri.getAuthority())
+                .set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE)
+                .set(HttpHeaderNames.CONTENT_TYPE, "application/json; charset=utf-8")
+                .set(HttpHeaderNames.USER_AGENT, "sermant/client");
+            final ChannelFuture connectFuture = bootstrap.connect(host, port);
+            connectFuture.addListener((ChannelFuture future) -> {
+                if (future.isSuccess()) {
+                    future.channel().writeAndFlush(request);
+                } else {
+                    request.release();
+                    responseHandler.complete(HttpResult.error(), future.cause());
+                }
+            });
+            return new AsyncRequest(responseHandler, connectFuture.channel());
+        } catch (IllegalArgumentException | SSLException ex) {
+            responseHandler.complete(HttpResult.error(), ex);
+            return new AsyncRequest(responseHandler, null);
+        }
+    }
+
+    /**
+     * 关闭客户端，释放IO线程
+     */
+    public void close() {
+        eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    private SslContext getSslContext() throws SSLException {
+        if (sslContext == null) {
+            synchronized (this) {
+                if (sslContext == null) {
+                    // 与DefaultHttpClient保持一致，信任所有证书
+                    sslContext = SslContextBuilder.forClient().trustManager(InsecureTrustManagerFactory.INSTANCE)
+                        .build();
+                }
+            }
+        }
+        return sslContext;
+    }
+
+    /**
+     * 异步请求
+     *
+     * @since 2022-09-28
+     */
+    public static class AsyncRequest {
+        private final ResponseHandler responseHandler;
+
+        private final Channel channel;
+
+        AsyncRequest(ResponseHandler responseHandler, Channel channel) {
+            this.responseHandler = responseHandler;
+            this.channel = channel;
+        }
+
+        /**
+         * 取消请求并关闭连接, 取消后不再回调
+         */
+        public void cancel() {
+            responseHandler.isCompleted.set(true);
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * 响应处理器，保证每个请求仅回调一次
+     *
+     * @since 2022-09-28
+     */
+    private static class ResponseHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+        private final Consumer<HttpResult> callback;
+
+        private final AtomicBoolean isCompleted = new AtomicBoolean();
+
+        ResponseHandler(Consumer<HttpResult> callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+            // 响应头名称不区分大小写
+            final Map<String, Object> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (Map.Entry<String, String> entry : response.headers()) {
+                headers.put(entry.getKey(), entry.getValue());
+            }
+            complete(new HttpResult(response.status().code(), response.content().toString(StandardCharsets.UTF_8),
+                headers), null);
+            ctx.close();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            complete(HttpResult.error(), cause);
+            ctx.close();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            complete(HttpResult.error(), null);
+            super.channelInactive(ctx);
+        }
+
+        void complete(HttpResult result, Throwable cause) {
+            if (!isCompleted.compareAndSet(false, true)) {
+                return;
+            }
+            if (cause != null) {
+                LOGGER.warning(String.format(Locale.ENGLISH, "Execute async request failed, %s", cause.getMessage()));
+            }
+            callback.accept(result);
+        }
+    }
+}
@@ -64,13 +64,26 @@ public class HttpResult {
         }
     }
 
+    /**
+     * 通过已解析的响应头构建结果，用于非apache http client的请求
+     *
+     * @param code 响应码
+     * @param result 响应内容
+     * @param responseHeaders 响应头
+     */
+    public HttpResult(int code, String result, Map<String, Object> responseHeaders) {
+        this.code = code;
+        this.result = result;
+        this.responseHeaders = responseHeaders;
+    }
+
     /**
      * 错误响应结果
      *
      * @return HttpResult
      */
     public static HttpResult error() {
-        return new HttpResult(ERROR_CODE, null, null);
+        return new HttpResult(ERROR_CODE, null, (Map<String, Object>) null);
     }
 
     /**
@@ -18,8 +18,10 @@ package com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.kie;
 
 import com.huaweicloud.sermant.core.config.ConfigManager;
 import com.huaweicloud.sermant.core.service.dynamicconfig.config.KieDynamicConfig;
+import com.huaweicloud.sermant.core.utils.StringUtils;
 import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.AbstractClient;
 import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.ClientUrlManager;
+import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.http.AsyncHttpClient;
 import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.http.HttpClient;
 import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.http.HttpResult;
 
@@ -28,6 +30,7 @@ import org.apache.http.HttpStatus;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * kie客户端
@@ -47,6 +50,8 @@ public class KieClient extends AbstractClient {
 
     private String kieApi;
 
+    private volatile AsyncHttpClient asyncHttpClient;
+
     /**
      * kei客户端构造器
      *
@@ -104,18 +109,60 @@ public class KieClient extends AbstractClient {
         if (request == null || responseHandler == null) {
             return null;
         }
+        final HttpResult httpResult = httpClient.doGet(buildQueryUrl(request), request.getRequestConfig());
+        return responseHandler.handle(httpResult);
+    }
+
+    /**
+     * 异步查询Kie配置, 请求等待期间不占用调用线程, 适用于长轮询请求
+     *
+     * @param request   请求体
+     * @param timeoutMs 响应超时时间
+     * @param callback  响应回调, 在IO线程中执行
+     * @return 异步请求, 参数为空时返回null
+     */
+    public AsyncHttpClient.AsyncRequest queryConfigurationsAsync(KieRequest request, long timeoutMs,
+        Consumer<HttpResult> callback) {
+        if (request == null || callback == null) {
+            return null;
+        }
+        return getAsyncHttpClient().doGet(buildQueryUrl(request), timeoutMs, callback);
+    }
+
+    /**
+     * 关闭异步客户端, 释放IO线程
+     */
+    public synchronized void close() {
+        if (asyncHttpClient != null) {
+            asyncHttpClient.close();
+            asyncHttpClient = null;
+        }
+    }
+
+    private AsyncHttpClient getAsyncHttpClient() {
+        if (asyncHttpClient == null) {
+            synchronized (this) {
+                if (asyncHttpClient == null) {
+                    asyncHttpClient = new AsyncHttpClient();
+                }
+            }
+        }
+        return asyncHttpClient;
+    }
+
+    private String buildQueryUrl(KieRequest request) {
         final StringBuilder requestUrl = new StringBuilder().append(clientUrlManager.getUrl()).append(kieApi);
-        requestUrl.append(formatNullString(request.getLabelCondition()))
-            .append("&revision=")
-            .append(formatNullString(request.getRevision()));
+        if (!StringUtils.isBlank(request.getLabelCondition())) {
+            requestUrl.append(request.getLabelCondition()).append('&');
+        }
+        requestUrl.append("revision=").append(formatNullString(request.getRevision()));
         if (request.isAccurateMatchLabel()) {
             requestUrl.append("&match=exact");
         }
         if (request.getWait() != null) {
             requestUrl.append("&wait=").append(formatNullString(request.getWait())).append("s");
         }
-        final HttpResult httpResult = httpClient.doGet(requestUrl.toString(), request.getRequestConfig());
-        return responseHandler.handle(httpResult);
+        return requestUrl.toString();
     }
 
     /**
@@ -16,6 +16,8 @@
 
 package com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.kie;
 
+import com.alibaba.fastjson.annotation.JSONField;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -33,6 +35,12 @@ public class KieConfigEntity {
     private String valueType;
     private String status;
 
+    /**
+     * 该配置最后一次更新时的KIE版本号, 值未变更时版本号不变
+     */
+    @JSONField(name = "update_revision")
+    private long updateRevision;
+
     public String getId() {
         return id;
     }
@@ -80,4 +88,12 @@ public class KieConfigEntity {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    public long getUpdateRevision() {
+        return updateRevision;
+    }
+
+    public void setUpdateRevision(long updateRevision) {
+        this.updateRevision = updateRevision;
+    }
 }
@@ -180,6 +180,17 @@ public class KieListenerWrapper {
         return versionListenerWrapper.removeListener(listener);
     }
 
+    /**
+     * 移除key的所有监听器
+     *
+     * @param key 键
+     * @return 是否存在该key的监听器
+     */
+    public boolean removeKeyListeners(String key) {
+        final VersionListenerWrapper versionListenerWrapper = keyListenerMap.remove(key);
+        return versionListenerWrapper != null && !versionListenerWrapper.listeners.isEmpty();
+    }
+
     /**
      * 当前分组的所有监听器是否全部清空
      *
@@ -19,8 +19,12 @@ package com.huaweicloud.sermant.implement.service.dynamicconfig.kie.listener;
 import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.kie.KieConfigEntity;
 import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.kie.KieResponse;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * 监听键响应数据
@@ -31,12 +35,19 @@ import java.util.Map;
  */
 public class KvDataHolder {
     /**
-     * 当前数据
+     * 当前数据的指纹, 保存版本号与最近一次的配置内容
      */
-    private Map<String, String> currentData;
+    private Map<String, Fingerprint> currentData;
+
+    /**
+     * 对比轮次, 用于标记本轮响应中出现的键, 未被标记的键即为删除的键
+     */
+    private int round;
 
     /**
      * 分析最新的数据
+     * <p>逐个对比配置的版本号与内容, 未变更的配置不会拷贝任何数据, 仅变更的配置会写入事件
+     * <p>删除事件携带该配置最近一次的内容, 供解析yaml等聚合配置的监听器移除其中的规则
      *
      * @param isFirst 是否为首次通知
      * @param response 最新数据
@@ -46,35 +57,44 @@ public class KvDataHolder {
         if (isFirst) {
             clear();
         }
-        final Map<String, String> latestData = formatKieResponse(response);
         final EventDataHolder eventDataHolder = new EventDataHolder(formatRevision(response.getRevision()));
-        if (currentData != null) {
-            if (latestData.isEmpty()) {
-                eventDataHolder.deleted.putAll(currentData);
-            } else {
-                Map<String, String> temp = new HashMap<String, String>(currentData);
-                for (Map.Entry<String, String> entry : latestData.entrySet()) {
-                    final String value = currentData.get(entry.getKey());
-                    if (value == null) {
-                        // 增加的键
-                        eventDataHolder.added.put(entry.getKey(), entry.getValue());
-                    } else {
-                        // 如果存在该键，则比对值是否相等
-                        if (!value.equals(entry.getValue())) {
-                            // 修改
-                            eventDataHolder.modified.put(entry.getKey(), entry.getValue());
-                        }
-                    }
-                    temp.remove(entry.getKey());
+        final List<KieConfigEntity> data = response.getData() == null ? Collections.emptyList() : response.getData();
+        if (currentData == null) {
+            currentData = new HashMap<>();
+        }
+        final int curRound = ++round;
+        int seen = 0;
+        for (KieConfigEntity entity : data) {
+            final String key = entity.getKey();
+            final Fingerprint fingerprint = currentData.get(key);
+            if (fingerprint == null) {
+                // 增加的键
+                currentData.put(key, new Fingerprint(entity, curRound));
+                eventDataHolder.added.put(key, entity.getValue());
+                seen++;
+                continue;
+            }
+            if (fingerprint.round != curRound) {
+                seen++;
+            }
+            if (!fingerprint.isSame(entity)) {
+                // 修改
+                fingerprint.update(entity);
+                eventDataHolder.modified.put(key, entity.getValue());
+            }
+            fingerprint.round = curRound;
+        }
+        if (seen < currentData.size()) {
+            // 本轮未出现的键即为删除的
+            final Iterator<Map.Entry<String, Fingerprint>> iterator = currentData.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<String, Fingerprint> entry = iterator.next();
+                if (entry.getValue().round != curRound) {
+                    eventDataHolder.deleted.put(entry.getKey(), entry.getValue().content);
+                    iterator.remove();
                 }
-
-                // temp留下的键即为删除的
-                eventDataHolder.deleted.putAll(temp);
             }
-        } else {
-            eventDataHolder.added.putAll(latestData);
         }
-        currentData = latestData;
         return eventDataHolder;
     }
 
@@ -96,15 +116,44 @@ public class KvDataHolder {
         }
     }
 
-    private Map<String, String> formatKieResponse(KieResponse response) {
-        final HashMap<String, String> latestData = new HashMap<String, String>();
-        if (response == null || response.getData() == null || response.getData().isEmpty()) {
-            return latestData;
+    /**
+     * 单个配置的指纹
+     *
+     * @since 2022-09-28
+     */
+    private static class Fingerprint {
+        private long updateRevision;
+
+        private String content;
+
+        private int round;
+
+        Fingerprint(KieConfigEntity entity, int round) {
+            update(entity);
+            this.round = round;
         }
-        for (KieConfigEntity entity : response.getData()) {
-            latestData.put(entity.getKey(), entity.getValue());
+
+        /**
+         * 判断配置是否未变更, 版本号一致时直接跳过, 否则比较配置内容
+         *
+         * @param entity 最新配置
+         * @return 未变更返回true
+         */
+        boolean isSame(KieConfigEntity entity) {
+            if (updateRevision > 0 && updateRevision == entity.getUpdateRevision()) {
+                return true;
+            }
+            if (!Objects.equals(content, entity.getValue())) {
+                return false;
+            }
+            updateRevision = entity.getUpdateRevision();
+            return true;
+        }
+
+        void update(KieConfigEntity entity) {
+            this.updateRevision = entity.getUpdateRevision();
+            this.content = entity.getValue();
         }
-        return latestData;
     }
 
     /**
@@ -23,11 +23,15 @@
 package com.huaweicloud.sermant.implement.service.dynamicconfig.kie.listener;
 
 import com.huaweicloud.sermant.core.common.LoggerFactory;
+import com.huaweicloud.sermant.core.config.ConfigManager;
+import com.huaweicloud.sermant.core.service.dynamicconfig.config.KieDynamicConfig;
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigListener;
 import com.huaweicloud.sermant.core.utils.LabelGroupUtils;
 import com.huaweicloud.sermant.core.utils.StringUtils;
 import com.huaweicloud.sermant.core.utils.ThreadFactoryUtils;
 import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.ClientUrlManager;
+import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.http.AsyncHttpClient;
+import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.http.HttpResult;
 import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.kie.KieClient;
 import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.kie.KieConfigEntity;
 import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.kie.KieListenerWrapper;
@@ -39,16 +43,24 @@ import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.constants.Kie
 
 import org.apache.http.client.config.RequestConfig;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
@@ -91,6 +103,16 @@ public class SubscriberManager {
      */
     private static final long LONG_CONNECTION_REQUEST_INTERVAL_MS = 2000L;
 
+    /**
+     * 标签条件中单个标签的前缀
+     */
+    private static final String LABEL_PREFIX = "label=";
+
+    /**
+     * 标签条件中标签键与值的分隔符
+     */
+    private static final char LABEL_KV_SEPARATOR = ':';
+
     /**
      * 当前长连接请求数 要求最大连接数必须小于 MAX_THREAD_SIZE
      */
@@ -112,6 +134,16 @@ public class SubscriberManager {
      */
     private final ResultHandler<KieResponse> receiveAllDataHandler = new ResultHandler.DefaultResultHandler(false);
 
+    /**
+     * 过滤disabled数据的结果处理器, 用于合并订阅的异步响应
+     */
+    private final ResultHandler<KieResponse> defaultHandler = new ResultHandler.DefaultResultHandler();
+
+    /**
+     * 是否合并订阅, 开启后所有长连接标签组共用一个异步长轮询请求
+     */
+    private final boolean isMergedSubscribe;
+
     /**
      * 订阅执行器 最大支持MAX_THREAD_SIZE个任务 由于是长连接请求，必然会占用线程，因此这里不考虑将任务存在队列中
      */
@@ -123,6 +155,11 @@ public class SubscriberManager {
      */
     private ScheduledExecutorService scheduledExecutorService;
 
+    /**
+     * 合并订阅的长轮询任务, 首个长连接标签组订阅时创建
+     */
+    private volatile MergedPullTask mergedPullTask;
+
     /**
      * 构造函数
      *
@@ -130,6 +167,7 @@ public class SubscriberManager {
      */
     public SubscriberManager(String serverAddress) {
         kieClient = new KieClient(new ClientUrlManager(serverAddress));
+        isMergedSubscribe = isMergedSubscribeEnable();
     }
 
     /**
@@ -139,7 +177,48 @@ public class SubscriberManager {
      * @param project       project
      */
     public SubscriberManager(String serverAddress, String project) {
+        this(serverAddress, project, isMergedSubscribeEnable());
+    }
+
+    /**
+     * SubscriberManager
+     *
+     * @param serverAddress     serverAddress
+     * @param project           project
+     * @param isMergedSubscribe 是否合并订阅
+     */
+    public SubscriberManager(String serverAddress, String project, boolean isMergedSubscribe) {
         kieClient = new KieClient(new ClientUrlManager(serverAddress), project);
+        this.isMergedSubscribe = isMergedSubscribe;
+    }
+
+    private static boolean isMergedSubscribeEnable() {
+        final KieDynamicConfig kieDynamicConfig = ConfigManager.getConfig(KieDynamicConfig.class);
+        return kieDynamicConfig != null && kieDynamicConfig.isMergedSubscribeEnable();
+    }
+
+    /**
+     * 关闭监听管理器, 停止所有订阅任务并释放线程与异步客户端
+     */
+    public void close() {
+        for (KieListenerWrapper wrapper : listenerMap.values()) {
+            final Task task = wrapper.getTask();
+            if (task != null) {
+                task.stop();
+            }
+        }
+        synchronized (this) {
+            if (mergedPullTask != null) {
+                mergedPullTask.close();
+            }
+        }
+        longRequestExecutor.shutdownNow();
+        synchronized (SubscriberManager.class) {
+            if (scheduledExecutorService != null) {
+                scheduledExecutorService.shutdownNow();
+            }
+        }
+        kieClient.close();
     }
 
     /**
@@ -181,6 +260,29 @@ public class SubscriberManager {
         }
     }
 
+    /**
+     * 移除单个key的所有监听器, 标签组下不再有监听器时停止该标签组的任务
+     *
+     * @param key   键
+     * @param group 标签组
+     * @return 是否移除成功
+     */
+    public boolean removeConfigListener(String key, String group) {
+        final KieRequest kieRequest = new KieRequest().setLabelCondition(LabelGroupUtils.getLabelCondition(group));
+        final KieListenerWrapper wrapper = listenerMap.get(kieRequest);
+        if (wrapper == null || !wrapper.removeKeyListeners(key)) {
+            LOGGER.warning(String.format(Locale.ENGLISH, "The subscriber of key %s in group %s not found!", key,
+                kieRequest.getLabelCondition()));
+            return false;
+        }
+        if (wrapper.isEmpty()) {
+            // 移除已停止的标签组, 再次订阅时重新创建任务
+            wrapper.getTask().stop();
+            listenerMap.remove(kieRequest, wrapper);
+        }
+        return true;
+    }
+
     /**
      * 移除组监听
      *
@@ -304,6 +406,9 @@ public class SubscriberManager {
             new KieListenerWrapper(key, dynamicConfigListener, new KvDataHolder(), kieRequest);
         if (!kieSubscriber.isLongConnectionRequest()) {
             task = new ShortTimerTask(kieSubscriber, kieListenerWrapper);
+        } else if (isMergedSubscribe) {
+            // 合并订阅不再为标签组单独占用线程, 因此不受MAX_THREAD_SIZE限制
+            task = new MergedGroupTask(kieListenerWrapper);
         } else {
             if (exceedMaxLongRequestCount()) {
                 LOGGER.warning(String.format(Locale.ENGLISH,
@@ -317,10 +422,25 @@ public class SubscriberManager {
         kieListenerWrapper.setTask(task);
         listenerMap.put(kieRequest, kieListenerWrapper);
         tryNotify(kieRequest, kieListenerWrapper, ifNotify);
-        executeTask(task);
+        if (task instanceof MergedGroupTask) {
+            getMergedPullTask().refresh();
+        } else {
+            executeTask(task);
+        }
         return true;
     }
 
+    private MergedPullTask getMergedPullTask() {
+        if (mergedPullTask == null) {
+            synchronized (this) {
+                if (mergedPullTask == null) {
+                    mergedPullTask = new MergedPullTask();
+                }
+            }
+        }
+        return mergedPullTask;
+    }
+
     /**
      * 是否超过最大限制长连接任务数
      *
@@ -444,6 +564,67 @@ public class SubscriberManager {
         }
     }
 
+    /**
+     * 将合并请求的响应按标签组拆分, 仅保留标签与标签组完全一致的配置, 与单独订阅时的精确匹配保持一致
+     *
+     * @param kieResponse 合并请求的响应
+     */
+    private void dispatchMergedResponse(KieResponse kieResponse) {
+        for (KieListenerWrapper wrapper : listenerMap.values()) {
+            final Task task = wrapper.getTask();
+            if (!(task instanceof MergedGroupTask) || !((MergedGroupTask) task).isContinue) {
+                continue;
+            }
+            final Map<String, String> groupLabels = ((MergedGroupTask) task).labels;
+            final List<KieConfigEntity> groupData = new ArrayList<>();
+            if (kieResponse.getData() != null) {
+                for (KieConfigEntity entity : kieResponse.getData()) {
+                    if (groupLabels.equals(entity.getLabels())) {
+                        groupData.add(entity);
+                    }
+                }
+            }
+            final KieResponse groupResponse = new KieResponse();
+            groupResponse.setData(groupData);
+            groupResponse.setTotal(groupData.size());
+            groupResponse.setRevision(kieResponse.getRevision());
+            try {
+                tryPublishEvent(groupResponse, wrapper, false);
+            } catch (Exception ex) {
+                LOGGER.warning(String.format(Locale.ENGLISH, "Dispatch config of group [%s] failed, %s",
+                    wrapper.getKieRequest().getLabelCondition(), ex.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * 解析标签条件, 例如label=app%3Asc&label=service%3AhelloService解析为{app=sc, service=helloService}
+     *
+     * @param labelCondition 标签条件
+     * @return 标签键值对
+     */
+    private static Map<String, String> resolveConditionLabels(String labelCondition) {
+        final Map<String, String> labels = new HashMap<>();
+        if (StringUtils.isBlank(labelCondition)) {
+            return labels;
+        }
+        for (String condition : labelCondition.split("&")) {
+            String label = condition.startsWith(LABEL_PREFIX) ? condition.substring(LABEL_PREFIX.length()) : condition;
+            try {
+                label = URLDecoder.decode(label, "UTF-8");
+            } catch (UnsupportedEncodingException ignored) {
+                // ignored
+            }
+            final int index = label.indexOf(LABEL_KV_SEPARATOR);
+            if (index < 0) {
+                labels.put(label, "");
+            } else {
+                labels.put(label.substring(0, index), label.substring(index + 1));
+            }
+        }
+        return labels;
+    }
+
     /**
      * TaskRunnable
      *
@@ -643,4 +824,184 @@ public class SubscriberManager {
             nextTask.stop();
         }
     }
+
+    /**
+     * 合并订阅下的标签组任务, 不发起请求, 仅记录标签组的标签及订阅状态, 数据由{@link MergedPullTask}统一分发
+     *
+     * @since 2022-09-28
+     */
+    class MergedGroupTask extends AbstractTask {
+        private final Map<String, String> labels;
+
+        MergedGroupTask(KieListenerWrapper kieListenerWrapper) {
+            this.labels = resolveConditionLabels(kieListenerWrapper.getKieRequest().getLabelCondition());
+        }
+
+        @Override
+        public void executeInner() {
+        }
+
+        @Override
+        public boolean isLongConnectionRequest() {
+            return true;
+        }
+    }
+
+    /**
+     * 合并订阅的长轮询任务
+     * <p>KIE单次查询仅支持一组标签条件, 因此不携带标签查询整个命名空间, 基于revision判断是否存在变更, 再由客户端按标签组分发
+     * <p>请求通过异步客户端发起, 等待响应期间不占用线程, 所有标签组仅占用一个调度线程与一个IO线程
+     *
+     * @since 2022-09-28
+     */
+    class MergedPullTask {
+        private static final long MAX_WAIT_MS = 60 * 1000 * 60L;
+
+        private static final long BASE_MS = 3000L;
+
+        private final KieRequest kieRequest = new KieRequest().setWait(WAIT);
+
+        private final long timeoutMs = (Long.parseLong(WAIT) + 1) * SECONDS_UNIT;
+
+        private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactoryUtils("kie-subscribe-merged-task"));
+
+        /**
+         * 是否已提交重启, 短时间内新增多个标签组时合并为一次重启
+         */
+        private final AtomicBoolean isRestartPending = new AtomicBoolean();
+
+        /**
+         * 是否需要全量拉取, 新增标签组时置为true, 使新标签组可获取已有数据
+         */
+        private volatile boolean isFullPullRequired;
+
+        private int failCount;
+
+        /**
+         * 请求序号, 重启轮询后丢弃旧请求的响应; 该字段与进行中的请求、下次拉取任务仅在调度线程中访问
+         */
+        private long generation;
+
+        private AsyncHttpClient.AsyncRequest inFlightRequest;
+
+        private ScheduledFuture<?> nextPull;
+
+        MergedPullTask() {
+            kieRequest.setAccurateMatchLabel(false);
+        }
+
+        /**
+         * 标签组变更时重启轮询, 取消等待中的长轮询并立即全量拉取, 新标签组无需等待上一轮长轮询结束
+         */
+        void refresh() {
+            isFullPullRequired = true;
+            if (!isRestartPending.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(this::restart);
+            } catch (RejectedExecutionException ex) {
+                LOGGER.warning("Rejected the merged pull task " + ex.getMessage());
+            }
+        }
+
+        void close() {
+            executor.shutdownNow();
+        }
+
+        private void restart() {
+            isRestartPending.set(false);
+            if (nextPull != null) {
+                nextPull.cancel(false);
+                nextPull = null;
+            }
+            if (inFlightRequest != null) {
+                inFlightRequest.cancel();
+                inFlightRequest = null;
+            }
+            failCount = 0;
+            pull();
+        }
+
+        private void pull() {
+            nextPull = null;
+            if (!hasActiveGroup()) {
+                // 标签组均已取消订阅, 暂停请求直到有新的标签组订阅
+                isFullPullRequired = true;
+                schedule(LONG_CONNECTION_REQUEST_INTERVAL_MS);
+                return;
+            }
+            if (isFullPullRequired) {
+                isFullPullRequired = false;
+                kieRequest.setRevision(null);
+            }
+            final long requestGeneration = ++generation;
+            try {
+                inFlightRequest = kieClient.queryConfigurationsAsync(kieRequest, timeoutMs,
+                    result -> onResult(requestGeneration, result));
+            } catch (Exception ex) {
+                LOGGER.warning(String.format(Locale.ENGLISH, "Merged pull kie config failed, %s", ex.getMessage()));
+                handleResult(requestGeneration, HttpResult.error());
+            }
+        }
+
+        private boolean hasActiveGroup() {
+            for (KieListenerWrapper wrapper : listenerMap.values()) {
+                final Task task = wrapper.getTask();
+                if (task instanceof MergedGroupTask && ((MergedGroupTask) task).isContinue) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void onResult(long requestGeneration, HttpResult result) {
+            if (executor.isShutdown()) {
+                return;
+            }
+            try {
+                executor.execute(() -> handleResult(requestGeneration, result));
+            } catch (RejectedExecutionException ex) {
+                LOGGER.warning("Rejected the merged pull result " + ex.getMessage());
+            }
+        }
+
+        private void handleResult(long requestGeneration, HttpResult result) {
+            if (requestGeneration != generation) {
+                // 轮询已重启, 丢弃旧请求的响应
+                return;
+            }
+            inFlightRequest = null;
+            if (result.isError()) {
+                ++failCount;
+                LOGGER.warning(String.format(Locale.ENGLISH,
+                    "Merged pull kie config failed, it will rePull, failed count: %s", failCount));
+                schedule(Math.min(MAX_WAIT_MS, BASE_MS * failCount * failCount));
+                return;
+            }
+            failCount = 0;
+            try {
+                final KieResponse kieResponse = defaultHandler.handle(result);
+                if (kieResponse != null && kieResponse.isChanged()) {
+                    dispatchMergedResponse(kieResponse);
+                    kieRequest.setRevision(kieResponse.getRevision());
+                }
+            } catch (Exception ex) {
+                LOGGER.warning(String.format(Locale.ENGLISH, "Handle merged kie response failed, %s",
+                    ex.getMessage()));
+            }
+
+            // 间隔一段时间拉取，减轻服务压力, 间隔内的变更可通过revision在下次请求时立即返回
+            schedule(LONG_CONNECTION_REQUEST_INTERVAL_MS);
+        }
+
+        private void schedule(long delayMs) {
+            try {
+                nextPull = executor.schedule(this::pull, delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ex) {
+                LOGGER.warning("Rejected the merged pull task " + ex.getMessage());
+            }
+        }
+    }
 }
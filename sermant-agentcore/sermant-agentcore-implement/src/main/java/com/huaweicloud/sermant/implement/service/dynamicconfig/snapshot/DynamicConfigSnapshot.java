@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.service.dynamicconfig.snapshot;
+
+import com.huaweicloud.sermant.core.common.CommonConstant;
+import com.huaweicloud.sermant.core.common.LoggerFactory;
+import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEvent;
+import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEventType;
+import com.huaweicloud.sermant.core.utils.ThreadFactoryUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * 动态配置本地快照，按订阅记录每个配置的最新内容及版本号
+ * <p>快照以紧凑的二进制格式写入临时文件后原子替换目标文件，避免进程异常退出时留下不完整的快照
+ * <p>配置变更后延迟合并写入，短时间内的多次变更仅写一次文件
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class DynamicConfigSnapshot {
+    private static final Logger LOGGER = LoggerFactory.getLogger();
+
+    /**
+     * 快照文件魔数
+     */
+    private static final int MAGIC = 0x534d5453;
+
+    /**
+     * 快照文件格式版本
+     */
+    private static final short FORMAT_VERSION = 1;
+
+    /**
+     * 变更后延迟写入的时间
+     */
+    private static final long FLUSH_DELAY_MS = 1000L;
+
+    /**
+     * 快照文件
+     */
+    private final File file;
+
+    /**
+     * map< 订阅, map< 配置键, 快照条目 > >
+     */
+    private final Map<String, Map<String, Entry>> subscriptions = new ConcurrentHashMap<>();
+
+    /**
+     * 快照版本号，每次变更递增
+     */
+    private final AtomicLong revision = new AtomicLong();
+
+    private final AtomicBoolean isDirty = new AtomicBoolean();
+
+    private final ScheduledExecutorService flushExecutor =
+        new ScheduledThreadPoolExecutor(1, new ThreadFactoryUtils("dynamic-config-snapshot"));
+
+    /**
+     * 构造函数
+     *
+     * @param file 快照文件
+     */
+    public DynamicConfigSnapshot(File file) {
+        this.file = file;
+    }
+
+    /**
+     * 加载本地快照，快照不存在或已损坏时忽略
+     */
+    public void load() {
+        if (!file.isFile()) {
+            return;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(
+            file.toPath())))) {
+            if (input.readInt() != MAGIC || input.readShort() != FORMAT_VERSION) {
+                LOGGER.warning(String.format(Locale.ROOT, "Unknown snapshot format of [%s], ignore it. ", file));
+                return;
+            }
+            revision.set(input.readLong());
+            final int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                final String subscription = input.readUTF();
+                final String key = input.readUTF();
+                final Entry entry = new Entry(input.readUTF(), readContent(input), input.readLong());
+                subscriptions.computeIfAbsent(subscription, name -> new ConcurrentHashMap<>()).put(key, entry);
+            }
+        } catch (IOException ex) {
+            subscriptions.clear();
+            LOGGER.warning(String.format(Locale.ROOT, "Load snapshot [%s] failed: %s. ", file, ex.getMessage()));
+        }
+    }
+
+    /**
+     * 获取订阅的快照
+     *
+     * @param subscription 订阅
+     * @return map< 配置键, 快照条目 >
+     */
+    public Map<String, Entry> getEntries(String subscription) {
+        final Map<String, Entry> entries = subscriptions.get(subscription);
+        return entries == null ? Collections.emptyMap() : new HashMap<>(entries);
+    }
+
+    /**
+     * 根据配置事件更新快照
+     *
+     * @param subscription 订阅
+     * @param event        配置事件
+     */
+    public void update(String subscription, DynamicConfigEvent event) {
+        if (event.getEventType() == DynamicConfigEventType.DELETE) {
+            remove(subscription, event.getKey());
+            return;
+        }
+        final Entry entry = new Entry(event.getGroup(), event.getContent(), revision.incrementAndGet());
+        subscriptions.computeIfAbsent(subscription, name -> new ConcurrentHashMap<>()).put(event.getKey(), entry);
+        markDirty();
+    }
+
+    /**
+     * 移除快照中的配置
+     *
+     * @param subscription 订阅
+     * @param key          配置键
+     */
+    public void remove(String subscription, String key) {
+        final Map<String, Entry> entries = subscriptions.get(subscription);
+        if (entries != null && entries.remove(key) != null) {
+            revision.incrementAndGet();
+            markDirty();
+        }
+    }
+
+    /**
+     * 移除订阅的所有快照
+     *
+     * @param subscription 订阅
+     */
+    public void removeSubscription(String subscription) {
+        if (subscriptions.remove(subscription) != null) {
+            revision.incrementAndGet();
+            markDirty();
+        }
+    }
+
+    /**
+     * 写入快照文件并停止后台写入线程
+     */
+    public void close() {
+        flushExecutor.shutdown();
+        if (isDirty.get()) {
+            flush();
+        }
+    }
+
+    private void markDirty() {
+        if (!isDirty.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            flushExecutor.schedule(this::flush, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+            LOGGER.fine("Snapshot has been closed. ");
+        }
+    }
+
+    /**
+     * 写入快照文件
+     */
+    synchronized void flush() {
+        isDirty.set(false);
+        final File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            LOGGER.warning(String.format(Locale.ROOT, "Create snapshot directory [%s] failed. ", parent));
+            return;
+        }
+        final File tmpFile = new File(parent, file.getName() + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                tmpFile.toPath())))) {
+                write(output);
+            }
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            LOGGER.warning(String.format(Locale.ROOT, "Write snapshot [%s] failed: %s. ", file, ex.getMessage()));
+        }
+    }
+
+    private void write(DataOutputStream output) throws IOException {
+        final Map<String, Map<String, Entry>> copy = new HashMap<>();
+        int count = 0;
+        for (Map.Entry<String, Map<String, Entry>> subscription : subscriptions.entrySet()) {
+            final Map<String, Entry> entries = new HashMap<>(subscription.getValue());
+            copy.put(subscription.getKey(), entries);
+            count += entries.size();
+        }
+        output.writeInt(MAGIC);
+        output.writeShort(FORMAT_VERSION);
+        output.writeLong(revision.get());
+        output.writeInt(count);
+        for (Map.Entry<String, Map<String, Entry>> subscription : copy.entrySet()) {
+            for (Map.Entry<String, Entry> entry : subscription.getValue().entrySet()) {
+                output.writeUTF(subscription.getKey());
+                output.writeUTF(entry.getKey());
+                output.writeUTF(entry.getValue().group);
+                writeContent(output, entry.getValue().content);
+                output.writeLong(entry.getValue().revision);
+            }
+        }
+    }
+
+    private static void writeContent(DataOutputStream output, String content) throws IOException {
+        if (content == null) {
+            output.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = content.getBytes(CommonConstant.DEFAULT_CHARSET);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readContent(DataInputStream input) throws IOException {
+        final int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, CommonConstant.DEFAULT_CHARSET);
+    }
+
+    /**
+     * 快照条目
+     *
+     * @since 2022-09-28
+     */
+    public static class Entry {
+        private final String group;
+
+        private final String content;
+
+        private final long revision;
+
+        Entry(String group, String content, long revision) {
+            this.group = group == null ? "" : group;
+            this.content = content;
+            this.revision = revision;
+        }
+
+        public String getGroup() {
+            return group;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public long getRevision() {
+            return revision;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.service.dynamicconfig.snapshot;
+
+import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEvent;
+import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEventType;
+import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigListener;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 快照监听器，将配置事件记录至快照后再通知实际监听器
+ * <p>订阅时先使用快照通知监听器，再以配置中心首次返回的数据进行校正：
+ * <ul>
+ *     <li>与快照内容一致的初始化事件不再重复通知</li>
+ *     <li>内容为空的初始化事件可能来自配置中心不可用，暂不处理，校正时根据查询到的配置键确认配置是否存在</li>
+ *     <li>配置中心已应答时，即使应答中没有任何配置，仅存在于快照中的配置也以删除事件通知</li>
+ *     <li>配置中心未应答时无法区分配置为空还是配置中心不可用，此时保留快照中的配置</li>
+ * </ul>
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class SnapshotListener implements DynamicConfigListener {
+    private static final String GROUP_SUBSCRIPTION_PREFIX = "group:";
+
+    private static final String KEY_SUBSCRIPTION_PREFIX = "key:";
+
+    private final String subscription;
+
+    private final DynamicConfigListener listener;
+
+    private final DynamicConfigSnapshot snapshot;
+
+    /**
+     * 已通过快照通知的配置，校正完成后置为null
+     */
+    private volatile Map<String, DynamicConfigSnapshot.Entry> servedEntries;
+
+    /**
+     * 校正期间配置中心返回的配置键
+     */
+    private final Set<String> remoteKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 校正期间收到的内容为空的初始化事件，校正时再确认配置是否存在
+     */
+    private final Map<String, DynamicConfigEvent> emptyInitEvents = new ConcurrentHashMap<>();
+
+    /**
+     * 校正期间配置中心是否已应答初始化请求
+     */
+    private volatile boolean isAnswered;
+
+    /**
+     * 构造函数
+     *
+     * @param subscription 订阅
+     * @param listener     实际监听器
+     * @param snapshot     快照
+     */
+    public SnapshotListener(String subscription, DynamicConfigListener listener, DynamicConfigSnapshot snapshot) {
+        this.subscription = subscription;
+        this.listener = listener;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * 组订阅的名称
+     *
+     * @param group 组
+     * @return 订阅名称
+     */
+    public static String groupSubscription(String group) {
+        return GROUP_SUBSCRIPTION_PREFIX + group;
+    }
+
+    /**
+     * 单个键订阅的名称
+     *
+     * @param key   键
+     * @param group 组
+     * @return 订阅名称
+     */
+    public static String keySubscription(String key, String group) {
+        return KEY_SUBSCRIPTION_PREFIX + group + '&' + key;
+    }
+
+    /**
+     * 使用快照中的配置通知监听器, 需在向配置中心订阅前调用
+     */
+    public void serveSnapshot() {
+        final Map<String, DynamicConfigSnapshot.Entry> entries = snapshot.getEntries(subscription);
+        servedEntries = entries;
+        for (Map.Entry<String, DynamicConfigSnapshot.Entry> entry : entries.entrySet()) {
+            listener.process(DynamicConfigEvent.initEvent(entry.getKey(), entry.getValue().getGroup(),
+                entry.getValue().getContent()));
+        }
+    }
+
+    /**
+     * 以配置中心首次返回的数据校正快照, 需在向配置中心订阅后调用
+     */
+    public void reconcile() {
+        reconcile(null);
+    }
+
+    /**
+     * 以配置中心首次返回的数据校正快照, 需在向配置中心订阅后调用
+     *
+     * @param listedKeys 订阅后从配置中心查询到的配置键, 未查询或配置中心未应答时为null
+     */
+    public void reconcile(Collection<String> listedKeys) {
+        final Map<String, DynamicConfigSnapshot.Entry> entries = servedEntries;
+        servedEntries = null;
+        final boolean isRemoteAnswered = isAnswered || listedKeys != null;
+        isAnswered = false;
+        if (listedKeys != null) {
+            remoteKeys.addAll(listedKeys);
+        }
+        if (entries != null) {
+            reconcileEmptyInitEvents(entries, isRemoteAnswered);
+        }
+        emptyInitEvents.clear();
+        if (entries == null || !isRemoteAnswered) {
+            remoteKeys.clear();
+            return;
+        }
+        for (Map.Entry<String, DynamicConfigSnapshot.Entry> entry : entries.entrySet()) {
+            if (remoteKeys.contains(entry.getKey())) {
+                continue;
+            }
+            final DynamicConfigEvent event = DynamicConfigEvent.deleteEvent(entry.getKey(),
+                entry.getValue().getGroup(), null);
+            snapshot.update(subscription, event);
+            listener.process(event);
+        }
+        remoteKeys.clear();
+    }
+
+    /**
+     * 处理内容为空的初始化事件
+     * <p>快照中没有的配置直接通知; 快照中已有的配置仅在配置中心确认其存在时以空内容通知,
+     * 确认不存在时由删除事件通知, 配置中心未应答时保留快照
+     *
+     * @param entries 已通过快照通知的配置
+     * @param isRemoteAnswered 配置中心是否已应答
+     */
+    private void reconcileEmptyInitEvents(Map<String, DynamicConfigSnapshot.Entry> entries,
+            boolean isRemoteAnswered) {
+        for (DynamicConfigEvent event : emptyInitEvents.values()) {
+            if (!entries.containsKey(event.getKey())) {
+                listener.process(event);
+                continue;
+            }
+            if (isRemoteAnswered && remoteKeys.contains(event.getKey())) {
+                snapshot.update(subscription, event);
+                listener.process(event);
+            }
+        }
+    }
+
+    @Override
+    public void process(DynamicConfigEvent event) {
+        final Map<String, DynamicConfigSnapshot.Entry> entries = servedEntries;
+        if (entries != null && event.getEventType() == DynamicConfigEventType.INIT) {
+            final String content = event.getContent();
+            if (content == null || content.isEmpty()) {
+                // 配置中心不可用时同样返回空内容，待校正时确认
+                emptyInitEvents.put(event.getKey(), event);
+                return;
+            }
+            isAnswered = true;
+            remoteKeys.add(event.getKey());
+            final DynamicConfigSnapshot.Entry served = entries.get(event.getKey());
+            if (served != null && content.equals(served.getContent())) {
+                return;
+            }
+        }
+        snapshot.update(subscription, event);
+        listener.process(event);
+    }
+}
@@ -30,8 +30,16 @@ import org.apache.zookeeper.ZooKeeper;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
@@ -52,11 +60,26 @@ public class ZooKeeperBufferedClient implements Closeable {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger();
 
+    /**
+     * 批量查询节点的最大等待时间
+     */
+    private static final long BATCH_READ_TIMEOUT_MS = 10000L;
+
+    /**
+     * 会话过期重连后的回调
+     */
+    private final List<Runnable> reconnectCallbacks = new CopyOnWriteArrayList<>();
+
     /**
      * zk客户端对象
      */
     private ZooKeeper zkClient;
 
+    /**
+     * 会话是否已过期，过期后重新连接成功时触发重连回调
+     */
+    private volatile boolean isExpired;
+
     /**
      * 新建ZooKeeperBufferedClient，初始化zk客户端，并提供过期重连机制
      *
@@ -69,7 +92,12 @@ public class ZooKeeperBufferedClient implements Closeable {
             public void process(WatchedEvent event) {
                 // 连接过期重连
                 if (event.getState() == Event.KeeperState.Expired) {
+                    isExpired = true;
                     zkClient = newZkClient(connectString, sessionTimeout, this);
+                } else if (event.getState() == Event.KeeperState.SyncConnected && isExpired) {
+                    // 会话过期后服务端的监听器已失效，由回调重新注册
+                    isExpired = false;
+                    reconnectCallbacks.forEach(Runnable::run);
                 }
             }
         });
@@ -140,6 +168,47 @@ public class ZooKeeperBufferedClient implements Closeable {
         return new String(data, CommonConstant.DEFAULT_CHARSET);
     }
 
+    /**
+     * 批量查询节点内容，通过异步接口一次性发出所有请求，避免逐个节点往返等待
+     *
+     * @param paths 节点路径集合
+     * @return 节点路径与内容的映射，已确认不存在的节点为{@link Optional#empty()}，查询失败或超时的节点结果未知，不包含在结果中
+     */
+    public Map<String, Optional<String>> getNodes(Collection<String> paths) {
+        final Map<String, Optional<String>> result = new ConcurrentHashMap<>();
+        if (paths.isEmpty()) {
+            return result;
+        }
+        final CountDownLatch latch = new CountDownLatch(paths.size());
+        final ZooKeeper client;
+        try {
+            client = getZkClient();
+        } catch (ZooKeeperInitException ignored) {
+            return result;
+        }
+        for (String path : paths) {
+            client.getData(path, false, (rc, curPath, ctx, data, stat) -> {
+                final KeeperException.Code code = KeeperException.Code.get(rc);
+                if (code == KeeperException.Code.OK) {
+                    result.put(path, Optional.of(data == null ? "" : new String(data, CommonConstant.DEFAULT_CHARSET)));
+                } else if (code == KeeperException.Code.NONODE) {
+                    result.put(path, Optional.empty());
+                }
+                latch.countDown();
+            }, null);
+        }
+        try {
+            if (!latch.await(BATCH_READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                LOGGER.warning("Timeout when batch reading nodes. ");
+            }
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+
+        // 超时后到达的结果不再计入
+        return new HashMap<>(result);
+    }
+
     /**
      * 创建节点的前置节点
      *
@@ -233,6 +302,41 @@ public class ZooKeeperBufferedClient implements Closeable {
         return nodes;
     }
 
+    /**
+     * 查询节点下所有子孙节点的路径集合，与{@link #listAllNodes(String)}不同，查询失败时返回空
+     *
+     * @param path 节点
+     * @return 子孙节点路径集合，节点不存在时为空集合，查询失败时为空
+     */
+    public Optional<List<String>> queryAllNodes(String path) {
+        final List<String> nodes = new ArrayList<>();
+        try {
+            collectNodes(getZkClient(), path, nodes);
+        } catch (ZooKeeperInitException | KeeperException ignored) {
+            return Optional.empty();
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+        return Optional.of(nodes);
+    }
+
+    private void collectNodes(ZooKeeper client, String path, List<String> nodes)
+            throws KeeperException, InterruptedException {
+        final List<String> children;
+        try {
+            children = client.getChildren(path, false);
+        } catch (KeeperException.NoNodeException ignored) {
+            // 节点不存在或在遍历期间被删除
+            return;
+        }
+        for (String child : children) {
+            final String childPath = path + ZK_PATH_SEPARATOR + child;
+            nodes.add(childPath);
+            collectNodes(client, childPath, nodes);
+        }
+    }
+
     /**
      * 添加循环的临时数据监听器，该监听器将在触发后重新注册，直到接收到移除监听器事件
      * <p>
@@ -313,6 +417,31 @@ public class ZooKeeperBufferedClient implements Closeable {
         return true;
     }
 
+    /**
+     * 添加会话过期重连后的回调，会话过期后服务端监听器失效，可在回调中重新注册
+     *
+     * @param callback 回调
+     */
+    public void addReconnectCallback(Runnable callback) {
+        reconnectCallbacks.add(callback);
+    }
+
+    /**
+     * 移除节点上指定的监听器，含持久递归监听器
+     *
+     * @param path    节点路径
+     * @param watcher 监听器
+     * @return 是否成功移除
+     */
+    public boolean removeWatches(String path, Watcher watcher) {
+        try {
+            getZkClient().removeWatches(path, watcher, Watcher.WatcherType.Any, false);
+        } catch (KeeperException | InterruptedException ignored) {
+            return false;
+        }
+        return true;
+    }
+
     @Override
     public void close() {
         try {
@@ -19,12 +19,11 @@ package com.huaweicloud.sermant.implement.service.dynamicconfig.zookeeper;
 import com.huaweicloud.sermant.core.common.LoggerFactory;
 import com.huaweicloud.sermant.core.service.dynamicconfig.DynamicConfigService;
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEvent;
+import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEventType;
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigListener;
 
-import org.apache.zookeeper.WatchedEvent;
-import org.apache.zookeeper.Watcher;
-
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
@@ -53,13 +52,20 @@ public class ZooKeeperDynamicConfigService extends DynamicConfigService {
      */
     private ZooKeeperBufferedClient zkClient;
 
+    /**
+     * 监听复用器，所有键与组的监听共用持久递归监听器
+     */
+    private ZooKeeperWatchMultiplexer watchMultiplexer;
+
     @Override
     public void start() {
         zkClient = new ZooKeeperBufferedClient(CONFIG.getServerAddress(), CONFIG.getTimeoutValue());
+        watchMultiplexer = new ZooKeeperWatchMultiplexer(zkClient);
     }
 
     @Override
     public void stop() {
+        watchMultiplexer.close();
         zkClient.close();
     }
 
@@ -85,27 +91,24 @@ public class ZooKeeperDynamicConfigService extends DynamicConfigService {
     }
 
     /**
-     * 将zk事件转换为动态配置事件
+     * 构建动态配置事件
      *
-     * @param key          配置键
-     * @param group        分组
-     * @param watchedEvent zk事件
+     * @param key       配置键
+     * @param group     分组
+     * @param eventType 事件类型
+     * @param content   配置内容
      * @return 动态配置事件
      */
-    private DynamicConfigEvent transEvent(String key, String group, WatchedEvent watchedEvent) {
-        switch (watchedEvent.getType()) {
-            case NodeCreated:
-                return DynamicConfigEvent.createEvent(key, group, doGetConfig(key, group).orElse(null));
-            case NodeDeleted:
-                return DynamicConfigEvent.deleteEvent(key, group, doGetConfig(key, group).orElse(null));
-            case None:
-            case NodeDataChanged:
-            case DataWatchRemoved:
-            case ChildWatchRemoved:
-            case NodeChildrenChanged:
-            case PersistentWatchRemoved:
+    private DynamicConfigEvent transEvent(String key, String group, DynamicConfigEventType eventType,
+            String content) {
+        switch (eventType) {
+            case CREATE:
+                return DynamicConfigEvent.createEvent(key, group, content);
+            case DELETE:
+                return DynamicConfigEvent.deleteEvent(key, group, content);
+            case MODIFY:
             default:
-                return DynamicConfigEvent.modifyEvent(key, group, doGetConfig(key, group).orElse(null));
+                return DynamicConfigEvent.modifyEvent(key, group, content);
         }
     }
 
@@ -127,29 +130,13 @@ public class ZooKeeperDynamicConfigService extends DynamicConfigService {
     @Override
     public boolean doAddConfigListener(String key, String group, DynamicConfigListener listener) {
         final String fullPath = toPath(key, group);
-        return zkClient.addDataLoopWatch(fullPath, new Watcher() {
-            @Override
-            public void process(WatchedEvent watchedEvent) {
-                if (!fullPath.equals(watchedEvent.getPath())) {
-                    LOGGER.warning(String.format(Locale.ROOT,
-                            "Unexpected event path, giving [%s], but expecting [%s]. ",
-                            watchedEvent.getPath(), fullPath));
-                    return;
-                }
-                listener.process(transEvent(key, group, watchedEvent));
-            }
-        }, new ZooKeeperBufferedClient.BreakHandler() {
-            @Override
-            public void handle(Throwable throwable) {
-                LOGGER.warning(String.format(Locale.ROOT,
-                        "Cancel watch [%s] for [%s]: [%s]. ", fullPath, throwable.getClass(), throwable.getMessage()));
-            }
-        });
+        return watchMultiplexer.watch(toPath(group), fullPath, false,
+            (path, eventType, content) -> listener.process(transEvent(key, group, eventType, content)));
     }
 
     @Override
     public boolean doRemoveConfigListener(String key, String group) {
-        return zkClient.removeDataWatches(toPath(key, group));
+        return watchMultiplexer.unwatch(toPath(key, group), false);
     }
 
     @Override
@@ -164,33 +151,53 @@ public class ZooKeeperDynamicConfigService extends DynamicConfigService {
         return keys;
     }
 
+    /**
+     * 查询组下的配置键，与{@link #doListKeysFromGroup(String)}不同，查询失败时返回空
+     *
+     * @param group 组
+     * @return 配置键，查询失败时为空
+     */
+    public Optional<List<String>> queryKeysFromGroup(String group) {
+        final String groupPath = toPath(group);
+        return zkClient.queryAllNodes(groupPath).map(keyPaths -> {
+            final List<String> keys = new ArrayList<>();
+            for (String keyPath : keyPaths) {
+                keys.add(keyPath.substring(groupPath.length() + 1));
+            }
+            return keys;
+        });
+    }
+
+    /**
+     * 查询配置键是否存在，与{@link #doGetConfig(String, String)}不同，可区分节点不存在与查询失败
+     *
+     * @param key 键
+     * @param group 组
+     * @return 节点存在时为仅包含该键的集合，节点不存在时为空集合，查询失败时为空
+     */
+    public Optional<List<String>> queryKey(String key, String group) {
+        final String path = toPath(key, group);
+        final Optional<String> content = zkClient.getNodes(Collections.singleton(path)).get(path);
+        if (content == null) {
+            return Optional.empty();
+        }
+        return Optional.of(content.isPresent() ? Collections.singletonList(key) : Collections.emptyList());
+    }
+
     @Override
     public boolean doAddGroupListener(String group, DynamicConfigListener listener) {
         final String groupPath = toPath(group);
-        return zkClient.addPersistentRecursiveWatches(groupPath, new Watcher() {
-            @Override
-            public void process(WatchedEvent watchedEvent) {
-                final String eventPath = watchedEvent.getPath();
-                if (eventPath == null) {
-                    LOGGER.warning("Unexpected empty event path. ");
-                    return;
-                }
-                if (groupPath.equals(eventPath)) {
-                    LOGGER.fine(String.format(Locale.ROOT, "Skip processing group event [%s]. ", groupPath));
-                    return;
-                }
-                if (!eventPath.startsWith(groupPath) || eventPath.charAt(groupPath.length()) != ZK_PATH_SEPARATOR) {
-                    LOGGER.warning(String.format(Locale.ROOT,
-                            "Event path [%s] is not child of [%s]. ", eventPath, groupPath));
-                    return;
-                }
-                listener.process(transEvent(eventPath.substring(groupPath.length() + 1), group, watchedEvent));
+        return watchMultiplexer.watch(groupPath, groupPath, true, (path, eventType, content) -> {
+            if (!path.startsWith(groupPath) || path.charAt(groupPath.length()) != ZK_PATH_SEPARATOR) {
+                LOGGER.warning(String.format(Locale.ROOT, "Event path [%s] is not child of [%s]. ", path, groupPath));
+                return;
             }
+            listener.process(transEvent(path.substring(groupPath.length() + 1), group, eventType, content));
         });
     }
 
     @Override
     public boolean doRemoveGroupListener(String group) {
-        return zkClient.removeAllWatches(toPath(group));
+        return watchMultiplexer.unwatch(toPath(group), true);
     }
 }
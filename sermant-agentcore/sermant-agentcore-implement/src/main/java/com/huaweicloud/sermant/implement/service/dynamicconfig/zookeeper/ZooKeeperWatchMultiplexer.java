@@ -0,0 +1,554 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.service.dynamicconfig.zookeeper;
+
+import com.huaweicloud.sermant.core.common.LoggerFactory;
+import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEventType;
+import com.huaweicloud.sermant.core.utils.ThreadFactoryUtils;
+
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * zookeeper监听复用器
+ * <p>每个根节点仅注册一个持久递归监听器，所有订阅共用同一个{@link Watcher}实例，事件到达后通过路径前缀树分发至本地监听者
+ * <p>持久监听器无需在触发后重新注册，避免了单次监听器在触发与重新注册之间丢失事件的问题
+ * <p>事件在分发线程中合并处理，同一批次内多次变更的节点仅读取一次，所有节点的读取通过异步接口批量发出
+ * <p>读取失败或超时的节点状态未知，不做通知，延迟后重新读取，仅在确认节点不存在时发出删除事件
+ * <p>会话过期期间的变更不会触发监听器，重新注册后全量读取所有订阅的节点，与最近一次已知的内容对比后仅通知有差异的节点
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class ZooKeeperWatchMultiplexer implements Watcher, Closeable {
+    /**
+     * 日志
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger();
+
+    /**
+     * zk路径分隔符
+     */
+    private static final char ZK_PATH_SEPARATOR = ZooKeeperBufferedClient.ZK_PATH_SEPARATOR;
+
+    /**
+     * 节点读取结果未知时，重新读取的间隔
+     */
+    private static final long RETRY_INTERVAL_MS = 1000L;
+
+    /**
+     * zookeeper的包装客户端
+     */
+    private final ZooKeeperBufferedClient zkClient;
+
+    /**
+     * 路径前缀树的根节点，访问时需持有当前对象锁
+     */
+    private final PathNode trieRoot = new PathNode();
+
+    /**
+     * 已注册持久递归监听器的根路径，访问时需持有当前对象锁
+     */
+    private final Set<String> watchedRoots = new HashSet<>();
+
+    /**
+     * 待分发的事件，键为节点路径，访问时需持有该对象锁
+     */
+    private final Map<String, PendingEvent> pendingEvents = new LinkedHashMap<>();
+
+    /**
+     * 订阅节点最近一次已知的内容，作为会话过期后全量读取的对比基准，键为节点路径，不存在的节点不包含在内，仅在分发线程中访问
+     */
+    private final Map<String, String> knownContents = new HashMap<>();
+
+    /**
+     * 事件分发线程
+     */
+    private final ScheduledExecutorService dispatcher =
+        new ScheduledThreadPoolExecutor(1, new ThreadFactoryUtils("zookeeper-config-dispatcher"));
+
+    /**
+     * 是否已提交分发任务，访问时需持有pendingEvents锁
+     */
+    private boolean isDispatchScheduled;
+
+    /**
+     * 构造函数
+     *
+     * @param zkClient zookeeper的包装客户端
+     */
+    public ZooKeeperWatchMultiplexer(ZooKeeperBufferedClient zkClient) {
+        this.zkClient = zkClient;
+        zkClient.addReconnectCallback(this::rewatchAllRoots);
+    }
+
+    /**
+     * 添加路径监听
+     *
+     * @param rootPath    注册持久递归监听器的根路径，若其祖先路径已注册则直接复用
+     * @param path        监听的路径
+     * @param isRecursive true时监听path的所有子孙节点，false时仅监听path节点本身
+     * @param listener    路径监听者
+     * @return 是否添加成功
+     */
+    public synchronized boolean watch(String rootPath, String path, boolean isRecursive, PathListener listener) {
+        if (!isRootWatched(rootPath)) {
+            if (!zkClient.addPersistentRecursiveWatches(rootPath, this)) {
+                return false;
+            }
+            watchedRoots.add(rootPath);
+        }
+        final PathNode node = trieRoot.getOrCreate(path);
+        if (isRecursive) {
+            node.recursiveListeners.add(listener);
+        } else {
+            node.exactListeners.add(listener);
+        }
+        submit(() -> loadKnownContents(path, isRecursive), 0L);
+        return true;
+    }
+
+    /**
+     * 移除路径上的所有监听者，根路径下不再有监听者时移除其持久递归监听器
+     *
+     * @param path        监听的路径
+     * @param isRecursive 移除子孙节点监听者还是节点本身的监听者
+     * @return 是否移除成功
+     */
+    public synchronized boolean unwatch(String path, boolean isRecursive) {
+        final PathNode node = trieRoot.find(path);
+        if (node == null) {
+            return false;
+        }
+        if (isRecursive) {
+            node.recursiveListeners.clear();
+        } else {
+            node.exactListeners.clear();
+        }
+        boolean isSuccess = true;
+        final Iterator<String> iterator = watchedRoots.iterator();
+        while (iterator.hasNext()) {
+            final String rootPath = iterator.next();
+            final PathNode rootNode = trieRoot.find(rootPath);
+            if (rootNode != null && rootNode.hasListeners()) {
+                continue;
+            }
+            isSuccess &= zkClient.removeWatches(rootPath, this);
+            iterator.remove();
+        }
+        trieRoot.prune();
+        submit(this::pruneKnownContents, 0L);
+        return isSuccess;
+    }
+
+    @Override
+    public void process(WatchedEvent event) {
+        final String path = event.getPath();
+        if (path == null || event.getType() == Event.EventType.None) {
+            return;
+        }
+        synchronized (pendingEvents) {
+            pendingEvents.computeIfAbsent(path, key -> new PendingEvent()).merge(event.getType());
+            if (isDispatchScheduled) {
+                return;
+            }
+            isDispatchScheduled = true;
+        }
+        submit(this::dispatch, 0L);
+    }
+
+    @Override
+    public void close() {
+        dispatcher.shutdownNow();
+    }
+
+    private boolean isRootWatched(String rootPath) {
+        for (String watchedRoot : watchedRoots) {
+            if (isAncestorOrSelf(watchedRoot, rootPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAncestorOrSelf(String ancestor, String path) {
+        if (!path.startsWith(ancestor)) {
+            return false;
+        }
+        return path.length() == ancestor.length() || path.charAt(ancestor.length()) == ZK_PATH_SEPARATOR
+            || ancestor.charAt(ancestor.length() - 1) == ZK_PATH_SEPARATOR;
+    }
+
+    /**
+     * 会话过期后重新注册所有根路径的持久递归监听器
+     */
+    private synchronized void rewatchAllRoots() {
+        rewatchRoots(new ArrayList<>(watchedRoots));
+    }
+
+    /**
+     * 重新注册根路径的持久递归监听器，成功后全量读取根路径下订阅的节点，失败的根路径延迟后重试
+     *
+     * @param rootPaths 根路径
+     */
+    private synchronized void rewatchRoots(Collection<String> rootPaths) {
+        final List<String> failedRoots = new ArrayList<>();
+        for (String rootPath : rootPaths) {
+            if (!watchedRoots.contains(rootPath)) {
+                // 等待重试期间已被移除
+                continue;
+            }
+            boolean isSuccess;
+            try {
+                isSuccess = zkClient.addPersistentRecursiveWatches(rootPath, this);
+            } catch (ZooKeeperInitException ignored) {
+                isSuccess = false;
+            }
+            if (isSuccess) {
+                submit(() -> resync(rootPath), 0L);
+            } else {
+                LOGGER.warning(String.format(Locale.ROOT, "Rewatch root [%s] failed, retry later. ", rootPath));
+                failedRoots.add(rootPath);
+            }
+        }
+        if (!failedRoots.isEmpty()) {
+            submit(() -> rewatchRoots(failedRoots), RETRY_INTERVAL_MS);
+        }
+    }
+
+    /**
+     * 全量读取根路径下订阅的节点，包含精确订阅的节点、子孙订阅下当前存在的节点及已知存在的节点，与已知内容对比后通知
+     *
+     * @param rootPath 根路径
+     */
+    private void resync(String rootPath) {
+        final List<String> exactPaths = new ArrayList<>();
+        final List<String> recursivePaths = new ArrayList<>();
+        synchronized (this) {
+            final PathNode rootNode = trieRoot.find(rootPath);
+            if (rootNode == null) {
+                return;
+            }
+            rootNode.collectSubscriptions(rootPath, exactPaths, recursivePaths);
+        }
+        final Set<String> paths = new LinkedHashSet<>(exactPaths);
+        for (String recursivePath : recursivePaths) {
+            final Optional<List<String>> nodes = zkClient.queryAllNodes(recursivePath);
+            if (!nodes.isPresent()) {
+                LOGGER.warning(String.format(Locale.ROOT, "List nodes of [%s] failed, retry later. ", recursivePath));
+                submit(() -> resync(rootPath), RETRY_INTERVAL_MS);
+                return;
+            }
+            paths.addAll(nodes.get());
+
+            // 会话过期期间被删除的节点只能从已知节点中找到
+            for (String knownPath : knownContents.keySet()) {
+                if (!knownPath.equals(recursivePath) && isAncestorOrSelf(recursivePath, knownPath)) {
+                    paths.add(knownPath);
+                }
+            }
+        }
+        synchronized (pendingEvents) {
+            for (String path : paths) {
+                pendingEvents.computeIfAbsent(path, key -> new PendingEvent());
+            }
+        }
+        dispatch();
+    }
+
+    /**
+     * 读取新订阅节点的内容作为对比基准，读取失败时不做处理，对应节点在全量读取时视为新增
+     *
+     * @param path        监听的路径
+     * @param isRecursive 是否监听子孙节点
+     */
+    private void loadKnownContents(String path, boolean isRecursive) {
+        final List<String> paths;
+        if (isRecursive) {
+            final Optional<List<String>> nodes = zkClient.queryAllNodes(path);
+            if (!nodes.isPresent()) {
+                return;
+            }
+            paths = nodes.get();
+        } else {
+            paths = Collections.singletonList(path);
+        }
+        if (paths.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, Optional<String>> entry : zkClient.getNodes(paths).entrySet()) {
+            entry.getValue().ifPresent(content -> knownContents.put(entry.getKey(), content));
+        }
+    }
+
+    private void pruneKnownContents() {
+        synchronized (this) {
+            knownContents.keySet().removeIf(path -> trieRoot.collect(path).isEmpty());
+        }
+    }
+
+    private void submit(Runnable task, long delayMs) {
+        try {
+            dispatcher.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+            LOGGER.fine("Dispatcher has been shutdown, skip the task. ");
+        }
+    }
+
+    private void dispatch() {
+        final Map<String, PendingEvent> events;
+        synchronized (pendingEvents) {
+            events = new LinkedHashMap<>(pendingEvents);
+            pendingEvents.clear();
+            isDispatchScheduled = false;
+        }
+        final Map<String, List<PathListener>> listenersMap = new HashMap<>();
+        synchronized (this) {
+            for (String path : events.keySet()) {
+                final List<PathListener> listeners = trieRoot.collect(path);
+                if (!listeners.isEmpty()) {
+                    listenersMap.put(path, listeners);
+                }
+            }
+        }
+        if (listenersMap.isEmpty()) {
+            return;
+        }
+        final Map<String, Optional<String>> contents = zkClient.getNodes(listenersMap.keySet());
+        final Map<String, PendingEvent> unknownEvents = new HashMap<>();
+        for (Map.Entry<String, List<PathListener>> entry : listenersMap.entrySet()) {
+            final String path = entry.getKey();
+            final Optional<String> content = contents.get(path);
+            if (content == null) {
+                // 读取失败或超时，无法区分节点是否被删除，稍后重新读取
+                unknownEvents.put(path, events.get(path));
+                continue;
+            }
+            final PendingEvent event = events.get(path);
+            final String knownContent = knownContents.get(path);
+            if (!event.isChanged && Objects.equals(knownContent, content.orElse(null))) {
+                // 全量读取时内容与已知内容一致，不做通知
+                continue;
+            }
+            final DynamicConfigEventType eventType = event.toEventType(content.isPresent(), knownContent != null);
+            if (content.isPresent()) {
+                knownContents.put(path, content.get());
+            } else {
+                knownContents.remove(path);
+            }
+            for (PathListener listener : entry.getValue()) {
+                try {
+                    listener.process(path, eventType, content.orElse(""));
+                } catch (Exception ex) {
+                    LOGGER.log(Level.WARNING, String.format(Locale.ROOT, "Process event of [%s] failed. ", path), ex);
+                }
+            }
+        }
+        if (!unknownEvents.isEmpty()) {
+            retry(unknownEvents);
+        }
+    }
+
+    private void retry(Map<String, PendingEvent> unknownEvents) {
+        LOGGER.warning(String.format(Locale.ROOT, "Read %d nodes failed, retry later. ", unknownEvents.size()));
+        synchronized (pendingEvents) {
+            for (Map.Entry<String, PendingEvent> entry : unknownEvents.entrySet()) {
+                pendingEvents.computeIfAbsent(entry.getKey(), key -> new PendingEvent()).merge(entry.getValue());
+            }
+        }
+        submit(this::dispatch, RETRY_INTERVAL_MS);
+    }
+
+    /**
+     * 路径监听者
+     *
+     * @since 2022-09-28
+     */
+    public interface PathListener {
+        /**
+         * 处理节点变更
+         *
+         * @param path      节点路径
+         * @param eventType 事件类型
+         * @param content   节点最新内容，节点不存在时为空串
+         */
+        void process(String path, DynamicConfigEventType eventType, String content);
+    }
+
+    /**
+     * 合并后的待分发事件
+     *
+     * @since 2022-09-28
+     */
+    private static class PendingEvent {
+        private boolean isCreatedOrDeleted;
+
+        /**
+         * 是否收到过节点变更事件，为false时表示全量读取
+         */
+        private boolean isChanged;
+
+        void merge(Event.EventType type) {
+            isChanged = true;
+            if (type == Event.EventType.NodeCreated || type == Event.EventType.NodeDeleted) {
+                isCreatedOrDeleted = true;
+            }
+        }
+
+        void merge(PendingEvent other) {
+            isCreatedOrDeleted |= other.isCreatedOrDeleted;
+            isChanged |= other.isChanged;
+        }
+
+        /**
+         * 根据节点当前是否存在确定事件类型，批次内节点被创建或重建时为新增事件，否则为修改事件；全量读取时已知节点不存在则为新增事件
+         *
+         * @param isExist 节点当前是否存在
+         * @param isKnown 节点是否已知存在
+         * @return 事件类型
+         */
+        DynamicConfigEventType toEventType(boolean isExist, boolean isKnown) {
+            if (!isExist) {
+                return DynamicConfigEventType.DELETE;
+            }
+            final boolean isCreated = isChanged ? isCreatedOrDeleted : !isKnown;
+            return isCreated ? DynamicConfigEventType.CREATE : DynamicConfigEventType.MODIFY;
+        }
+    }
+
+    /**
+     * 路径前缀树节点
+     *
+     * @since 2022-09-28
+     */
+    private static class PathNode {
+        private final Map<String, PathNode> children = new HashMap<>();
+
+        private final List<PathListener> exactListeners = new ArrayList<>();
+
+        private final List<PathListener> recursiveListeners = new ArrayList<>();
+
+        PathNode getOrCreate(String path) {
+            PathNode node = this;
+            for (String segment : split(path)) {
+                node = node.children.computeIfAbsent(segment, key -> new PathNode());
+            }
+            return node;
+        }
+
+        PathNode find(String path) {
+            PathNode node = this;
+            for (String segment : split(path)) {
+                node = node.children.get(segment);
+                if (node == null) {
+                    return null;
+                }
+            }
+            return node;
+        }
+
+        /**
+         * 收集路径的监听者，包含该路径本身的监听者及其祖先路径的子孙监听者
+         *
+         * @param path 节点路径
+         * @return 监听者集合
+         */
+        List<PathListener> collect(String path) {
+            final List<PathListener> listeners = new ArrayList<>();
+            PathNode node = this;
+            for (String segment : split(path)) {
+                listeners.addAll(node.recursiveListeners);
+                node = node.children.get(segment);
+                if (node == null) {
+                    return listeners;
+                }
+            }
+            listeners.addAll(node.exactListeners);
+            return listeners;
+        }
+
+        /**
+         * 收集当前节点及其子孙节点上订阅的路径
+         *
+         * @param path           当前节点的路径
+         * @param exactPaths     精确订阅的路径
+         * @param recursivePaths 订阅子孙节点的路径
+         */
+        void collectSubscriptions(String path, List<String> exactPaths, List<String> recursivePaths) {
+            if (!exactListeners.isEmpty()) {
+                exactPaths.add(path);
+            }
+            if (!recursiveListeners.isEmpty()) {
+                recursivePaths.add(path);
+            }
+            final String prefix = path.charAt(path.length() - 1) == ZK_PATH_SEPARATOR ? path : path + ZK_PATH_SEPARATOR;
+            for (Map.Entry<String, PathNode> entry : children.entrySet()) {
+                entry.getValue().collectSubscriptions(prefix + entry.getKey(), exactPaths, recursivePaths);
+            }
+        }
+
+        boolean hasListeners() {
+            if (!exactListeners.isEmpty() || !recursiveListeners.isEmpty()) {
+                return true;
+            }
+            for (PathNode child : children.values()) {
+                if (child.hasListeners()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 移除不再有监听者的子节点
+         */
+        void prune() {
+            children.values().removeIf(child -> {
+                child.prune();
+                return !child.hasListeners();
+            });
+        }
+
+        private static String[] split(String path) {
+            final String trimmed = path.charAt(0) == ZK_PATH_SEPARATOR ? path.substring(1) : path;
+            return trimmed.isEmpty() ? new String[0] : trimmed.split(String.valueOf(ZK_PATH_SEPARATOR));
+        }
+    }
+}
@@ -49,6 +49,11 @@ public class ClientHandler extends BaseHandler {
     protected void handlerData(ChannelHandlerContext ctx, Message.NettyMessage msg) {
     }
 
+    @Override
+    protected void handlerResponse(ChannelHandlerContext ctx, Message.NettyMessage msg) {
+        client.completeRequest(msg.getServiceResponse());
+    }
+
     @Override
     protected void handlerAllIdle(ChannelHandlerContext ctx) {
         super.handlerAllIdle(ctx);
@@ -58,6 +63,7 @@ public class ClientHandler extends BaseHandler {
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
         LOGGER.error("Server channel is inaction");
+        client.failPendingRequests();
         client.doConnect();
     }
 
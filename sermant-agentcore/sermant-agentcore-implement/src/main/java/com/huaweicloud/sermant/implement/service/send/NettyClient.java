@@ -16,13 +16,17 @@
 
 package com.huaweicloud.sermant.implement.service.send;
 
-import com.huaweicloud.sermant.implement.service.send.common.ThreadPools;
+import com.huaweicloud.sermant.core.config.ConfigManager;
+import com.huaweicloud.sermant.core.exception.GatewayRequestException;
+import com.huaweicloud.sermant.core.service.send.config.BackendConfig;
+import com.huaweicloud.sermant.core.utils.ThreadFactoryUtils;
+import com.huaweicloud.sermant.implement.service.send.common.ProtobufFrameEncoder;
 import com.huaweicloud.sermant.implement.service.send.netty.pojo.Message;
-import com.huaweicloud.sermant.implement.utils.GzipUtils;
 
 import com.google.protobuf.ByteString;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
@@ -33,19 +37,19 @@ import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.protobuf.ProtobufDecoder;
-import io.netty.handler.codec.protobuf.ProtobufEncoder;
 import io.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
-import io.netty.handler.codec.protobuf.ProtobufVarint32LengthFieldPrepender;
 import io.netty.handler.timeout.IdleStateHandler;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 网关客户端
@@ -58,17 +62,15 @@ public class NettyClient {
     // 运行日志
     private static final Logger LOGGER = LoggerFactory.getLogger(NettyClient.class);
 
-    // 消息队列用于缓存来自用户的消息
-    private static BlockingQueue<Message.ServiceData> queue = new LinkedBlockingQueue<>();
-
     private static final int CONNECT_TIMEOUT = 9000;
 
     private static final int WAIT_TIME = 30;
 
-    private static final int SEND_INTERNAL_MILLISECOND = 10000;
-
     private static final int RECONNECT_INTERVAL_SECOND = 10;
 
+    // 停止时等待发送线程发送剩余消息的最长时间
+    private static final long STOP_TIMEOUT_MILLIS = 3000L;
+
     // 客户端读写闲置时间
     private int writeOrReadWaitTime;
 
@@ -78,17 +80,26 @@ public class NettyClient {
     // 服务端端口
     private int port;
 
-    // 发送消息间隔时间
-    private int sendInterval;
-
     // 尝试重连服务器间隔时间
     private int reconectInterval;
 
     private Bootstrap bootstrap;
 
-    private Channel channel;
+    private EventLoopGroup eventLoopGroup;
+
+    private volatile Channel channel;
+
+    // 发送者，批量发送有界队列中缓存的来自用户的消息
+    private final Sender sender;
+
+    private final Thread senderThread;
 
-    private ScheduledExecutorService pool;
+    // 等待应答的请求，键为请求id
+    private final Map<Long, CompletableFuture<Message.ServiceResponse>> pendingRequests = new ConcurrentHashMap<>();
+
+    private final AtomicLong requestIdGenerator = new AtomicLong();
+
+    private volatile boolean isStopped;
 
     /**
      * 构造函数
@@ -100,15 +111,19 @@ public class NettyClient {
         ip = serverIp;
         port = serverPort;
         writeOrReadWaitTime = WAIT_TIME;
-        sendInterval = SEND_INTERNAL_MILLISECOND;
         reconectInterval = RECONNECT_INTERVAL_SECOND;
+        BackendConfig backendConfig = ConfigManager.getConfig(BackendConfig.class);
+        sender = new Sender(this, backendConfig == null ? new BackendConfig() : backendConfig);
+        senderThread = new ThreadFactoryUtils("netty-client-sender").newThread(sender);
+        senderThread.start();
         bind();
     }
 
     private void bind() {
-        EventLoopGroup eventExecutors = new NioEventLoopGroup();
+        eventLoopGroup = new NioEventLoopGroup();
         bootstrap = new Bootstrap();
-        bootstrap.group(eventExecutors).channel(NioSocketChannel.class).option(ChannelOption.TCP_NODELAY, true)
+        bootstrap.group(eventLoopGroup).channel(NioSocketChannel.class).option(ChannelOption.TCP_NODELAY, true)
+            .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
             .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, CONNECT_TIMEOUT).handler(new ChannelInitializer<Channel>() {
                 @Override
                 protected void initChannel(Channel newChannel) {
@@ -116,8 +131,7 @@ public class NettyClient {
                     pipeline.addLast(new IdleStateHandler(0, 0, writeOrReadWaitTime));
                     pipeline.addLast(new ProtobufVarint32FrameDecoder());
                     pipeline.addLast(new ProtobufDecoder(Message.NettyMessage.getDefaultInstance()));
-                    pipeline.addLast(new ProtobufVarint32LengthFieldPrepender());
-                    pipeline.addLast(new ProtobufEncoder());
+                    pipeline.addLast(new ProtobufFrameEncoder());
                     pipeline.addLast(new ClientHandler(NettyClient.this));
                 }
             });
@@ -129,24 +143,19 @@ public class NettyClient {
      */
     public synchronized void doConnect() {
         LOGGER.info("do connect");
-        if (channel != null && channel.isActive()) {
+        if (isStopped || channel != null && channel.isActive()) {
             return;
         }
-        if (pool != null && !pool.isShutdown()) {
-            pool.shutdownNow();
-        }
         ChannelFuture connect = bootstrap.connect(ip, port);
 
         // 添加连接监听
         connect.addListener((ChannelFutureListener)channelFuture -> {
-            // 如果连接成功，启动发送线程，循环发送消息队列中的内容
+            // 如果连接成功，唤醒发送线程，发送连接断开期间缓存的消息
             if (channelFuture.isSuccess()) {
                 channel = channelFuture.channel();
                 if (channel.isActive()) {
-                    Sender sender = new Sender(channel, queue);
                     LOGGER.info("Successfully Connected to server");
-                    pool = Executors.newScheduledThreadPool(1);
-                    pool.scheduleAtFixedRate(sender, 0, sendInterval, TimeUnit.MILLISECONDS);
+                    sender.wakeUp();
                 }
             } else {
                 // 失败则在X秒后重试连接
@@ -157,7 +166,28 @@ public class NettyClient {
     }
 
     /**
-     * 发送数据至服务端
+     * 停止客户端：中断发送线程并等待其发送剩余消息，随后关闭连接并释放事件循环线程，停止后不再重连
+     */
+    public synchronized void stop() {
+        if (isStopped) {
+            return;
+        }
+        isStopped = true;
+        senderThread.interrupt();
+        try {
+            senderThread.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+        final Channel current = channel;
+        if (current != null) {
+            current.close();
+        }
+        eventLoopGroup.shutdownGracefully();
+    }
+
+    /**
+     * 发送数据至服务端，数据进入有界队列后由发送线程批量压缩并发送，见{@link Sender}
      *
      * @param msg      传输数据
      * @param dataType 数据类型
@@ -167,15 +197,100 @@ public class NettyClient {
             LOGGER.warn("Message is null.");
             return;
         }
-        byte[] compressMsg = GzipUtils.compress(msg);
-        Message.ServiceData serviceData =
-            Message.ServiceData.newBuilder().setDataType(dataType).setData(ByteString.copyFrom(compressMsg)).build();
-        ThreadPools.getExecutor().execute(() -> {
-            try {
-                queue.put(serviceData);
-            } catch (InterruptedException e) {
-                LOGGER.error("Exception occurs when put data to message queue. Exception info: {}", e);
+        sender.offer(new Sender.PendingData(dataType, msg));
+    }
+
+    /**
+     * 发送请求至服务端并同步等待应答，请求直接写入当前连接，不经过发送队列
+     *
+     * @param data 请求数据
+     * @param requestType 请求类型
+     * @param timeoutMs 等待应答的超时时间，单位毫秒
+     * @return 应答数据
+     * @throws GatewayRequestException 未连接、等待应答超时或服务端处理失败
+     */
+    public byte[] request(byte[] data, Message.ServiceRequest.RequestType requestType, long timeoutMs) {
+        final Channel current = channel;
+        if (isStopped || current == null || !current.isActive()) {
+            throw new GatewayRequestException("Gateway is not connected. ");
+        }
+        final long requestId = requestIdGenerator.incrementAndGet();
+        final CompletableFuture<Message.ServiceResponse> future = new CompletableFuture<>();
+        pendingRequests.put(requestId, future);
+        try {
+            final Message.NettyMessage message = Message.NettyMessage.newBuilder()
+                .setMessageType(Message.NettyMessage.MessageType.SERVICE_REQUEST)
+                .setServiceRequest(Message.ServiceRequest.newBuilder().setRequestId(requestId)
+                    .setRequestType(requestType).setData(ByteString.copyFrom(data)))
+                .build();
+            current.writeAndFlush(message).addListener((ChannelFutureListener)writeFuture -> {
+                if (!writeFuture.isSuccess()) {
+                    future.completeExceptionally(writeFuture.cause());
+                }
+            });
+            final Message.ServiceResponse response = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            if (!response.getSuccess()) {
+                throw new GatewayRequestException("Request failed: " + response.getErrorMessage());
             }
-        });
+            return response.getData().toByteArray();
+        } catch (ExecutionException ex) {
+            throw new GatewayRequestException("Request failed: " + ex.getCause().getMessage(), ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new GatewayRequestException("Request timed out after " + timeoutMs + " ms. ", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new GatewayRequestException("Request is interrupted. ", ex);
+        } finally {
+            pendingRequests.remove(requestId);
+        }
+    }
+
+    /**
+     * 完成应答对应的请求，请求已超时时忽略
+     *
+     * @param response 服务端应答
+     */
+    void completeRequest(Message.ServiceResponse response) {
+        final CompletableFuture<Message.ServiceResponse> future = pendingRequests.get(response.getRequestId());
+        if (future != null) {
+            future.complete(response);
+        }
+    }
+
+    /**
+     * 连接断开时，等待中的请求不会再收到应答，使其立即失败
+     */
+    void failPendingRequests() {
+        for (CompletableFuture<Message.ServiceResponse> future : pendingRequests.values()) {
+            future.completeExceptionally(new GatewayRequestException("Connection is closed. "));
+        }
+    }
+
+    /**
+     * 获取当前连接
+     *
+     * @return 当前连接，未连接时为null
+     */
+    public Channel getChannel() {
+        return channel;
+    }
+
+    /**
+     * 判断当前连接是否可写
+     *
+     * @return 是否可写
+     */
+    public boolean isWritable() {
+        Channel current = channel;
+        return current != null && current.isActive() && current.isWritable();
+    }
+
+    /**
+     * 获取发送者，用于获取队列深度、丢弃数、发送字节数等统计信息
+     *
+     * @return 发送者
+     */
+    public Sender getSender() {
+        return sender;
     }
 }
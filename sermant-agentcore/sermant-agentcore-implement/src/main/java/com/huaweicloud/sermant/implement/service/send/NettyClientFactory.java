@@ -69,4 +69,14 @@ public class NettyClientFactory {
         refreshClientMap(address, client);
         return client;
     }
+
+    /**
+     * 停止并移除所有客户端
+     */
+    public synchronized void stop() {
+        for (NettyClient client : clientMap.values()) {
+            client.stop();
+        }
+        clientMap.clear();
+    }
 }
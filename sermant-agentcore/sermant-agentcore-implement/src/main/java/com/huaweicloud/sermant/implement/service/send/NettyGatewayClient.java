@@ -18,6 +18,7 @@ package com.huaweicloud.sermant.implement.service.send;
 
 import com.huaweicloud.sermant.core.common.LoggerFactory;
 import com.huaweicloud.sermant.core.config.ConfigManager;
+import com.huaweicloud.sermant.core.exception.GatewayRequestException;
 import com.huaweicloud.sermant.core.service.send.api.GatewayClient;
 import com.huaweicloud.sermant.core.service.send.config.BackendConfig;
 import com.huaweicloud.sermant.implement.service.send.netty.pojo.Message;
@@ -43,7 +44,7 @@ public class NettyGatewayClient implements GatewayClient {
 
     @Override
     public void stop() {
-        // close nettyClient
+        ClientManager.getNettyClientFactory().stop();
     }
 
     @Override
@@ -55,4 +56,13 @@ public class NettyGatewayClient implements GatewayClient {
         }
         nettyClient.sendData(data, dataType);
     }
+
+    @Override
+    public byte[] request(byte[] data, int typeNum, long timeoutMs) {
+        Message.ServiceRequest.RequestType requestType = Message.ServiceRequest.RequestType.forNumber(typeNum);
+        if (requestType == null) {
+            throw new GatewayRequestException("Wrong type of request: " + typeNum);
+        }
+        return nettyClient.request(data, requestType, timeoutMs);
+    }
 }
@@ -16,19 +16,32 @@
 
 package com.huaweicloud.sermant.implement.service.send;
 
+import com.huaweicloud.sermant.core.service.send.config.BackendConfig;
+import com.huaweicloud.sermant.implement.service.send.common.SendRingBuffer;
 import com.huaweicloud.sermant.implement.service.send.netty.pojo.Message;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * 发送数据类
+ * 发送数据类，由单个发送线程批量取出发送队列中的消息，压缩并编码至池化直接内存后发送至服务端
+ * <pre>
+ *     1.待发送消息数达到{@link BackendConfig#getSendBatchSize()}或字节数达到{@link BackendConfig#getSendBatchBytes()}时立即发送
+ *     2.未达到阈值的消息最多等待{@link BackendConfig#getSendInterval()}毫秒
+ *     3.连接不可用或不可写时暂停发送，消息保留在有界队列中，队列满时按{@link BackendConfig#getSendOverflowPolicy()}处理
+ *     4.发送线程被中断时，尽量发送队列中剩余的消息后退出
+ * </pre>
  *
  * @author lilai
  * @version 0.0.1
@@ -37,37 +50,230 @@ import java.util.concurrent.BlockingQueue;
 public class Sender implements Runnable {
     private static final Logger LOGGER = LoggerFactory.getLogger(Sender.class);
 
-    private final BlockingQueue<Message.ServiceData> queue;
+    // 统计信息输出间隔
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
 
-    private final Channel channel;
+    // 调用方等待队列空出时的单次等待时长
+    private static final long WAIT_STEP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final NettyClient client;
+
+    private final SendRingBuffer<PendingData> queue;
+
+    private final int batchSize;
+
+    private final int batchBytes;
+
+    private final long intervalNanos;
+
+    private final BackendConfig.OverflowPolicy overflowPolicy;
+
+    private final long overflowWaitNanos;
+
+    private final ServiceDataFrameEncoder encoder = new ServiceDataFrameEncoder();
+
+    // 当前批次的消息，仅由发送线程使用
+    private final List<PendingData> batch = new ArrayList<>();
+
+    // 队列中待发送的原始字节数
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    // 丢弃的消息数
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    // 已发送的消息数
+    private final AtomicLong sentCount = new AtomicLong();
+
+    // 已发送的字节数
+    private final AtomicLong sentBytes = new AtomicLong();
+
+    // 是否已唤醒发送线程，避免每条消息都唤醒一次
+    private final AtomicBoolean isWakeUpPending = new AtomicBoolean();
+
+    private volatile Thread senderThread;
+
+    private long lastReportTime = System.nanoTime();
+
+    private long lastReportBytes;
+
+    private long lastReportDropped;
 
     /**
      * 构造函数
      *
-     * @param channel channel
-     * @param queue queue
+     * @param client client
+     * @param config 发送配置
      */
-    public Sender(Channel channel, BlockingQueue<Message.ServiceData> queue) {
-        this.queue = queue;
-        this.channel = channel;
+    public Sender(NettyClient client, BackendConfig config) {
+        this.client = client;
+        this.queue = new SendRingBuffer<>(Math.max(config.getSendQueueSize(), 1));
+        this.batchSize = Math.max(config.getSendBatchSize(), 1);
+        this.batchBytes = Math.max(config.getSendBatchBytes(), 1);
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(config.getSendInterval(), 1L));
+        this.overflowPolicy = config.getSendOverflowPolicy();
+        this.overflowWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(config.getSendOverflowWaitTime(), 0L));
+    }
+
+    /**
+     * 添加待发送的消息，达到发送阈值时唤醒发送线程
+     *
+     * @param data 待发送的消息
+     * @return 是否添加成功，队列已满且无法等待时丢弃消息并返回false
+     */
+    public boolean offer(PendingData data) {
+        if (!queue.offer(data) && !(overflowPolicy == BackendConfig.OverflowPolicy.WAIT && waitOffer(data))) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        if (pendingBytes.addAndGet(data.data.length) >= batchBytes || queue.size() >= batchSize) {
+            wakeUp();
+        }
+        return true;
+    }
+
+    /**
+     * 唤醒发送线程
+     */
+    public void wakeUp() {
+        final Thread thread = senderThread;
+        if (thread != null && isWakeUpPending.compareAndSet(false, true)) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private boolean waitOffer(PendingData data) {
+        final long deadline = System.nanoTime() + overflowWaitNanos;
+        wakeUp();
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(this, WAIT_STEP_NANOS);
+            if (queue.offer(data)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
     public void run() {
-        List<Message.ServiceData> list;
-
-        // 消息队列不为空时，发送消息
-        if (queue.size() > 0) {
-            list = new ArrayList<>();
-            queue.drainTo(list);
-            Message.NettyMessage message = Message.NettyMessage.newBuilder()
-                .setMessageType(Message.NettyMessage.MessageType.SERVICE_DATA).addAllServiceData(list).build();
-            if (channel == null) {
-                LOGGER.info("channel is null");
+        senderThread = Thread.currentThread();
+        long nextFlushTime = System.nanoTime() + intervalNanos;
+        while (!Thread.currentThread().isInterrupted()) {
+            isWakeUpPending.set(false);
+            final long now = System.nanoTime();
+            if (now - nextFlushTime >= 0 || isThresholdReached() && client.isWritable()) {
+                flush();
+                nextFlushTime = now + intervalNanos;
+            }
+            if (now - lastReportTime >= REPORT_INTERVAL_NANOS) {
+                report(now);
+            }
+            LockSupport.parkNanos(this, Math.max(nextFlushTime - System.nanoTime(), 0L));
+        }
+        try {
+            flush();
+        } finally {
+            encoder.end();
+        }
+    }
+
+    private boolean isThresholdReached() {
+        return queue.size() >= batchSize || pendingBytes.get() >= batchBytes;
+    }
+
+    /**
+     * 发送队列中的消息，直到队列为空或连接不可写
+     */
+    private void flush() {
+        final Channel channel = client.getChannel();
+        while (queue.size() > 0) {
+            if (channel == null || !channel.isActive() || !channel.isWritable()) {
+                return;
+            }
+            long rawBytes = 0L;
+            PendingData data;
+            while (batch.size() < batchSize && rawBytes < batchBytes && (data = queue.poll()) != null) {
+                rawBytes += data.data.length;
+                batch.add(data);
             }
+            pendingBytes.addAndGet(-rawBytes);
+            if (batch.isEmpty()) {
+                return;
+            }
+            send(channel, rawBytes);
+            batch.clear();
+        }
+    }
+
+    private void send(Channel channel, long rawBytes) {
+        final ByteBuf frame;
+        try {
+            frame = encoder.encode(channel.alloc(), batch, rawBytes);
+        } catch (IOException e) {
+            droppedCount.addAndGet(batch.size());
+            LOGGER.warn("Failed to encode {} messages, discard them.", batch.size(), e);
+            return;
+        }
+
+        // 写出后帧由netty释放，需提前记录帧大小
+        sentBytes.addAndGet(frame.readableBytes());
+        channel.writeAndFlush(frame);
+        sentCount.addAndGet(batch.size());
+        LOGGER.debug("The message is sent to the gateway. Number of messages: {}", batch.size());
+    }
+
+    private void report(long now) {
+        final long bytes = sentBytes.get();
+        final long dropped = droppedCount.get();
+        final long bytesPerSecond = (bytes - lastReportBytes) * TimeUnit.SECONDS.toNanos(1) / (now - lastReportTime);
+        if (dropped > lastReportDropped) {
+            LOGGER.warn("Gateway send queue depth: {}, dropped: {} (+{}), sent: {}, bytes per second: {}",
+                queue.size(), dropped, dropped - lastReportDropped, sentCount.get(), bytesPerSecond);
+        } else {
+            LOGGER.debug("Gateway send queue depth: {}, dropped: {}, sent: {}, bytes per second: {}", queue.size(),
+                dropped, sentCount.get(), bytesPerSecond);
+        }
+        lastReportTime = now;
+        lastReportBytes = bytes;
+        lastReportDropped = dropped;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    public long getSentBytes() {
+        return sentBytes.get();
+    }
+
+    /**
+     * 待发送的消息
+     *
+     * @since 2022-09-28
+     */
+    static class PendingData {
+        private final Message.ServiceData.DataType dataType;
+
+        private final byte[] data;
+
+        PendingData(Message.ServiceData.DataType dataType, byte[] data) {
+            this.dataType = dataType;
+            this.data = data;
+        }
+
+        Message.ServiceData.DataType getDataType() {
+            return dataType;
+        }
 
-            channel.writeAndFlush(message);
-            LOGGER.info("The message is sent to the gateway successfully. Number of messages: {}", list.size());
+        byte[] getData() {
+            return data;
         }
     }
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.service.send;
+
+import com.huaweicloud.sermant.implement.service.send.netty.pojo.Message;
+import com.huaweicloud.sermant.implement.utils.GzipCompressor;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 业务数据帧编码器，将一批待发送消息直接编码为带varint32长度前缀的{@link Message.NettyMessage}帧
+ * <pre>
+ *     1.一批消息序列化为{@link Message.ServiceDataBatch}后整体gzip压缩，放入消息类型为SERVICE_DATA_BATCH的帧中，
+ *       同一批次中相似的消息可共享压缩字典，压缩率高于逐条压缩
+ *     2.帧写入分配器提供的池化直接内存，不再经过Message对象、ByteString和堆内字节数组的多次拷贝
+ *     3.压缩数据由压缩器以流的方式直接写入帧，压缩后才能确定的长度字段预留5字节，压缩完成后回填
+ *     4.回填的长度为补齐到5字节的varint32，与标准编码等价，服务端的{@code ProtobufVarint32FrameDecoder}和
+ *       {@code ProtobufDecoder}可直接解码
+ * </pre>
+ * 注意，该类非线程安全，仅由发送线程使用，使用完毕后需调用{@link #end}释放本地资源
+ *
+ * @author lilai
+ * @version 0.0.1
+ * @since 2022-09-28
+ */
+class ServiceDataFrameEncoder {
+    // varint32的最大字节数
+    private static final int MAX_VARINT32_SIZE = 5;
+
+    // 每条消息除数据外的最大开销：字段tag、长度和数据类型
+    private static final int ENTRY_OVERHEAD = 3 + MAX_VARINT32_SIZE * 3;
+
+    // 帧除压缩数据外的最大开销：长度前缀、消息类型、字段tag、长度以及gzip头尾
+    private static final int FRAME_OVERHEAD = 64;
+
+    private static final int TAG_TYPE_BITS = 3;
+
+    private static final int VARINT_BITS = 7;
+
+    private static final int VARINT_MASK = 0x7f;
+
+    private static final int VARINT_CONTINUATION = 0x80;
+
+    private static final int MESSAGE_TYPE_TAG = Message.NettyMessage.MESSAGETYPE_FIELD_NUMBER << TAG_TYPE_BITS
+        | WireFormat.WIRETYPE_VARINT;
+
+    private static final int COMPRESSED_SERVICE_DATA_TAG =
+        Message.NettyMessage.COMPRESSEDSERVICEDATA_FIELD_NUMBER << TAG_TYPE_BITS
+            | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+    private static final int SERVICE_DATA_TAG = Message.ServiceDataBatch.SERVICEDATA_FIELD_NUMBER << TAG_TYPE_BITS
+        | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+    private static final int DATA_TYPE_TAG = Message.ServiceData.DATATYPE_FIELD_NUMBER << TAG_TYPE_BITS
+        | WireFormat.WIRETYPE_VARINT;
+
+    private static final int DATA_TAG = Message.ServiceData.DATA_FIELD_NUMBER << TAG_TYPE_BITS
+        | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+    private final GzipCompressor compressor = new GzipCompressor();
+
+    // 每条消息数据前的字段tag、长度和数据类型
+    private final byte[] entryHeader = new byte[ENTRY_OVERHEAD];
+
+    /**
+     * 将一批消息编码为一帧，帧的所有权交由调用方
+     *
+     * @param allocator 缓冲区分配器
+     * @param batch     待发送的消息
+     * @param rawBytes  消息的原始字节总数，用于预估帧大小
+     * @return 编码完成的帧
+     * @throws IOException 压缩失败
+     */
+    ByteBuf encode(ByteBufAllocator allocator, List<Sender.PendingData> batch, long rawBytes) throws IOException {
+        final long capacity = FRAME_OVERHEAD + rawBytes + (long) batch.size() * ENTRY_OVERHEAD;
+        final ByteBuf frame = allocator.directBuffer((int) Math.min(capacity, Integer.MAX_VALUE));
+        boolean isEncoded = false;
+        try {
+            frame.writeZero(MAX_VARINT32_SIZE);
+            frame.writeByte(MESSAGE_TYPE_TAG);
+            writeVarint32(frame, Message.NettyMessage.MessageType.SERVICE_DATA_BATCH_VALUE);
+            frame.writeByte(COMPRESSED_SERVICE_DATA_TAG);
+            final int lengthIndex = frame.writerIndex();
+            frame.writeZero(MAX_VARINT32_SIZE);
+            final int dataStart = frame.writerIndex();
+            compressor.begin(new ByteBufOutputStream(frame));
+            for (Sender.PendingData data : batch) {
+                writeServiceData(data);
+            }
+            compressor.finish();
+            setPaddedVarint32(frame, lengthIndex, frame.writerIndex() - dataStart);
+            setFramePrefix(frame);
+            isEncoded = true;
+            return frame;
+        } finally {
+            if (!isEncoded) {
+                frame.release();
+            }
+        }
+    }
+
+    /**
+     * 释放本地压缩资源
+     */
+    void end() {
+        compressor.end();
+    }
+
+    private void writeServiceData(Sender.PendingData data) throws IOException {
+        final byte[] bytes = data.getData();
+
+        // proto3不序列化默认值
+        final int dataType = data.getDataType().getNumber();
+        final int dataTypeSize = dataType == 0 ? 0 : 1 + CodedOutputStream.computeUInt32SizeNoTag(dataType);
+        final int entryLength = dataTypeSize + 1 + CodedOutputStream.computeUInt32SizeNoTag(bytes.length)
+            + bytes.length;
+        int index = 0;
+        entryHeader[index++] = (byte) SERVICE_DATA_TAG;
+        index = writeVarint32(entryHeader, index, entryLength);
+        if (dataType != 0) {
+            entryHeader[index++] = (byte) DATA_TYPE_TAG;
+            index = writeVarint32(entryHeader, index, dataType);
+        }
+        entryHeader[index++] = (byte) DATA_TAG;
+        index = writeVarint32(entryHeader, index, bytes.length);
+        compressor.write(entryHeader, 0, index);
+        compressor.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 帧长度在编码完成后已知，写入预留区域的尾部，得到与标准编码一致的长度前缀
+     *
+     * @param frame 帧
+     */
+    private static void setFramePrefix(ByteBuf frame) {
+        int value = frame.writerIndex() - MAX_VARINT32_SIZE;
+        int index = MAX_VARINT32_SIZE - CodedOutputStream.computeUInt32SizeNoTag(value);
+        frame.readerIndex(index);
+        while ((value & ~VARINT_MASK) != 0) {
+            frame.setByte(index++, value & VARINT_MASK | VARINT_CONTINUATION);
+            value >>>= VARINT_BITS;
+        }
+        frame.setByte(index, value);
+    }
+
+    private static void writeVarint32(ByteBuf buf, int value) {
+        int remaining = value;
+        while ((remaining & ~VARINT_MASK) != 0) {
+            buf.writeByte(remaining & VARINT_MASK | VARINT_CONTINUATION);
+            remaining >>>= VARINT_BITS;
+        }
+        buf.writeByte(remaining);
+    }
+
+    private static int writeVarint32(byte[] bytes, int offset, int value) {
+        int index = offset;
+        int remaining = value;
+        while ((remaining & ~VARINT_MASK) != 0) {
+            bytes[index++] = (byte) (remaining & VARINT_MASK | VARINT_CONTINUATION);
+            remaining >>>= VARINT_BITS;
+        }
+        bytes[index++] = (byte) remaining;
+        return index;
+    }
+
+    private static void setPaddedVarint32(ByteBuf buf, int index, int value) {
+        for (int i = 0; i < MAX_VARINT32_SIZE - 1; i++) {
+            buf.setByte(index + i, value >>> (i * VARINT_BITS) & VARINT_MASK | VARINT_CONTINUATION);
+        }
+        buf.setByte(index + MAX_VARINT32_SIZE - 1, value >>> ((MAX_VARINT32_SIZE - 1) * VARINT_BITS));
+    }
+}
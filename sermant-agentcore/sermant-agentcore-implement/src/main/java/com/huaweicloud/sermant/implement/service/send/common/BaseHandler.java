@@ -54,6 +54,11 @@ public abstract class BaseHandler extends SimpleChannelInboundHandler<Message.Ne
             case Message.NettyMessage.MessageType.SERVICE_DATA_VALUE:
                 handlerData(ctx, msg);
                 break;
+
+            // 如果为请求的应答，交由等待应答的请求处理
+            case Message.NettyMessage.MessageType.SERVICE_RESPONSE_VALUE:
+                handlerResponse(ctx, msg);
+                break;
             default:
                 break;
         }
@@ -67,6 +72,16 @@ public abstract class BaseHandler extends SimpleChannelInboundHandler<Message.Ne
      */
     protected abstract void handlerData(ChannelHandlerContext ctx, Message.NettyMessage msg);
 
+    /**
+     * 请求应答处理方法
+     *
+     * @param ctx 上下文对象
+     * @param msg 收到的应答
+     */
+    protected void handlerResponse(ChannelHandlerContext ctx, Message.NettyMessage msg) {
+        LOGGER.debug("Ignore response of request {}.", msg.getServiceResponse().getRequestId());
+    }
+
     /**
      * 发送PING心跳
      *
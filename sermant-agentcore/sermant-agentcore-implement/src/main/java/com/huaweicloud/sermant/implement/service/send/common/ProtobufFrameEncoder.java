@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.service.send.common;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+
+import java.io.IOException;
+
+/**
+ * protobuf帧编码器，将消息连同varint32长度前缀一次性写入按实际大小分配的池化直接内存
+ * <p>替代{@code ProtobufVarint32LengthFieldPrepender}和{@code ProtobufEncoder}的组合，避免先序列化为堆内数组再拷贝，
+ * 帧格式与其一致。已编码完成的{@link ByteBuf}帧不经过该编码器，直接写出
+ *
+ * @author lilai
+ * @version 0.0.1
+ * @since 2022-09-28
+ */
+@ChannelHandler.Sharable
+public class ProtobufFrameEncoder extends MessageToByteEncoder<MessageLite> {
+    @Override
+    protected void encode(ChannelHandlerContext ctx, MessageLite msg, ByteBuf out) throws IOException {
+        final int bodyLength = msg.getSerializedSize();
+        final int frameLength = getFrameLength(bodyLength);
+        out.ensureWritable(frameLength);
+        final CodedOutputStream output =
+            CodedOutputStream.newInstance(out.internalNioBuffer(out.writerIndex(), frameLength));
+        output.writeUInt32NoTag(bodyLength);
+        msg.writeTo(output);
+        output.flush();
+        out.writerIndex(out.writerIndex() + frameLength);
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, MessageLite msg, boolean preferDirect) {
+        final int frameLength = getFrameLength(msg.getSerializedSize());
+        return preferDirect ? ctx.alloc().ioBuffer(frameLength) : ctx.alloc().heapBuffer(frameLength);
+    }
+
+    private static int getFrameLength(int bodyLength) {
+        return CodedOutputStream.computeUInt32SizeNoTag(bodyLength) + bodyLength;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.service.send.common;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界的多生产者单消费者环形队列，生产者之间通过CAS竞争槽位，消费者无锁读取
+ * <p>每个槽位维护一个序号，生产者仅在序号与生产位置一致时写入，消费者仅在序号为生产位置加一时读取
+ *
+ * @param <E> 元素类型
+ * @author lilai
+ * @version 0.0.1
+ * @since 2022-09-28
+ */
+public class SendRingBuffer<E> {
+    // 槽位下标掩码，容量为2的幂
+    private final int mask;
+
+    // 槽位元素
+    private final AtomicReferenceArray<E> elements;
+
+    // 槽位序号
+    private final AtomicLongArray sequences;
+
+    // 生产位置
+    private final AtomicLong producerIndex = new AtomicLong();
+
+    // 消费位置，仅由消费者修改
+    private volatile long consumerIndex;
+
+    /**
+     * 构造函数
+     *
+     * @param capacity 容量，向上取整为2的幂且至少为2，容量为1时写入后的槽位序号与下一个生产位置相同，无法区分空与满
+     */
+    public SendRingBuffer(int capacity) {
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        mask = size - 1;
+        elements = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 添加元素，可由多个线程并发调用
+     *
+     * @param element 元素
+     * @return 是否添加成功，队列已满时返回false
+     */
+    public boolean offer(E element) {
+        long position = producerIndex.get();
+        while (true) {
+            final int index = (int) (position & mask);
+            final long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (producerIndex.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = producerIndex.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = producerIndex.get();
+            }
+        }
+    }
+
+    /**
+     * 取出元素，仅能由单个消费者线程调用
+     *
+     * @return 元素，队列为空或元素尚未写入完成时返回null
+     */
+    public E poll() {
+        final long position = consumerIndex;
+        final int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        final E element = elements.get(index);
+        elements.lazySet(index, null);
+        sequences.lazySet(index, position + mask + 1);
+        consumerIndex = position + 1;
+        return element;
+    }
+
+    /**
+     * 批量取出元素，仅能由单个消费者线程调用
+     *
+     * @param list     存放元素的列表
+     * @param maxCount 最大取出数量
+     * @return 取出数量
+     */
+    public int drainTo(List<? super E> list, int maxCount) {
+        int count = 0;
+        while (count < maxCount) {
+            final E element = poll();
+            if (element == null) {
+                break;
+            }
+            list.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 获取队列中的元素数量，并发修改时为近似值
+     *
+     * @return 元素数量
+     */
+    public int size() {
+        final long size = producerIndex.get() - consumerIndex;
+        if (size < 0) {
+            return 0;
+        }
+        return (int) Math.min(size, capacity());
+    }
+
+    /**
+     * 获取队列容量
+     *
+     * @return 队列容量
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.service.tracing;
+
+import com.huaweicloud.sermant.core.service.tracing.common.SpanEvent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * SpanEvent对象池，业务线程取出、发送线程回收，取出与回收均可由多个线程并发调用
+ * <p>有界环形队列，每个槽位维护一个序号，放入与取出分别通过CAS竞争位置，池满时回收的SpanEvent直接丢弃
+ *
+ * @author luanwenfei
+ * @since 2022-09-28
+ */
+public class SpanEventPool {
+    private final int mask;
+
+    private final AtomicReferenceArray<SpanEvent> elements;
+
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong offerIndex = new AtomicLong();
+
+    private final AtomicLong pollIndex = new AtomicLong();
+
+    /**
+     * 构造方法
+     *
+     * @param capacity 容量，向上取整为2的幂
+     */
+    public SpanEventPool(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        mask = size - 1;
+        elements = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 取出一个已重置的SpanEvent，池为空时新建
+     *
+     * @return SpanEvent
+     */
+    public SpanEvent poll() {
+        long position = pollIndex.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (pollIndex.compareAndSet(position, position + 1)) {
+                    SpanEvent spanEvent = elements.get(index);
+                    elements.lazySet(index, null);
+                    sequences.lazySet(index, position + mask + 1);
+                    return spanEvent;
+                }
+                position = pollIndex.get();
+            } else if (difference < 0) {
+                return new SpanEvent();
+            } else {
+                position = pollIndex.get();
+            }
+        }
+    }
+
+    /**
+     * 回收SpanEvent，入口Span仍被线程变量中的上下文引用，被上下文快照引用的Span仍被异步任务使用，均不回收
+     *
+     * @param spanEvent 已发送或已丢弃的SpanEvent
+     */
+    public void recycle(SpanEvent spanEvent) {
+        if (spanEvent.getParentSpan() == null || spanEvent.isShared()) {
+            return;
+        }
+        spanEvent.reset();
+        long position = offerIndex.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (offerIndex.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, spanEvent);
+                    sequences.lazySet(index, position + 1);
+                    return;
+                }
+                position = offerIndex.get();
+            } else if (difference < 0) {
+                return;
+            } else {
+                position = offerIndex.get();
+            }
+        }
+    }
+}
@@ -17,23 +17,33 @@
 package com.huaweicloud.sermant.implement.service.tracing;
 
 import com.huaweicloud.sermant.core.common.LoggerFactory;
+import com.huaweicloud.sermant.core.config.ConfigManager;
 import com.huaweicloud.sermant.core.service.tracing.api.ExtractService;
 import com.huaweicloud.sermant.core.service.tracing.api.InjectService;
+import com.huaweicloud.sermant.core.service.tracing.api.Sampler;
 import com.huaweicloud.sermant.core.service.tracing.api.TracingService;
 import com.huaweicloud.sermant.core.service.tracing.common.SpanEvent;
 import com.huaweicloud.sermant.core.service.tracing.common.SpanEventContext;
 import com.huaweicloud.sermant.core.service.tracing.common.TracingRequest;
+import com.huaweicloud.sermant.core.service.tracing.config.TracingConfig;
+import com.huaweicloud.sermant.core.service.tracing.sampler.SamplerFactory;
 import com.huaweicloud.sermant.implement.service.tracing.sender.TracingSender;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.serializer.SerializerFeature;
 
+import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
  * 链路追踪接口的实现
+ * <p>入口Span开始时由{@link Sampler}决定是否采样，未被采样的请求在线程变量中记录{@link #NOT_SAMPLED_CONTEXT}，
+ * 后续生命周期方法仅读取线程变量并维护未采样Span的嵌套深度即返回。开启尾部采样时，入口Span结束后仅发送慢调用或出现异常的链路。
+ * <p>{@link #captureContext()}与{@link #restoreContext(SpanEventContext)}用于向线程池等异步任务传递上下文。
+ * 无论入口Span是否被采样，其结束时都会清除线程变量中的上下文，避免线程池中的线程将已结束的链路或采样结果传递给后续任务
  *
  * @author luanwenfei
  * @since 2022-03-01
@@ -51,10 +61,40 @@ public class TracingServiceImpl implements TracingService {
      */
     private static final int MAX_SPAN_EVENT_DEPTH = 100;
 
+    /**
+     * 未被采样请求的上下文，仅用于向下游透传采样结果
+     */
+    private static final SpanEventContext NOT_SAMPLED_CONTEXT = createNotSampledContext();
+
+    /**
+     * SpanEvent对象池容量
+     */
+    private static final int SPAN_EVENT_POOL_SIZE = 4096;
+
     private final TracingSender tracingSender = TracingSender.getInstance();
 
+    private Sampler sampler = tracingRequest -> true;
+
+    private boolean isTailSamplingEnable;
+
+    /**
+     * 尾部采样的慢调用阈值，单位纳秒
+     */
+    private long slowThreshold;
+
+    /**
+     * SpanEvent对象池，未开启复用时为null
+     */
+    private SpanEventPool spanEventPool;
+
     private final ThreadLocal<SpanEventContext> threadLocal = new ThreadLocal<>();
 
+    /**
+     * 当前线程中未结束的未采样Span个数，由未采样的入口Span开始计数，归零时清除上下文。
+     * 跨线程传递的未采样上下文在任务线程中不计数，由任务结束时恢复的上下文覆盖
+     */
+    private final ThreadLocal<int[]> notSampledDepth = ThreadLocal.withInitial(() -> new int[1]);
+
     /**
      * 链路采集开关标志位
      */
@@ -62,7 +102,16 @@ public class TracingServiceImpl implements TracingService {
 
     @Override
     public void start() {
+        TracingConfig tracingConfig = ConfigManager.getConfig(TracingConfig.class);
+        if (tracingConfig == null) {
+            tracingConfig = new TracingConfig();
+        }
+        this.sampler = SamplerFactory.create(tracingConfig);
+        this.isTailSamplingEnable = tracingConfig.isTailSamplingEnable();
+        this.slowThreshold = TimeUnit.MILLISECONDS.toNanos(tracingConfig.getSlowThreshold());
+        this.spanEventPool = tracingConfig.isSpanReuseEnable() ? new SpanEventPool(SPAN_EVENT_POOL_SIZE) : null;
         this.isTracing = true;
+        tracingSender.setSpanEventPool(spanEventPool);
         tracingSender.start();
         LOGGER.info("TracingService started.");
     }
@@ -77,12 +126,41 @@ public class TracingServiceImpl implements TracingService {
     @Override
     public Optional<SpanEventContext> getContext() {
         SpanEventContext spanEventContext = threadLocal.get();
-        if (spanEventContext == null) {
+        if (spanEventContext == null || spanEventContext == NOT_SAMPLED_CONTEXT) {
             return Optional.empty();
         }
         return Optional.of(spanEventContext);
     }
 
+    @Override
+    public SpanEventContext captureContext() {
+        if (!isTracing) {
+            return null;
+        }
+        SpanEventContext spanEventContext = threadLocal.get();
+        if (spanEventContext == null || spanEventContext == NOT_SAMPLED_CONTEXT) {
+            // 未被采样的上下文不含Span数据，可直接在线程间共享
+            return spanEventContext;
+        }
+
+        // 当前Span已结束时链路已完成，不再传递
+        if (spanEventContext.getSpanEvent().getEndTime() != 0L) {
+            return null;
+        }
+        return new SpanEventContext(spanEventContext);
+    }
+
+    @Override
+    public SpanEventContext restoreContext(SpanEventContext spanEventContext) {
+        SpanEventContext previousContext = threadLocal.get();
+        if (spanEventContext == null) {
+            threadLocal.remove();
+        } else {
+            threadLocal.set(spanEventContext);
+        }
+        return previousContext;
+    }
+
     @Override
     public <T> Optional<SpanEvent> onProviderSpanStart(TracingRequest tracingRequest, ExtractService<T> extractService,
         T carrier) {
@@ -90,17 +168,26 @@ public class TracingServiceImpl implements TracingService {
             return Optional.empty();
         }
 
+        // 未采样的链路中再次进入的Provider Span沿用未采样的结果
+        if (threadLocal.get() == NOT_SAMPLED_CONTEXT) {
+            enterNotSampledSpan();
+            return Optional.empty();
+        }
+
         // 从协议载体中获取TraceId、SpanId等数据
         extractService.getFromCarrier(tracingRequest, carrier);
         if (!filterSpanDepth(tracingRequest)) {
             return Optional.empty();
         }
-        long startTime = System.currentTimeMillis();
+        if (!sampler.shouldSample(tracingRequest)) {
+            threadLocal.set(NOT_SAMPLED_CONTEXT);
+            notSampledDepth.get()[0] = 1;
+            return Optional.empty();
+        }
         SpanEventContext spanEventContext = new SpanEventContext(tracingRequest);
-        SpanEvent spanEvent = spanEventContext.getSpanEvent();
-        spanEvent.setStartTime(startTime);
+        spanEventContext.startSpanEvent();
         threadLocal.set(spanEventContext);
-        return Optional.of(spanEvent);
+        return Optional.of(spanEventContext.getSpanEvent());
     }
 
     @Override
@@ -108,6 +195,10 @@ public class TracingServiceImpl implements TracingService {
         if (!isTracing) {
             return Optional.empty();
         }
+        if (threadLocal.get() == NOT_SAMPLED_CONTEXT) {
+            enterNotSampledSpan();
+            return Optional.empty();
+        }
         Optional<SpanEvent> spanEventOptional = configureSpanEvent(tracingRequest);
         if (!spanEventOptional.isPresent()) {
             return spanEventOptional;
@@ -122,6 +213,11 @@ public class TracingServiceImpl implements TracingService {
         if (!isTracing) {
             return Optional.empty();
         }
+        if (threadLocal.get() == NOT_SAMPLED_CONTEXT) {
+            enterNotSampledSpan();
+            injectService.addToCarrier(NOT_SAMPLED_CONTEXT.getSpanEvent(), carrier);
+            return Optional.empty();
+        }
         Optional<SpanEvent> spanEventOptional = configureSpanEvent(tracingRequest);
         if (!spanEventOptional.isPresent()) {
             return spanEventOptional;
@@ -135,15 +231,22 @@ public class TracingServiceImpl implements TracingService {
 
     private Optional<SpanEvent> configureSpanEvent(TracingRequest tracingRequest) {
         SpanEventContext spanEventContext = threadLocal.get();
+        if (spanEventContext == NOT_SAMPLED_CONTEXT) {
+            return Optional.empty();
+        }
 
         // 当前Span个数已经超过当前层能采集的最大值，需要清空ThreadLocal不再采集，防止内存泄露
         if (spanEventContext == null || spanEventContext.getSpanIdCount().get() > MAX_SPAN_EVENT_COUNT) {
             threadLocal.remove();
             return Optional.empty();
         }
-        spanEventContext.addChildrenSpan();
+        if (spanEventPool == null) {
+            spanEventContext.addChildrenSpan();
+        } else {
+            spanEventContext.addChildrenSpan(spanEventPool.poll());
+        }
+        spanEventContext.startSpanEvent();
         SpanEvent spanEvent = spanEventContext.getSpanEvent();
-        spanEvent.setStartTime(System.currentTimeMillis());
         spanEvent.setClassName(tracingRequest.getClassName());
         spanEvent.setMethod(tracingRequest.getMethod());
         return Optional.of(spanEvent);
@@ -155,16 +258,35 @@ public class TracingServiceImpl implements TracingService {
             return;
         }
         SpanEventContext spanEventContext = threadLocal.get();
+        if (spanEventContext == NOT_SAMPLED_CONTEXT) {
+            exitNotSampledSpan();
+            return;
+        }
         if (spanEventContext == null) {
             return;
         }
         SpanEvent spanEvent = spanEventContext.getSpanEvent();
-        spanEvent.setEndTime(System.currentTimeMillis());
-        sendSpanEvent(spanEvent);
 
-        // 发送完SpanEvent数据后，需要将当前上下文中存放的SpanEvent置为当前Span的父Span
-        if (spanEvent.getParentSpan() != null) {
-            spanEventContext.setSpanEvent(spanEvent.getParentSpan());
+        // 跨线程传递的起始Span属于提交任务的线程，由其所在线程结束
+        if (spanEvent == spanEventContext.getBaseSpanEvent()) {
+            return;
+        }
+        spanEventContext.finishSpanEvent();
+
+        // 发送后SpanEvent可能被发送线程回收，需在发送前将当前上下文中存放的SpanEvent置为当前Span的父Span
+        SpanEvent parentSpanEvent = spanEvent.getParentSpan();
+        if (parentSpanEvent != null) {
+            spanEventContext.setSpanEvent(parentSpanEvent);
+        }
+        if (isTailSamplingEnable) {
+            bufferSpanEvent(spanEventContext, spanEvent, parentSpanEvent);
+        } else {
+            sendSpanEvent(spanEvent);
+        }
+
+        // 入口Span已结束，清除上下文
+        if (parentSpanEvent == null) {
+            threadLocal.remove();
         }
     }
 
@@ -174,15 +296,38 @@ public class TracingServiceImpl implements TracingService {
             return Optional.empty();
         }
         SpanEventContext spanEventContext = threadLocal.get();
-        if (spanEventContext == null) {
+        if (spanEventContext == null || spanEventContext == NOT_SAMPLED_CONTEXT) {
             return Optional.empty();
         }
         SpanEvent spanEvent = spanEventContext.getSpanEvent();
+        if (spanEvent == spanEventContext.getBaseSpanEvent()) {
+            return Optional.empty();
+        }
         spanEvent.setError(true);
         spanEvent.setErrorInfo(throwable.getMessage());
         return Optional.of(spanEvent);
     }
 
+    /**
+     * 未采样链路中的Span开始，当前线程持有未采样的入口Span时深度加一
+     */
+    private void enterNotSampledSpan() {
+        int[] depth = notSampledDepth.get();
+        if (depth[0] > 0) {
+            depth[0]++;
+        }
+    }
+
+    /**
+     * 未采样链路中的Span结束，深度归零即未采样的入口Span结束，清除上下文
+     */
+    private void exitNotSampledSpan() {
+        int[] depth = notSampledDepth.get();
+        if (depth[0] > 0 && --depth[0] == 0) {
+            threadLocal.remove();
+        }
+    }
+
     /**
      * 通过SpanId来限制采样深度
      *
@@ -200,8 +345,42 @@ public class TracingServiceImpl implements TracingService {
     }
 
     private void sendSpanEvent(SpanEvent spanEvent) {
-        LOGGER.info(String.format(Locale.ROOT, "Add spanEvent to queue , TraceId : [%s] , SpanId [%s] . ",
-            spanEvent.getTraceId(), spanEvent.getSpanId()));
         tracingSender.offerSpanEvent(spanEvent);
     }
+
+    /**
+     * 暂存已结束的SpanEvent，入口Span结束时若为慢调用或链路中出现异常则发送全部暂存的SpanEvent，否则丢弃。
+     * 跨线程传递的上下文中，起始Span的直接子Span即为当前线程的入口Span
+     *
+     * @param spanEventContext 上下文
+     * @param spanEvent 已结束的SpanEvent
+     * @param parentSpanEvent 已结束SpanEvent的父Span
+     */
+    private void bufferSpanEvent(SpanEventContext spanEventContext, SpanEvent spanEvent, SpanEvent parentSpanEvent) {
+        spanEventContext.bufferSpanEvent(spanEvent);
+        if (parentSpanEvent != spanEventContext.getBaseSpanEvent()) {
+            return;
+        }
+        List<SpanEvent> spanEvents = spanEventContext.drainBufferedSpanEvents();
+        boolean isKept = spanEvent.getDuration() >= slowThreshold;
+        for (int i = 0; i < spanEvents.size() && !isKept; i++) {
+            isKept = spanEvents.get(i).isError();
+        }
+        for (SpanEvent bufferedSpanEvent : spanEvents) {
+            if (isKept) {
+                sendSpanEvent(bufferedSpanEvent);
+            } else if (spanEventPool != null) {
+                spanEventPool.recycle(bufferedSpanEvent);
+            }
+        }
+    }
+
+    private static SpanEventContext createNotSampledContext() {
+        SpanEventContext spanEventContext = new SpanEventContext(new TracingRequest(null, null));
+        SpanEvent spanEvent = spanEventContext.getSpanEvent();
+        spanEvent.setTraceId(null);
+        spanEvent.setSpanId(null);
+        spanEvent.setSampled(false);
+        return spanEventContext;
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.service.tracing.sender;
+
+import com.huaweicloud.sermant.core.service.tracing.common.SourceInfo;
+import com.huaweicloud.sermant.core.service.tracing.common.SpanEvent;
+import com.huaweicloud.sermant.core.service.tracing.common.TargetInfo;
+import com.huaweicloud.sermant.implement.service.send.netty.pojo.Message;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 将SpanEvent转换为protobuf格式的链路数据，protobuf字段不接受null，为null的字段不设置
+ *
+ * @author luanwenfei
+ * @since 2022-09-28
+ */
+public class SpanEventConverter {
+    private SpanEventConverter() {
+    }
+
+    /**
+     * 将一批SpanEvent转换为批量链路数据
+     *
+     * @param spanEvents 待转换的SpanEvent
+     * @return 批量链路数据
+     */
+    public static Message.SpanEventBatch convert(List<SpanEvent> spanEvents) {
+        Message.SpanEventBatch.Builder builder = Message.SpanEventBatch.newBuilder();
+        for (SpanEvent spanEvent : spanEvents) {
+            builder.addSpanEvent(convert(spanEvent));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 转换单个SpanEvent
+     *
+     * @param spanEvent SpanEvent
+     * @return 链路数据
+     */
+    public static Message.SpanEventData convert(SpanEvent spanEvent) {
+        Message.SpanEventData.Builder builder = Message.SpanEventData.newBuilder()
+            .setStartTime(spanEvent.getStartTime())
+            .setEndTime(spanEvent.getEndTime())
+            .setDuration(spanEvent.getDuration())
+            .setIsError(spanEvent.isError())
+            .setIsAsync(spanEvent.isAsync());
+        if (spanEvent.getTraceId() != null) {
+            builder.setTraceId(spanEvent.getTraceId());
+        }
+        if (spanEvent.getSpanId() != null) {
+            builder.setSpanId(spanEvent.getSpanId());
+        }
+        if (spanEvent.getParentSpanId() != null) {
+            builder.setParentSpanId(spanEvent.getParentSpanId());
+        }
+        if (spanEvent.getClassName() != null) {
+            builder.setClassName(spanEvent.getClassName());
+        }
+        if (spanEvent.getMethod() != null) {
+            builder.setMethod(spanEvent.getMethod());
+        }
+        if (spanEvent.getOperationDescription() != null) {
+            builder.setOperationDescription(spanEvent.getOperationDescription());
+        }
+        if (spanEvent.getType() != null) {
+            builder.setType(spanEvent.getType());
+        }
+        if (spanEvent.getErrorInfo() != null) {
+            builder.setErrorInfo(spanEvent.getErrorInfo());
+        }
+        SourceInfo sourceInfo = spanEvent.getSourceInfo();
+        if (sourceInfo != null) {
+            builder.setSourceInfo(convertNodeInfo(sourceInfo.getAddress(), sourceInfo.getClassName(),
+                sourceInfo.getMethod()));
+        }
+        TargetInfo targetInfo = spanEvent.getTargetInfo();
+        if (targetInfo != null) {
+            builder.setTargetInfo(convertNodeInfo(targetInfo.getAddress(), targetInfo.getClassName(),
+                targetInfo.getMethod()));
+        }
+        if (spanEvent.hasTags()) {
+            for (Map.Entry<String, String> entry : spanEvent.getTags().entrySet()) {
+                if (entry.getKey() != null && entry.getValue() != null) {
+                    builder.putTags(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private static Message.SpanNodeInfo convertNodeInfo(String address, String className, String method) {
+        Message.SpanNodeInfo.Builder builder = Message.SpanNodeInfo.newBuilder();
+        if (address != null) {
+            builder.setAddress(address);
+        }
+        if (className != null) {
+            builder.setClassName(className);
+        }
+        if (method != null) {
+            builder.setMethod(method);
+        }
+        return builder.build();
+    }
+}
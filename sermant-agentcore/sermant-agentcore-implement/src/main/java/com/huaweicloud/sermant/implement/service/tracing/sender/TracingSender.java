@@ -20,20 +20,26 @@ import com.huaweicloud.sermant.core.common.LoggerFactory;
 import com.huaweicloud.sermant.core.service.ServiceManager;
 import com.huaweicloud.sermant.core.service.send.api.GatewayClient;
 import com.huaweicloud.sermant.core.service.tracing.common.SpanEvent;
+import com.huaweicloud.sermant.implement.service.send.common.SendRingBuffer;
+import com.huaweicloud.sermant.implement.service.send.netty.pojo.Message;
+import com.huaweicloud.sermant.implement.service.tracing.SpanEventPool;
 
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.serializer.SerializerFeature;
-
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
-import java.util.Optional;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Logger;
 
 /**
  * 链路追踪消息发送器
+ * <p>发送线程每个周期批量取出队列中的SpanEvent，编码为一条protobuf格式的{@link Message.SpanEventBatch}后发送，
+ * 队列中的SpanEvent达到单批次上限时立即唤醒发送线程。开启SpanEvent复用时，发送或丢弃后的SpanEvent回收至对象池
+ * <p>网关客户端不可用或发送失败时丢弃当前批次，发送线程继续处理后续批次
  *
  * @author luanwenfei
  * @since 2022-03-04
@@ -41,28 +47,57 @@ import java.util.logging.Logger;
 public class TracingSender {
     private static final Logger LOGGER = LoggerFactory.getLogger();
 
-    private static final int TRACING_DATA_TYPE = 10;
+    private static final int MAX_SPAN_EVENT_COUNT = 8192;
 
-    private static final int MAX_SPAN_EVENT_COUNT = 512;
+    /**
+     * 单批次最多发送的SpanEvent个数
+     */
+    private static final int MAX_BATCH_SIZE = 512;
 
     private static final long TRACING_SENDER_MINIMAL_INTERVAL = 1000L;
 
     private static final long STOP_TIME_OUT = 3000L;
 
-    private static final ArrayBlockingQueue<SpanEvent> SPAN_EVENT_DATA_QUEUE =
-        new ArrayBlockingQueue<>(MAX_SPAN_EVENT_COUNT);
+    private static final long STOP_CHECK_INTERVAL = 100L;
+
+    /**
+     * 统计信息输出间隔
+     */
+    private static final long REPORT_INTERVAL = 60000L;
+
+    private static final SendRingBuffer<SpanEvent> SPAN_EVENT_DATA_QUEUE = new SendRingBuffer<>(MAX_SPAN_EVENT_COUNT);
 
     private static final ExecutorService EXECUTOR =
         Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "tracing-sender-thread"));
 
     private static TracingSender tracingSender = null;
 
-    private GatewayClient gatewayClient;
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final AtomicLong exportedCount = new AtomicLong();
+
+    private final AtomicLong batchCount = new AtomicLong();
+
+    /**
+     * 是否已唤醒发送线程，避免每个SpanEvent都唤醒一次
+     */
+    private final AtomicBoolean isWakeUpPending = new AtomicBoolean();
+
+    private volatile Thread senderThread;
+
+    private volatile int maxBatchSize;
+
+    private volatile GatewayClient gatewayClient;
+
+    /**
+     * SpanEvent对象池，未开启复用时为null
+     */
+    private volatile SpanEventPool spanEventPool;
 
     /**
      * 当前服务开启和关闭的标记位
      */
-    private boolean isSending;
+    private volatile boolean isSending;
 
     private TracingSender() {
     }
@@ -88,7 +123,7 @@ public class TracingSender {
             return;
         }
         this.isSending = true;
-        gatewayClient = ServiceManager.getService(GatewayClient.class);
+        gatewayClient = findGatewayClient();
         EXECUTOR.execute(new SpanEventSendThread());
     }
 
@@ -104,28 +139,36 @@ public class TracingSender {
     }
 
     /**
-     * 检查阻塞队列、阻塞队列为空或者等待超时后关闭
+     * 唤醒发送线程发送队列中的数据，阻塞队列为空或者等待超时后关闭
      *
      * @param timeOut 超时时间
      */
     public void stopSoft(long timeOut) {
         long timeDuring = 0L;
-        while (!SPAN_EVENT_DATA_QUEUE.isEmpty() && timeDuring < timeOut) {
+        while (SPAN_EVENT_DATA_QUEUE.size() > 0 && senderThread != null && timeDuring < timeOut) {
+            wakeUp();
             try {
-                Thread.sleep(TRACING_SENDER_MINIMAL_INTERVAL);
-                timeDuring += TRACING_SENDER_MINIMAL_INTERVAL;
+                Thread.sleep(STOP_CHECK_INTERVAL);
+                timeDuring += STOP_CHECK_INTERVAL;
             } catch (InterruptedException e) {
                 LOGGER.severe(String.format(Locale.ROOT,
                     "Exception [%s] occurs for [%s] when waiting to stop TracingSender service. ", e.getClass(),
                     e.getMessage()));
+                break;
             }
         }
-        SPAN_EVENT_DATA_QUEUE.clear();
+        while (SPAN_EVENT_DATA_QUEUE.poll() != null) {
+            droppedCount.incrementAndGet();
+        }
         this.isSending = false;
+        final Thread thread = senderThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
     }
 
     /**
-     * 向阻塞队列里添加SpanEvent 发送数据线程获取后发送到backend
+     * 向发送队列里添加SpanEvent，发送线程批量获取后发送到backend，队列已满时丢弃
      *
      * @param spanEvent span数据
      */
@@ -133,12 +176,83 @@ public class TracingSender {
         if (spanEvent == null) {
             return;
         }
-        boolean isSuccessful = SPAN_EVENT_DATA_QUEUE.offer(spanEvent);
-        if (!isSuccessful) {
-            LOGGER.warning("Failed to offer spanEvent.");
+        if (!SPAN_EVENT_DATA_QUEUE.offer(spanEvent)) {
+            droppedCount.incrementAndGet();
+            recycle(spanEvent);
+            return;
+        }
+        if (SPAN_EVENT_DATA_QUEUE.size() >= MAX_BATCH_SIZE) {
+            wakeUp();
         }
     }
 
+    /**
+     * 设置SpanEvent对象池，为null时不回收SpanEvent
+     *
+     * @param spanEventPool SpanEvent对象池
+     */
+    public void setSpanEventPool(SpanEventPool spanEventPool) {
+        this.spanEventPool = spanEventPool;
+    }
+
+    private void recycle(SpanEvent spanEvent) {
+        SpanEventPool pool = spanEventPool;
+        if (pool != null) {
+            pool.recycle(spanEvent);
+        }
+    }
+
+    private static GatewayClient findGatewayClient() {
+        try {
+            return ServiceManager.getService(GatewayClient.class);
+        } catch (IllegalArgumentException ignored) {
+            return null;
+        }
+    }
+
+    private void wakeUp() {
+        final Thread thread = senderThread;
+        if (thread != null && isWakeUpPending.compareAndSet(false, true)) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * 获取因队列已满或服务关闭而丢弃的SpanEvent个数
+     *
+     * @return 丢弃的SpanEvent个数
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * 获取已发送的SpanEvent个数
+     *
+     * @return 已发送的SpanEvent个数
+     */
+    public long getExportedCount() {
+        return exportedCount.get();
+    }
+
+    /**
+     * 获取已发送的批次数，与{@link #getExportedCount()}结合可得平均批次大小
+     *
+     * @return 已发送的批次数
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * 获取发送过的最大批次大小
+     *
+     * @return 最大批次大小
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
     /**
      * 链路追踪消息发送线程
      *
@@ -146,42 +260,80 @@ public class TracingSender {
      * @since 2022-03-04
      */
     private class SpanEventSendThread extends Thread {
+        private final List<SpanEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+
+        private long lastReportTime = System.currentTimeMillis();
+
+        private long lastReportDropped;
+
         @Override
         public void run() {
+            senderThread = Thread.currentThread();
             LOGGER.info("TracingSender started.");
             while (isSending) {
-                Optional<TracingMessage> tracingMessage = buildTracingMessage();
-                if (!tracingMessage.isPresent()) {
-                    // 如果没有获取到SpanEvent,等待一段时间后再次执行
+                isWakeUpPending.set(false);
+                while (SPAN_EVENT_DATA_QUEUE.drainTo(batch, MAX_BATCH_SIZE) > 0) {
                     try {
-                        Thread.sleep(TRACING_SENDER_MINIMAL_INTERVAL);
-                    } catch (InterruptedException e) {
-                        LOGGER.severe(String.format(Locale.ROOT, "Exception [%s] occurs for [%s] when waiting queue. ",
-                            e.getClass(), e.getMessage()));
+                        sendBatch();
+                    } catch (RuntimeException e) {
+                        droppedCount.addAndGet(batch.size());
+                        LOGGER.warning(String.format(Locale.ROOT,
+                            "Exception [%s] occurs for [%s] when sending %d spans, discard them.", e.getClass(),
+                            e.getMessage(), batch.size()));
+                    } finally {
+                        for (SpanEvent spanEvent : batch) {
+                            recycle(spanEvent);
+                        }
+                        batch.clear();
                     }
-                    continue;
                 }
-                sendMessage(tracingMessage.get());
+                report();
+
+                // 队列中的SpanEvent未达到单批次上限时，等待一个周期或被唤醒后再次发送
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(TRACING_SENDER_MINIMAL_INTERVAL));
             }
+            senderThread = null;
             LOGGER.info("TracingSender stopped.");
         }
 
-        private Optional<TracingMessage> buildTracingMessage() {
-            SpanEvent spanEvent = SPAN_EVENT_DATA_QUEUE.poll();
-            if (spanEvent == null) {
-                return Optional.empty();
+        private void sendBatch() {
+            GatewayClient client = gatewayClient;
+            if (client == null) {
+                // 启动时网关客户端可能尚未就绪，每个批次重新获取一次
+                client = findGatewayClient();
+                if (client == null) {
+                    droppedCount.addAndGet(batch.size());
+                    LOGGER.fine(String.format(Locale.ROOT, "Gateway client is unavailable, discard %d spans.",
+                        batch.size()));
+                    return;
+                }
+                gatewayClient = client;
+            }
+            byte[] data = SpanEventConverter.convert(batch).toByteArray();
+            client.send(data, Message.ServiceData.DataType.AGENT_SPAN_EVENT_BATCH_VALUE);
+            exportedCount.addAndGet(batch.size());
+            batchCount.incrementAndGet();
+            if (batch.size() > maxBatchSize) {
+                maxBatchSize = batch.size();
             }
-
-            // 节点信息待整改配置后获取
-            TracingMessageHeader tracingMessageHeader = new TracingMessageHeader();
-            return Optional.of(new TracingMessage(spanEvent.getTraceId(), tracingMessageHeader, spanEvent));
         }
 
-        private void sendMessage(TracingMessage tracingMessage) {
-            LOGGER.info(String.format(Locale.ROOT, "Sending tracing message traceId : [%s] , spanId : [%s] .",
-                tracingMessage.getBody().getTraceId(), tracingMessage.getBody().getSpanId()));
-            String serializedMessage = JSON.toJSONString(tracingMessage, SerializerFeature.WriteMapNullValue);
-            gatewayClient.send(serializedMessage.getBytes(StandardCharsets.UTF_8), TRACING_DATA_TYPE);
+        private void report() {
+            long now = System.currentTimeMillis();
+            if (now - lastReportTime < REPORT_INTERVAL) {
+                return;
+            }
+            long dropped = droppedCount.get();
+            if (dropped > lastReportDropped) {
+                LOGGER.warning(String.format(Locale.ROOT,
+                    "Tracing send queue is full, dropped spans: %d (+%d), exported spans: %d, batches: %d.",
+                    dropped, dropped - lastReportDropped, exportedCount.get(), batchCount.get()));
+            } else {
+                LOGGER.fine(String.format(Locale.ROOT, "Exported spans: %d, batches: %d, max batch size: %d.",
+                    exportedCount.get(), batchCount.get(), maxBatchSize));
+            }
+            lastReportTime = now;
+            lastReportDropped = dropped;
         }
     }
 }
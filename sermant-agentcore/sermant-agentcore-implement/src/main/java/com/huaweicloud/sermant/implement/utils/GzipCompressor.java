@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 可复用的gzip压缩器，输出格式与{@link java.util.zip.GZIPOutputStream}一致，可由{@link GzipUtils#decompress}解压
+ * <p>压缩器内部的{@link Deflater}和缓冲区在多次压缩之间复用，避免每条消息都创建并释放本地压缩资源
+ * <p>除一次性压缩外，也可通过{@link #begin}、{@link #write}和{@link #finish}将多段数据以流的方式压缩为一个gzip数据
+ * <p>注意，该类非线程安全，使用完毕后需调用{@link #end}释放本地资源
+ *
+ * @author lilai
+ * @version 0.0.1
+ * @since 2022-09-28
+ */
+public class GzipCompressor {
+    // gzip头部：魔数、压缩方法、标志位、修改时间、额外标志、操作系统
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    // gzip尾部长度：CRC32和原数据长度
+    private static final int TRAILER_LENGTH = 8;
+
+    // 缓冲区大小
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final int BYTE_MASK = 0xff;
+
+    private static final int BYTE_BITS = 8;
+
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+
+    private final CRC32 crc = new CRC32();
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream(BUFFER_SIZE);
+
+    // 流式压缩的输出流，未开始压缩时为null
+    private OutputStream target;
+
+    /**
+     * 压缩数据
+     *
+     * @param data 待压缩的数据
+     * @return 压缩完成的数据
+     */
+    public byte[] compress(byte[] data) {
+        output.reset();
+        try {
+            compress(data, output);
+        } catch (IOException ignored) {
+            // ByteArrayOutputStream不会抛出IO异常
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * 压缩数据并写入输出流
+     *
+     * @param data 待压缩的数据
+     * @param os   输出流
+     * @throws IOException 写入输出流失败
+     */
+    public void compress(byte[] data, OutputStream os) throws IOException {
+        begin(os);
+        write(data, 0, data.length);
+        finish();
+    }
+
+    /**
+     * 开始流式压缩，写入gzip头部
+     *
+     * @param os 输出流
+     * @throws IOException 写入输出流失败
+     */
+    public void begin(OutputStream os) throws IOException {
+        deflater.reset();
+        crc.reset();
+        target = os;
+        os.write(HEADER);
+    }
+
+    /**
+     * 压缩一段数据并写入{@link #begin}指定的输出流
+     *
+     * @param data   数据
+     * @param offset 起始位置
+     * @param length 长度
+     * @throws IOException 写入输出流失败
+     */
+    public void write(byte[] data, int offset, int length) throws IOException {
+        if (length <= 0) {
+            return;
+        }
+        crc.update(data, offset, length);
+        deflater.setInput(data, offset, length);
+        while (!deflater.needsInput()) {
+            deflate();
+        }
+    }
+
+    /**
+     * 结束流式压缩，写出剩余的压缩数据和gzip尾部
+     *
+     * @throws IOException 写入输出流失败
+     */
+    public void finish() throws IOException {
+        deflater.finish();
+        while (!deflater.finished()) {
+            deflate();
+        }
+        writeInt((int) crc.getValue(), buffer, 0);
+        writeInt((int) deflater.getBytesRead(), buffer, TRAILER_LENGTH / 2);
+        target.write(buffer, 0, TRAILER_LENGTH);
+        target = null;
+    }
+
+    /**
+     * 释放本地压缩资源
+     */
+    public void end() {
+        deflater.end();
+    }
+
+    private void deflate() throws IOException {
+        final int length = deflater.deflate(buffer, 0, buffer.length);
+        if (length > 0) {
+            target.write(buffer, 0, length);
+        }
+    }
+
+    private static void writeInt(int value, byte[] bytes, int offset) {
+        for (int i = 0; i < TRAILER_LENGTH / 2; i++) {
+            bytes[offset + i] = (byte) ((value >>> (i * BYTE_BITS)) & BYTE_MASK);
+        }
+    }
+}
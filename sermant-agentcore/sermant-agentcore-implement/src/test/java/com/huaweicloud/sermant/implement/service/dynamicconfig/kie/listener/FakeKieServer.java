@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.service.dynamicconfig.kie.listener;
+
+import com.alibaba.fastjson.JSONObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地KIE服务模拟, 支持标签过滤、精确匹配、revision与wait长轮询
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class FakeKieServer {
+    private static final int NOT_MODIFIED = 304;
+
+    private static final int OK = 200;
+
+    private static final int SECONDS_UNIT = 1000;
+
+    private final List<Map<String, Object>> kvs = new ArrayList<>();
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private final AtomicInteger longPollCount = new AtomicInteger();
+
+    private final HttpServer server;
+
+    private long revision;
+
+    /**
+     * 构造并启动服务
+     *
+     * @throws IOException 端口绑定失败
+     */
+    public FakeKieServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * 服务地址
+     *
+     * @return 地址
+     */
+    public String getAddress() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * 新增或更新配置, 并唤醒等待中的长轮询
+     *
+     * @param key 键
+     * @param value 值
+     * @param labels 标签
+     */
+    public synchronized void put(String key, String value, Map<String, String> labels) {
+        Map<String, Object> target = null;
+        for (Map<String, Object> kv : kvs) {
+            if (key.equals(kv.get("key")) && labels.equals(kv.get("labels"))) {
+                target = kv;
+            }
+        }
+        if (target == null) {
+            target = new HashMap<>();
+            target.put("id", String.valueOf(kvs.size()));
+            target.put("key", key);
+            target.put("labels", new HashMap<>(labels));
+            target.put("status", "enabled");
+            kvs.add(target);
+        }
+        target.put("value", value);
+        revision++;
+        notifyAll();
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    public int getLongPollCount() {
+        return longPollCount.get();
+    }
+
+    /**
+     * 停止服务
+     */
+    public void stop() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        final Map<String, String> labels = new HashMap<>();
+        final Map<String, String> params = new HashMap<>();
+        parseQuery(exchange.getRequestURI().getRawQuery(), labels, params);
+        final boolean isExact = "exact".equals(params.get("match"));
+        final String wait = params.get("wait");
+        final long requestRevision = parseRevision(params.get("revision"));
+        if (wait != null) {
+            longPollCount.incrementAndGet();
+        }
+        String body = null;
+        long curRevision;
+        synchronized (this) {
+            if (wait != null && requestRevision == revision) {
+                final long waitMs = Long.parseLong(wait.substring(0, wait.length() - 1)) * SECONDS_UNIT;
+                final long deadline = System.currentTimeMillis() + waitMs;
+                long remain = waitMs;
+                while (requestRevision == revision && remain > 0) {
+                    try {
+                        wait(remain);
+                    } catch (InterruptedException ignored) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    remain = deadline - System.currentTimeMillis();
+                }
+            }
+            curRevision = revision;
+            if (requestRevision != revision) {
+                body = buildBody(labels, isExact);
+            }
+        }
+        exchange.getResponseHeaders().add("X-Kie-Revision", String.valueOf(curRevision));
+        if (body == null) {
+            exchange.sendResponseHeaders(NOT_MODIFIED, -1);
+            exchange.close();
+            return;
+        }
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(OK, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    private long parseRevision(String revisionParam) {
+        try {
+            return revisionParam == null ? -1L : Long.parseLong(revisionParam);
+        } catch (NumberFormatException ex) {
+            return -1L;
+        }
+    }
+
+    private String buildBody(Map<String, String> labels, boolean isExact) {
+        final List<Map<String, Object>> data = new ArrayList<>();
+        for (Map<String, Object> kv : kvs) {
+            if (isMatch(labels, (Map<?, ?>) kv.get("labels"), isExact)) {
+                data.add(kv);
+            }
+        }
+        final JSONObject result = new JSONObject();
+        result.put("total", data.size());
+        result.put("data", data);
+        return result.toJSONString();
+    }
+
+    private boolean isMatch(Map<String, String> labels, Map<?, ?> kvLabels, boolean isExact) {
+        if (isExact && labels.size() != kvLabels.size()) {
+            return false;
+        }
+        for (Map.Entry<String, String> entry : labels.entrySet()) {
+            if (!entry.getValue().equals(kvLabels.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void parseQuery(String query, Map<String, String> labels, Map<String, String> params)
+            throws UnsupportedEncodingException {
+        if (query == null) {
+            return;
+        }
+        for (String pair : query.split("&")) {
+            final int index = pair.indexOf('=');
+            if (index < 0) {
+                continue;
+            }
+            final String name = pair.substring(0, index);
+            final String value = URLDecoder.decode(pair.substring(index + 1), "UTF-8");
+            if ("label".equals(name)) {
+                final int separator = value.indexOf(':');
+                labels.put(value.substring(0, separator), value.substring(separator + 1));
+            } else {
+                params.put(name, value);
+            }
+        }
+    }
+}
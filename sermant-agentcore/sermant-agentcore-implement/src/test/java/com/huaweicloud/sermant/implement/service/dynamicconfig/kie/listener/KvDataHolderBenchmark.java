@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.service.dynamicconfig.kie.listener;
+
+import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.kie.KieConfigEntity;
+import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.kie.KieResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大配置组下Kie响应对比的基准测试, 对比按键指纹对比与每次重建全量Map对比的耗时与内存分配
+ * <p>基准测试不参与单元测试, 需在benchmark profile下编译后通过JMH运行, 例如:
+ * <pre>
+ * mvn -Pagent,benchmark test-compile -pl sermant-agentcore-implement -am
+ * mvn dependency:build-classpath -Dmdep.outputFile=cp.txt -pl sermant-agentcore-implement -Pagent,benchmark
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main KvDataHolderBenchmark -prof gc
+ * </pre>
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KvDataHolderBenchmark {
+    private static final int VALUE_LENGTH = 1024;
+
+    @Param({"10000"})
+    private int keyCount;
+
+    private KieResponse unchangedResponse;
+
+    private KieResponse changedResponse;
+
+    private KvDataHolder kvDataHolder;
+
+    private Map<String, String> currentData;
+
+    private boolean isChanged;
+
+    /**
+     * 构造配置组, 两个响应之间仅有一个键的内容不同
+     */
+    @Setup
+    public void setUp() {
+        final StringBuilder builder = new StringBuilder(VALUE_LENGTH);
+        for (int i = 0; i < VALUE_LENGTH; i++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        final String value = builder.toString();
+        final List<KieConfigEntity> data = new ArrayList<>(keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            data.add(buildEntity("key" + i, value + i, i + 1));
+        }
+        unchangedResponse = buildResponse(data, "1");
+        data.set(0, buildEntity("key0", value + "changed", keyCount + 1L));
+        changedResponse = buildResponse(data, "2");
+        kvDataHolder = new KvDataHolder();
+        kvDataHolder.analyzeLatestData(unchangedResponse, true);
+        currentData = toMap(unchangedResponse);
+    }
+
+    /**
+     * 稳定状态下的指纹对比, 响应与上次一致
+     *
+     * @return 对比结果
+     */
+    @Benchmark
+    public KvDataHolder.EventDataHolder fingerprintUnchanged() {
+        return kvDataHolder.analyzeLatestData(unchangedResponse, false);
+    }
+
+    /**
+     * 指纹对比, 每次响应有一个键变更
+     *
+     * @return 对比结果
+     */
+    @Benchmark
+    public KvDataHolder.EventDataHolder fingerprintSingleChange() {
+        return kvDataHolder.analyzeLatestData(nextResponse(), false);
+    }
+
+    /**
+     * 稳定状态下的全量Map对比, 响应与上次一致
+     *
+     * @return 对比结果
+     */
+    @Benchmark
+    public KvDataHolder.EventDataHolder fullMapUnchanged() {
+        return fullMapDiff(unchangedResponse);
+    }
+
+    /**
+     * 全量Map对比, 每次响应有一个键变更
+     *
+     * @return 对比结果
+     */
+    @Benchmark
+    public KvDataHolder.EventDataHolder fullMapSingleChange() {
+        return fullMapDiff(nextResponse());
+    }
+
+    private KieResponse nextResponse() {
+        isChanged = !isChanged;
+        return isChanged ? changedResponse : unchangedResponse;
+    }
+
+    /**
+     * 按键指纹对比之前的实现, 每次响应重建全量Map并拷贝一份用于找出删除的键
+     *
+     * @param response 最新数据
+     * @return 对比结果
+     */
+    private KvDataHolder.EventDataHolder fullMapDiff(KieResponse response) {
+        final Map<String, String> latestData = toMap(response);
+        final KvDataHolder.EventDataHolder eventDataHolder = new KvDataHolder.EventDataHolder(0L);
+        final Map<String, String> temp = new HashMap<>(currentData);
+        for (Map.Entry<String, String> entry : latestData.entrySet()) {
+            final String value = currentData.get(entry.getKey());
+            if (value == null) {
+                eventDataHolder.getAdded().put(entry.getKey(), entry.getValue());
+            } else if (!value.equals(entry.getValue())) {
+                eventDataHolder.getModified().put(entry.getKey(), entry.getValue());
+            }
+            temp.remove(entry.getKey());
+        }
+        eventDataHolder.getDeleted().putAll(temp);
+        currentData = latestData;
+        return eventDataHolder;
+    }
+
+    private Map<String, String> toMap(KieResponse response) {
+        final Map<String, String> result = new HashMap<>();
+        for (KieConfigEntity entity : response.getData()) {
+            result.put(entity.getKey(), entity.getValue());
+        }
+        return result;
+    }
+
+    private KieConfigEntity buildEntity(String key, String value, long updateRevision) {
+        final KieConfigEntity entity = new KieConfigEntity();
+        entity.setKey(key);
+        entity.setValue(value);
+        entity.setUpdateRevision(updateRevision);
+        return entity;
+    }
+
+    private KieResponse buildResponse(List<KieConfigEntity> data, String revision) {
+        final KieResponse response = new KieResponse();
+        response.setData(new ArrayList<>(data));
+        response.setRevision(revision);
+        return response;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.service.dynamicconfig.kie.listener;
+
+import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.kie.KieConfigEntity;
+import com.huaweicloud.sermant.implement.service.dynamicconfig.kie.client.kie.KieResponse;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 数据对比测试
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class KvDataHolderTest {
+    private static final int KEY_COUNT = 10000;
+
+    private static final int ROUNDS = 3;
+
+    @Test
+    public void testAnalyzeLatestData() {
+        final KvDataHolder kvDataHolder = new KvDataHolder();
+        final List<KieConfigEntity> data = new ArrayList<>();
+        data.add(buildEntity("a", "1", 1));
+        data.add(buildEntity("b", "2", 1));
+        KvDataHolder.EventDataHolder holder = kvDataHolder.analyzeLatestData(buildResponse(data, "1"), true);
+        Assert.assertEquals(2, holder.getAdded().size());
+
+        // 无变更
+        holder = kvDataHolder.analyzeLatestData(buildResponse(data, "1"), false);
+        Assert.assertFalse(holder.isChanged());
+
+        // 版本号变更但值未变更, 不产生事件
+        data.set(0, buildEntity("a", "1", 2));
+        holder = kvDataHolder.analyzeLatestData(buildResponse(data, "2"), false);
+        Assert.assertFalse(holder.isChanged());
+
+        // 修改、删除与新增
+        data.set(0, buildEntity("a", "11", 3));
+        data.set(1, buildEntity("c", "3", 3));
+        holder = kvDataHolder.analyzeLatestData(buildResponse(data, "3"), false);
+        Assert.assertEquals("11", holder.getModified().get("a"));
+        Assert.assertEquals("3", holder.getAdded().get("c"));
+        Assert.assertEquals("2", holder.getDeleted().get("b"));
+        Assert.assertEquals(3L, holder.getVersion());
+
+        // 全部删除
+        holder = kvDataHolder.analyzeLatestData(buildResponse(new ArrayList<>(), "4"), false);
+        Assert.assertEquals(2, holder.getDeleted().size());
+        Assert.assertEquals("11", holder.getDeleted().get("a"));
+    }
+
+    /**
+     * 删除yaml格式的聚合配置时, 删除事件携带最近一次的完整内容, 以便监听器移除其中的规则
+     */
+    @Test
+    public void testDeleteYamlBundle() {
+        final String bundle = "servicecomb.rateLimiting.scene: |\n  rate: 10\n";
+        final String updatedBundle = "servicecomb.rateLimiting.scene: |\n  rate: 20\n";
+        final KvDataHolder kvDataHolder = new KvDataHolder();
+        final List<KieConfigEntity> data = new ArrayList<>();
+        data.add(buildEntity("flowcontrol.yaml", bundle, 1));
+        kvDataHolder.analyzeLatestData(buildResponse(data, "1"), true);
+        data.set(0, buildEntity("flowcontrol.yaml", updatedBundle, 2));
+        kvDataHolder.analyzeLatestData(buildResponse(data, "2"), false);
+
+        final KvDataHolder.EventDataHolder holder =
+            kvDataHolder.analyzeLatestData(buildResponse(new ArrayList<>(), "3"), false);
+        Assert.assertEquals(updatedBundle, holder.getDeleted().get("flowcontrol.yaml"));
+    }
+
+    @Test
+    public void testLargeGroupSingleChange() {
+        final List<KieConfigEntity> data = new ArrayList<>(KEY_COUNT);
+        for (int i = 0; i < KEY_COUNT; i++) {
+            data.add(buildEntity("key" + i, "value" + i, i + 1));
+        }
+        final KvDataHolder kvDataHolder = new KvDataHolder();
+        kvDataHolder.analyzeLatestData(buildResponse(data, "1"), true);
+
+        // 单个键变更
+        data.set(0, buildEntity("key0", "changed", KEY_COUNT + 1));
+        final KieResponse response = buildResponse(data, "2");
+        for (int i = 0; i < ROUNDS; i++) {
+            Assert.assertEquals(i == 0 ? 1 : 0, kvDataHolder.analyzeLatestData(response, false).getModified().size());
+        }
+    }
+
+    private KieConfigEntity buildEntity(String key, String value, long updateRevision) {
+        final KieConfigEntity entity = new KieConfigEntity();
+        entity.setKey(key);
+        entity.setValue(value);
+        entity.setUpdateRevision(updateRevision);
+        return entity;
+    }
+
+    private KieResponse buildResponse(List<KieConfigEntity> data, String revision) {
+        final KieResponse response = new KieResponse();
+        response.setData(new ArrayList<>(data));
+        response.setRevision(revision);
+        return response;
+    }
+}
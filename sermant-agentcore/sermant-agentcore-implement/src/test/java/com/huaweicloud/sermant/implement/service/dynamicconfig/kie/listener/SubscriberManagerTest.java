@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.service.dynamicconfig.kie.listener;
+
+import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEvent;
+import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEventType;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 合并订阅测试
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class SubscriberManagerTest {
+    private static final int GROUP_COUNT = 20;
+
+    private static final long WAIT_TIMEOUT_MS = 10000L;
+
+    private static final long NEW_GROUP_TIMEOUT_MS = 5000L;
+
+    private FakeKieServer kieServer;
+
+    @Before
+    public void setUp() throws IOException {
+        kieServer = new FakeKieServer();
+    }
+
+    @After
+    public void tearDown() {
+        kieServer.stop();
+    }
+
+    @Test
+    public void testMergedSubscribe() throws InterruptedException {
+        kieServer.put("init", "0", buildLabels(0));
+        final SubscriberManager subscriberManager = new SubscriberManager(kieServer.getAddress(), "default", true);
+        final List<List<DynamicConfigEvent>> events = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < GROUP_COUNT; i++) {
+            final List<DynamicConfigEvent> groupEvents = new CopyOnWriteArrayList<>();
+            events.add(groupEvents);
+            Assert.assertTrue(subscriberManager.addGroupListener("app=demo&service=service" + i, groupEvents::add,
+                true));
+        }
+
+        // 首次订阅时通过同步请求获取已有数据
+        Assert.assertEquals(1, events.get(0).size());
+        Assert.assertEquals(DynamicConfigEventType.INIT, events.get(0).get(0).getEventType());
+
+        // 变更通过合并的长轮询分发至对应标签组
+        final int subscribedPollCount = kieServer.getLongPollCount();
+        for (int i = 0; i < GROUP_COUNT; i++) {
+            kieServer.put("key", "value" + i, buildLabels(i));
+        }
+        for (int i = 0; i < GROUP_COUNT; i++) {
+            final List<DynamicConfigEvent> groupEvents = events.get(i);
+            final String value = "value" + i;
+            Assert.assertTrue(waitUntil(() -> groupEvents.stream().anyMatch(event -> "key".equals(event.getKey())
+                && value.equals(event.getContent()))));
+        }
+        for (List<DynamicConfigEvent> groupEvents : events) {
+            for (DynamicConfigEvent event : groupEvents) {
+                Assert.assertNotEquals(DynamicConfigEventType.DELETE, event.getEventType());
+            }
+        }
+
+        // 所有标签组共用长轮询请求, 请求数与标签组数量无关
+        Assert.assertTrue(kieServer.getLongPollCount() - subscribedPollCount < GROUP_COUNT);
+        subscriberManager.close();
+    }
+
+    @Test
+    public void testMergedSubscribeModify() throws InterruptedException {
+        final SubscriberManager subscriberManager = new SubscriberManager(kieServer.getAddress(), "default", true);
+        final List<DynamicConfigEvent> groupEvents = new CopyOnWriteArrayList<>();
+        Assert.assertTrue(subscriberManager.addGroupListener("app=demo&service=service1", groupEvents::add, false));
+        kieServer.put("key", "first", buildLabels(1));
+        Assert.assertTrue(waitUntil(() -> groupEvents.size() == 1));
+        Assert.assertEquals(DynamicConfigEventType.CREATE, groupEvents.get(0).getEventType());
+
+        // 其他标签组的数据不会通知到该标签组
+        kieServer.put("key", "other", buildLabels(2));
+        kieServer.put("key", "second", buildLabels(1));
+        Assert.assertTrue(waitUntil(() -> groupEvents.size() == 2));
+        Assert.assertEquals(DynamicConfigEventType.MODIFY, groupEvents.get(1).getEventType());
+        Assert.assertEquals("second", groupEvents.get(1).getContent());
+        subscriberManager.close();
+    }
+
+    @Test
+    public void testMergedSubscribeNewGroupDuringPoll() throws InterruptedException {
+        kieServer.put("key", "exist", buildLabels(2));
+        final SubscriberManager subscriberManager = new SubscriberManager(kieServer.getAddress(), "default", true);
+        Assert.assertTrue(subscriberManager.addGroupListener("app=demo&service=service1", event -> { }, false));
+
+        // 首次全量拉取后, 第二次长轮询因无变更而挂起
+        Assert.assertTrue(waitUntil(() -> kieServer.getLongPollCount() > 1));
+
+        // 新标签组无需等待进行中的长轮询结束即可收到已有数据
+        final List<DynamicConfigEvent> groupEvents = new CopyOnWriteArrayList<>();
+        Assert.assertTrue(subscriberManager.addGroupListener("app=demo&service=service2", groupEvents::add, false));
+        Assert.assertTrue(waitUntil(() -> groupEvents.size() == 1, NEW_GROUP_TIMEOUT_MS));
+        Assert.assertEquals("exist", groupEvents.get(0).getContent());
+        subscriberManager.close();
+    }
+
+    @Test
+    public void testRemoveConfigListener() throws InterruptedException {
+        final SubscriberManager subscriberManager = new SubscriberManager(kieServer.getAddress(), "default", true);
+        final List<DynamicConfigEvent> keyEvents = new CopyOnWriteArrayList<>();
+        final String group = "app=demo&service=service1";
+        Assert.assertTrue(subscriberManager.addConfigListener("key", group, keyEvents::add, false));
+        kieServer.put("key", "first", buildLabels(1));
+        Assert.assertTrue(waitUntil(() -> keyEvents.size() == 1));
+
+        // 移除后不再通知, 重复移除返回失败
+        Assert.assertTrue(subscriberManager.removeConfigListener("key", group));
+        Assert.assertFalse(subscriberManager.removeConfigListener("key", group));
+        kieServer.put("key", "second", buildLabels(1));
+        TimeUnit.MILLISECONDS.sleep(500L);
+        Assert.assertEquals(1, keyEvents.size());
+
+        // 再次订阅时重新创建任务
+        Assert.assertTrue(subscriberManager.addConfigListener("key", group, keyEvents::add, true));
+        Assert.assertTrue(waitUntil(() -> keyEvents.size() == 2));
+        Assert.assertEquals("second", keyEvents.get(1).getContent());
+        subscriberManager.close();
+    }
+
+    private Map<String, String> buildLabels(int index) {
+        final Map<String, String> labels = new HashMap<>();
+        labels.put("app", "demo");
+        labels.put("service", "service" + index);
+        return labels;
+    }
+
+    private boolean waitUntil(BooleanSupplier condition) throws InterruptedException {
+        return waitUntil(condition, WAIT_TIMEOUT_MS);
+    }
+
+    private boolean waitUntil(BooleanSupplier condition, long timeoutMs) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeoutMs;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            TimeUnit.MILLISECONDS.sleep(50L);
+        }
+        return condition.getAsBoolean();
+    }
+}
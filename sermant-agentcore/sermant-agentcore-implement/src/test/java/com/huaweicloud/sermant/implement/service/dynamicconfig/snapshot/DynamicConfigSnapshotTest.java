@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.service.dynamicconfig.snapshot;
+
+import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEvent;
+import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEventType;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 本地快照测试
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class DynamicConfigSnapshotTest {
+    private static final String GROUP = "app=demo";
+
+    private static final String SUBSCRIPTION = SnapshotListener.groupSubscription(GROUP);
+
+    private File snapshotFile;
+
+    @Before
+    public void setUp() throws IOException {
+        snapshotFile = Files.createTempFile("dynamic-config", ".snapshot").toFile();
+        Assert.assertTrue(snapshotFile.delete());
+    }
+
+    @After
+    public void tearDown() {
+        if (!snapshotFile.delete()) {
+            snapshotFile.deleteOnExit();
+        }
+    }
+
+    @Test
+    public void testPersistence() {
+        final DynamicConfigSnapshot snapshot = new DynamicConfigSnapshot(snapshotFile);
+        snapshot.load();
+        snapshot.update(SUBSCRIPTION, DynamicConfigEvent.createEvent("rule", GROUP, "content"));
+        snapshot.update(SUBSCRIPTION, DynamicConfigEvent.createEvent("removed", GROUP, "content"));
+        snapshot.update(SUBSCRIPTION, DynamicConfigEvent.deleteEvent("removed", GROUP, null));
+        snapshot.close();
+        Assert.assertTrue(snapshotFile.isFile());
+
+        final DynamicConfigSnapshot loaded = new DynamicConfigSnapshot(snapshotFile);
+        loaded.load();
+        final Map<String, DynamicConfigSnapshot.Entry> entries = loaded.getEntries(SUBSCRIPTION);
+        Assert.assertEquals(1, entries.size());
+        Assert.assertEquals("content", entries.get("rule").getContent());
+        Assert.assertEquals(GROUP, entries.get("rule").getGroup());
+        loaded.close();
+    }
+
+    @Test
+    public void testServeAndReconcile() {
+        final DynamicConfigSnapshot snapshot = new DynamicConfigSnapshot(snapshotFile);
+        snapshot.update(SUBSCRIPTION, DynamicConfigEvent.createEvent("same", GROUP, "v1"));
+        snapshot.update(SUBSCRIPTION, DynamicConfigEvent.createEvent("changed", GROUP, "v1"));
+        snapshot.update(SUBSCRIPTION, DynamicConfigEvent.createEvent("stale", GROUP, "v1"));
+        final List<DynamicConfigEvent> events = new ArrayList<>();
+        final SnapshotListener listener = new SnapshotListener(SUBSCRIPTION, events::add, snapshot);
+
+        // 快照先于配置中心通知
+        listener.serveSnapshot();
+        Assert.assertEquals(3, events.size());
+        events.clear();
+
+        // 配置中心返回数据后校正：内容一致不重复通知，内容变化重新通知，仅快照存在的配置删除
+        listener.process(DynamicConfigEvent.initEvent("same", GROUP, "v1"));
+        listener.process(DynamicConfigEvent.initEvent("changed", GROUP, "v2"));
+        listener.reconcile();
+        Assert.assertEquals(2, events.size());
+        Assert.assertEquals("v2", events.get(0).getContent());
+        Assert.assertEquals("stale", events.get(1).getKey());
+        Assert.assertEquals(DynamicConfigEventType.DELETE, events.get(1).getEventType());
+        Assert.assertEquals(2, snapshot.getEntries(SUBSCRIPTION).size());
+        snapshot.close();
+    }
+
+    @Test
+    public void testKeepSnapshotWhenRemoteUnavailable() {
+        final DynamicConfigSnapshot snapshot = new DynamicConfigSnapshot(snapshotFile);
+        snapshot.update(SUBSCRIPTION, DynamicConfigEvent.createEvent("rule", GROUP, "v1"));
+        final List<DynamicConfigEvent> events = new ArrayList<>();
+        final SnapshotListener listener = new SnapshotListener(SUBSCRIPTION, events::add, snapshot);
+        listener.serveSnapshot();
+
+        // 配置中心未应答, 保留快照中的配置
+        listener.reconcile(null);
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals("v1", snapshot.getEntries(SUBSCRIPTION).get("rule").getContent());
+        snapshot.close();
+    }
+
+    @Test
+    public void testPurgeSnapshotWhenRemoteAnsweredEmpty() {
+        final DynamicConfigSnapshot snapshot = new DynamicConfigSnapshot(snapshotFile);
+        snapshot.update(SUBSCRIPTION, DynamicConfigEvent.createEvent("rule", GROUP, "v1"));
+        final List<DynamicConfigEvent> events = new ArrayList<>();
+        final SnapshotListener listener = new SnapshotListener(SUBSCRIPTION, events::add, snapshot);
+        listener.serveSnapshot();
+        events.clear();
+
+        // 配置中心应答了空的配置列表, 仅存在于快照中的配置以删除事件通知
+        listener.reconcile(Collections.emptyList());
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals(DynamicConfigEventType.DELETE, events.get(0).getEventType());
+        Assert.assertTrue(snapshot.getEntries(SUBSCRIPTION).isEmpty());
+        snapshot.close();
+    }
+
+    @Test
+    public void testEmptyInitKeepsSnapshotWhenRemoteUnavailable() {
+        final DynamicConfigSnapshot snapshot = new DynamicConfigSnapshot(snapshotFile);
+        snapshot.update(SUBSCRIPTION, DynamicConfigEvent.createEvent("rule", GROUP, "v1"));
+        final List<DynamicConfigEvent> events = new ArrayList<>();
+        final SnapshotListener listener = new SnapshotListener(SUBSCRIPTION, events::add, snapshot);
+        listener.serveSnapshot();
+        events.clear();
+
+        // 连接断开时初始化事件的内容同样为空, 配置中心未确认配置不存在时保留快照
+        listener.process(DynamicConfigEvent.initEvent("rule", GROUP, ""));
+        listener.reconcile(null);
+        Assert.assertTrue(events.isEmpty());
+        Assert.assertEquals("v1", snapshot.getEntries(SUBSCRIPTION).get("rule").getContent());
+        snapshot.close();
+    }
+
+    @Test
+    public void testEmptyInitDeletesSnapshotWhenRemoteConfirmedAbsent() {
+        final DynamicConfigSnapshot snapshot = new DynamicConfigSnapshot(snapshotFile);
+        snapshot.update(SUBSCRIPTION, DynamicConfigEvent.createEvent("rule", GROUP, "v1"));
+        final List<DynamicConfigEvent> events = new ArrayList<>();
+        final SnapshotListener listener = new SnapshotListener(SUBSCRIPTION, events::add, snapshot);
+        listener.serveSnapshot();
+        events.clear();
+
+        // 配置中心确认配置不存在, 以删除事件通知
+        listener.process(DynamicConfigEvent.initEvent("rule", GROUP, null));
+        listener.reconcile(Collections.emptyList());
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals(DynamicConfigEventType.DELETE, events.get(0).getEventType());
+        Assert.assertTrue(snapshot.getEntries(SUBSCRIPTION).isEmpty());
+        snapshot.close();
+    }
+
+    @Test
+    public void testEmptyInitReplacesSnapshotWhenRemoteConfirmedPresent() {
+        final DynamicConfigSnapshot snapshot = new DynamicConfigSnapshot(snapshotFile);
+        snapshot.update(SUBSCRIPTION, DynamicConfigEvent.createEvent("rule", GROUP, "v1"));
+        snapshot.update(SUBSCRIPTION, DynamicConfigEvent.createEvent("other", GROUP, "v1"));
+        final List<DynamicConfigEvent> events = new ArrayList<>();
+        final SnapshotListener listener = new SnapshotListener(SUBSCRIPTION, events::add, snapshot);
+        listener.serveSnapshot();
+        events.clear();
+
+        // 配置中心确认配置存在且内容为空, 以空内容通知; 快照中没有的配置与无快照时一致直接通知
+        listener.process(DynamicConfigEvent.initEvent("rule", GROUP, ""));
+        listener.process(DynamicConfigEvent.initEvent("new", GROUP, null));
+        listener.process(DynamicConfigEvent.initEvent("other", GROUP, "v1"));
+        listener.reconcile(Collections.singletonList("rule"));
+        Assert.assertEquals(2, events.size());
+        for (DynamicConfigEvent event : events) {
+            Assert.assertEquals(DynamicConfigEventType.INIT, event.getEventType());
+        }
+        Assert.assertEquals("", snapshot.getEntries(SUBSCRIPTION).get("rule").getContent());
+        Assert.assertEquals("v1", snapshot.getEntries(SUBSCRIPTION).get("other").getContent());
+        snapshot.close();
+    }
+}
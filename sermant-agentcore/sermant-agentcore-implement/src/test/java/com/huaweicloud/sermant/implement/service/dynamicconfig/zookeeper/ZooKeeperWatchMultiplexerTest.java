@@ -0,0 +1,311 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.service.dynamicconfig.zookeeper;
+
+import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEventType;
+
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 监听复用器测试，基于内嵌的zookeeper服务
+ *
+ * @author HapThorin
+ * @version 1.0.0
+ * @since 2022-09-28
+ */
+public class ZooKeeperWatchMultiplexerTest {
+    private static final int TICK_TIME = 2000;
+
+    private static final int SESSION_TIMEOUT = 30000;
+
+    private static final long WAIT_TIMEOUT_MS = 10000L;
+
+    private static final int KEY_COUNT = 100;
+
+    private static final int UPDATE_ROUNDS = 5;
+
+    private File dataDir;
+
+    private ZooKeeperServer zkServer;
+
+    private ServerCnxnFactory cnxnFactory;
+
+    private ZooKeeperBufferedClient zkClient;
+
+    private ZooKeeperWatchMultiplexer multiplexer;
+
+    @Before
+    public void setUp() throws IOException, InterruptedException {
+        dataDir = Files.createTempDirectory("zookeeper").toFile();
+        zkServer = new ZooKeeperServer(dataDir, dataDir, TICK_TIME);
+        cnxnFactory = ServerCnxnFactory.createFactory(new InetSocketAddress("127.0.0.1", 0), KEY_COUNT);
+        cnxnFactory.startup(zkServer);
+        zkClient = new ZooKeeperBufferedClient("127.0.0.1:" + cnxnFactory.getLocalPort(), SESSION_TIMEOUT);
+        multiplexer = new ZooKeeperWatchMultiplexer(zkClient);
+        Assert.assertTrue(waitUntil(() -> {
+            try {
+                return zkClient.updateNode("/app/init", "init");
+            } catch (ZooKeeperInitException ignored) {
+                return false;
+            }
+        }));
+    }
+
+    @After
+    public void tearDown() {
+        multiplexer.close();
+        zkClient.close();
+        cnxnFactory.shutdown();
+        zkServer.shutdown();
+        final File[] files = dataDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                deleteFile(file);
+            }
+        }
+        deleteFile(dataDir);
+    }
+
+    @Test
+    public void testKeyAndGroupListeners() throws InterruptedException {
+        final List<String> keyEvents = new CopyOnWriteArrayList<>();
+        final List<String> groupEvents = new CopyOnWriteArrayList<>();
+        Assert.assertTrue(multiplexer.watch("/app", "/app/key", false,
+            (path, eventType, content) -> keyEvents.add(eventType + ":" + content)));
+        Assert.assertTrue(multiplexer.watch("/app", "/app", true,
+            (path, eventType, content) -> groupEvents.add(path + ":" + eventType)));
+
+        Assert.assertTrue(zkClient.updateNode("/app/key", "v1"));
+        Assert.assertTrue(waitUntil(() -> keyEvents.contains(DynamicConfigEventType.CREATE + ":v1")));
+        Assert.assertTrue(zkClient.updateNode("/app/key", "v2"));
+        Assert.assertTrue(waitUntil(() -> keyEvents.contains(DynamicConfigEventType.MODIFY + ":v2")));
+        Assert.assertTrue(zkClient.removeNode("/app/key"));
+        Assert.assertTrue(waitUntil(() -> keyEvents.contains(DynamicConfigEventType.DELETE + ":")));
+
+        // 组监听者可收到子孙节点的事件
+        Assert.assertTrue(zkClient.updateNode("/app/sub/other", "v"));
+        Assert.assertTrue(waitUntil(() -> groupEvents.contains("/app/sub/other:" + DynamicConfigEventType.CREATE)));
+        Assert.assertTrue(groupEvents.contains("/app/key:" + DynamicConfigEventType.DELETE));
+
+        // 移除后不再通知
+        Assert.assertTrue(multiplexer.unwatch("/app/key", false));
+        Assert.assertTrue(multiplexer.unwatch("/app", true));
+        final int keyEventCount = keyEvents.size();
+        Assert.assertTrue(zkClient.updateNode("/app/key", "v3"));
+        TimeUnit.MILLISECONDS.sleep(500L);
+        Assert.assertEquals(keyEventCount, keyEvents.size());
+    }
+
+    @Test
+    public void testBurstChanges() throws InterruptedException {
+        final Map<String, String> latest = new ConcurrentHashMap<>();
+        final List<String> events = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            Assert.assertTrue(multiplexer.watch("/app", "/app/key" + i, false, (path, eventType, content) -> {
+                latest.put(path, content);
+                events.add(path);
+            }));
+        }
+        for (int round = 0; round < UPDATE_ROUNDS; round++) {
+            for (int i = 0; i < KEY_COUNT; i++) {
+                Assert.assertTrue(zkClient.updateNode("/app/key" + i, "value" + round));
+            }
+        }
+        final String expected = "value" + (UPDATE_ROUNDS - 1);
+        Assert.assertTrue(waitUntil(() -> {
+            for (int i = 0; i < KEY_COUNT; i++) {
+                if (!expected.equals(latest.get("/app/key" + i))) {
+                    return false;
+                }
+            }
+            return true;
+        }));
+
+        // 同一批次内的多次变更会被合并
+        Assert.assertTrue(events.size() <= KEY_COUNT * UPDATE_ROUNDS);
+    }
+
+    @Test
+    public void testGetNodes() {
+        final Map<String, Optional<String>> contents = zkClient.getNodes(Arrays.asList("/app/init", "/app/missing"));
+        Assert.assertEquals(Optional.of("init"), contents.get("/app/init"));
+        Assert.assertEquals(Optional.empty(), contents.get("/app/missing"));
+        Assert.assertEquals(Optional.of(Collections.singletonList("/app/init")), zkClient.queryAllNodes("/app"));
+        Assert.assertEquals(Optional.of(Collections.emptyList()), zkClient.queryAllNodes("/missing"));
+
+        // 连接断开时结果未知，不包含在结果中
+        cnxnFactory.shutdown();
+        Assert.assertTrue(zkClient.getNodes(Collections.singletonList("/app/init")).isEmpty());
+        Assert.assertFalse(zkClient.queryAllNodes("/app").isPresent());
+    }
+
+    @Test
+    public void testRetryUnknownNodes() throws InterruptedException {
+        final AtomicInteger readCount = new AtomicInteger();
+        final ZooKeeperBufferedClient failingClient = new ZooKeeperBufferedClient(
+            "127.0.0.1:" + cnxnFactory.getLocalPort(), SESSION_TIMEOUT) {
+            @Override
+            public Map<String, Optional<String>> getNodes(Collection<String> paths) {
+                // 首次读取模拟超时
+                return readCount.incrementAndGet() == 1 ? Collections.emptyMap() : super.getNodes(paths);
+            }
+        };
+        final ZooKeeperWatchMultiplexer retryMultiplexer = new ZooKeeperWatchMultiplexer(failingClient);
+        try {
+            final List<String> events = new CopyOnWriteArrayList<>();
+            Assert.assertTrue(waitUntil(() -> {
+                try {
+                    return retryMultiplexer.watch("/app", "/app/key", false,
+                        (path, eventType, content) -> events.add(eventType + ":" + content));
+                } catch (ZooKeeperInitException ignored) {
+                    return false;
+                }
+            }));
+            Assert.assertTrue(zkClient.updateNode("/app/key", "v1"));
+            Assert.assertTrue(waitUntil(() -> events.contains(DynamicConfigEventType.CREATE + ":v1")));
+
+            // 结果未知时不发出删除或空内容事件
+            Assert.assertEquals(1, events.size());
+            Assert.assertTrue(readCount.get() > 1);
+        } finally {
+            retryMultiplexer.close();
+            failingClient.close();
+        }
+    }
+
+    @Test
+    public void testResyncAfterSessionExpired() throws InterruptedException {
+        final List<Runnable> reconnectCallbacks = new CopyOnWriteArrayList<>();
+        final AtomicBoolean isDisconnected = new AtomicBoolean();
+        final ZooKeeperBufferedClient expiringClient = new ZooKeeperBufferedClient(
+            "127.0.0.1:" + cnxnFactory.getLocalPort(), SESSION_TIMEOUT) {
+            @Override
+            public void addReconnectCallback(Runnable callback) {
+                reconnectCallbacks.add(callback);
+            }
+
+            @Override
+            public boolean addPersistentRecursiveWatches(String path, Watcher watcher) {
+                // 首次重新注册时模拟连接再次断开
+                if (isDisconnected.compareAndSet(true, false)) {
+                    throw new ZooKeeperInitException();
+                }
+                return super.addPersistentRecursiveWatches(path, watcher);
+            }
+        };
+        final ZooKeeperWatchMultiplexer resyncMultiplexer = new ZooKeeperWatchMultiplexer(expiringClient);
+        try {
+            Assert.assertTrue(zkClient.updateNode("/app/kept", "v"));
+            Assert.assertTrue(zkClient.updateNode("/app/changed", "v1"));
+            Assert.assertTrue(zkClient.updateNode("/app/deleted", "v"));
+            Assert.assertTrue(zkClient.updateNode("/app/key", "k1"));
+            final List<String> groupEvents = new CopyOnWriteArrayList<>();
+            final List<String> keyEvents = new CopyOnWriteArrayList<>();
+            Assert.assertTrue(waitUntil(() -> {
+                try {
+                    return resyncMultiplexer.watch("/app", "/app", true,
+                        (path, eventType, content) -> groupEvents.add(path + ":" + eventType + ":" + content));
+                } catch (ZooKeeperInitException ignored) {
+                    return false;
+                }
+            }));
+            Assert.assertTrue(resyncMultiplexer.watch("/app", "/app/key", false,
+                (path, eventType, content) -> keyEvents.add(eventType + ":" + content)));
+
+            // 分发线程按顺序执行, 收到该事件时已读取订阅节点的内容
+            Assert.assertTrue(zkClient.updateNode("/app/marker", "m"));
+            final String markerEvent = "/app/marker:" + DynamicConfigEventType.CREATE + ":m";
+            Assert.assertTrue(waitUntil(() -> groupEvents.contains(markerEvent)));
+            groupEvents.clear();
+
+            // 模拟会话过期, 期间的变更不会触发监听器
+            Assert.assertTrue(expiringClient.removeWatches("/app", resyncMultiplexer));
+            Assert.assertTrue(zkClient.updateNode("/app/changed", "v2"));
+            Assert.assertTrue(zkClient.removeNode("/app/deleted"));
+            Assert.assertTrue(zkClient.updateNode("/app/created", "c"));
+            Assert.assertTrue(zkClient.updateNode("/app/key", "k2"));
+            TimeUnit.MILLISECONDS.sleep(500L);
+            Assert.assertTrue(groupEvents.isEmpty());
+            Assert.assertTrue(keyEvents.isEmpty());
+
+            isDisconnected.set(true);
+            reconnectCallbacks.forEach(Runnable::run);
+            Assert.assertTrue(waitUntil(() -> groupEvents.size() == 4 && keyEvents.size() == 1));
+            Assert.assertTrue(groupEvents.contains("/app/changed:" + DynamicConfigEventType.MODIFY + ":v2"));
+            Assert.assertTrue(groupEvents.contains("/app/deleted:" + DynamicConfigEventType.DELETE + ":"));
+            Assert.assertTrue(groupEvents.contains("/app/created:" + DynamicConfigEventType.CREATE + ":c"));
+            Assert.assertTrue(groupEvents.contains("/app/key:" + DynamicConfigEventType.MODIFY + ":k2"));
+            Assert.assertEquals(DynamicConfigEventType.MODIFY + ":k2", keyEvents.get(0));
+            Assert.assertFalse(isDisconnected.get());
+
+            // 重新注册后的变更正常通知
+            Assert.assertTrue(zkClient.updateNode("/app/kept", "v3"));
+            final String keptEvent = "/app/kept:" + DynamicConfigEventType.MODIFY + ":v3";
+            Assert.assertTrue(waitUntil(() -> groupEvents.contains(keptEvent)));
+            Assert.assertEquals(5, groupEvents.size());
+        } finally {
+            resyncMultiplexer.close();
+            expiringClient.close();
+        }
+    }
+
+    private boolean waitUntil(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            TimeUnit.MILLISECONDS.sleep(50L);
+        }
+        return condition.getAsBoolean();
+    }
+
+    private void deleteFile(File file) {
+        final File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                deleteFile(child);
+            }
+        }
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+}
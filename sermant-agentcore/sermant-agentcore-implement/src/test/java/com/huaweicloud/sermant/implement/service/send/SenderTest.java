@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.service.send;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.huaweicloud.sermant.core.service.send.config.BackendConfig;
+import com.huaweicloud.sermant.implement.service.send.netty.pojo.Message;
+import com.huaweicloud.sermant.implement.utils.GzipUtils;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.protobuf.ProtobufDecoder;
+import io.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sender单元测试
+ *
+ * @author lilai
+ * @version 0.0.1
+ * @since 2022-09-28
+ */
+public class SenderTest {
+    private static final int MESSAGE_COUNT = 1000;
+
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * 测试消息达到批量阈值时立即发送，且发送的帧可被服务端解码，每条消息可被解压还原
+     *
+     * @throws Exception 等待被中断或解码失败
+     */
+    @Test
+    public void testFlushOnThreshold() throws Exception {
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final NettyClient client = mock(NettyClient.class);
+        when(client.getChannel()).thenReturn(channel);
+        when(client.isWritable()).thenReturn(true);
+        final BackendConfig config = new BackendConfig();
+        config.setSendBatchSize(BATCH_SIZE);
+        config.setSendInterval(TimeUnit.MINUTES.toMillis(1));
+        final Sender sender = new Sender(client, config);
+        final Thread thread = new Thread(sender);
+        thread.start();
+        try {
+            for (int i = 0; i < MESSAGE_COUNT; i++) {
+                Assert.assertTrue(sender.offer(new Sender.PendingData(Message.ServiceData.DataType.LOG,
+                    String.valueOf(i).getBytes(StandardCharsets.UTF_8))));
+            }
+            final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while (sender.getSentCount() < MESSAGE_COUNT && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10L);
+            }
+        } finally {
+            thread.interrupt();
+            thread.join();
+        }
+        Assert.assertEquals(MESSAGE_COUNT, sender.getSentCount());
+        Assert.assertEquals(MESSAGE_COUNT, receive(channel, BATCH_SIZE).size());
+    }
+
+    /**
+     * 测试发送线程被中断时发送队列中剩余的消息
+     *
+     * @throws Exception 等待被中断或解码失败
+     */
+    @Test
+    public void testFlushOnStop() throws Exception {
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final NettyClient client = mock(NettyClient.class);
+        when(client.getChannel()).thenReturn(channel);
+        when(client.isWritable()).thenReturn(true);
+        final BackendConfig config = new BackendConfig();
+        config.setSendInterval(TimeUnit.MINUTES.toMillis(1));
+        final Sender sender = new Sender(client, config);
+        final Thread thread = new Thread(sender);
+        thread.start();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Assert.assertTrue(sender.offer(new Sender.PendingData(Message.ServiceData.DataType.LOG,
+                String.valueOf(i).getBytes(StandardCharsets.UTF_8))));
+        }
+        thread.interrupt();
+        thread.join();
+        Assert.assertEquals(BATCH_SIZE, sender.getSentCount());
+        Assert.assertEquals(BATCH_SIZE, receive(channel, config.getSendBatchSize()).size());
+    }
+
+    /**
+     * 测试未连接时消息保留在有界队列中，队列满后丢弃新消息
+     */
+    @Test
+    public void testDiscardWhenFull() {
+        final BackendConfig config = new BackendConfig();
+        config.setSendQueueSize(BATCH_SIZE);
+        final Sender sender = new Sender(mock(NettyClient.class), config);
+        int accepted = 0;
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            if (sender.offer(new Sender.PendingData(Message.ServiceData.DataType.LOG, new byte[1]))) {
+                accepted++;
+            }
+        }
+        Assert.assertEquals(sender.getQueueDepth(), accepted);
+        Assert.assertEquals(MESSAGE_COUNT - accepted, sender.getDroppedCount());
+        Assert.assertTrue(accepted >= BATCH_SIZE);
+    }
+
+    /**
+     * 测试等待策略下调用方最多等待{@link BackendConfig#getSendOverflowWaitTime()}，而非一个发送间隔
+     */
+    @Test
+    public void testBoundedWaitWhenFull() {
+        final BackendConfig config = new BackendConfig();
+        config.setSendQueueSize(1);
+        config.setSendInterval(TimeUnit.MINUTES.toMillis(1));
+        config.setSendOverflowPolicy(BackendConfig.OverflowPolicy.WAIT);
+        final Sender sender = new Sender(mock(NettyClient.class), config);
+        int accepted = 0;
+        while (sender.offer(new Sender.PendingData(Message.ServiceData.DataType.LOG, new byte[1]))) {
+            accepted++;
+        }
+        Assert.assertEquals(sender.getQueueDepth(), accepted);
+        final long startTime = System.nanoTime();
+        Assert.assertFalse(sender.offer(new Sender.PendingData(Message.ServiceData.DataType.LOG, new byte[1])));
+        Assert.assertTrue(System.nanoTime() - startTime < TimeUnit.SECONDS.toNanos(10));
+        Assert.assertEquals(2, sender.getDroppedCount());
+    }
+
+    private static Set<String> receive(EmbeddedChannel channel, int batchSize) throws IOException {
+        final EmbeddedChannel server = new EmbeddedChannel(new ProtobufVarint32FrameDecoder(),
+            new ProtobufDecoder(Message.NettyMessage.getDefaultInstance()));
+        ByteBuf frame;
+        while ((frame = channel.readOutbound()) != null) {
+            server.writeInbound(frame);
+        }
+        final Set<String> received = new HashSet<>();
+        Message.NettyMessage message;
+        while ((message = server.readInbound()) != null) {
+            Assert.assertEquals(Message.NettyMessage.MessageType.SERVICE_DATA_BATCH, message.getMessageType());
+            final Message.ServiceDataBatch batch = Message.ServiceDataBatch.parseFrom(
+                GzipUtils.decompress(message.getCompressedServiceData().toByteArray()));
+            Assert.assertTrue(batch.getServiceDataCount() <= batchSize);
+            for (Message.ServiceData serviceData : batch.getServiceDataList()) {
+                received.add(serviceData.getData().toStringUtf8());
+            }
+        }
+        return received;
+    }
+}
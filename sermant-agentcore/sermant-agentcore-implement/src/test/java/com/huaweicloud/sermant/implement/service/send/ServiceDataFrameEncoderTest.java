@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.service.send;
+
+import com.huaweicloud.sermant.implement.service.send.common.ProtobufFrameEncoder;
+import com.huaweicloud.sermant.implement.service.send.netty.pojo.Message;
+import com.huaweicloud.sermant.implement.utils.GzipUtils;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.protobuf.ProtobufDecoder;
+import io.netty.handler.codec.protobuf.ProtobufEncoder;
+import io.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
+import io.netty.handler.codec.protobuf.ProtobufVarint32LengthFieldPrepender;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * ServiceDataFrameEncoder单元测试
+ *
+ * @author lilai
+ * @version 0.0.1
+ * @since 2022-09-28
+ */
+public class ServiceDataFrameEncoderTest {
+    private static final int BATCH_SIZE = 100;
+
+    private static final int MESSAGE_LENGTH = 512;
+
+    private static final int LARGE_MESSAGE_LENGTH = 256 * 1024;
+
+    private static final ByteBufAllocator ALLOCATOR = PooledByteBufAllocator.DEFAULT;
+
+    /**
+     * 测试编码的帧可被服务端的解码器解码，解压后得到原始的每条消息
+     *
+     * @throws IOException 压缩失败
+     */
+    @Test
+    public void testDecodeByServerPipeline() throws IOException {
+        final List<Sender.PendingData> batch = new ArrayList<>();
+        batch.add(new Sender.PendingData(Message.ServiceData.DataType.SERVICE_HEARTBEAT, new byte[0]));
+        batch.add(new Sender.PendingData(Message.ServiceData.DataType.LOG, newPayload(MESSAGE_LENGTH)));
+        batch.add(new Sender.PendingData(Message.ServiceData.DataType.FLOW_CONTROL_METRIC,
+            newRandomPayload(LARGE_MESSAGE_LENGTH)));
+        final ServiceDataFrameEncoder encoder = new ServiceDataFrameEncoder();
+        final EmbeddedChannel server = newServerChannel();
+        try {
+            server.writeInbound(encoder.encode(ALLOCATOR, batch, getRawBytes(batch)));
+            server.writeInbound(encoder.encode(ALLOCATOR, batch.subList(0, 1), 0L));
+        } finally {
+            encoder.end();
+        }
+        final Message.NettyMessage message = server.readInbound();
+        Assert.assertEquals(Message.NettyMessage.MessageType.SERVICE_DATA_BATCH, message.getMessageType());
+        Assert.assertEquals(0, message.getServiceDataCount());
+        final List<Message.ServiceData> serviceDataList = decodeBatch(message);
+        Assert.assertEquals(batch.size(), serviceDataList.size());
+        for (int i = 0; i < batch.size(); i++) {
+            final Message.ServiceData serviceData = serviceDataList.get(i);
+            Assert.assertEquals(batch.get(i).getDataType(), serviceData.getDataType());
+            Assert.assertArrayEquals(batch.get(i).getData(), serviceData.getData().toByteArray());
+        }
+        final Message.NettyMessage heartbeat = server.readInbound();
+        Assert.assertEquals(1, decodeBatch(heartbeat).size());
+        Assert.assertNull(server.readInbound());
+    }
+
+    /**
+     * 测试同一批次的消息整体压缩，帧小于逐条压缩的数据之和
+     *
+     * @throws IOException 压缩失败
+     */
+    @Test
+    public void testCompressPerBatch() throws IOException {
+        final List<Sender.PendingData> batch = new ArrayList<>();
+        long compressedBytes = 0L;
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            final byte[] payload = newPayload(i);
+            batch.add(new Sender.PendingData(Message.ServiceData.DataType.AGENT_SPAN_EVENT, payload));
+            compressedBytes += GzipUtils.compress(payload).length;
+        }
+        final ServiceDataFrameEncoder encoder = new ServiceDataFrameEncoder();
+        final ByteBuf frame;
+        try {
+            frame = encoder.encode(ALLOCATOR, batch, getRawBytes(batch));
+        } finally {
+            encoder.end();
+        }
+        try {
+            Assert.assertTrue(frame.readableBytes() < compressedBytes);
+        } finally {
+            frame.release();
+        }
+    }
+
+    /**
+     * 测试心跳消息的编码与原编码方式一致
+     */
+    @Test
+    public void testProtobufFrameEncoder() {
+        final Message.NettyMessage message = Message.NettyMessage.newBuilder()
+            .setMessageType(Message.NettyMessage.MessageType.HEARTBEAT_PING)
+            .setHeartBeat(Message.HeartBeat.newBuilder().build()).build();
+        final EmbeddedChannel origin =
+            new EmbeddedChannel(new ProtobufVarint32LengthFieldPrepender(), new ProtobufEncoder());
+        final EmbeddedChannel channel = new EmbeddedChannel(new ProtobufFrameEncoder());
+        origin.writeOutbound(message);
+        channel.writeOutbound(message);
+        final ByteBuf expected = origin.readOutbound();
+        final ByteBuf actual = channel.readOutbound();
+        try {
+            Assert.assertTrue(actual.isDirect());
+            Assert.assertEquals(expected, actual);
+        } finally {
+            expected.release();
+            actual.release();
+        }
+    }
+
+    private static List<Message.ServiceData> decodeBatch(Message.NettyMessage message)
+        throws InvalidProtocolBufferException {
+        return Message.ServiceDataBatch.parseFrom(GzipUtils.decompress(message.getCompressedServiceData()
+            .toByteArray())).getServiceDataList();
+    }
+
+    private static long getRawBytes(List<Sender.PendingData> batch) {
+        long rawBytes = 0L;
+        for (Sender.PendingData data : batch) {
+            rawBytes += data.getData().length;
+        }
+        return rawBytes;
+    }
+
+    private static EmbeddedChannel newServerChannel() {
+        return new EmbeddedChannel(new ProtobufVarint32FrameDecoder(),
+            new ProtobufDecoder(Message.NettyMessage.getDefaultInstance()));
+    }
+
+    private static byte[] newPayload(int seed) {
+        final StringBuilder builder = new StringBuilder();
+        while (builder.length() < MESSAGE_LENGTH) {
+            builder.append("{\"traceId\":\"").append(seed).append("\",\"spanId\":\"").append(builder.length())
+                .append("\",\"className\":\"com.huaweicloud.sermant.Demo\"}");
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] newRandomPayload(int length) {
+        final byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -16,12 +16,16 @@
 
 package com.huaweicloud.sermant.implement.service.tracing;
 
+import com.huaweicloud.sermant.core.config.ConfigManager;
 import com.huaweicloud.sermant.core.service.ServiceManager;
 import com.huaweicloud.sermant.core.service.send.api.GatewayClient;
 import com.huaweicloud.sermant.core.service.tracing.api.ExtractService;
 import com.huaweicloud.sermant.core.service.tracing.api.InjectService;
 import com.huaweicloud.sermant.core.service.tracing.common.SpanEvent;
+import com.huaweicloud.sermant.core.service.tracing.common.SpanEventContext;
+import com.huaweicloud.sermant.core.service.tracing.common.TracingHeader;
 import com.huaweicloud.sermant.core.service.tracing.common.TracingRequest;
+import com.huaweicloud.sermant.core.service.tracing.config.TracingConfig;
 import com.huaweicloud.sermant.core.utils.TracingUtils;
 
 import com.huaweicloud.sermant.implement.service.send.NettyGatewayClient;
@@ -37,6 +41,8 @@ import org.mockito.junit.MockitoJUnitRunner;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * TracingService UT
@@ -118,7 +124,6 @@ public class TracingServiceImplTest {
             header.put(PARENT_SPAN_ID, INIT_PARENT_SPAN_ID);
             header.put(SPAN_ID_PREFIX, INIT_SPAN_ID_PREFIX);
             tracingService.onProviderSpanStart(tracingRequest, extractService, header);
-            tracingService.onSpanFinally();
             Optional<SpanEvent> spanEventOptional = tracingService.onNormalSpanStart(tracingRequest);
             Assert.assertTrue(spanEventOptional.isPresent());
             Assert.assertEquals(traceId, spanEventOptional.get().getTraceId());
@@ -133,6 +138,10 @@ public class TracingServiceImplTest {
             Assert.assertEquals("0-0-2", spanEventOptional.get().getSpanId());
             Assert.assertEquals(INIT_SPAN_ID, spanEventOptional.get().getParentSpanId());
             tracingService.onSpanFinally();
+
+            // No span is attached to the trace after the entry span finishes.
+            tracingService.onSpanFinally();
+            Assert.assertFalse(tracingService.onNormalSpanStart(tracingRequest).isPresent());
             tracingService.stop();
         }
     }
@@ -210,7 +219,6 @@ public class TracingServiceImplTest {
             header.put(PARENT_SPAN_ID, INIT_PARENT_SPAN_ID);
             header.put(SPAN_ID_PREFIX, INIT_SPAN_ID_PREFIX);
             tracingService.onProviderSpanStart(tracingRequest, extractService, header);
-            tracingService.onSpanFinally();
             Optional<SpanEvent> spanEventOptional =
                     tracingService.onConsumerSpanStart(tracingRequest, injectService, header);
             Assert.assertTrue(spanEventOptional.isPresent());
@@ -219,6 +227,7 @@ public class TracingServiceImplTest {
             Assert.assertEquals(traceId, header.get(TRACE_ID));
             Assert.assertEquals("0-0-1-0", header.get(SPAN_ID_PREFIX));
             tracingService.onSpanFinally();
+            tracingService.onSpanFinally();
             tracingService.stop();
         }
     }
@@ -256,4 +265,221 @@ public class TracingServiceImplTest {
             tracingService.stop();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 采样场景测试，未被采样的请求不创建SpanEvent，并向下游透传未采样标识
+     */
+    @Test
+    public void onSampling() {
+        TracingConfig tracingConfig = new TracingConfig();
+        tracingConfig.setSamplerType(TracingConfig.SamplerType.PROBABILITY);
+        tracingConfig.setSampleRate(0.0d);
+        ExtractService<Map<String, String>> sampledExtractService = (tracingRequest, carrier) -> {
+            extractService.getFromCarrier(tracingRequest, carrier);
+            tracingRequest.setSampledValue(carrier.get(TracingHeader.SAMPLED.getValue()));
+        };
+        InjectService<Map<String, String>> sampledInjectService = (spanEvent, carrier) -> {
+            injectService.addToCarrier(spanEvent, carrier);
+            carrier.put(TracingHeader.SAMPLED.getValue(), spanEvent.getSampledValue());
+        };
+        try (MockedStatic<ServiceManager> mockedStatic = Mockito.mockStatic(ServiceManager.class);
+            MockedStatic<ConfigManager> mockedConfig = Mockito.mockStatic(ConfigManager.class)) {
+            mockedStatic.when(() -> ServiceManager.getService(GatewayClient.class))
+                    .thenReturn(new NettyGatewayClient());
+            mockedConfig.when(() -> ConfigManager.getConfig(TracingConfig.class)).thenReturn(tracingConfig);
+            TracingServiceImpl tracingService = new TracingServiceImpl();
+            tracingService.start();
+
+            // Not sampled root span.
+            TracingRequest tracingRequest = new TracingRequest("", "", "", "", "");
+            Assert.assertFalse(
+                    tracingService.onProviderSpanStart(tracingRequest, sampledExtractService, header).isPresent());
+            Assert.assertFalse(tracingService.getContext().isPresent());
+            Assert.assertFalse(tracingService.onNormalSpanStart(tracingRequest).isPresent());
+            tracingService.onSpanFinally();
+            Map<String, String> carrier = new HashMap<>();
+            Assert.assertFalse(
+                    tracingService.onConsumerSpanStart(tracingRequest, sampledInjectService, carrier).isPresent());
+            Assert.assertEquals(TracingHeader.NOT_SAMPLED_VALUE, carrier.get(TracingHeader.SAMPLED.getValue()));
+            tracingService.onSpanFinally();
+
+            // The not sampled result is kept until the entry span finishes.
+            Assert.assertNotNull(tracingService.captureContext());
+            tracingService.onSpanFinally();
+            Assert.assertNull(tracingService.captureContext());
+
+            // Later outbound calls of the thread carry no sampling decision.
+            Map<String, String> laterCarrier = new HashMap<>();
+            Assert.assertFalse(
+                    tracingService.onConsumerSpanStart(tracingRequest, sampledInjectService, laterCarrier).isPresent());
+            Assert.assertTrue(laterCarrier.isEmpty());
+
+            // Sampled by the upstream.
+            header.put(TracingHeader.SAMPLED.getValue(), TracingHeader.SAMPLED_VALUE);
+            Assert.assertTrue(
+                    tracingService.onProviderSpanStart(tracingRequest, sampledExtractService, header).isPresent());
+            Assert.assertTrue(
+                    tracingService.onConsumerSpanStart(tracingRequest, sampledInjectService, carrier).isPresent());
+            Assert.assertEquals(TracingHeader.SAMPLED_VALUE, carrier.get(TracingHeader.SAMPLED.getValue()));
+            tracingService.onSpanFinally();
+            tracingService.onSpanFinally();
+            tracingService.stop();
+        }
+    }
+
+    /**
+     * 异步场景测试，恢复上下文快照后新建的Span为提交任务时所在Span的异步子Span
+     *
+     * @throws Exception 执行异常
+     */
+    @Test
+    public void onAsyncContext() throws Exception {
+        try (MockedStatic<ServiceManager> mockedStatic = Mockito.mockStatic(ServiceManager.class)) {
+            mockedStatic.when(() -> ServiceManager.getService(GatewayClient.class))
+                    .thenReturn(new NettyGatewayClient());
+            TracingServiceImpl tracingService = new TracingServiceImpl();
+            tracingService.start();
+            Assert.assertNull(tracingService.captureContext());
+
+            // The normal condition.
+            header.put(TRACE_ID, TracingUtils.generateTraceId());
+            header.put(PARENT_SPAN_ID, INIT_PARENT_SPAN_ID);
+            header.put(SPAN_ID_PREFIX, INIT_SPAN_ID_PREFIX);
+            TracingRequest tracingRequest = new TracingRequest("", "", "", "", "");
+            tracingService.onProviderSpanStart(tracingRequest, extractService, header);
+            SpanEventContext snapshot = tracingService.captureContext();
+            Assert.assertNotNull(snapshot);
+            ExecutorService executorService = Executors.newSingleThreadExecutor();
+            try {
+                SpanEvent asyncSpanEvent = executorService.submit(() -> {
+                    SpanEventContext previousContext = tracingService.restoreContext(snapshot);
+                    try {
+                        SpanEvent spanEvent = tracingService.onNormalSpanStart(tracingRequest).orElse(null);
+                        tracingService.onSpanFinally();
+
+                        // The base span belongs to the submitting thread.
+                        tracingService.onSpanFinally();
+                        return spanEvent;
+                    } finally {
+                        tracingService.restoreContext(previousContext);
+                    }
+                }).get();
+                Assert.assertNotNull(asyncSpanEvent);
+                Assert.assertTrue(asyncSpanEvent.isAsync());
+                Assert.assertEquals("0-0-1", asyncSpanEvent.getSpanId());
+                Assert.assertEquals(INIT_SPAN_ID, asyncSpanEvent.getParentSpanId());
+                Assert.assertEquals(0L, snapshot.getBaseSpanEvent().getEndTime());
+            } finally {
+                executorService.shutdown();
+            }
+
+            // Span id counter is shared with the submitting thread.
+            Optional<SpanEvent> spanEventOptional = tracingService.onNormalSpanStart(tracingRequest);
+            Assert.assertTrue(spanEventOptional.isPresent());
+            Assert.assertFalse(spanEventOptional.get().isAsync());
+            Assert.assertEquals("0-0-2", spanEventOptional.get().getSpanId());
+            tracingService.onSpanFinally();
+            tracingService.onSpanFinally();
+            tracingService.stop();
+        }
+    }
+
+    /**
+     * 线程池场景测试，入口Span结束后线程中不再保留上下文，复用该线程的后续任务不会继承已结束的链路
+     *
+     * @throws Exception 执行异常
+     */
+    @Test
+    public void onPooledThreadReuse() throws Exception {
+        try (MockedStatic<ServiceManager> mockedStatic = Mockito.mockStatic(ServiceManager.class)) {
+            mockedStatic.when(() -> ServiceManager.getService(GatewayClient.class))
+                    .thenReturn(new NettyGatewayClient());
+            TracingServiceImpl tracingService = new TracingServiceImpl();
+            tracingService.start();
+            TracingRequest tracingRequest = new TracingRequest("", "", "", "", "");
+            header.put(SPAN_ID_PREFIX, "");
+            ExecutorService executorService = Executors.newSingleThreadExecutor();
+            try {
+                // The entry span starts and finishes in a pooled thread.
+                Assert.assertNull(executorService.submit(() -> {
+                    tracingService.onProviderSpanStart(tracingRequest, extractService, header);
+                    Assert.assertNotNull(tracingService.captureContext());
+                    tracingService.onNormalSpanStart(tracingRequest);
+                    tracingService.onSpanFinally();
+                    tracingService.onSpanFinally();
+                    Assert.assertFalse(tracingService.getContext().isPresent());
+                    return tracingService.captureContext();
+                }).get());
+
+                // The next task on the same thread starts without a context.
+                Assert.assertNull(executorService.submit(() -> {
+                    Assert.assertFalse(tracingService.onNormalSpanStart(tracingRequest).isPresent());
+                    return tracingService.captureContext();
+                }).get());
+
+                // A snapshot whose base span has finished is not propagated any further.
+                tracingService.onProviderSpanStart(tracingRequest, extractService, header);
+                SpanEventContext snapshot = tracingService.captureContext();
+                Assert.assertNotNull(snapshot);
+                tracingService.onSpanFinally();
+                Assert.assertNull(tracingService.captureContext());
+                Assert.assertNull(executorService.submit(() -> {
+                    SpanEventContext previousContext = tracingService.restoreContext(snapshot);
+                    try {
+                        return tracingService.captureContext();
+                    } finally {
+                        tracingService.restoreContext(previousContext);
+                    }
+                }).get());
+            } finally {
+                executorService.shutdown();
+                tracingService.stop();
+            }
+        }
+    }
+
+    /**
+     * 开启复用时，尾部采样丢弃的SpanEvent回收后用于新的Span，spanId等链路信息重新生成
+     */
+    @Test
+    public void onSpanReuse() {
+        TracingConfig tracingConfig = new TracingConfig();
+        tracingConfig.setTailSamplingEnable(true);
+        tracingConfig.setSlowThreshold(Long.MAX_VALUE);
+        tracingConfig.setSpanReuseEnable(true);
+        try (MockedStatic<ServiceManager> mockedStatic = Mockito.mockStatic(ServiceManager.class);
+            MockedStatic<ConfigManager> mockedConfig = Mockito.mockStatic(ConfigManager.class)) {
+            mockedStatic.when(() -> ServiceManager.getService(GatewayClient.class))
+                    .thenReturn(new NettyGatewayClient());
+            mockedConfig.when(() -> ConfigManager.getConfig(TracingConfig.class)).thenReturn(tracingConfig);
+            TracingServiceImpl tracingService = new TracingServiceImpl();
+            tracingService.start();
+            TracingRequest tracingRequest = new TracingRequest("", "", "", "", "");
+            header.put(SPAN_ID_PREFIX, "");
+            tracingService.onProviderSpanStart(tracingRequest, extractService, header);
+            SpanEvent spanEvent = tracingService.onNormalSpanStart(tracingRequest).orElse(null);
+            Assert.assertNotNull(spanEvent);
+            spanEvent.addTag(TRACE_ID, TRACE_ID);
+            tracingService.onSpanFinally();
+
+            // The root span is not slow, so the children span is dropped and recycled.
+            tracingService.onSpanFinally();
+            Assert.assertNull(spanEvent.getTraceId());
+            Assert.assertFalse(spanEvent.hasTags());
+            String traceId = TracingUtils.generateTraceId();
+            header.put(TRACE_ID, traceId);
+            header.put(PARENT_SPAN_ID, INIT_PARENT_SPAN_ID);
+            header.put(SPAN_ID_PREFIX, INIT_SPAN_ID_PREFIX);
+            tracingService.onProviderSpanStart(tracingRequest, extractService, header);
+            Assert.assertSame(spanEvent, tracingService.onNormalSpanStart(tracingRequest).orElse(null));
+            Assert.assertEquals(traceId, spanEvent.getTraceId());
+            Assert.assertEquals("0-0-1", spanEvent.getSpanId());
+            Assert.assertEquals(INIT_SPAN_ID, spanEvent.getParentSpanId());
+            tracingService.onSpanFinally();
+            Assert.assertTrue(spanEvent.getDuration() >= 0L);
+            Assert.assertTrue(spanEvent.getEndTime() >= spanEvent.getStartTime());
+            tracingService.onSpanFinally();
+            tracingService.stop();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huaweicloud.sermant.implement.service.tracing.sender;
+
+import com.huaweicloud.sermant.core.service.ServiceManager;
+import com.huaweicloud.sermant.core.service.send.api.GatewayClient;
+import com.huaweicloud.sermant.core.service.tracing.common.SpanEvent;
+import com.huaweicloud.sermant.implement.service.send.netty.pojo.Message;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * TracingSender UT
+ *
+ * @author luanwenfei
+ * @since 2022-09-28
+ */
+public class TracingSenderTest {
+    private static final int SPAN_COUNT = 2000;
+
+    /**
+     * 测试SpanEvent被批量编码发送，且可被解码还原
+     *
+     * @throws Exception 等待被中断或解码失败
+     */
+    @Test
+    public void testBatchSend() throws Exception {
+        List<byte[]> sent = new ArrayList<>();
+        GatewayClient gatewayClient = (data, typeNum) -> {
+            Assert.assertEquals(Message.ServiceData.DataType.AGENT_SPAN_EVENT_BATCH_VALUE, typeNum);
+            synchronized (sent) {
+                sent.add(data);
+            }
+        };
+        TracingSender tracingSender = TracingSender.getInstance();
+        try (MockedStatic<ServiceManager> mockedStatic = Mockito.mockStatic(ServiceManager.class)) {
+            mockedStatic.when(() -> ServiceManager.getService(GatewayClient.class)).thenReturn(gatewayClient);
+            tracingSender.start();
+        }
+        long exported = tracingSender.getExportedCount();
+        long batches = tracingSender.getBatchCount();
+        try {
+            for (int i = 0; i < SPAN_COUNT; i++) {
+                tracingSender.offerSpanEvent(newSpanEvent(i));
+            }
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while (tracingSender.getExportedCount() - exported < SPAN_COUNT && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10L);
+            }
+        } finally {
+            tracingSender.stop();
+        }
+        Assert.assertEquals(SPAN_COUNT, tracingSender.getExportedCount() - exported);
+        Assert.assertTrue(tracingSender.getBatchCount() - batches < SPAN_COUNT);
+        Assert.assertTrue(tracingSender.getMaxBatchSize() > 1);
+        int count = 0;
+        synchronized (sent) {
+            for (byte[] data : sent) {
+                for (Message.SpanEventData spanEventData : decode(data).getSpanEventList()) {
+                    Assert.assertEquals(String.valueOf(count), spanEventData.getSpanId());
+                    Assert.assertEquals("tag" + count, spanEventData.getTagsMap().get("key"));
+                    Assert.assertFalse(spanEventData.hasTargetInfo());
+                    count++;
+                }
+            }
+        }
+        Assert.assertEquals(SPAN_COUNT, count);
+    }
+
+    /**
+     * 测试网关客户端不可用时丢弃批次，且发送线程不退出
+     *
+     * @throws Exception 等待被中断
+     */
+    @Test
+    public void testNullGatewayClient() throws Exception {
+        TracingSender tracingSender = TracingSender.getInstance();
+        try (MockedStatic<ServiceManager> mockedStatic = Mockito.mockStatic(ServiceManager.class)) {
+            mockedStatic.when(() -> ServiceManager.getService(GatewayClient.class)).thenReturn(null);
+            tracingSender.start();
+        }
+        long exported = tracingSender.getExportedCount();
+        try {
+            for (int round = 1; round <= 2; round++) {
+                long dropped = tracingSender.getDroppedCount();
+                tracingSender.offerSpanEvent(newSpanEvent(round));
+                Assert.assertTrue(waitFor(() -> tracingSender.getDroppedCount() - dropped == 1));
+            }
+        } finally {
+            tracingSender.stop();
+        }
+        Assert.assertEquals(exported, tracingSender.getExportedCount());
+    }
+
+    /**
+     * 测试网关客户端发送失败时丢弃当前批次，后续批次正常发送
+     *
+     * @throws Exception 等待被中断
+     */
+    @Test
+    public void testGatewayClientThrows() throws Exception {
+        AtomicBoolean isFailed = new AtomicBoolean();
+        List<byte[]> sent = new ArrayList<>();
+        GatewayClient gatewayClient = (data, typeNum) -> {
+            if (isFailed.compareAndSet(false, true)) {
+                throw new IllegalStateException("send failed");
+            }
+            synchronized (sent) {
+                sent.add(data);
+            }
+        };
+        TracingSender tracingSender = TracingSender.getInstance();
+        try (MockedStatic<ServiceManager> mockedStatic = Mockito.mockStatic(ServiceManager.class)) {
+            mockedStatic.when(() -> ServiceManager.getService(GatewayClient.class)).thenReturn(gatewayClient);
+            tracingSender.start();
+        }
+        long exported = tracingSender.getExportedCount();
+        long dropped = tracingSender.getDroppedCount();
+        try {
+            tracingSender.offerSpanEvent(newSpanEvent(0));
+            Assert.assertTrue(waitFor(() -> tracingSender.getDroppedCount() - dropped == 1));
+            tracingSender.offerSpanEvent(newSpanEvent(1));
+            Assert.assertTrue(waitFor(() -> tracingSender.getExportedCount() - exported == 1));
+        } finally {
+            tracingSender.stop();
+        }
+        synchronized (sent) {
+            Assert.assertEquals(1, sent.size());
+            Assert.assertEquals("1", decode(sent.get(0)).getSpanEvent(0).getSpanId());
+        }
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        return condition.getAsBoolean();
+    }
+
+    private static Message.SpanEventBatch decode(byte[] data) throws InvalidProtocolBufferException {
+        return Message.SpanEventBatch.parseFrom(data);
+    }
+
+    private static SpanEvent newSpanEvent(int index) {
+        SpanEvent spanEvent = new SpanEvent();
+        spanEvent.setTraceId("traceId");
+        spanEvent.setSpanId(String.valueOf(index));
+        spanEvent.setStartTime(index);
+        spanEvent.addTag("key", "tag" + index);
+        return spanEvent;
+    }
+}
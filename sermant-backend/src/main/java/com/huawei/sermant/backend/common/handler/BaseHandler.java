@@ -53,8 +53,14 @@ public abstract class BaseHandler extends SimpleChannelInboundHandler<Message.Ne
 
             // 如果为业务数据进行各自的处理
             case Message.NettyMessage.MessageType.SERVICE_DATA_VALUE:
+            case Message.NettyMessage.MessageType.SERVICE_DATA_BATCH_VALUE:
                 handlerData(ctx, msg);
                 break;
+
+            // 如果为需要应答的请求，处理后发送应答
+            case Message.NettyMessage.MessageType.SERVICE_REQUEST_VALUE:
+                handlerRequest(ctx, msg);
+                break;
             default:
                 break;
         }
@@ -68,6 +74,32 @@ public abstract class BaseHandler extends SimpleChannelInboundHandler<Message.Ne
      */
     protected abstract void handlerData(ChannelHandlerContext ctx, Message.NettyMessage msg);
 
+    /**
+     * 请求处理方法，默认应答请求不支持
+     *
+     * @param ctx 上下文对象
+     * @param msg 收到的请求
+     */
+    protected void handlerRequest(ChannelHandlerContext ctx, Message.NettyMessage msg) {
+        Message.ServiceRequest request = msg.getServiceRequest();
+        sendResponse(ctx, Message.ServiceResponse.newBuilder().setRequestId(request.getRequestId())
+            .setSuccess(false).setErrorMessage("Unsupported request type " + request.getRequestTypeValue()).build());
+    }
+
+    /**
+     * 发送请求的应答
+     *
+     * @param ctx 上下文对象
+     * @param response 应答
+     */
+    protected void sendResponse(ChannelHandlerContext ctx, Message.ServiceResponse response) {
+        Message.NettyMessage message = Message.NettyMessage.newBuilder()
+            .setMessageType(Message.NettyMessage.MessageType.SERVICE_RESPONSE)
+            .setServiceResponse(response)
+            .build();
+        ctx.channel().writeAndFlush(message);
+    }
+
     private void sendPongMsg(ChannelHandlerContext ctx, Message.NettyMessage msg) {
         Message.NettyMessage message = msg.newBuilderForType()
             .setMessageType(Message.NettyMessage.MessageType.HEARTBEAT_PONG)
@@ -107,6 +107,7 @@ public class NettyServer {
             ServerBootstrap serverBootstrap = new ServerBootstrap();
             KafkaProducer<String, byte[]> producer = KafkaProducerManager.getInstance(conf).getProducer();
             KafkaConsumer<String, String> consumer = KafkaConsumerManager.getInstance(conf).getConsumer();
+            TokenLeaseServer tokenLeaseServer = new TokenLeaseServer();
             serverBootstrap.group(bossGroup, workerGroup)
                     .channel(NioServerSocketChannel.class)
                     .option(ChannelOption.SO_BACKLOG, CONNECTION_SIZE)
@@ -122,7 +123,7 @@ public class NettyServer {
                             pipeline.addLast(new ProtobufVarint32LengthFieldPrepender());
                             pipeline.addLast(new ProtobufEncoder());
                             pipeline.addLast(new ServerHandler(producer, consumer, topicMapping,
-                                    conf.getIsHeartbeatCache()));
+                                    conf.getIsHeartbeatCache(), tokenLeaseServer));
                         }
                     });
 
@@ -25,7 +25,9 @@ import com.huawei.sermant.backend.entity.HeartbeatEntity;
 import com.huawei.sermant.backend.pojo.Message;
 
 import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
 
 import io.netty.channel.ChannelHandlerContext;
 
@@ -58,6 +60,8 @@ public class ServerHandler extends BaseHandler {
 
     private final DataTypeTopicMapping topicMapping;
 
+    private final TokenLeaseServer tokenLeaseServer;
+
     private final Map<String, HeartbeatEntity> hbMessages = HeartbeatCache.getHeartbeatMessages();
 
     /**
@@ -67,37 +71,74 @@ public class ServerHandler extends BaseHandler {
      * @param consumer kafka consumer
      * @param topicMapping kafka topic map
      * @param isHeartBeatCache is or not open heartbeat cache
+     * @param tokenLeaseServer 集群限流的令牌服务端, 所有连接共用
      */
     public ServerHandler(KafkaProducer<String, byte[]> producer, KafkaConsumer<String, String> consumer,
-                         DataTypeTopicMapping topicMapping, String isHeartBeatCache) {
+                         DataTypeTopicMapping topicMapping, String isHeartBeatCache,
+                         TokenLeaseServer tokenLeaseServer) {
         this.producer = producer;
         this.consumer = consumer;
         this.topicMapping = topicMapping;
         this.isHeartBeatCache = Boolean.parseBoolean(isHeartBeatCache);
+        this.tokenLeaseServer = tokenLeaseServer;
     }
 
     @Override
     protected void handlerData(ChannelHandlerContext ctx, Message.NettyMessage msg) {
-        List<Message.ServiceData> serviceDataList = msg.getServiceDataList();
-        for (Message.ServiceData serviceData : serviceDataList) {
-            // 获取NettyMessage中的业务数据
-            ByteString data = serviceData.getData();
-
-            // 解压业务数据
-            byte[] message = GzipUtils.decompress(data.toByteArray());
-            int dataType = serviceData.getDataTypeValue();
-            String topic = topicMapping.getTopicOfType(dataType);
-            if (StringUtils.hasText(topic)) {
-                if (Objects.equals(topic, topicMapping.getTopicOfType(HEARTBEAT_TOPIC_INDEX))) {
-                    writeHeartBeatCacheCache(topic, message);
-                    continue;
-                }
-                if (!this.isHeartBeatCache) {
-                    producer.send(new ProducerRecord<>(topic, message));
-                }
-            } else {
-                LOGGER.warn("Can not find the corresponding topic of type {}.", dataType);
+        // 逐条压缩的业务数据
+        for (Message.ServiceData serviceData : msg.getServiceDataList()) {
+            handlerServiceData(serviceData.getDataTypeValue(),
+                    GzipUtils.decompress(serviceData.getData().toByteArray()));
+        }
+
+        // 整批压缩的业务数据，批次中的每条数据不再单独压缩
+        if (msg.getMessageType() != Message.NettyMessage.MessageType.SERVICE_DATA_BATCH) {
+            return;
+        }
+        final Message.ServiceDataBatch batch;
+        try {
+            batch = Message.ServiceDataBatch.parseFrom(
+                    GzipUtils.decompress(msg.getCompressedServiceData().toByteArray()));
+        } catch (InvalidProtocolBufferException e) {
+            LOGGER.warn("Can not parse the service data batch. Exception info: {}", e.getMessage());
+            return;
+        }
+        for (Message.ServiceData serviceData : batch.getServiceDataList()) {
+            handlerServiceData(serviceData.getDataTypeValue(), serviceData.getData().toByteArray());
+        }
+    }
+
+    @Override
+    protected void handlerRequest(ChannelHandlerContext ctx, Message.NettyMessage msg) {
+        final Message.ServiceRequest request = msg.getServiceRequest();
+        if (request.getRequestType() != Message.ServiceRequest.RequestType.TOKEN_LEASE) {
+            super.handlerRequest(ctx, msg);
+            return;
+        }
+        final Message.ServiceResponse.Builder response = Message.ServiceResponse.newBuilder()
+                .setRequestId(request.getRequestId());
+        try {
+            response.setSuccess(true).setData(ByteString.copyFrom(tokenLeaseServer.lease(request.getData()
+                    .toByteArray())));
+        } catch (IllegalArgumentException | JSONException e) {
+            LOGGER.warn("Can not handle the token lease request. Exception info: {}", e.getMessage());
+            response.setSuccess(false).setErrorMessage(String.valueOf(e.getMessage()));
+        }
+        sendResponse(ctx, response.build());
+    }
+
+    private void handlerServiceData(int dataType, byte[] message) {
+        String topic = topicMapping.getTopicOfType(dataType);
+        if (StringUtils.hasText(topic)) {
+            if (Objects.equals(topic, topicMapping.getTopicOfType(HEARTBEAT_TOPIC_INDEX))) {
+                writeHeartBeatCacheCache(topic, message);
+                return;
+            }
+            if (!this.isHeartBeatCache) {
+                producer.send(new ProducerRecord<>(topic, message));
             }
+        } else {
+            LOGGER.warn("Can not find the corresponding topic of type {}.", dataType);
         }
     }
 
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.sermant.backend.server;
+
+import com.alibaba.fastjson.JSONObject;
+
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 集群限流的令牌服务端, 按资源以固定窗口统计集群许可, 向各agent批量发放许可租约
+ * <p>请求与应答均为UTF-8编码的JSON, 请求包含resource、permits、rate、periodMs, 应答包含granted、windowId、remainingMs;
+ * 统计周期按时间戳对齐, 各agent的租约在周期结束时同时失效</p>
+ *
+ * @author lilai
+ * @since 2022-09-28
+ */
+public class TokenLeaseServer {
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    private final LongSupplier clock;
+
+    /**
+     * 构造器
+     */
+    public TokenLeaseServer() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * 构造器
+     *
+     * @param clock 时钟, 单位毫秒
+     */
+    public TokenLeaseServer(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * 处理租约请求
+     *
+     * @param data 租约请求
+     * @return 租约应答
+     * @throws IllegalArgumentException 请求格式错误
+     */
+    public byte[] lease(byte[] data) {
+        final JSONObject request = JSONObject.parseObject(new String(data, StandardCharsets.UTF_8));
+        if (request == null) {
+            throw new IllegalArgumentException("Lease request is empty.");
+        }
+        final String resource = request.getString("resource");
+        final int permits = request.getIntValue("permits");
+        final int rate = request.getIntValue("rate");
+        if (!StringUtils.hasText(resource) || permits <= 0 || rate < 0) {
+            throw new IllegalArgumentException("Invalid lease request: " + request.toJSONString());
+        }
+        final long now = clock.getAsLong();
+        final long periodMs = Math.max(1L, request.getLongValue("periodMs"));
+        final long windowId = now / periodMs;
+        final Window window = windows.computeIfAbsent(resource, key -> new Window());
+        final int granted;
+        synchronized (window) {
+            if (window.windowId != windowId || window.periodMs != periodMs) {
+                window.windowId = windowId;
+                window.periodMs = periodMs;
+                window.used = 0;
+            }
+            granted = Math.max(0, Math.min(permits, rate - window.used));
+            window.used += granted;
+        }
+        final JSONObject response = new JSONObject();
+        response.put("granted", granted);
+        response.put("windowId", windowId);
+        response.put("remainingMs", (windowId + 1) * periodMs - now);
+        return response.toJSONString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 资源统计窗口
+     *
+     * @since 2022-09-28
+     */
+    private static class Window {
+        private long windowId = -1L;
+
+        private long periodMs;
+
+        private int used;
+    }
+}
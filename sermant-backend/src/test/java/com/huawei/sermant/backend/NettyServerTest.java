@@ -1,19 +1,31 @@
 package com.huawei.sermant.backend;
 
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.huawei.sermant.backend.common.conf.DataTypeTopicMapping;
+import com.huawei.sermant.backend.common.util.GzipUtils;
 import com.huawei.sermant.backend.pojo.Message;
 import com.huawei.sermant.backend.server.ServerHandler;
+import com.huawei.sermant.backend.server.TokenLeaseServer;
+
+import com.alibaba.fastjson.JSON;
+import com.google.protobuf.ByteString;
 
 import io.netty.channel.embedded.EmbeddedChannel;
 
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.junit.Assert;
-import org.junit.Before;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 public class NettyServerTest {
     private KafkaProducer<String, byte[]> producer;
     private KafkaConsumer<String, String> consumer;
@@ -21,7 +33,9 @@ public class NettyServerTest {
 
     private DataTypeTopicMapping topicMapping;
 
-    @Before
+    private final TokenLeaseServer tokenLeaseServer = new TokenLeaseServer();
+
+    @BeforeEach
     public void setUp() {
         producer = mock(KafkaProducer.class);
         topicMapping = mock(DataTypeTopicMapping.class);
@@ -33,7 +47,7 @@ public class NettyServerTest {
     @Test
     public void testWriteInBound() {
         EmbeddedChannel embeddedChannel = new EmbeddedChannel(
-                new ServerHandler(producer, consumer, topicMapping, isHeartBeatCache));
+                new ServerHandler(producer, consumer, topicMapping, isHeartBeatCache, tokenLeaseServer));
         boolean writeInbound = embeddedChannel.writeInbound(Message.ServiceData.newBuilder().build());
         Assert.assertTrue(writeInbound);
         Assert.assertTrue(embeddedChannel.finish());
@@ -48,7 +62,7 @@ public class NettyServerTest {
     @Test
     public void testWriteOutBound() {
         EmbeddedChannel embeddedChannel = new EmbeddedChannel(
-                new ServerHandler(producer, consumer, topicMapping, isHeartBeatCache));
+                new ServerHandler(producer, consumer, topicMapping, isHeartBeatCache, tokenLeaseServer));
         boolean writeOutBound = embeddedChannel.writeOutbound(Message.ServiceData.newBuilder().build());
         Assert.assertTrue(writeOutBound);
         Assert.assertTrue(embeddedChannel.finish());
@@ -57,4 +71,59 @@ public class NettyServerTest {
         Assert.assertNotNull(object);
     }
 
+    /**
+     * 测试整批压缩的业务数据被逐条发送
+     */
+    @Test
+    public void testHandleServiceDataBatch() {
+        final String topic = "topic-log";
+        when(topicMapping.getTopicOfType(Message.ServiceData.DataType.LOG_VALUE)).thenReturn(topic);
+        final byte[] data = "log".getBytes(StandardCharsets.UTF_8);
+        final Message.ServiceDataBatch batch = Message.ServiceDataBatch.newBuilder()
+                .addServiceData(Message.ServiceData.newBuilder().setDataType(Message.ServiceData.DataType.LOG)
+                        .setData(ByteString.copyFrom(data)))
+                .build();
+        final Message.NettyMessage message = Message.NettyMessage.newBuilder()
+                .setMessageType(Message.NettyMessage.MessageType.SERVICE_DATA_BATCH)
+                .setCompressedServiceData(ByteString.copyFrom(GzipUtils.compress(batch.toByteArray())))
+                .build();
+        EmbeddedChannel embeddedChannel = new EmbeddedChannel(
+                new ServerHandler(producer, consumer, topicMapping, isHeartBeatCache, tokenLeaseServer));
+        embeddedChannel.writeInbound(message);
+        verify(producer).send(argThat((ProducerRecord<String, byte[]> record) -> topic.equals(record.topic())
+                && Arrays.equals(data, record.value())));
+    }
+
+    /**
+     * 测试令牌租约请求被应答, 请求id与应答一致
+     */
+    @Test
+    public void testHandleTokenLeaseRequest() {
+        final String lease = "{\"resource\":\"scene\",\"permits\":10,\"rate\":15,\"periodMs\":60000}";
+        EmbeddedChannel embeddedChannel = new EmbeddedChannel(
+                new ServerHandler(producer, consumer, topicMapping, isHeartBeatCache, tokenLeaseServer));
+        embeddedChannel.writeInbound(buildRequest(1L, Message.ServiceRequest.RequestType.TOKEN_LEASE, lease));
+        embeddedChannel.writeInbound(buildRequest(2L, Message.ServiceRequest.RequestType.TOKEN_LEASE, lease));
+        embeddedChannel.writeInbound(buildRequest(3L, Message.ServiceRequest.RequestType.TOKEN_LEASE, "{}"));
+
+        Message.ServiceResponse first = ((Message.NettyMessage) embeddedChannel.readOutbound()).getServiceResponse();
+        Assert.assertEquals(1L, first.getRequestId());
+        Assert.assertTrue(first.getSuccess());
+        Assert.assertEquals(10, JSON.parseObject(first.getData().toStringUtf8()).getIntValue("granted"));
+        Message.ServiceResponse second = ((Message.NettyMessage) embeddedChannel.readOutbound()).getServiceResponse();
+        Assert.assertEquals(2L, second.getRequestId());
+        Assert.assertEquals(5, JSON.parseObject(second.getData().toStringUtf8()).getIntValue("granted"));
+        Message.ServiceResponse invalid = ((Message.NettyMessage) embeddedChannel.readOutbound()).getServiceResponse();
+        Assert.assertEquals(3L, invalid.getRequestId());
+        Assert.assertFalse(invalid.getSuccess());
+    }
+
+    private Message.NettyMessage buildRequest(long requestId, Message.ServiceRequest.RequestType requestType,
+            String data) {
+        return Message.NettyMessage.newBuilder()
+                .setMessageType(Message.NettyMessage.MessageType.SERVICE_REQUEST)
+                .setServiceRequest(Message.ServiceRequest.newBuilder().setRequestId(requestId)
+                        .setRequestType(requestType).setData(ByteString.copyFromUtf8(data)))
+                .build();
+    }
 }
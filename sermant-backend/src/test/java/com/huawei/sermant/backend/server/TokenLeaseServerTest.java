@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.sermant.backend.server;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 令牌服务端测试
+ *
+ * @author lilai
+ * @since 2022-09-28
+ */
+public class TokenLeaseServerTest {
+    private static final long PERIOD_MS = 1000L;
+
+    /**
+     * 测试多个agent并发申请租约, 同一统计周期内发放的许可总数不超过rate, 下一周期重新发放
+     *
+     * @throws Exception 并发执行异常
+     */
+    @Test
+    public void testConcurrentLease() throws Exception {
+        final AtomicLong clock = new AtomicLong(PERIOD_MS * 10 + 1L);
+        final TokenLeaseServer server = new TokenLeaseServer(clock::get);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    int granted = 0;
+                    for (int j = 0; j < 50; j++) {
+                        granted += lease(server, "scene", 3, 100).getIntValue("granted");
+                    }
+                    return granted;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> future : futures) {
+                total += future.get();
+            }
+            Assert.assertEquals(100, total);
+        } finally {
+            executor.shutdown();
+        }
+        final JSONObject exhausted = lease(server, "scene", 3, 100);
+        Assert.assertEquals(0, exhausted.getIntValue("granted"));
+        Assert.assertEquals(PERIOD_MS - 1L, exhausted.getLongValue("remainingMs"));
+
+        // 其他资源独立统计
+        Assert.assertEquals(3, lease(server, "other", 3, 100).getIntValue("granted"));
+
+        clock.addAndGet(PERIOD_MS);
+        final JSONObject nextWindow = lease(server, "scene", 3, 100);
+        Assert.assertEquals(3, nextWindow.getIntValue("granted"));
+        Assert.assertEquals(exhausted.getLongValue("windowId") + 1, nextWindow.getLongValue("windowId"));
+    }
+
+    /**
+     * 测试格式错误的请求
+     */
+    @Test
+    public void testInvalidRequest() {
+        final TokenLeaseServer server = new TokenLeaseServer();
+        Assert.assertThrows(IllegalArgumentException.class,
+            () -> server.lease("{\"permits\":1,\"rate\":1}".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertThrows(IllegalArgumentException.class,
+            () -> server.lease("{\"resource\":\"scene\",\"permits\":0}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private JSONObject lease(TokenLeaseServer server, String resource, int permits, int rate) {
+        final JSONObject request = new JSONObject();
+        request.put("resource", resource);
+        request.put("permits", permits);
+        request.put("rate", rate);
+        request.put("periodMs", PERIOD_MS);
+        return JSON.parseObject(new String(server.lease(request.toJSONString().getBytes(StandardCharsets.UTF_8)),
+            StandardCharsets.UTF_8));
+    }
+}
@@ -56,6 +56,7 @@ public class DemoTraceConsumerInterceptor extends AbstractInterceptor {
             carrier.put(TracingHeader.TRACE_ID.getValue(), spanEvent.getTraceId());
             carrier.put(TracingHeader.PARENT_SPAN_ID.getValue(), spanEvent.getSpanId());
             carrier.put(TracingHeader.SPAN_ID_PREFIX.getValue(), spanEvent.getNextSpanIdPrefix());
+            carrier.put(TracingHeader.SAMPLED.getValue(), spanEvent.getSampledValue());
         };
         tracingService.onConsumerSpanStart(request, injectService, (HashMap<String, String>)context.getResult());
         Optional<SpanEventContext> spanEventContextOptional = tracingService.getContext();
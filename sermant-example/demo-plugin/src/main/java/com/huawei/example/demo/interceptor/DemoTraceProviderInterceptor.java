@@ -51,6 +51,7 @@ public class DemoTraceProviderInterceptor extends AbstractInterceptor {
             tracingRequest.setTraceId(carrier.get(TracingHeader.TRACE_ID.getValue()));
             tracingRequest.setParentSpanId(carrier.get(TracingHeader.PARENT_SPAN_ID.getValue()));
             tracingRequest.setSpanIdPrefix(carrier.get(TracingHeader.SPAN_ID_PREFIX.getValue()));
+            tracingRequest.setSampledValue(carrier.get(TracingHeader.SAMPLED.getValue()));
         };
         tracingService.onProviderSpanStart(request, extractService, (HashMap<String, String>)context.getArguments()[0]);
         return context;
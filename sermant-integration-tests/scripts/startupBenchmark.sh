@@ -0,0 +1,78 @@
+#
+# Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+# http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+#
+#
+
+# !/bin/bash
+# 该脚本用于对比增强缓存关闭、冷缓存、热缓存三种情况下挂载agent的服务启动耗时
+# 启动耗时为拉起进程至服务请求地址返回200的时间，单位毫秒
+# 示例: bash startupBenchmark.sh sermant-agent-1.0.0/agent rest-provider.jar http://127.0.0.1:8013/hello 5
+# agent目录，需包含sermant-agent.jar
+agentDir=$1
+# 被测服务的jar包
+appJar=$2
+# 服务请求地址
+serviceUrl=$3
+# 每种情况的启动次数
+rounds=${4:-5}
+# 单次启动的最大等待时间, 单位秒
+maxWaitTime=${5:-120}
+
+cacheDir=$(mktemp -d)
+
+# 启动服务并等待其可用，输出启动耗时，参数为增强缓存开关
+startOnce() {
+  startTime=$(date +%s%3N)
+  java -javaagent:${agentDir}/sermant-agent.jar -Dagent.config.isEnhanceCacheEnable=$1 \
+    -Dagent.config.enhanceCachePath=${cacheDir} -jar ${appJar} > /dev/null 2>&1 &
+  pid=$!
+  deadline=$((startTime + maxWaitTime * 1000))
+  while [ "$(date +%s%3N)" -lt ${deadline} ]
+  do
+    code=`curl -o /dev/null -s -w %{http_code} ${serviceUrl}`
+    if [ "${code}" == 200 ];then
+      break
+    fi
+    sleep 0.1
+  done
+  endTime=$(date +%s%3N)
+  kill ${pid}
+  wait ${pid} 2>/dev/null
+  echo $((endTime - startTime))
+}
+
+# 多次启动并输出平均耗时，参数依次为场景名、增强缓存开关、每次启动前是否清空缓存
+benchmark() {
+  total=0
+  for ((i=1; i<=${rounds};i++))
+  do
+    if [ "$3" == true ];then
+      rm -rf ${cacheDir:?}/*
+    fi
+    cost=$(startOnce $2)
+    echo "$1 round ${i}: ${cost} ms"
+    total=$((total + cost))
+  done
+  echo "$1 average: $((total / rounds)) ms"
+}
+
+benchmark "cache disabled" false false
+benchmark "cold cache" true true
+
+# 预热一次，确保缓存完整写入后再测量热缓存
+startOnce true > /dev/null
+benchmark "warm cache" true false
+
+rm -rf ${cacheDir}
@@ -21,17 +21,24 @@ import com.huawei.dynamic.config.init.DynamicConfigThreadFactory;
 
 import com.huaweicloud.sermant.core.common.LoggerFactory;
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEvent;
+import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEventType;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
 import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 /**
@@ -58,6 +65,13 @@ public enum ConfigHolder {
         TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE), new DynamicConfigThreadFactory(
         "DYNAMIC_CONFIG_REFRESH_THREAD"));
 
+    /**
+     * 待处理的事件, 由刷新线程批量消费, 同一时刻最多只有一个待执行的消费任务, 避免突发事件被线程池拒绝
+     */
+    private final Queue<DynamicConfigEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean isDrainScheduled = new AtomicBoolean();
+
     ConfigHolder() {
         loadConfigSources();
     }
@@ -73,20 +87,63 @@ public enum ConfigHolder {
 
     /**
      * 解析事件，判断是否需要通知更新配置
-     * <p>全量更新</p>
+     * <p>全量更新, 刷新线程处理前累积的事件合并为一次刷新通知</p>
      *
      * @param event 事件
      */
     public void resolve(DynamicConfigEvent event) {
-        executorService.submit(() -> {
+        pendingEvents.offer(event);
+        if (isDrainScheduled.compareAndSet(false, true)) {
+            executorService.submit(this::drainEvents);
+        }
+    }
+
+    private void drainEvents() {
+        isDrainScheduled.set(false);
+        final Map<String, Object> oldConfigs = getAllConfigs();
+        DynamicConfigEvent refreshEvent = null;
+        for (DynamicConfigEvent event = pendingEvents.poll(); event != null; event = pendingEvents.poll()) {
             boolean isNeedRefresh = false;
             for (ConfigSource configSource : configSources) {
                 isNeedRefresh |= doAccept(configSource, event);
             }
-            if (isNeedRefresh) {
-                notifier.refresh(event);
+            if (isNeedRefresh && (refreshEvent == null || refreshEvent.getEventType() == DynamicConfigEventType.INIT)) {
+                // 优先使用非初始化事件通知, 以确保批量中存在变更时触发刷新
+                refreshEvent = event;
             }
-        });
+        }
+        if (refreshEvent != null) {
+            notifier.refresh(refreshEvent, getChangedKeys(oldConfigs, getAllConfigs()));
+        }
+    }
+
+    /**
+     * 获取当前生效的所有配置, 同名配置以优先级最高的配置源为准
+     *
+     * @return 所有配置
+     */
+    private Map<String, Object> getAllConfigs() {
+        final Set<String> configNames = getConfigNames();
+        final Map<String, Object> configs = new HashMap<>(configNames.size());
+        for (String configName : configNames) {
+            configs.put(configName, getConfig(configName));
+        }
+        return configs;
+    }
+
+    private Set<String> getChangedKeys(Map<String, Object> oldConfigs, Map<String, Object> newConfigs) {
+        final Set<String> changedKeys = new HashSet<>();
+        for (Map.Entry<String, Object> entry : newConfigs.entrySet()) {
+            if (!Objects.equals(entry.getValue(), oldConfigs.get(entry.getKey()))) {
+                changedKeys.add(entry.getKey());
+            }
+        }
+        for (String key : oldConfigs.keySet()) {
+            if (!newConfigs.containsKey(key)) {
+                changedKeys.add(key);
+            }
+        }
+        return changedKeys;
     }
 
     private boolean doAccept(ConfigSource configSource, DynamicConfigEvent event) {
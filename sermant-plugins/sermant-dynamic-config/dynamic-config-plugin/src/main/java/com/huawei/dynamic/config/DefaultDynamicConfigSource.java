@@ -20,6 +20,7 @@ package com.huawei.dynamic.config;
 import com.huawei.dynamic.config.resolver.ConfigResolver;
 import com.huawei.dynamic.config.resolver.DefaultConfigResolver;
 
+import com.huaweicloud.sermant.core.plugin.subscribe.processor.BatchConfigEvent;
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEvent;
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEventType;
 
@@ -59,6 +60,16 @@ public class DefaultDynamicConfigSource extends DynamicConfigSource {
      */
     @Override
     public boolean doAccept(DynamicConfigEvent event) {
+        if (event instanceof BatchConfigEvent) {
+            ((BatchConfigEvent) event).getEvents().forEach(this::acceptEvent);
+        } else {
+            acceptEvent(event);
+        }
+        updateConfigSources();
+        return true;
+    }
+
+    private void acceptEvent(DynamicConfigEvent event) {
         if (event.getEventType() == DynamicConfigEventType.DELETE) {
             // 直接移除该配置项的所有键值对
             allConfigSources.remove(event.getKey());
@@ -68,8 +79,6 @@ public class DefaultDynamicConfigSource extends DynamicConfigSource {
             updateAllConfigSources(newConfigSources, event.getKey());
             newConfigSources.clear();
         }
-        updateConfigSources();
-        return true;
     }
 
     @Override
@@ -19,6 +19,8 @@ package com.huawei.dynamic.config;
 
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEvent;
 
+import java.util.Set;
+
 /**
  * 动态配置监听器
  *
@@ -33,6 +35,17 @@ public interface DynamicConfigListener {
      */
     void configChange(DynamicConfigEvent event);
 
+    /**
+     * 通知刷新配置, 附带本次实际发生变更的配置键
+     * <p>默认按全量刷新处理, 可感知变更键的监听器可覆写该方法仅刷新受影响的部分</p>
+     *
+     * @param event 配置修改事件
+     * @param changedKeys 变更的配置键, 包括新增、修改与删除的配置键
+     */
+    default void configChange(DynamicConfigEvent event, Set<String> changedKeys) {
+        configChange(event);
+    }
+
     /**
      * 优先级
      *
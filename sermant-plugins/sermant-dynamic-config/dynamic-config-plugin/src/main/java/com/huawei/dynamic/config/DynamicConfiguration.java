@@ -55,6 +55,33 @@ public class DynamicConfiguration implements PluginConfig {
      */
     private boolean enableOriginConfigCenter = true;
 
+    /**
+     * 是否开启按变更配置键定向刷新, 开启后仅重新绑定前缀与变更键相交的ConfigurationProperties bean,
+     * 存在无法归属的变更键时仍发布全量刷新事件
+     */
+    private boolean enableTargetedRefresh = false;
+
+    /**
+     * 两次spring刷新的最小间隔, 间隔内的变更合并后刷新, 小于等于0则不限制
+     */
+    private long refreshIntervalMs = 0L;
+
+    public boolean isEnableTargetedRefresh() {
+        return enableTargetedRefresh;
+    }
+
+    public void setEnableTargetedRefresh(boolean enableTargetedRefresh) {
+        this.enableTargetedRefresh = enableTargetedRefresh;
+    }
+
+    public long getRefreshIntervalMs() {
+        return refreshIntervalMs;
+    }
+
+    public void setRefreshIntervalMs(long refreshIntervalMs) {
+        this.refreshIntervalMs = refreshIntervalMs;
+    }
+
     public boolean isEnableOriginConfigCenter() {
         return enableOriginConfigCenter;
     }
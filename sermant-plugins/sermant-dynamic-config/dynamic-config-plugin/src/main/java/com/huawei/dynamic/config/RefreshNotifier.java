@@ -22,6 +22,7 @@ import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEv
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 配置刷新通知器
@@ -54,4 +55,16 @@ public class RefreshNotifier {
             listener.configChange(event);
         }
     }
+
+    /**
+     * 通知事件
+     *
+     * @param event 通知事件
+     * @param changedKeys 变更的配置键
+     */
+    public void refresh(DynamicConfigEvent event, Set<String> changedKeys) {
+        for (DynamicConfigListener listener : dynamicConfigListeners) {
+            listener.configChange(event, changedKeys);
+        }
+    }
 }
@@ -18,42 +18,308 @@
 package com.huawei.dynamic.config.source;
 
 import com.huawei.dynamic.config.ConfigHolder;
+import com.huawei.dynamic.config.DynamicConfigListener;
+import com.huawei.dynamic.config.DynamicConfiguration;
+import com.huawei.dynamic.config.init.DynamicConfigThreadFactory;
 
+import com.huaweicloud.sermant.core.common.LoggerFactory;
+import com.huaweicloud.sermant.core.plugin.config.PluginConfigManager;
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEvent;
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEventType;
 
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.cloud.context.properties.ConfigurationPropertiesBeans;
+import org.springframework.cloud.context.properties.ConfigurationPropertiesRebinder;
 import org.springframework.cloud.endpoint.event.RefreshEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
 /**
  * spring事件发布器
+ * <p>默认每次变更发布全量刷新事件; 开启定向刷新后仅重新绑定受变更键影响的ConfigurationProperties bean,
+ * 配置刷新间隔后, 间隔内的变更合并为一次刷新</p>
+ * <p>定向刷新无法更新@Value注入的属性与@RefreshScope bean, 存在此类bean时仍发布全量刷新事件</p>
  *
  * @author zhouss
  * @since 2022-04-08
  */
 @Component
-public class SpringEventPublisher implements ApplicationEventPublisherAware {
+public class SpringEventPublisher implements ApplicationEventPublisherAware, ApplicationContextAware,
+        DynamicConfigListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger();
+
+    /**
+     * 插件自身注入的bean所在的包, 不参与@Value检查
+     */
+    private static final String PLUGIN_PACKAGE = "com.huawei.dynamic.config.";
+
     private ApplicationEventPublisher applicationEventPublisher;
 
+    private ApplicationContext applicationContext;
+
+    private DynamicConfiguration configuration;
+
+    private ScheduledExecutorService refreshExecutor;
+
+    /**
+     * 刷新间隔内累积的变更键
+     */
+    private final Set<String> pendingKeys = new HashSet<>();
+
+    private boolean isFullRefreshPending;
+
+    private boolean isRefreshScheduled;
+
+    private long lastRefreshTime;
+
+    /**
+     * 是否存在@Value注入或@RefreshScope的bean, 首次定向刷新时检查
+     */
+    private Boolean hasValueOrRefreshScopeBean;
+
     @Override
     public void setApplicationEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
         this.applicationEventPublisher = applicationEventPublisher;
         initDynamicConfig();
     }
 
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        this.applicationContext = applicationContext;
+    }
+
     private void initDynamicConfig() {
-        ConfigHolder.INSTANCE.addListener(this::publishRefreshEvent);
+        this.configuration = PluginConfigManager.getPluginConfig(DynamicConfiguration.class);
+        ConfigHolder.INSTANCE.addListener(this);
     }
 
-    /**
-     * 发布spring刷新事件{@link org.springframework.cloud.endpoint.event.RefreshEvent}
-     */
-    private void publishRefreshEvent(DynamicConfigEvent event) {
+    @Override
+    public void configChange(DynamicConfigEvent event) {
         if (event.getEventType() == DynamicConfigEventType.INIT) {
             return;
         }
+        submitRefresh(Collections.emptySet(), true);
+    }
+
+    @Override
+    public void configChange(DynamicConfigEvent event, Set<String> changedKeys) {
+        if (event.getEventType() == DynamicConfigEventType.INIT) {
+            return;
+        }
+        submitRefresh(changedKeys, false);
+    }
+
+    private synchronized void submitRefresh(Set<String> changedKeys, boolean isFullRefresh) {
+        pendingKeys.addAll(changedKeys);
+        isFullRefreshPending |= isFullRefresh;
+        if (isRefreshScheduled) {
+            return;
+        }
+        final long refreshInterval = configuration == null ? 0L : configuration.getRefreshIntervalMs();
+        final long delay = lastRefreshTime + refreshInterval - System.currentTimeMillis();
+        if (refreshInterval <= 0 || delay <= 0) {
+            flushRefresh();
+            return;
+        }
+        if (refreshExecutor == null) {
+            refreshExecutor = Executors.newSingleThreadScheduledExecutor(
+                new DynamicConfigThreadFactory("DYNAMIC_CONFIG_REFRESH_LIMIT_THREAD"));
+        }
+        isRefreshScheduled = true;
+        refreshExecutor.schedule(this::scheduledRefresh, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void scheduledRefresh() {
+        isRefreshScheduled = false;
+        flushRefresh();
+    }
+
+    private void flushRefresh() {
+        final Set<String> changedKeys = new HashSet<>(pendingKeys);
+        final boolean isFullRefresh = isFullRefreshPending;
+        pendingKeys.clear();
+        isFullRefreshPending = false;
+        lastRefreshTime = System.currentTimeMillis();
+        if (isFullRefresh || !isTargetedRefreshEnabled() || !rebindTargetBeans(changedKeys)) {
+            publishRefreshEvent();
+        }
+    }
+
+    private boolean isTargetedRefreshEnabled() {
+        return configuration != null && configuration.isEnableTargetedRefresh() && applicationContext != null;
+    }
+
+    /**
+     * 仅重新绑定前缀与变更键相交的ConfigurationProperties bean
+     *
+     * @param changedKeys 变更的配置键
+     * @return 是否所有变更键均已处理, 否则需发布全量刷新事件
+     */
+    private boolean rebindTargetBeans(Set<String> changedKeys) {
+        if (changedKeys.isEmpty()) {
+            return true;
+        }
+        if (hasValueOrRefreshScopeBean == null) {
+            hasValueOrRefreshScopeBean = findValueOrRefreshScopeBean();
+        }
+        if (hasValueOrRefreshScopeBean) {
+            return false;
+        }
+        try {
+            final ConfigurationPropertiesRebinder rebinder = applicationContext
+                .getBeanProvider(ConfigurationPropertiesRebinder.class).getIfAvailable();
+            final ConfigurationPropertiesBeans propertiesBeans = applicationContext
+                .getBeanProvider(ConfigurationPropertiesBeans.class).getIfAvailable();
+            if (rebinder == null || propertiesBeans == null) {
+                return false;
+            }
+            final Set<String> uncoveredKeys = new HashSet<>(changedKeys);
+            final List<String> targetBeans = new ArrayList<>();
+            for (String beanName : propertiesBeans.getBeanNames()) {
+                final ConfigurationProperties annotation =
+                    applicationContext.findAnnotationOnBean(beanName, ConfigurationProperties.class);
+                if (annotation == null) {
+                    // 无法确定bean的绑定前缀, 交由全量刷新处理
+                    return false;
+                }
+                final String prefix = annotation.prefix().isEmpty() ? annotation.value() : annotation.prefix();
+                if (canonical(prefix).isEmpty()) {
+                    // 绑定在根路径的bean无法归属变更键, 不视为覆盖任何键
+                    continue;
+                }
+                boolean isTarget = false;
+                for (String key : changedKeys) {
+                    if (isUnderPrefix(key, prefix)) {
+                        uncoveredKeys.remove(key);
+                        isTarget = true;
+                    }
+                }
+                if (isTarget) {
+                    targetBeans.add(beanName);
+                }
+            }
+            if (!uncoveredKeys.isEmpty()) {
+                return false;
+            }
+            targetBeans.forEach(rebinder::rebind);
+            LOGGER.fine(String.format(Locale.ENGLISH, "Rebind beans %s for changed keys %s", targetBeans,
+                changedKeys));
+            return true;
+        } catch (BeansException | NoClassDefFoundError | NoSuchMethodError ex) {
+            LOGGER.warning(String.format(Locale.ENGLISH, "Can not rebind target beans, reason: %s, "
+                + "fallback to refresh event", ex.getMessage()));
+            return false;
+        }
+    }
+
+    /**
+     * 检查是否存在@RefreshScope bean或通过@Value注入属性的bean
+     *
+     * @return 是否存在, 检查失败时视为存在
+     */
+    private boolean findValueOrRefreshScopeBean() {
+        try {
+            if (applicationContext.getBeanNamesForAnnotation(RefreshScope.class).length > 0) {
+                return true;
+            }
+            for (String beanName : applicationContext.getBeanDefinitionNames()) {
+                final Class<?> beanType = applicationContext.getType(beanName);
+                if (beanType != null && hasValueAnnotation(ClassUtils.getUserClass(beanType))) {
+                    LOGGER.fine(String.format(Locale.ENGLISH, "Found @Value in bean %s, targeted refresh is "
+                        + "disabled", beanName));
+                    return true;
+                }
+            }
+            return false;
+        } catch (BeansException | LinkageError ex) {
+            LOGGER.warning(String.format(Locale.ENGLISH, "Can not check @Value beans, reason: %s, "
+                + "fallback to refresh event", ex.getMessage()));
+            return true;
+        }
+    }
+
+    private boolean hasValueAnnotation(Class<?> beanType) {
+        for (Class<?> clazz = beanType; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            if (clazz.getName().startsWith(PLUGIN_PACKAGE)) {
+                return false;
+            }
+            for (Field field : clazz.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Value.class)) {
+                    return true;
+                }
+            }
+            for (Method method : clazz.getDeclaredMethods()) {
+                if (method.isAnnotationPresent(Value.class) || hasValueAnnotation(method.getParameterAnnotations())) {
+                    return true;
+                }
+            }
+            for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+                if (hasValueAnnotation(constructor.getParameterAnnotations())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean hasValueAnnotation(Annotation[][] parameterAnnotations) {
+        for (Annotation[] annotations : parameterAnnotations) {
+            for (Annotation annotation : annotations) {
+                if (annotation instanceof Value) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isUnderPrefix(String key, String prefix) {
+        final String canonicalKey = canonical(key);
+        final String canonicalPrefix = canonical(prefix);
+        if (canonicalKey.equals(canonicalPrefix)) {
+            return true;
+        }
+        return canonicalKey.startsWith(canonicalPrefix)
+            && (canonicalKey.charAt(canonicalPrefix.length()) == '.'
+            || canonicalKey.charAt(canonicalPrefix.length()) == '[');
+    }
+
+    /**
+     * 宽松绑定下的统一形式, 忽略大小写与中划线
+     *
+     * @param name 配置键
+     * @return 统一形式的配置键
+     */
+    private String canonical(String name) {
+        return name.replace("-", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 发布spring刷新事件{@link org.springframework.cloud.endpoint.event.RefreshEvent}
+     */
+    private void publishRefreshEvent() {
         applicationEventPublisher.publishEvent(new RefreshEvent(this, null, "sermant refresh"));
     }
 }
@@ -20,6 +20,7 @@ package com.huawei.dynamic.config.subscribe;
 import com.huawei.dynamic.config.ConfigHolder;
 
 import com.huaweicloud.sermant.core.common.LoggerFactory;
+import com.huaweicloud.sermant.core.plugin.subscribe.processor.BatchConfigEvent;
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEvent;
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigListener;
 
@@ -35,9 +36,19 @@ public class ConfigListener implements DynamicConfigListener {
     @Override
     public void process(DynamicConfigEvent event) {
         ConfigHolder.INSTANCE.resolve(event);
+        if (event instanceof BatchConfigEvent) {
+            LoggerFactory.getLogger().info(String.format(Locale.ENGLISH,
+                "[DynamicConfig] Received [%s] coalesced sources", ((BatchConfigEvent) event).getEvents().size()));
+            return;
+        }
         LoggerFactory.getLogger().info(String.format(Locale.ENGLISH,
             "[DynamicConfig] Received source [%s], and [%s] it", event.getKey(), event.getEventType()));
         LoggerFactory.getLogger().fine(String.format(Locale.ENGLISH,
             "[DynamicConfig] the value of source is %s", event.getContent()));
     }
+
+    @Override
+    public boolean isSupportBatch() {
+        return true;
+    }
 }
@@ -24,13 +24,25 @@ import com.huaweicloud.sermant.core.plugin.config.PluginConfigManager;
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEvent;
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEventType;
 
+import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.cloud.context.properties.ConfigurationPropertiesBeans;
+import org.springframework.cloud.context.properties.ConfigurationPropertiesRebinder;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationEventPublisher;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
 /**
  * 事件发布器测试
  *
@@ -38,6 +50,8 @@ import org.springframework.context.ApplicationEventPublisher;
  * @since 2022-09-05
  */
 public class SpringEventPublisherTest {
+    private static final long REFRESH_INTERVAL_MS = 200L;
+
     @Mock
     private ApplicationEventPublisher applicationEventPublisher;
 
@@ -58,4 +72,125 @@ public class SpringEventPublisherTest {
             originConfigCenterDisableListenerTest.getListeners().clear();
         }
     }
+
+    @Test
+    public void testTargetedRefresh() throws InterruptedException {
+        MockitoAnnotations.openMocks(this);
+        final DynamicConfiguration configuration = new DynamicConfiguration();
+        configuration.setEnableTargetedRefresh(true);
+        configuration.setRefreshIntervalMs(REFRESH_INTERVAL_MS);
+        try (final MockedStatic<PluginConfigManager> pluginConfigManagerMockedStatic =
+                Mockito.mockStatic(PluginConfigManager.class)) {
+            pluginConfigManagerMockedStatic.when(() -> PluginConfigManager.getPluginConfig(DynamicConfiguration.class))
+                    .thenReturn(configuration);
+            final ConfigurationPropertiesRebinder rebinder = Mockito.mock(ConfigurationPropertiesRebinder.class);
+            final ConfigurationPropertiesBeans propertiesBeans = Mockito.mock(ConfigurationPropertiesBeans.class);
+            Mockito.when(propertiesBeans.getBeanNames()).thenReturn(new HashSet<>(Arrays.asList("demo", "other")));
+            final ApplicationContext applicationContext = mockContext(rebinder, propertiesBeans);
+            final SpringEventPublisher springEventPublisher = new SpringEventPublisher();
+            springEventPublisher.setApplicationContext(applicationContext);
+            springEventPublisher.setApplicationEventPublisher(applicationEventPublisher);
+            final DynamicConfigEvent event = new DynamicConfigEvent("id", "group", "config",
+                    DynamicConfigEventType.MODIFY);
+
+            // 变更键均可归属到ConfigurationProperties bean时仅重新绑定对应bean
+            springEventPublisher.configChange(event, Collections.singleton("demo.time-out"));
+            Mockito.verify(rebinder, Mockito.times(1)).rebind("demo");
+            Mockito.verify(rebinder, Mockito.times(0)).rebind("other");
+            Mockito.verify(applicationEventPublisher, Mockito.times(0)).publishEvent(Mockito.any());
+
+            // 刷新间隔内的变更合并, 存在无法归属的键时发布全量刷新事件
+            springEventPublisher.configChange(event, Collections.singleton("demo.name"));
+            springEventPublisher.configChange(event, Collections.singleton("unknown.key"));
+            Mockito.verify(applicationEventPublisher, Mockito.times(0)).publishEvent(Mockito.any());
+            Thread.sleep(REFRESH_INTERVAL_MS * 3);
+            Mockito.verify(applicationEventPublisher, Mockito.times(1)).publishEvent(Mockito.any());
+            Mockito.verify(rebinder, Mockito.times(1)).rebind("demo");
+            final OriginConfigCenterDisableListenerTest originConfigCenterDisableListenerTest =
+                    new OriginConfigCenterDisableListenerTest();
+            originConfigCenterDisableListenerTest.checkConfigListeners();
+            Assert.assertTrue(originConfigCenterDisableListenerTest.getListeners().remove(springEventPublisher));
+        }
+    }
+
+    @Test
+    public void testRefreshEventForValueBeanAndRootPrefix() {
+        MockitoAnnotations.openMocks(this);
+        final DynamicConfiguration configuration = new DynamicConfiguration();
+        configuration.setEnableTargetedRefresh(true);
+        try (final MockedStatic<PluginConfigManager> pluginConfigManagerMockedStatic =
+                Mockito.mockStatic(PluginConfigManager.class)) {
+            pluginConfigManagerMockedStatic.when(() -> PluginConfigManager.getPluginConfig(DynamicConfiguration.class))
+                    .thenReturn(configuration);
+            final ConfigurationPropertiesRebinder rebinder = Mockito.mock(ConfigurationPropertiesRebinder.class);
+            final ConfigurationPropertiesBeans propertiesBeans = Mockito.mock(ConfigurationPropertiesBeans.class);
+            Mockito.when(propertiesBeans.getBeanNames()).thenReturn(new HashSet<>(Arrays.asList("demo", "root")));
+            final ApplicationContext applicationContext = mockContext(rebinder, propertiesBeans);
+            final ConfigurationProperties rootProperties = Mockito.mock(ConfigurationProperties.class);
+            Mockito.when(rootProperties.prefix()).thenReturn("");
+            Mockito.when(rootProperties.value()).thenReturn("");
+            Mockito.when(applicationContext.findAnnotationOnBean("root", ConfigurationProperties.class))
+                    .thenReturn(rootProperties);
+            final SpringEventPublisher springEventPublisher = new SpringEventPublisher();
+            springEventPublisher.setApplicationContext(applicationContext);
+            springEventPublisher.setApplicationEventPublisher(applicationEventPublisher);
+            final DynamicConfigEvent event = new DynamicConfigEvent("id", "group", "config",
+                    DynamicConfigEventType.MODIFY);
+
+            // 绑定在根路径的bean不覆盖任何键
+            springEventPublisher.configChange(event, Collections.singleton("unknown.key"));
+            Mockito.verify(applicationEventPublisher, Mockito.times(1)).publishEvent(Mockito.any());
+            Mockito.verify(rebinder, Mockito.times(0)).rebind(Mockito.anyString());
+
+            // 存在@Value注入的bean时, 即使变更键均可归属仍发布全量刷新事件
+            final SpringEventPublisher valuePublisher = new SpringEventPublisher();
+            final ApplicationContext valueContext = mockContext(rebinder, propertiesBeans);
+            Mockito.when(valueContext.getBeanDefinitionNames()).thenReturn(new String[]{"valueBean"});
+            Mockito.doReturn(ValueBean.class).when(valueContext).getType("valueBean");
+            valuePublisher.setApplicationContext(valueContext);
+            valuePublisher.setApplicationEventPublisher(applicationEventPublisher);
+            valuePublisher.configChange(event, Collections.singleton("demo.time-out"));
+            Mockito.verify(applicationEventPublisher, Mockito.times(2)).publishEvent(Mockito.any());
+            Mockito.verify(rebinder, Mockito.times(0)).rebind(Mockito.anyString());
+            final OriginConfigCenterDisableListenerTest originConfigCenterDisableListenerTest =
+                    new OriginConfigCenterDisableListenerTest();
+            originConfigCenterDisableListenerTest.checkConfigListeners();
+            originConfigCenterDisableListenerTest.getListeners().remove(springEventPublisher);
+            originConfigCenterDisableListenerTest.getListeners().remove(valuePublisher);
+        }
+    }
+
+    private ApplicationContext mockContext(ConfigurationPropertiesRebinder rebinder,
+            ConfigurationPropertiesBeans propertiesBeans) {
+        final ApplicationContext applicationContext = Mockito.mock(ApplicationContext.class);
+        final ObjectProvider<ConfigurationPropertiesRebinder> rebinderProvider = Mockito.mock(ObjectProvider.class);
+        Mockito.when(rebinderProvider.getIfAvailable()).thenReturn(rebinder);
+        final ObjectProvider<ConfigurationPropertiesBeans> beansProvider = Mockito.mock(ObjectProvider.class);
+        Mockito.when(beansProvider.getIfAvailable()).thenReturn(propertiesBeans);
+        Mockito.when(applicationContext.getBeanProvider(ConfigurationPropertiesRebinder.class))
+                .thenReturn(rebinderProvider);
+        Mockito.when(applicationContext.getBeanProvider(ConfigurationPropertiesBeans.class))
+                .thenReturn(beansProvider);
+        final ConfigurationProperties demoProperties = Mockito.mock(ConfigurationProperties.class);
+        Mockito.when(demoProperties.prefix()).thenReturn("demo");
+        final ConfigurationProperties otherProperties = Mockito.mock(ConfigurationProperties.class);
+        Mockito.when(otherProperties.prefix()).thenReturn("other");
+        Mockito.when(applicationContext.findAnnotationOnBean("demo", ConfigurationProperties.class))
+                .thenReturn(demoProperties);
+        Mockito.when(applicationContext.findAnnotationOnBean("other", ConfigurationProperties.class))
+                .thenReturn(otherProperties);
+        Mockito.when(applicationContext.getBeanNamesForAnnotation(RefreshScope.class)).thenReturn(new String[0]);
+        Mockito.when(applicationContext.getBeanDefinitionNames()).thenReturn(new String[0]);
+        return applicationContext;
+    }
+
+    /**
+     * 通过@Value注入属性的bean
+     *
+     * @since 2022-09-05
+     */
+    static class ValueBean {
+        @Value("${demo.time-out:0}")
+        private int timeout;
+    }
 }
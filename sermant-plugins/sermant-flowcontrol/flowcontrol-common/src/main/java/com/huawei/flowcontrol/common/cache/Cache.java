@@ -17,6 +17,8 @@
 
 package com.huawei.flowcontrol.common.cache;
 
+import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 
 /**
@@ -75,6 +77,22 @@ public interface Cache<K, V> {
      */
     V evict(K key);
 
+    /**
+     * 遍历所有缓存
+     *
+     * @param action 处理器
+     */
+    void forEach(BiConsumer<K, V> action);
+
+    /**
+     * 缓存统计信息, 不支持统计的实现返回空
+     *
+     * @return 统计信息
+     */
+    default Optional<CacheStats> stats() {
+        return Optional.empty();
+    }
+
     /**
      * 是否资源
      */
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.flowcontrol.common.cache;
+
+import java.util.Locale;
+
+/**
+ * 缓存统计信息快照
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class CacheStats {
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long evictionCount;
+
+    private final long admissionCount;
+
+    private final long rejectionCount;
+
+    /**
+     * 构造器
+     *
+     * @param hitCount 命中次数
+     * @param missCount 未命中次数
+     * @param evictionCount 因容量或过期淘汰的条目数
+     * @param admissionCount 窗口区候选者淘汰主区条目而准入的次数
+     * @param rejectionCount 窗口区候选者访问频率不足被拒绝的次数
+     */
+    public CacheStats(long hitCount, long missCount, long evictionCount, long admissionCount, long rejectionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.admissionCount = admissionCount;
+        this.rejectionCount = rejectionCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getAdmissionCount() {
+        return admissionCount;
+    }
+
+    public long getRejectionCount() {
+        return rejectionCount;
+    }
+
+    /**
+     * 命中率, 无请求时为1
+     *
+     * @return 命中率
+     */
+    public double getHitRate() {
+        final long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0d : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ENGLISH,
+                "CacheStats{hitRate=%.4f, hit=%d, miss=%d, eviction=%d, admission=%d, rejection=%d}", getHitRate(),
+                hitCount, missCount, evictionCount, admissionCount, rejectionCount);
+    }
+}
@@ -18,6 +18,7 @@
 package com.huawei.flowcontrol.common.cache;
 
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 /**
  * 基于ConcurrentMap实现
@@ -50,6 +51,11 @@ public class ConcurrentMapCache<K, V> implements Cache<K, V> {
         return cache.remove(key);
     }
 
+    @Override
+    public void forEach(BiConsumer<K, V> action) {
+        cache.forEach(action);
+    }
+
     @Override
     public void release() {
         cache.clear();
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.flowcontrol.common.cache;
+
+/**
+ * 访问频率估算器, 基于4位计数的Count-Min Sketch实现, 用于W-TinyLFU的准入判断
+ * <p>累计的计数次数达到采样数后所有计数减半, 使历史访问频率随时间衰减</p>
+ * <p>非线程安全, 仅允许在缓存的维护锁内访问</p>
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+final class FrequencySketch {
+    /**
+     * 单个计数器的最大值
+     */
+    private static final int MAX_COUNT = 15;
+
+    /**
+     * 计数减半时使用的掩码, 清除每个计数器移位后溢入的高位
+     */
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    /**
+     * 每个计数器的最低位
+     */
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    /**
+     * 每个元素映射的计数器个数
+     */
+    private static final int HASH_COUNT = 4;
+
+    /**
+     * 采样数相对于缓存容量的倍数
+     */
+    private static final int SAMPLE_FACTOR = 10;
+
+    private static final int MIN_TABLE_SIZE = 16;
+
+    private static final int SPREAD_FACTOR = 0x45d9f3b;
+
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    private final long[] table;
+
+    private final int tableMask;
+
+    private final int sampleSize;
+
+    private int additions;
+
+    /**
+     * 构造器
+     *
+     * @param maximumSize 缓存最大容量
+     */
+    FrequencySketch(int maximumSize) {
+        final int size = Math.max(maximumSize, 1);
+        final int capacity = Integer.highestOneBit(Math.max(size, MIN_TABLE_SIZE) - 1) << 1;
+        this.table = new long[capacity];
+        this.tableMask = capacity - 1;
+        this.sampleSize = SAMPLE_FACTOR * size;
+    }
+
+    /**
+     * 估算元素的访问频率
+     *
+     * @param element 元素
+     * @return 访问频率, 最大为15
+     */
+    int frequency(Object element) {
+        final int hash = spread(element.hashCode());
+        final int start = (hash & (HASH_COUNT - 1)) << 2;
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            final int offset = (start + i) << 2;
+            final int count = (int) ((table[indexOf(hash, i)] >>> offset) & MAX_COUNT);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param element 元素
+     */
+    void increment(Object element) {
+        final int hash = spread(element.hashCode());
+        final int start = (hash & (HASH_COUNT - 1)) << 2;
+        boolean isAdded = false;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            isAdded |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (isAdded && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        final int offset = counter << 2;
+        final long mask = (long) MAX_COUNT << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        int oddCount = 0;
+        for (int i = 0; i < table.length; i++) {
+            oddCount += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions = (additions >>> 1) - (oddCount >>> 2);
+    }
+
+    private int indexOf(int hash, int index) {
+        long result = (hash + SEEDS[index]) * SEEDS[index];
+        result += result >>> Integer.SIZE;
+        return (int) result & tableMask;
+    }
+
+    private static int spread(int hash) {
+        int result = ((hash >>> Short.SIZE) ^ hash) * SPREAD_FACTOR;
+        result = ((result >>> Short.SIZE) ^ result) * SPREAD_FACTOR;
+        return (result >>> Short.SIZE) ^ result;
+    }
+}
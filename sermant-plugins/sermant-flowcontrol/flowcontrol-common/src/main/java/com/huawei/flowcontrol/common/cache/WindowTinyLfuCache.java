@@ -0,0 +1,518 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.flowcontrol.common.cache;
+
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * 基于W-TinyLFU的有界缓存
+ * <p>新条目先进入窗口区(LRU), 窗口区溢出的候选者与主区探测段最老的条目比较访问频率, 频率更高者留在缓存;
+ * 主区为分段LRU, 探测段中再次被访问的条目晋升至保护段</p>
+ * <p>读操作仅写入有损的环形读缓冲区, 写操作写入写缓冲区, 由获取到维护锁的线程批量回放并执行淘汰,
+ * 读路径不修改键对象与共享链表</p>
+ * <p>过期时间按访问时间计算, 在维护时从各队列头部近似清理, 读取时若条目已过期则视为未命中并移除</p>
+ *
+ * @param <K> 键
+ * @param <V> 值
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class WindowTinyLfuCache<K, V> implements Cache<K, V> {
+    /**
+     * 读缓冲区大小, 须为2的幂
+     */
+    private static final int READ_BUFFER_SIZE = 128;
+
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+
+    /**
+     * 读缓冲区每累计该数量的读记录触发一次维护, 须为2的幂
+     */
+    private static final int READ_DRAIN_THRESHOLD = 32;
+
+    /**
+     * 窗口区占总容量的比例
+     */
+    private static final double WINDOW_PERCENT = 0.01d;
+
+    /**
+     * 保护段占主区容量的比例
+     */
+    private static final double PROTECTED_PERCENT = 0.8d;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+
+    private final AtomicReferenceArray<Node<K, V>> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+
+    private final AtomicLong readBufferWriteIndex = new AtomicLong();
+
+    /**
+     * 读缓冲区已回放的位置, 仅在维护锁内修改
+     */
+    private volatile long readBufferReadIndex;
+
+    private final Queue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+
+    private final AccessOrderDeque<K, V> protectedSegment = new AccessOrderDeque<>();
+
+    private final FrequencySketch sketch;
+
+    private final int windowMaxSize;
+
+    private final int mainMaxSize;
+
+    private final int protectedMaxSize;
+
+    /**
+     * 访问过期时间, 小于等于0时不过期
+     */
+    private final long expireAfterAccessMs;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    private final LongAdder admissionCount = new LongAdder();
+
+    private final LongAdder rejectionCount = new LongAdder();
+
+    /**
+     * 构造器
+     *
+     * @param maxSize 最大缓存数
+     * @param expireAfterAccessMs 访问过期时间, 单位毫秒, 小于等于0时不过期
+     */
+    public WindowTinyLfuCache(int maxSize, long expireAfterAccessMs) {
+        final int size = Math.max(maxSize, 1);
+        this.windowMaxSize = Math.max(1, (int) (size * WINDOW_PERCENT));
+        this.mainMaxSize = Math.max(1, size - windowMaxSize);
+        this.protectedMaxSize = (int) (mainMaxSize * PROTECTED_PERCENT);
+        this.expireAfterAccessMs = expireAfterAccessMs;
+        this.sketch = new FrequencySketch(size);
+    }
+
+    @Override
+    public Object getCacheTarget() {
+        return data;
+    }
+
+    @Override
+    public V get(K key) {
+        final Node<K, V> node = data.get(key);
+        if (node == null) {
+            missCount.increment();
+            return null;
+        }
+        if (isExpired(node, System.currentTimeMillis())) {
+            // 维护前已过期的条目, 不再返回
+            missCount.increment();
+            if (data.remove(key, node)) {
+                afterWrite(() -> {
+                    unlink(node);
+                    evictionCount.increment();
+                });
+            }
+            return null;
+        }
+        hitCount.increment();
+        recordRead(node);
+        return node.value;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        final Node<K, V> node = new Node<>(key, value);
+        final Node<K, V> prior = data.putIfAbsent(key, node);
+        if (prior == null) {
+            afterWrite(() -> onAdd(node));
+            return;
+        }
+        prior.value = value;
+        prior.accessTime = System.currentTimeMillis();
+        recordRead(prior);
+    }
+
+    @Override
+    public V evict(K key) {
+        final Node<K, V> node = data.remove(key);
+        if (node == null) {
+            return null;
+        }
+        afterWrite(() -> onRemove(node));
+        return node.value;
+    }
+
+    @Override
+    public void forEach(BiConsumer<K, V> action) {
+        data.forEach((key, node) -> action.accept(key, node.value));
+    }
+
+    @Override
+    public void release() {
+        evictionLock.lock();
+        try {
+            data.clear();
+            writeBuffer.clear();
+            drainReadBuffer();
+            window.clear();
+            probation.clear();
+            protectedSegment.clear();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return data.size();
+    }
+
+    @Override
+    public Optional<CacheStats> stats() {
+        return Optional.of(new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(),
+                admissionCount.sum(), rejectionCount.sum()));
+    }
+
+    /**
+     * 记录读操作, 读缓冲区已满时丢弃该记录
+     *
+     * @param node 被访问的节点
+     */
+    private void recordRead(Node<K, V> node) {
+        final long index = readBufferWriteIndex.get();
+        if (index - readBufferReadIndex >= READ_BUFFER_SIZE) {
+            tryMaintenance();
+            return;
+        }
+        if (readBufferWriteIndex.compareAndSet(index, index + 1)) {
+            readBuffer.lazySet((int) (index & READ_BUFFER_MASK), node);
+            if (((index + 1) & (READ_DRAIN_THRESHOLD - 1)) == 0) {
+                tryMaintenance();
+            }
+        }
+    }
+
+    private void afterWrite(Runnable task) {
+        writeBuffer.offer(task);
+        tryMaintenance();
+    }
+
+    /**
+     * 尝试执行维护, 未获取到锁时由持有锁的线程在释放后检查写缓冲区, 保证写操作最终被回放
+     */
+    private void tryMaintenance() {
+        do {
+            if (!evictionLock.tryLock()) {
+                return;
+            }
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+        } while (!writeBuffer.isEmpty());
+    }
+
+    private void maintenance() {
+        drainReadBuffer();
+        drainWriteBuffer();
+        expireEntries();
+        evictEntries();
+    }
+
+    private void drainReadBuffer() {
+        final long writeIndex = readBufferWriteIndex.get();
+        long readIndex = readBufferReadIndex;
+        while (readIndex < writeIndex) {
+            final int slot = (int) (readIndex & READ_BUFFER_MASK);
+            final Node<K, V> node = readBuffer.get(slot);
+            if (node == null) {
+                // 写入线程已占用该位置但尚未发布节点, 下次维护时再回放
+                break;
+            }
+            readBuffer.lazySet(slot, null);
+            readIndex++;
+            onAccess(node);
+        }
+        readBufferReadIndex = readIndex;
+    }
+
+    private void drainWriteBuffer() {
+        Runnable task;
+        while ((task = writeBuffer.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void onAdd(Node<K, V> node) {
+        if (data.get(node.key) != node) {
+            // 回放前已被移除
+            return;
+        }
+        sketch.increment(node.key);
+        node.accessTime = System.currentTimeMillis();
+        node.queueType = QueueType.WINDOW;
+        window.addLast(node);
+    }
+
+    private void onRemove(Node<K, V> node) {
+        unlink(node);
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (node.queueType == QueueType.NONE) {
+            return;
+        }
+        sketch.increment(node.key);
+        node.accessTime = System.currentTimeMillis();
+        switch (node.queueType) {
+            case WINDOW:
+                window.moveToBack(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                node.queueType = QueueType.PROTECTED;
+                protectedSegment.addLast(node);
+                demoteProtected();
+                break;
+            default:
+                protectedSegment.moveToBack(node);
+        }
+    }
+
+    private void demoteProtected() {
+        while (protectedSegment.size() > protectedMaxSize) {
+            final Node<K, V> demoted = protectedSegment.pollFirst();
+            demoted.queueType = QueueType.PROBATION;
+            probation.addLast(demoted);
+        }
+    }
+
+    private void expireEntries() {
+        if (expireAfterAccessMs <= 0) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        expireEntries(window, now);
+        expireEntries(probation, now);
+        expireEntries(protectedSegment, now);
+    }
+
+    private void expireEntries(AccessOrderDeque<K, V> deque, long now) {
+        Node<K, V> node;
+        while ((node = deque.peekFirst()) != null && isExpired(node, now)) {
+            evictNode(node);
+        }
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return expireAfterAccessMs > 0 && now - node.accessTime >= expireAfterAccessMs;
+    }
+
+    /**
+     * 窗口区溢出的候选者进入主区, 主区已满时与探测段最老的条目比较访问频率
+     */
+    private void evictEntries() {
+        while (window.size() > windowMaxSize) {
+            final Node<K, V> candidate = window.pollFirst();
+            candidate.queueType = QueueType.NONE;
+            if (probation.size() + protectedSegment.size() < mainMaxSize) {
+                addToProbation(candidate);
+                continue;
+            }
+            final Node<K, V> victim = probation.isEmpty() ? protectedSegment.peekFirst() : probation.peekFirst();
+            if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                evictNode(victim);
+                admissionCount.increment();
+                addToProbation(candidate);
+            } else {
+                evictNode(candidate);
+                rejectionCount.increment();
+            }
+        }
+    }
+
+    private void addToProbation(Node<K, V> node) {
+        node.queueType = QueueType.PROBATION;
+        probation.addLast(node);
+    }
+
+    private void evictNode(Node<K, V> node) {
+        data.remove(node.key, node);
+        unlink(node);
+        evictionCount.increment();
+    }
+
+    private void unlink(Node<K, V> node) {
+        switch (node.queueType) {
+            case WINDOW:
+                window.remove(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                break;
+            case PROTECTED:
+                protectedSegment.remove(node);
+                break;
+            default:
+                break;
+        }
+        node.queueType = QueueType.NONE;
+    }
+
+    /**
+     * 节点所在队列
+     *
+     * @since 2022-09-28
+     */
+    private enum QueueType {
+        NONE,
+        WINDOW,
+        PROBATION,
+        PROTECTED
+    }
+
+    /**
+     * 缓存节点, 除value与accessTime外的字段仅在维护锁内访问
+     *
+     * @param <K> 键
+     * @param <V> 值
+     * @since 2022-09-28
+     */
+    private static class Node<K, V> {
+        private final K key;
+
+        private volatile V value;
+
+        /**
+         * 最近访问时间, 维护时根据回放的读操作更新, 读取时无锁判断是否过期
+         */
+        private volatile long accessTime;
+
+        private QueueType queueType = QueueType.NONE;
+
+        private Node<K, V> prev;
+
+        private Node<K, V> next;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+            this.accessTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 按访问顺序排列的双向链表, 头部为最久未访问的节点
+     *
+     * @param <K> 键
+     * @param <V> 值
+     * @since 2022-09-28
+     */
+    private static class AccessOrderDeque<K, V> {
+        private Node<K, V> head;
+
+        private Node<K, V> tail;
+
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        Node<K, V> peekFirst() {
+            return head;
+        }
+
+        Node<K, V> pollFirst() {
+            final Node<K, V> first = head;
+            if (first != null) {
+                remove(first);
+            }
+            return first;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        void clear() {
+            Node<K, V> node = head;
+            while (node != null) {
+                final Node<K, V> next = node.next;
+                node.prev = null;
+                node.next = null;
+                node.queueType = QueueType.NONE;
+                node = next;
+            }
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+}
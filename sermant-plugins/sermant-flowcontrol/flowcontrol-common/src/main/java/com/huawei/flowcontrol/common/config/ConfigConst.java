@@ -229,6 +229,16 @@ public class ConfigConst {
      */
     public static final long DEFAULT_TIME_CACHE_CHECK_INTERVAL = 3600L;
 
+    /**
+     * 缓存类型-定时清理缓存
+     */
+    public static final String CACHE_TYPE_TIMED = "timed";
+
+    /**
+     * 缓存类型-W-TinyLFU缓存
+     */
+    public static final String CACHE_TYPE_TINY_LFU = "tinyLfu";
+
     /**
      * 连接超时时间
      */
@@ -250,6 +250,11 @@ public class FlowControlConfig implements PluginConfig {
      */
     private long timedCheckInterval = ConfigConst.DEFAULT_TIME_CACHE_CHECK_INTERVAL;
 
+    /**
+     * 匹配缓存类型, timed: 定时清理缓存; tinyLfu: 基于W-TinyLFU准入与淘汰的有界缓存
+     */
+    private String cacheType = ConfigConst.CACHE_TYPE_TIMED;
+
     /**
      * 是否开启重试
      */
@@ -325,6 +330,14 @@ public class FlowControlConfig implements PluginConfig {
         this.maxCacheSize = maxCacheSize;
     }
 
+    public String getCacheType() {
+        return cacheType;
+    }
+
+    public void setCacheType(String cacheType) {
+        this.cacheType = cacheType;
+    }
+
     public long getTimedCheckInterval() {
         return timedCheckInterval;
     }
@@ -0,0 +1,393 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.flowcontrol.common.core.match;
+
+import com.huawei.flowcontrol.common.core.match.operator.Operator;
+import com.huawei.flowcontrol.common.core.match.operator.OperatorManager;
+import com.huawei.flowcontrol.common.entity.RequestEntity;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * 业务场景匹配索引, 规则变更后基于全量业务场景编译生成
+ * <p>每个{@link RequestMatcher}编译为一个匹配条件, 按方法、服务名与请求路径(exact/prefix)建立位图索引,
+ * 查找时先求候选条件的交集, 仅对候选条件校验请求头与其余路径条件, 比较器在编译时完成绑定</p>
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class MatchIndex {
+    private static final String EXACT_OPERATOR = "exact";
+
+    private static final String PREFIX_OPERATOR = "prefix";
+
+    private final long version;
+
+    private final List<CompiledMatcher> matchers = new ArrayList<>();
+
+    /**
+     * key: 业务场景名, value: 该业务场景的匹配条件下标
+     */
+    private final Map<String, List<Integer>> businessMatchers = new HashMap<>();
+
+    private final Map<String, BitSet> methodIndex = new HashMap<>();
+
+    private final BitSet anyMethod = new BitSet();
+
+    private final Map<String, BitSet> serviceIndex = new HashMap<>();
+
+    private final BitSet anyService = new BitSet();
+
+    private final Map<String, BitSet> exactPathIndex = new HashMap<>();
+
+    private final PrefixNode prefixPathIndex = new PrefixNode();
+
+    private final BitSet anyPath = new BitSet();
+
+    /**
+     * 匹配条件引用的所有请求头键
+     */
+    private final Set<String> headerKeys = new HashSet<>();
+
+    private MatchIndex(long version) {
+        this.version = version;
+    }
+
+    /**
+     * 编译匹配索引
+     *
+     * @param version 规则版本
+     * @param matchGroups 所有业务场景
+     * @param ruleFilter 业务场景过滤, 仅编译存在治理规则的业务场景
+     * @return 匹配索引
+     */
+    public static MatchIndex build(long version, Map<String, BusinessMatcher> matchGroups,
+            Predicate<String> ruleFilter) {
+        final MatchIndex matchIndex = new MatchIndex(version);
+        for (Map.Entry<String, BusinessMatcher> entry : new HashMap<>(matchGroups).entrySet()) {
+            final List<RequestMatcher> requestMatchers = entry.getValue().getMatches();
+            if (requestMatchers == null || !ruleFilter.test(entry.getKey())) {
+                continue;
+            }
+            for (RequestMatcher requestMatcher : requestMatchers) {
+                matchIndex.addMatcher(entry.getKey(), requestMatcher);
+            }
+        }
+        return matchIndex;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Set<String> getHeaderKeys() {
+        return Collections.unmodifiableSet(headerKeys);
+    }
+
+    /**
+     * 匹配业务场景
+     *
+     * @param request 请求信息
+     * @param businessName 业务场景名, 为空则匹配所有业务场景
+     * @return 匹配的业务场景, 请求方法为空时为空集合
+     */
+    public Set<String> match(RequestEntity request, String businessName) {
+        if (request.getMethod() == null) {
+            // 与BusinessMatcher#match保持一致, 无请求方法时不匹配任何业务场景, 包括未配置方法的匹配条件
+            return Collections.emptySet();
+        }
+        if (businessName != null) {
+            return matchBusiness(request, businessName);
+        }
+        final BitSet candidates = getCandidates(request);
+        Set<String> result = null;
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            final CompiledMatcher matcher = matchers.get(i);
+            if (result != null && result.contains(matcher.businessName)) {
+                continue;
+            }
+            if (matcher.match(request)) {
+                if (result == null) {
+                    result = new HashSet<>();
+                }
+                result.add(matcher.businessName);
+            }
+        }
+        return result == null ? Collections.emptySet() : result;
+    }
+
+    private Set<String> matchBusiness(RequestEntity request, String businessName) {
+        final List<Integer> indexes = businessMatchers.get(businessName);
+        if (indexes == null) {
+            return Collections.emptySet();
+        }
+        for (Integer index : indexes) {
+            final CompiledMatcher matcher = matchers.get(index);
+            if (matcher.isMethodMatch(request.getMethod()) && matcher.isServiceNameMatch(request.getServiceName())
+                    && matcher.match(request)) {
+                return Collections.singleton(businessName);
+            }
+        }
+        return Collections.emptySet();
+    }
+
+    private BitSet getCandidates(RequestEntity request) {
+        final BitSet candidates = union(methodIndex.get(request.getMethod()), anyMethod);
+        candidates.and(union(serviceIndex.get(request.getServiceName()), anyService));
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        final String apiPath = request.getApiPath();
+        final BitSet pathCandidates = union(apiPath == null ? null : exactPathIndex.get(apiPath), anyPath);
+        prefixPathIndex.collect(apiPath, pathCandidates);
+        candidates.and(pathCandidates);
+        return candidates;
+    }
+
+    private BitSet union(BitSet indexed, BitSet any) {
+        final BitSet result = (BitSet) any.clone();
+        if (indexed != null) {
+            result.or(indexed);
+        }
+        return result;
+    }
+
+    private void addMatcher(String businessName, RequestMatcher requestMatcher) {
+        final CompiledMatcher matcher = CompiledMatcher.compile(businessName, requestMatcher);
+        if (matcher == null) {
+            // 存在无法识别的比较器, 该条件永远无法匹配
+            return;
+        }
+        final int index = matchers.size();
+        matchers.add(matcher);
+        businessMatchers.computeIfAbsent(businessName, name -> new ArrayList<>()).add(index);
+        matcher.headerConditions.forEach(headerCondition -> headerKeys.add(headerCondition.key));
+        if (matcher.methods == null) {
+            anyMethod.set(index);
+        } else {
+            matcher.methods.forEach(method -> methodIndex.computeIfAbsent(method, key -> new BitSet()).set(index));
+        }
+        if (matcher.serviceName == null) {
+            anyService.set(index);
+        } else {
+            serviceIndex.computeIfAbsent(matcher.serviceName, key -> new BitSet()).set(index);
+        }
+        indexPath(requestMatcher.getApiPath(), index);
+    }
+
+    private void indexPath(RawOperator apiPath, int index) {
+        if (apiPath == null) {
+            anyPath.set(index);
+            return;
+        }
+        // yaml解析的值可能并非字符串, 统一使用String.valueOf转换
+        final Object exact = apiPath.get(EXACT_OPERATOR);
+        if (exact != null) {
+            exactPathIndex.computeIfAbsent(String.valueOf(exact), key -> new BitSet()).set(index);
+            return;
+        }
+        final Object prefix = apiPath.get(PREFIX_OPERATOR);
+        if (prefix != null) {
+            prefixPathIndex.add(String.valueOf(prefix), index);
+            return;
+        }
+        anyPath.set(index);
+    }
+
+    /**
+     * 前缀树, 路径上每个节点记录以该节点结尾的前缀所对应的匹配条件
+     *
+     * @since 2022-09-28
+     */
+    private static class PrefixNode {
+        private final Map<Character, PrefixNode> children = new HashMap<>();
+
+        private BitSet matchers;
+
+        void add(String prefix, int index) {
+            PrefixNode node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), key -> new PrefixNode());
+            }
+            if (node.matchers == null) {
+                node.matchers = new BitSet();
+            }
+            node.matchers.set(index);
+        }
+
+        void collect(String path, BitSet result) {
+            if (path == null) {
+                return;
+            }
+            PrefixNode node = this;
+            for (int i = 0; ; i++) {
+                if (node.matchers != null) {
+                    result.or(node.matchers);
+                }
+                if (i == path.length()) {
+                    return;
+                }
+                node = node.children.get(path.charAt(i));
+                if (node == null) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 编译后的请求匹配条件, 比较器已绑定
+     *
+     * @since 2022-09-28
+     */
+    private static class CompiledMatcher {
+        private final String businessName;
+
+        private final Set<String> methods;
+
+        private final String serviceName;
+
+        private final List<HeaderCondition> headerConditions;
+
+        private final Condition pathCondition;
+
+        CompiledMatcher(String businessName, RequestMatcher requestMatcher, List<HeaderCondition> headerConditions,
+                Condition pathCondition) {
+            this.businessName = businessName;
+            this.methods = requestMatcher.getMethod() == null ? null : new HashSet<>(requestMatcher.getMethod());
+            this.serviceName = requestMatcher.getServiceName();
+            this.headerConditions = headerConditions;
+            this.pathCondition = pathCondition;
+        }
+
+        static CompiledMatcher compile(String businessName, RequestMatcher requestMatcher) {
+            final List<HeaderCondition> headerConditions = new ArrayList<>();
+            if (requestMatcher.getHeaders() != null) {
+                for (Map.Entry<String, RawOperator> entry : requestMatcher.getHeaders().entrySet()) {
+                    final Condition condition = Condition.compile(entry.getValue());
+                    if (condition == null) {
+                        return null;
+                    }
+                    headerConditions.add(new HeaderCondition(entry.getKey(), condition));
+                }
+            }
+            Condition pathCondition = null;
+            if (requestMatcher.getApiPath() != null) {
+                pathCondition = Condition.compile(requestMatcher.getApiPath());
+                if (pathCondition == null) {
+                    return null;
+                }
+            }
+            return new CompiledMatcher(businessName, requestMatcher, headerConditions, pathCondition);
+        }
+
+        boolean isMethodMatch(String method) {
+            return methods == null || methods.contains(method);
+        }
+
+        boolean isServiceNameMatch(String targetServiceName) {
+            return serviceName == null || serviceName.equals(targetServiceName);
+        }
+
+        /**
+         * 校验请求头与路径, 方法与服务名由索引保证
+         *
+         * @param request 请求信息
+         * @return 是否匹配
+         */
+        boolean match(RequestEntity request) {
+            if (!headerConditions.isEmpty()) {
+                final Map<String, String> headers = request.getHeaders();
+                for (HeaderCondition headerCondition : headerConditions) {
+                    final Object headerValue = headers == null ? null : headers.get(headerCondition.key);
+                    if (!headerCondition.condition.match(String.valueOf(headerValue))) {
+                        return false;
+                    }
+                }
+            }
+            return pathCondition == null || pathCondition.match(request.getApiPath());
+        }
+    }
+
+    /**
+     * 请求头条件
+     *
+     * @since 2022-09-28
+     */
+    private static class HeaderCondition {
+        private final String key;
+
+        private final Condition condition;
+
+        HeaderCondition(String key, Condition condition) {
+            this.key = key;
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * 绑定比较器的条件, 所有比较器均满足时才匹配
+     *
+     * @since 2022-09-28
+     */
+    private static class Condition {
+        private final Operator[] operators;
+
+        private final String[] patterns;
+
+        Condition(Operator[] operators, String[] patterns) {
+            this.operators = operators;
+            this.patterns = patterns;
+        }
+
+        static Condition compile(RawOperator rawOperator) {
+            if (rawOperator == null || rawOperator.isEmpty()) {
+                return null;
+            }
+            final Operator[] operators = new Operator[rawOperator.size()];
+            final String[] patterns = new String[rawOperator.size()];
+            int index = 0;
+            for (Map.Entry<String, String> entry : rawOperator.entrySet()) {
+                final Operator operator = OperatorManager.INSTANCE.getOperator(entry.getKey());
+                if (operator == null) {
+                    return null;
+                }
+                operators[index] = operator;
+                patterns[index] = String.valueOf(entry.getValue());
+                index++;
+            }
+            return new Condition(operators, patterns);
+        }
+
+        boolean match(String target) {
+            for (int i = 0; i < operators.length; i++) {
+                if (!operators[i].match(target, patterns[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
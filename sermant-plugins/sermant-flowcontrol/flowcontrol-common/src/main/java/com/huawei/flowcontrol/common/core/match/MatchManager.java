@@ -18,12 +18,12 @@
 package com.huawei.flowcontrol.common.core.match;
 
 import com.huawei.flowcontrol.common.core.ResolverManager;
+import com.huawei.flowcontrol.common.core.resolver.AbstractResolver;
 import com.huawei.flowcontrol.common.entity.RequestEntity;
 
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 匹配管理器
@@ -37,12 +37,30 @@ public enum MatchManager {
      */
     INSTANCE;
 
-    private static final int DEFAULT_BUSINESS_SIZE = 4;
+    /**
+     * 规则版本, 任一规则变更时递增, 匹配索引版本落后时重新编译
+     */
+    private final AtomicLong rulesVersion = new AtomicLong();
+
+    private final MatchedCache matchedCache;
+
+    private volatile MatchIndex matchIndex;
 
-    private final MatchedCache matchedCache = new MatchedCache();
+    /**
+     * 匹配规则引用的请求头键, 内容不变时保持同一实例, 用于判断缓存键是否过期
+     */
+    private volatile Set<String> headerKeys = Collections.emptySet();
 
     private MatchGroupResolver matchGroupResolver;
 
+    MatchManager() {
+        // 需先于缓存监听器注册, 确保缓存刷新时使用最新的匹配索引
+        for (AbstractResolver<?> resolver : ResolverManager.INSTANCE.getResolversMap().values()) {
+            resolver.registerListener((updateKey, rules) -> rulesVersion.incrementAndGet());
+        }
+        matchedCache = new MatchedCache();
+    }
+
     /**
      * 匹配所有业务场景
      *
@@ -61,12 +79,14 @@ public enum MatchManager {
      * @return 匹配的业务场景
      */
     public Set<String> matchWithCache(RequestEntity request, String businessName) {
-        final Set<String> businesses = matchedCache.getDelegate().get(request);
+        final RequestFingerprint fingerprint = new RequestFingerprint(request, getHeaderKeys());
+        final Set<String> businesses = matchedCache.getDelegate().get(fingerprint);
+        matchedCache.trySummary();
         if (businesses != null) {
             return businesses;
         }
         final Set<String> result = match(request, businessName);
-        matchedCache.getDelegate().put(request, result);
+        matchedCache.getDelegate().put(fingerprint, result);
         return result;
     }
 
@@ -78,32 +98,32 @@ public enum MatchManager {
      * @return 匹配的业务场景
      */
     public Set<String> match(RequestEntity request, String businessName) {
-        // 匹配规则
-        final Map<String, BusinessMatcher> matchGroups = getMatchGroups(businessName);
-        final Set<String> result = new HashSet<>(DEFAULT_BUSINESS_SIZE);
-        for (Map.Entry<String, BusinessMatcher> entry : matchGroups.entrySet()) {
-            if (entry.getValue().match(request)) {
-                if (!ResolverManager.INSTANCE.hasMatchedRule(entry.getKey())) {
-                    continue;
-                }
-
-                // 资源名（业务场景名）
-                result.add(entry.getKey());
+        return getMatchIndex().match(request, businessName);
+    }
+
+    private MatchIndex getMatchIndex() {
+        final long version = rulesVersion.get();
+        MatchIndex curIndex = matchIndex;
+        if (curIndex == null || curIndex.getVersion() != version) {
+            // 仅编译存在治理规则的业务场景
+            curIndex = MatchIndex.build(version, getMatchGroupResolver().getRules(),
+                ResolverManager.INSTANCE::hasMatchedRule);
+            if (!curIndex.getHeaderKeys().equals(headerKeys)) {
+                headerKeys = curIndex.getHeaderKeys();
             }
+            matchIndex = curIndex;
         }
-        return result.isEmpty() ? Collections.emptySet() : result;
+        return curIndex;
     }
 
-    private Map<String, BusinessMatcher> getMatchGroups(String businessName) {
-        final Map<String, BusinessMatcher> matchGroups = getMatchGroupResolver().getRules();
-        if (businessName == null) {
-            return matchGroups;
-        }
-        final BusinessMatcher businessMatcher = matchGroups.get(businessName);
-        if (businessMatcher == null) {
-            return Collections.emptyMap();
-        }
-        return Collections.singletonMap(businessName, businessMatcher);
+    /**
+     * 获取匹配规则引用的请求头键, 请求体仅需采集这些请求头
+     *
+     * @return 请求头键
+     */
+    public Set<String> getHeaderKeys() {
+        getMatchIndex();
+        return headerKeys;
     }
 
     private MatchGroupResolver getMatchGroupResolver() {
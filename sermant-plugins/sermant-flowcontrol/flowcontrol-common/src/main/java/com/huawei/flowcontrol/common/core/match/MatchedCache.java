@@ -18,30 +18,50 @@
 package com.huawei.flowcontrol.common.core.match;
 
 import com.huawei.flowcontrol.common.cache.Cache;
+import com.huawei.flowcontrol.common.cache.CacheStats;
 import com.huawei.flowcontrol.common.cache.TimedConcurrentMapCache;
+import com.huawei.flowcontrol.common.cache.WindowTinyLfuCache;
 import com.huawei.flowcontrol.common.config.CommonConst;
+import com.huawei.flowcontrol.common.config.ConfigConst;
 import com.huawei.flowcontrol.common.config.FlowControlConfig;
 import com.huawei.flowcontrol.common.core.ResolverManager;
 import com.huawei.flowcontrol.common.core.resolver.AbstractResolver;
 import com.huawei.flowcontrol.common.core.resolver.listener.ConfigUpdateListener;
 import com.huawei.flowcontrol.common.entity.RequestEntity;
 
+import com.huaweicloud.sermant.core.common.LoggerFactory;
 import com.huaweicloud.sermant.core.plugin.config.PluginConfigManager;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
 
 /**
  * 匹配缓存, 针对已经匹配的请求体进行缓存
+ * <p>缓存支持统计时, 匹配期间每隔{@link #SUMMARY_INTERVAL_MILLIS}输出一次统计信息, 释放时再输出一次</p>
  *
  * @author zhouss
  * @since 2022-07-21
  */
 public class MatchedCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger();
+
+    /**
+     * 输出统计信息的最小间隔, 单位毫秒
+     */
+    private static final long SUMMARY_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * 上次输出统计信息的时间
+     */
+    private final AtomicLong lastSummaryMillis = new AtomicLong(System.currentTimeMillis());
+
     private Cache<RequestEntity, Set<String>> cache;
 
     /**
@@ -66,19 +86,49 @@ public class MatchedCache {
         }
         synchronized (MatchManager.INSTANCE) {
             if (cache == null) {
-                final FlowControlConfig config = PluginConfigManager.getPluginConfig(FlowControlConfig.class);
-                cache = new TimedConcurrentMapCache<>(config.getMaxCacheSize(),
-                        config.getTimedCheckInterval() * CommonConst.S_MS_UNIT);
+                cache = createCache(PluginConfigManager.getPluginConfig(FlowControlConfig.class));
             }
         }
         return cache;
     }
 
+    private Cache<RequestEntity, Set<String>> createCache(FlowControlConfig config) {
+        final long evictTimeMs = config.getTimedCheckInterval() * CommonConst.S_MS_UNIT;
+        if (ConfigConst.CACHE_TYPE_TINY_LFU.equalsIgnoreCase(config.getCacheType())) {
+            return new WindowTinyLfuCache<>(config.getMaxCacheSize(), evictTimeMs);
+        }
+        return new TimedConcurrentMapCache<>(config.getMaxCacheSize(), evictTimeMs);
+    }
+
+    /**
+     * 获取缓存统计信息, 仅tinyLfu缓存支持
+     *
+     * @return 统计信息
+     */
+    public Optional<CacheStats> getStats() {
+        if (cache == null) {
+            return Optional.empty();
+        }
+        return cache.stats();
+    }
+
+    /**
+     * 距上次输出超过{@link #SUMMARY_INTERVAL_MILLIS}时输出统计信息, 并发时仅由一个线程输出
+     */
+    public void trySummary() {
+        final long now = System.currentTimeMillis();
+        final long last = lastSummaryMillis.get();
+        if (now - last >= SUMMARY_INTERVAL_MILLIS && lastSummaryMillis.compareAndSet(last, now)) {
+            getStats().ifPresent(stats -> LOGGER.info("Matched cache stats: " + stats));
+        }
+    }
+
     /**
-     * 释放资源
+     * 释放资源, 释放前输出统计信息
      */
     public void release() {
         if (cache != null) {
+            getStats().ifPresent(stats -> LOGGER.info("Matched cache stats: " + stats));
             cache.release();
         }
     }
@@ -94,27 +144,27 @@ public class MatchedCache {
             if (cache == null) {
                 return;
             }
-            final Object cacheTarget = cache.getCacheTarget();
-            if (!(cacheTarget instanceof Map)) {
-                return;
-            }
-            Map<RequestEntity, Set<String>> curCache = (Map<RequestEntity, Set<String>>) cacheTarget;
-            updateAllBusinessCache(curCache);
+            updateAllBusinessCache();
         }
 
-        private void updateAllBusinessCache(Map<RequestEntity, Set<String>> curCache) {
-            final List<RequestEntity> needRemoveEntity = new ArrayList<>();
-            for (Entry<RequestEntity, Set<String>> entry : curCache.entrySet()) {
-                final RequestEntity requestEntity = entry.getKey();
+        private void updateAllBusinessCache() {
+            final List<RequestEntity> cachedEntities = new ArrayList<>(cache.size());
+            cache.forEach((requestEntity, businesses) -> cachedEntities.add(requestEntity));
+            final Set<String> headerKeys = MatchManager.INSTANCE.getHeaderKeys();
+            for (RequestEntity requestEntity : cachedEntities) {
+                if (requestEntity instanceof RequestFingerprint
+                        && !((RequestFingerprint) requestEntity).isCapturedBy(headerKeys)) {
+                    // 规则引用的请求头已变更, 缓存键未采集新的请求头, 无法重新匹配
+                    cache.evict(requestEntity);
+                    continue;
+                }
                 final Set<String> match = MatchManager.INSTANCE.match(requestEntity, null);
                 if (!match.isEmpty()) {
                     cache.put(requestEntity, match);
                 } else {
-                    needRemoveEntity.add(entry.getKey());
+                    cache.evict(requestEntity);
                 }
             }
-            needRemoveEntity.forEach(requestEntity -> cache.evict(requestEntity));
-            needRemoveEntity.clear();
         }
     }
 }
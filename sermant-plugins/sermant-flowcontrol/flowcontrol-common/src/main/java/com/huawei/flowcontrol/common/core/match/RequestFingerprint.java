@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.flowcontrol.common.core.match;
+
+import com.huawei.flowcontrol.common.entity.AbstractRequestEntity;
+import com.huawei.flowcontrol.common.entity.RequestEntity;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 匹配缓存键, 仅保留请求路径、方法、服务名以及匹配规则引用的请求头
+ * <p>请求中与规则无关的请求头(如链路ID、cookie)不参与缓存键计算, 避免缓存无法命中</p>
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class RequestFingerprint extends AbstractRequestEntity {
+    private final String apiPath;
+
+    private final String method;
+
+    private final Map<String, String> headers;
+
+    /**
+     * 采集请求头时使用的请求头键集合, 规则引用的请求头变更后该缓存键失效
+     */
+    private final Set<String> headerKeys;
+
+    private final int hash;
+
+    /**
+     * 构造器
+     *
+     * @param request 请求信息
+     * @param headerKeys 匹配规则引用的请求头键
+     */
+    public RequestFingerprint(RequestEntity request, Set<String> headerKeys) {
+        this.apiPath = request.getApiPath();
+        this.method = request.getMethod();
+        this.headers = captureHeaders(request.getHeaders(), headerKeys);
+        this.headerKeys = headerKeys;
+        setServiceName(request.getServiceName());
+        setRequestType(request.getRequestType());
+        this.hash = Objects.hash(apiPath, method, getServiceName(), headers);
+    }
+
+    private static Map<String, String> captureHeaders(Map<String, String> requestHeaders, Set<String> headerKeys) {
+        if (requestHeaders == null || requestHeaders.isEmpty() || headerKeys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> result = null;
+        for (String headerKey : headerKeys) {
+            final String value = requestHeaders.get(headerKey);
+            if (value == null) {
+                continue;
+            }
+            if (result == null) {
+                result = new HashMap<>(headerKeys.size());
+            }
+            result.put(headerKey, value);
+        }
+        return result == null ? Collections.emptyMap() : result;
+    }
+
+    /**
+     * 是否基于指定的请求头键采集
+     *
+     * @param targetHeaderKeys 当前规则引用的请求头键
+     * @return 是否有效
+     */
+    public boolean isCapturedBy(Set<String> targetHeaderKeys) {
+        return this.headerKeys == targetHeaderKeys;
+    }
+
+    @Override
+    public String getApiPath() {
+        return apiPath;
+    }
+
+    @Override
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof RequestFingerprint)) {
+            return false;
+        }
+        final RequestFingerprint that = (RequestFingerprint) obj;
+        return hash == that.hash && headerKeys == that.headerKeys && super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
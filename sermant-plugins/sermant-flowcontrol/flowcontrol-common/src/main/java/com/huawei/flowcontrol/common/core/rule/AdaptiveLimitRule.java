@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.flowcontrol.common.core.rule;
+
+/**
+ * 自适应并发限制规则, 根据观测到的请求耗时持续调整并发上限(Gradient2算法)
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class AdaptiveLimitRule extends AbstractRule {
+    /**
+     * 默认初始并发上限
+     */
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+
+    /**
+     * 默认最小并发上限
+     */
+    public static final int DEFAULT_MIN_LIMIT = 1;
+
+    /**
+     * 默认最大并发上限
+     */
+    public static final int DEFAULT_MAX_LIMIT = 1000;
+
+    /**
+     * 默认平滑系数
+     */
+    public static final double DEFAULT_SMOOTHING = 0.2d;
+
+    /**
+     * 默认耗时容忍系数
+     */
+    public static final double DEFAULT_RTT_TOLERANCE = 1.5d;
+
+    /**
+     * 默认长期耗时统计窗口, 单位为采样数
+     */
+    public static final int DEFAULT_LONG_WINDOW = 600;
+
+    /**
+     * 初始并发上限
+     */
+    private int initialLimit = DEFAULT_INITIAL_LIMIT;
+
+    /**
+     * 最小并发上限
+     */
+    private int minLimit = DEFAULT_MIN_LIMIT;
+
+    /**
+     * 最大并发上限
+     */
+    private int maxLimit = DEFAULT_MAX_LIMIT;
+
+    /**
+     * 平滑系数, 取值(0, 1], 越大则并发上限变化越快
+     */
+    private double smoothing = DEFAULT_SMOOTHING;
+
+    /**
+     * 耗时容忍系数, 短期耗时不超过长期耗时的该倍数时不降低并发上限
+     */
+    private double rttTolerance = DEFAULT_RTT_TOLERANCE;
+
+    /**
+     * 长期耗时统计窗口, 单位为采样数
+     */
+    private int longWindow = DEFAULT_LONG_WINDOW;
+
+    @Override
+    public boolean isInValid() {
+        if (minLimit <= 0 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            return true;
+        }
+        if (smoothing <= 0 || smoothing > 1 || rttTolerance < 1 || longWindow <= 0) {
+            return true;
+        }
+        return super.isInValid();
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+    public void setSmoothing(double smoothing) {
+        this.smoothing = smoothing;
+    }
+
+    public double getRttTolerance() {
+        return rttTolerance;
+    }
+
+    public void setRttTolerance(double rttTolerance) {
+        this.rttTolerance = rttTolerance;
+    }
+
+    public int getLongWindow() {
+        return longWindow;
+    }
+
+    public void setLongWindow(int longWindow) {
+        this.longWindow = longWindow;
+    }
+}
@@ -39,6 +39,16 @@ public class RateLimitingRule extends AbstractRule {
      */
     public static final int DEFAULT_RATE = 1000;
 
+    /**
+     * 限流模式-单实例限流
+     */
+    public static final String MODE_LOCAL = "local";
+
+    /**
+     * 限流模式-集群限流, 许可数为所有实例共享
+     */
+    public static final String MODE_CLUSTER = "cluster";
+
     /**
      * 超时时间
      */
@@ -64,6 +74,11 @@ public class RateLimitingRule extends AbstractRule {
      */
     private int rate = DEFAULT_RATE;
 
+    /**
+     * 限流模式, local: 每个实例单独统计; cluster: 从令牌服务端批量申请许可, 所有实例共享rate
+     */
+    private String mode = MODE_LOCAL;
+
     @Override
     public boolean isInValid() {
         return parsedTimeoutDuration < 0 || parsedLimitRefreshPeriod <= 0 || rate <= 0 || super.isInValid();
@@ -112,4 +127,21 @@ public class RateLimitingRule extends AbstractRule {
     public void setRate(int rate) {
         this.rate = rate;
     }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * 是否为集群限流
+     *
+     * @return 是否集群限流
+     */
+    public boolean isClusterMode() {
+        return MODE_CLUSTER.equalsIgnoreCase(mode);
+    }
 }
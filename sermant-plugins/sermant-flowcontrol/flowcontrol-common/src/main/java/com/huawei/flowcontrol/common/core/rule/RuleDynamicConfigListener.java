@@ -20,12 +20,15 @@ package com.huawei.flowcontrol.common.core.rule;
 import com.huawei.flowcontrol.common.core.ResolverManager;
 
 import com.huaweicloud.sermant.core.common.LoggerFactory;
+import com.huaweicloud.sermant.core.plugin.subscribe.processor.BatchConfigEvent;
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEvent;
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigEventType;
 import com.huaweicloud.sermant.core.service.dynamicconfig.common.DynamicConfigListener;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -40,9 +43,44 @@ public class RuleDynamicConfigListener implements DynamicConfigListener {
 
     @Override
     public void process(DynamicConfigEvent event) {
+        if (event instanceof BatchConfigEvent) {
+            processBatch((BatchConfigEvent) event);
+            return;
+        }
         LOGGER.log(Level.INFO, String.format(Locale.ENGLISH, "Config [%s] has been received, operator type: [%s] ",
             event.getKey(), event.getEventType()));
         ResolverManager.INSTANCE.resolve(Collections.singletonMap(event.getKey(), event.getContent()),
             event.getEventType() == DynamicConfigEventType.DELETE);
     }
+
+    @Override
+    public boolean isSupportBatch() {
+        return true;
+    }
+
+    /**
+     * 合并事件处理, 删除与更新分别解析一次
+     *
+     * @param batchEvent 合并事件
+     */
+    private void processBatch(BatchConfigEvent batchEvent) {
+        final Map<String, String> updatedRules = new HashMap<>();
+        final Map<String, String> deletedRules = new HashMap<>();
+        for (DynamicConfigEvent event : batchEvent.getEvents()) {
+            if (event.getEventType() == DynamicConfigEventType.DELETE) {
+                deletedRules.put(event.getKey(), event.getContent());
+            } else {
+                updatedRules.put(event.getKey(), event.getContent());
+            }
+        }
+        LOGGER.log(Level.INFO, String.format(Locale.ENGLISH,
+            "[%s] coalesced configs have been received, updated: %s, deleted: %s",
+            batchEvent.getEvents().size(), updatedRules.keySet(), deletedRules.keySet()));
+        if (!deletedRules.isEmpty()) {
+            ResolverManager.INSTANCE.resolve(deletedRules, true);
+        }
+        if (!updatedRules.isEmpty()) {
+            ResolverManager.INSTANCE.resolve(updatedRules, false);
+        }
+    }
 }
@@ -178,7 +178,27 @@ public enum MetricType {
     /**
      * 请求
      */
-    REQUEST("request", "the number is request number"),;
+    REQUEST("request", "the number is request number"),
+
+    /**
+     * 自适应并发上限
+     */
+    ADAPTIVE_LIMIT("adaptive_limit", "the number is current limit of adaptive concurrency limiting"),
+
+    /**
+     * 自适应并发限制在途请求数
+     */
+    ADAPTIVE_IN_FLIGHT("adaptive_in_flight", "the number is in-flight requests of adaptive concurrency limiting"),
+
+    /**
+     * 自适应并发限制采样耗时
+     */
+    ADAPTIVE_RTT("adaptive_rtt", "the number is latest sampled response time of adaptive concurrency limiting"),
+
+    /**
+     * 自适应并发限制拒绝数
+     */
+    ADAPTIVE_REJECTED("adaptive_rejected", "the number is rejected requests of adaptive concurrency limiting"),;
 
     private final String name;
 
@@ -86,6 +86,10 @@ public abstract class AbstractRequestHandler<H, R extends AbstractRule> {
 
     private Optional<H> create(String businessName) {
         final AbstractResolver<?> resolver = ResolverManager.INSTANCE.getResolver(configKey());
+        if (resolver == null) {
+            // 对应的解析器未通过SPI加载, 该类规则不生效
+            return Optional.empty();
+        }
         final R rule = (R) resolver.getRules().get(businessName);
         if (rule == null) {
             return Optional.empty();
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.flowcontrol.common.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.huaweicloud.sermant.core.common.LoggerFactory;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * W-TinyLFU缓存测试
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class WindowTinyLfuCacheTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger();
+
+    private static final int MAX_SIZE = 100;
+
+    /**
+     * 基本操作测试
+     */
+    @Test
+    public void test() {
+        final WindowTinyLfuCache<String, String> cache = new WindowTinyLfuCache<>(MAX_SIZE, 0L);
+        cache.put("key", "val");
+        assertEquals("val", cache.get("key"));
+        cache.put("key", "val2");
+        assertEquals("val2", cache.get("key"));
+        assertEquals("val2", cache.evict("key"));
+        assertNull(cache.get("key"));
+        cache.put("key", "val");
+        final Map<String, String> all = new HashMap<>();
+        cache.forEach(all::put);
+        assertEquals(1, all.size());
+        cache.release();
+        assertEquals(0, cache.size());
+        final CacheStats stats = cache.stats().orElseThrow(IllegalStateException::new);
+        assertEquals(2, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+    }
+
+    /**
+     * 容量限制与频率准入测试, 高频键不会被一次性访问的键冲刷出缓存
+     */
+    @Test
+    public void testAdmission() {
+        final WindowTinyLfuCache<String, String> cache = new WindowTinyLfuCache<>(MAX_SIZE, 0L);
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < MAX_SIZE / 2; i++) {
+                get(cache, "hot" + i);
+            }
+        }
+        for (int i = 0; i < MAX_SIZE * 10; i++) {
+            get(cache, "scan" + i);
+            assertTrue(cache.size() <= MAX_SIZE);
+        }
+        int hotCount = 0;
+        for (int i = 0; i < MAX_SIZE / 2; i++) {
+            if (cache.get("hot" + i) != null) {
+                hotCount++;
+            }
+        }
+        assertEquals(MAX_SIZE / 2, hotCount);
+        final CacheStats stats = cache.stats().orElseThrow(IllegalStateException::new);
+        assertTrue(stats.getRejectionCount() > 0);
+        assertTrue(stats.getEvictionCount() > 0);
+    }
+
+    /**
+     * 过期测试
+     *
+     * @throws InterruptedException 中断异常
+     */
+    @Test
+    public void testExpire() throws InterruptedException {
+        long expireMs = 100L;
+        final WindowTinyLfuCache<String, String> cache = new WindowTinyLfuCache<>(MAX_SIZE, expireMs);
+        cache.put("old", "val");
+        Thread.sleep(expireMs);
+        cache.put("new", "val");
+        assertNull(cache.get("old"));
+        assertEquals("val", cache.get("new"));
+    }
+
+    /**
+     * 读取时校验过期时间, 无需等待维护清理
+     *
+     * @throws InterruptedException 中断异常
+     */
+    @Test
+    public void testExpireOnGet() throws InterruptedException {
+        long expireMs = 100L;
+        final WindowTinyLfuCache<String, String> cache = new WindowTinyLfuCache<>(MAX_SIZE, expireMs);
+        cache.put("key", "val");
+        cache.put("updated", "val");
+        Thread.sleep(expireMs);
+        cache.put("updated", "val2");
+        assertNull(cache.get("key"));
+        assertEquals(1, cache.size());
+        assertEquals("val2", cache.get("updated"));
+        final CacheStats stats = cache.stats().orElseThrow(IllegalStateException::new);
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getEvictionCount());
+
+        // 过期后重新写入可正常读取
+        cache.put("key", "val");
+        assertEquals("val", cache.get("key"));
+    }
+
+    /**
+     * 倾斜访问下与定时清理缓存的命中率对比
+     */
+    @Test
+    public void testHitRate() {
+        final TimedConcurrentMapCache<TimedKey, String> timedCache = new TimedConcurrentMapCache<>(MAX_SIZE, 60000L);
+        final WindowTinyLfuCache<TimedKey, String> tinyLfuCache = new WindowTinyLfuCache<>(MAX_SIZE, 60000L);
+        final Random random = new Random(0L);
+        final int keySpace = MAX_SIZE * 20;
+        int timedHit = 0;
+        int tinyLfuHit = 0;
+        int total = 100000;
+        for (int i = 0; i < total; i++) {
+            // 立方分布, 少量键承载大部分访问
+            final double sample = random.nextDouble();
+            final TimedKey key = new TimedKey((int) (sample * sample * sample * keySpace));
+            timedHit += get(timedCache, key);
+            tinyLfuHit += get(tinyLfuCache, key);
+        }
+        timedCache.release();
+        LOGGER.info(String.format(Locale.ENGLISH, "timed hit rate: %.4f, tinyLfu hit rate: %.4f, %s",
+                (double) timedHit / total, (double) tinyLfuHit / total, tinyLfuCache.stats().orElse(null)));
+        assertTrue(tinyLfuHit > timedHit);
+    }
+
+    private <K> int get(Cache<K, String> cache, K key) {
+        if (cache.get(key) != null) {
+            return 1;
+        }
+        cache.put(key, "val");
+        return 0;
+    }
+
+    /**
+     * 测试键
+     *
+     * @since 2022-09-28
+     */
+    static class TimedKey implements Timed {
+        private final int id;
+
+        private long timestamp;
+
+        TimedKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void setTimestamp(long timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof TimedKey && ((TimedKey) obj).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+    }
+}
@@ -44,6 +44,7 @@ import org.junit.Test;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -100,6 +101,28 @@ public class ResolverManagerTest {
         testTargetResolver(new RateLimitingRuleResolverTest());
     }
 
+    /**
+     * 测试删除yaml格式的聚合配置, 删除事件携带原内容时移除其中的规则
+     */
+    @Test
+    public void testDeleteYamlBundle() {
+        final String businessKey = "yamlBundle";
+        final String bundle = "servicecomb:\n"
+                + "  rateLimiting:\n"
+                + "    " + businessKey + ": |\n"
+                + "      limitRefreshPeriod: \"1000\"\n"
+                + "      name: flow\n"
+                + "      rate: \"999\"\n";
+        final Map<String, String> rules = Collections.singletonMap("flowcontrol.yaml", bundle);
+        instance.resolve(rules);
+        final AbstractResolver<?> resolver = instance.getResolver(RateLimitingRuleResolver.CONFIG_KEY);
+        Assert.assertTrue(resolver.getRules().containsKey(businessKey));
+
+        instance.resolve(rules, true);
+        Assert.assertFalse(resolver.getRules().containsKey(businessKey));
+        Assert.assertFalse(instance.hasMatchedRule(businessKey));
+    }
+
     private <T extends AbstractRule> void testTargetResolver(AbstractRuleResolverTest<T> resolverTest) {
         instance.resolve(resolverTest.getKey(), resolverTest.getValue(), false);
         resolverTest.checkAttrs((T) instance.getResolver(resolverTest.getConfigKey())
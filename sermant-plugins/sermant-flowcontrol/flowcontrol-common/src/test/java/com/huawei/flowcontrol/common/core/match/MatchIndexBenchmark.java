@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.flowcontrol.common.core.match;
+
+import com.huawei.flowcontrol.common.entity.HttpRequestEntity;
+import com.huawei.flowcontrol.common.entity.RequestEntity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 业务场景匹配的基准测试, 对比10/100/1000个业务场景下逐个业务场景匹配与匹配索引的单次匹配耗时
+ * <p>基准测试不参与单元测试, 需在benchmark profile下编译后通过JMH运行, 例如:
+ * <pre>
+ * mvn -Pagent,benchmark test-compile -pl flowcontrol-common -am
+ * mvn dependency:build-classpath -Dmdep.outputFile=cp.txt -pl flowcontrol-common -Pagent,benchmark
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main MatchIndexBenchmark
+ * </pre>
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchIndexBenchmark {
+    private static final int REQUEST_COUNT = 512;
+
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE"};
+
+    @Param({"10", "100", "1000"})
+    private int scenarioCount;
+
+    private Map<String, BusinessMatcher> matchGroups;
+
+    private MatchIndex matchIndex;
+
+    private List<RequestEntity> requests;
+
+    private int requestIndex;
+
+    /**
+     * 构造业务场景与请求, 业务场景覆盖exact/prefix/suffix路径、方法、服务名与请求头条件
+     */
+    @Setup
+    public void setUp() {
+        final Random random = new Random(0L);
+        matchGroups = buildScenarios();
+        matchIndex = MatchIndex.build(0L, matchGroups, name -> true);
+        requests = new ArrayList<>(REQUEST_COUNT);
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            final int target = random.nextInt(scenarioCount);
+            final String path = random.nextBoolean() ? "/api/" + target : "/api/" + target + "/child";
+            requests.add(new HttpRequestEntity.Builder().setApiPath(path)
+                .setMethod(METHODS[random.nextInt(METHODS.length)])
+                .setServiceName("service" + random.nextInt(2))
+                .setHeaders(Collections.singletonMap("version", String.valueOf(random.nextInt(2))))
+                .build());
+        }
+    }
+
+    /**
+     * 建立索引之前的实现, 逐个业务场景匹配
+     *
+     * @return 匹配的业务场景
+     */
+    @Benchmark
+    public Set<String> scan() {
+        final RequestEntity request = nextRequest();
+        final Set<String> result = new HashSet<>();
+        for (Map.Entry<String, BusinessMatcher> entry : matchGroups.entrySet()) {
+            if (entry.getValue().match(request)) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 通过匹配索引匹配
+     *
+     * @return 匹配的业务场景
+     */
+    @Benchmark
+    public Set<String> index() {
+        return matchIndex.match(nextRequest(), null);
+    }
+
+    private RequestEntity nextRequest() {
+        requestIndex = (requestIndex + 1) % REQUEST_COUNT;
+        return requests.get(requestIndex);
+    }
+
+    private Map<String, BusinessMatcher> buildScenarios() {
+        final Map<String, BusinessMatcher> result = new HashMap<>();
+        for (int i = 0; i < scenarioCount; i++) {
+            final String name = "scene" + i;
+            final List<String> methods = i % 3 == 0 ? null : Arrays.asList(METHODS[i % METHODS.length]);
+            final RequestMatcher matcher = new RequestMatcher();
+            matcher.setMethod(methods);
+            if (i % 5 == 0) {
+                matcher.setHeaders(Collections.singletonMap("version", rawOperator("exact", String.valueOf(i % 2))));
+            }
+            switch (i % 4) {
+                case 0:
+                    matcher.setApiPath(rawOperator("exact", "/api/" + i));
+                    break;
+                case 1:
+                    matcher.setApiPath(rawOperator("prefix", "/api/" + i));
+                    break;
+                case 2:
+                    matcher.setApiPath(rawOperator("suffix", "/" + i));
+                    break;
+                default:
+                    matcher.setServiceName("service" + (i % 2));
+            }
+            final BusinessMatcher businessMatcher = new BusinessMatcher();
+            businessMatcher.setName(name);
+            businessMatcher.setMatches(Collections.singletonList(matcher));
+            result.put(name, businessMatcher);
+        }
+        return result;
+    }
+
+    private RawOperator rawOperator(String operator, String value) {
+        final RawOperator rawOperator = new RawOperator();
+        rawOperator.put(operator, value);
+        return rawOperator;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.flowcontrol.common.core.match;
+
+import com.huawei.flowcontrol.common.entity.HttpRequestEntity;
+import com.huawei.flowcontrol.common.entity.RequestEntity;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 业务场景匹配索引测试, 与逐个业务场景匹配的结果保持一致
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class MatchIndexTest {
+    private static final int[] SCENARIO_COUNTS = {10, 100};
+
+    private static final int REQUEST_COUNT = 500;
+
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE"};
+
+    private final Random random = new Random(0L);
+
+    @Test
+    public void testMatchConsistency() {
+        final Map<String, BusinessMatcher> matchGroups = buildScenarios(SCENARIO_COUNTS[1]);
+        final MatchIndex matchIndex = MatchIndex.build(0L, matchGroups, name -> true);
+        int matchedCount = 0;
+        for (RequestEntity request : buildRequests(SCENARIO_COUNTS[1])) {
+            final Set<String> expected = scan(matchGroups, request);
+            Assert.assertEquals(expected, matchIndex.match(request, null));
+            matchedCount += expected.size();
+            for (String businessName : expected) {
+                Assert.assertEquals(Collections.singleton(businessName), matchIndex.match(request, businessName));
+            }
+        }
+        Assert.assertTrue(matchedCount > 0);
+    }
+
+    @Test
+    public void testRuleFilterAndInvalidOperator() {
+        final Map<String, BusinessMatcher> matchGroups = new HashMap<>();
+        matchGroups.put("withRule", buildBusiness("withRule", buildMatcher(null, "exact", "/a", null)));
+        matchGroups.put("withoutRule", buildBusiness("withoutRule", buildMatcher(null, "exact", "/a", null)));
+        matchGroups.put("unknown", buildBusiness("unknown", buildMatcher(null, "unknownOperator", "/a", null)));
+        final MatchIndex matchIndex = MatchIndex.build(0L, matchGroups, name -> !"withoutRule".equals(name));
+        final RequestEntity request = new HttpRequestEntity.Builder().setApiPath("/a").setMethod("GET").build();
+        Assert.assertEquals(Collections.singleton("withRule"), matchIndex.match(request, null));
+        Assert.assertTrue(matchIndex.match(request, "withoutRule").isEmpty());
+        Assert.assertTrue(matchIndex.match(new HttpRequestEntity.Builder().setApiPath("/a").build(), null).isEmpty());
+    }
+
+    @Test
+    public void testNullMethod() {
+        final Map<String, BusinessMatcher> matchGroups = new HashMap<>();
+        matchGroups.put("anyMethod", buildBusiness("anyMethod", buildMatcher(null, "exact", "/a", null)));
+        matchGroups.put("anyRequest", buildBusiness("anyRequest", buildMatcher(null, null, null, null)));
+        matchGroups.put("get", buildBusiness("get", buildMatcher(Collections.singletonList("GET"), null, null, null)));
+        final MatchIndex matchIndex = MatchIndex.build(0L, matchGroups, name -> true);
+
+        // 无请求方法时与逐个业务场景匹配一致, 未配置方法的匹配条件同样不匹配
+        final RequestEntity request = new HttpRequestEntity.Builder().setApiPath("/a").build();
+        Assert.assertTrue(scan(matchGroups, request).isEmpty());
+        Assert.assertTrue(matchIndex.match(request, null).isEmpty());
+        Assert.assertTrue(matchIndex.match(request, "anyMethod").isEmpty());
+        final RequestEntity getRequest = new HttpRequestEntity.Builder().setApiPath("/a").setMethod("GET").build();
+        final Set<String> expected = new HashSet<>(Arrays.asList("anyMethod", "anyRequest", "get"));
+        Assert.assertEquals(expected, scan(matchGroups, getRequest));
+        Assert.assertEquals(expected, matchIndex.match(getRequest, null));
+    }
+
+    @Test
+    public void testHeaderKeysAndFingerprint() {
+        final Map<String, BusinessMatcher> matchGroups = buildScenarios(SCENARIO_COUNTS[0]);
+        final MatchIndex matchIndex = MatchIndex.build(0L, matchGroups, name -> true);
+        final Set<String> headerKeys = matchIndex.getHeaderKeys();
+        Assert.assertEquals(Collections.singleton("version"), headerKeys);
+        final RequestFingerprint first = new RequestFingerprint(buildTracedRequest("trace-1"), headerKeys);
+        final RequestFingerprint second = new RequestFingerprint(buildTracedRequest("trace-2"), headerKeys);
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(first.hashCode(), second.hashCode());
+        Assert.assertEquals(Collections.singletonMap("version", "0"), first.getHeaders());
+        Assert.assertEquals(matchIndex.match(buildTracedRequest("trace-1"), null), matchIndex.match(first, null));
+        Assert.assertTrue(first.isCapturedBy(headerKeys));
+        final Set<String> changedKeys = new HashSet<>(Arrays.asList("version", "x-trace-id"));
+        final RequestFingerprint changed = new RequestFingerprint(buildTracedRequest("trace-1"), changedKeys);
+        Assert.assertFalse(changed.isCapturedBy(headerKeys));
+        Assert.assertNotEquals(first, changed);
+    }
+
+    private Set<String> scan(Map<String, BusinessMatcher> matchGroups, RequestEntity request) {
+        final Set<String> result = new HashSet<>();
+        for (Map.Entry<String, BusinessMatcher> entry : matchGroups.entrySet()) {
+            if (entry.getValue().match(request)) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    private Map<String, BusinessMatcher> buildScenarios(int count) {
+        final Map<String, BusinessMatcher> matchGroups = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            final String name = "scene" + i;
+            final List<String> methods = i % 3 == 0 ? null : Arrays.asList(METHODS[i % METHODS.length]);
+            final Map<String, RawOperator> headers = i % 5 == 0
+                ? Collections.singletonMap("version", rawOperator("exact", String.valueOf(i % 2))) : null;
+            final RequestMatcher matcher;
+            switch (i % 4) {
+                case 0:
+                    matcher = buildMatcher(methods, "exact", "/api/" + i, headers);
+                    break;
+                case 1:
+                    matcher = buildMatcher(methods, "prefix", "/api/" + i, headers);
+                    break;
+                case 2:
+                    matcher = buildMatcher(methods, "suffix", "/" + i, headers);
+                    break;
+                default:
+                    matcher = buildMatcher(methods, null, null, headers);
+                    matcher.setServiceName("service" + (i % 2));
+            }
+            matchGroups.put(name, buildBusiness(name, matcher));
+        }
+        return matchGroups;
+    }
+
+    private List<RequestEntity> buildRequests(int scenarioCount) {
+        final List<RequestEntity> requests = new ArrayList<>(REQUEST_COUNT);
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            final int target = random.nextInt(scenarioCount);
+            final String path = random.nextBoolean() ? "/api/" + target : "/api/" + target + "/child";
+            requests.add(new HttpRequestEntity.Builder().setApiPath(path)
+                .setMethod(METHODS[random.nextInt(METHODS.length)])
+                .setServiceName("service" + random.nextInt(2))
+                .setHeaders(Collections.singletonMap("version", String.valueOf(random.nextInt(2))))
+                .build());
+        }
+        return requests;
+    }
+
+    private RequestEntity buildTracedRequest(String traceId) {
+        final Map<String, String> headers = new HashMap<>();
+        headers.put("version", "0");
+        headers.put("x-trace-id", traceId);
+        return new HttpRequestEntity.Builder().setApiPath("/api/0").setMethod("GET").setHeaders(headers).build();
+    }
+
+    private BusinessMatcher buildBusiness(String name, RequestMatcher matcher) {
+        final BusinessMatcher businessMatcher = new BusinessMatcher();
+        businessMatcher.setName(name);
+        businessMatcher.setMatches(Collections.singletonList(matcher));
+        return businessMatcher;
+    }
+
+    private RequestMatcher buildMatcher(List<String> methods, String operator, String path,
+            Map<String, RawOperator> headers) {
+        final RequestMatcher matcher = new RequestMatcher();
+        matcher.setMethod(methods);
+        matcher.setHeaders(headers);
+        if (operator != null) {
+            matcher.setApiPath(rawOperator(operator, path));
+        }
+        return matcher;
+    }
+
+    private RawOperator rawOperator(String operator, String value) {
+        final RawOperator rawOperator = new RawOperator();
+        rawOperator.put(operator, value);
+        return rawOperator;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.flowcontrol.common.core.resolver;
+
+import com.huawei.flowcontrol.common.core.rule.AdaptiveLimitRule;
+
+import org.junit.Assert;
+
+/**
+ * 自适应并发限制规则解析测试
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class AdaptiveLimitRuleResolverTest extends AbstractRuleResolverTest<AdaptiveLimitRule> {
+    private static final int INITIAL_LIMIT = 10;
+
+    private static final int MAX_LIMIT = 200;
+
+    private static final double SMOOTHING = 0.5d;
+
+    @Override
+    public AbstractResolver<AdaptiveLimitRule> getResolver() {
+        return new AdaptiveLimitRuleResolver();
+    }
+
+    @Override
+    public String getConfigKey() {
+        return AdaptiveLimitRuleResolver.CONFIG_KEY;
+    }
+
+    @Override
+    public String getValue() {
+        return "initialLimit: 10\n"
+                + "maxLimit: 200\n"
+                + "smoothing: 0.5";
+    }
+
+    @Override
+    public void checkAttrs(AdaptiveLimitRule rule) {
+        Assert.assertEquals(INITIAL_LIMIT, rule.getInitialLimit());
+        Assert.assertEquals(MAX_LIMIT, rule.getMaxLimit());
+        Assert.assertEquals(AdaptiveLimitRule.DEFAULT_MIN_LIMIT, rule.getMinLimit());
+        Assert.assertEquals(SMOOTHING, rule.getSmoothing(), 0.0d);
+        Assert.assertFalse(rule.isInValid());
+    }
+}
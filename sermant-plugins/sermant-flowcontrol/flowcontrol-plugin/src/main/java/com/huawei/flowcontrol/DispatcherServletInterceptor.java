@@ -17,6 +17,7 @@
 package com.huawei.flowcontrol;
 
 import com.huawei.flowcontrol.common.config.ConfigConst;
+import com.huawei.flowcontrol.common.core.match.MatchManager;
 import com.huawei.flowcontrol.common.entity.FlowControlResult;
 import com.huawei.flowcontrol.common.entity.HttpRequestEntity;
 import com.huawei.flowcontrol.common.entity.RequestEntity.RequestType;
@@ -25,10 +26,10 @@ import com.huawei.flowcontrol.service.InterceptorSupporter;
 import com.huaweicloud.sermant.core.plugin.agent.entity.ExecuteContext;
 
 import java.util.Collections;
-import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -63,17 +64,22 @@ public class DispatcherServletInterceptor extends InterceptorSupporter {
     }
 
     /**
-     * 获取http请求头信息
+     * 获取http请求头信息, 仅采集匹配规则引用的请求头, 与规则无关的请求头不参与匹配
      *
      * @param request 请求信息
      * @return headers
      */
     private Map<String, String> getHeaders(HttpServletRequest request) {
-        final Enumeration<String> headerNames = request.getHeaderNames();
-        final Map<String, String> headers = new HashMap<>();
-        while (headerNames.hasMoreElements()) {
-            final String headerName = headerNames.nextElement();
-            headers.put(headerName, request.getHeader(headerName));
+        final Set<String> headerKeys = MatchManager.INSTANCE.getHeaderKeys();
+        if (headerKeys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final Map<String, String> headers = new HashMap<>(headerKeys.size());
+        for (String headerKey : headerKeys) {
+            final String value = request.getHeader(headerKey);
+            if (value != null) {
+                headers.put(headerKey, value);
+            }
         }
         return Collections.unmodifiableMap(headers);
     }
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.fowcontrol.res4j.adaptive;
+
+import com.huawei.flowcontrol.common.core.rule.AdaptiveLimitRule;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 自适应并发限制器, 基于Gradient2算法
+ * <p>以长期平均耗时作为无排队时的基线, 短期耗时高于基线的容忍倍数时按比例降低并发上限, 否则以sqrt(limit)为排队余量逐步增加</p>
+ * <p>耗时按采样窗口聚合, 窗口采样数不小于当前并发上限, 即约每一轮请求调整一次; 长期耗时以窗口为单位做指数平均</p>
+ * <p>窗口内最大在途请求不足并发上限一半时不调整, 避免低负载时上限无限增长</p>
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class AdaptiveLimiter {
+    /**
+     * 长期耗时超过短期耗时该倍数时视为负载已回落, 加速长期耗时的衰减
+     */
+    private static final double RTT_RECOVER_RATIO = 2.0d;
+
+    private static final double RTT_DECAY = 0.95d;
+
+    /**
+     * 单次调整最多将并发上限降低一半
+     */
+    private static final double MIN_GRADIENT = 0.5d;
+
+    private static final double NANOS_PER_MS = 1000000d;
+
+    /**
+     * 采样窗口的最小采样数
+     */
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    private final String name;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double smoothing;
+
+    private final double rttTolerance;
+
+    private final int longWindow;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private volatile int limit;
+
+    private volatile long lastRttNanos;
+
+    private double estimatedLimit;
+
+    private double longRttNanos;
+
+    private long windowRttSum;
+
+    private int windowSamples;
+
+    private int windowMaxInFlight;
+
+    /**
+     * 构造器
+     *
+     * @param name 业务场景名
+     * @param rule 自适应并发限制规则
+     */
+    public AdaptiveLimiter(String name, AdaptiveLimitRule rule) {
+        this.name = name;
+        this.minLimit = rule.getMinLimit();
+        this.maxLimit = rule.getMaxLimit();
+        this.smoothing = rule.getSmoothing();
+        this.rttTolerance = rule.getRttTolerance();
+        this.longWindow = rule.getLongWindow();
+        this.estimatedLimit = rule.getInitialLimit();
+        this.limit = rule.getInitialLimit();
+    }
+
+    /**
+     * 申请并发许可, 在途请求达到并发上限时拒绝
+     *
+     * @return 是否获取成功
+     */
+    public boolean tryAcquire() {
+        int cur;
+        do {
+            cur = inFlight.get();
+            if (cur >= limit) {
+                rejectedCount.increment();
+                return false;
+            }
+        } while (!inFlight.compareAndSet(cur, cur + 1));
+        return true;
+    }
+
+    /**
+     * 请求完成, 释放许可并以本次耗时更新并发上限
+     *
+     * @param rttNanos 请求耗时, 单位纳秒
+     */
+    public void onComplete(long rttNanos) {
+        final int curInFlight = inFlight.getAndDecrement();
+        if (rttNanos > 0) {
+            update(rttNanos, curInFlight);
+        }
+    }
+
+    /**
+     * 释放许可, 不采样耗时, 用于请求异常或被其他流控策略拦截的场景
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void update(long rttNanos, int curInFlight) {
+        lastRttNanos = rttNanos;
+        windowRttSum += rttNanos;
+        windowMaxInFlight = Math.max(windowMaxInFlight, curInFlight);
+        if (++windowSamples < Math.max(MIN_WINDOW_SAMPLES, limit)) {
+            return;
+        }
+        final double shortRttNanos = (double) windowRttSum / windowSamples;
+        final int maxInFlight = windowMaxInFlight;
+        windowRttSum = 0L;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+        if (longRttNanos <= 0) {
+            longRttNanos = shortRttNanos;
+        } else {
+            longRttNanos += (shortRttNanos - longRttNanos) / longWindow;
+        }
+        if (longRttNanos / shortRttNanos > RTT_RECOVER_RATIO) {
+            longRttNanos *= RTT_DECAY;
+        }
+        if (maxInFlight < estimatedLimit / 2) {
+            return;
+        }
+        final double gradient = Math.max(MIN_GRADIENT, Math.min(1.0d, rttTolerance * longRttNanos / shortRttNanos));
+        final double queueSize = Math.sqrt(estimatedLimit);
+        double newLimit = estimatedLimit * gradient + queueSize;
+        newLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 最近一次采样的请求耗时
+     *
+     * @return 耗时, 单位毫秒
+     */
+    public double getRttMs() {
+        return lastRttNanos / NANOS_PER_MS;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.fowcontrol.res4j.chain.handler;
+
+import com.huawei.fowcontrol.res4j.adaptive.AdaptiveLimiter;
+import com.huawei.fowcontrol.res4j.chain.HandlerConstants;
+import com.huawei.fowcontrol.res4j.chain.context.ChainContext;
+import com.huawei.fowcontrol.res4j.chain.context.RequestContext;
+import com.huawei.fowcontrol.res4j.exceptions.AdaptiveLimitExceededException;
+import com.huawei.fowcontrol.res4j.handler.AdaptiveLimitHandler;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 自适应并发限制处理
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class AdaptiveLimitRequestHandler extends FlowControlHandler<AdaptiveLimiter> {
+    private final AdaptiveLimitHandler adaptiveLimitHandler = new AdaptiveLimitHandler();
+
+    private final String startTimeKey = getContextName() + "_START_TIME";
+
+    private final String throwKey = getContextName() + "_THROW";
+
+    @Override
+    public void onBefore(RequestContext context, Set<String> businessNames) {
+        final List<AdaptiveLimiter> handlers = adaptiveLimitHandler.createOrGetHandlers(businessNames);
+        if (!handlers.isEmpty()) {
+            acquire(handlers);
+            context.save(getContextName(), handlers);
+            context.save(startTimeKey, System.nanoTime());
+        }
+        super.onBefore(context, businessNames);
+    }
+
+    private void acquire(List<AdaptiveLimiter> handlers) {
+        for (int i = 0; i < handlers.size(); i++) {
+            final AdaptiveLimiter limiter = handlers.get(i);
+            if (!limiter.tryAcquire()) {
+                // 释放已获取的许可
+                handlers.subList(0, i).forEach(AdaptiveLimiter::release);
+                throw AdaptiveLimitExceededException.createException(limiter);
+            }
+        }
+    }
+
+    @Override
+    public void onThrow(RequestContext context, Set<String> businessNames, Throwable throwable) {
+        context.save(throwKey, Boolean.TRUE);
+        super.onThrow(context, businessNames, throwable);
+    }
+
+    @Override
+    public void onResult(RequestContext context, Set<String> businessNames, Object result) {
+        try {
+            final List<AdaptiveLimiter> limiters = getHandlersFromCache(context.getSourceName(), getContextName());
+            if (limiters != null) {
+                final long rttNanos = getRttNanos(context);
+                limiters.forEach(limiter -> {
+                    if (rttNanos > 0) {
+                        limiter.onComplete(rttNanos);
+                    } else {
+                        limiter.release();
+                    }
+                });
+            }
+        } finally {
+            context.remove(getContextName());
+            context.remove(startTimeKey);
+            context.remove(throwKey);
+        }
+        super.onResult(context, businessNames, result);
+    }
+
+    /**
+     * 获取本次请求耗时, 请求异常或被其他流控策略拦截时不采样
+     *
+     * @param context 请求上下文
+     * @return 耗时, 不采样时返回0
+     */
+    private long getRttNanos(RequestContext context) {
+        final Long startTime = context.get(startTimeKey, Long.class);
+        if (startTime == null || context.get(throwKey, Boolean.class) != null || isOccurFlowLimit(context)) {
+            return 0L;
+        }
+        return Math.max(1L, System.nanoTime() - startTime);
+    }
+
+    private boolean isOccurFlowLimit(RequestContext context) {
+        return ChainContext.getThreadLocalContext(context.getSourceName())
+                .get(HandlerConstants.OCCURRED_FLOW_EXCEPTION, Exception.class) != null;
+    }
+
+    @Override
+    public int getOrder() {
+        return HandlerConstants.ADAPTIVE_LIMIT_ORDER;
+    }
+}
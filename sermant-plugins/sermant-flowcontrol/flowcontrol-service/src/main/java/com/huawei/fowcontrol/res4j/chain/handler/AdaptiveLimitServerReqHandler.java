@@ -14,32 +14,24 @@
  * limitations under the License.
  */
 
-package com.huaweicloud.sermant.implement.service.tracing.sender;
+package com.huawei.fowcontrol.res4j.chain.handler;
+
+import com.huawei.flowcontrol.common.entity.RequestEntity.RequestType;
 
 /**
- * 链路追踪向后端发送数据的头部（应用信息、节点信息）
+ * 自适应并发限制服务端处理器
  *
- * @author luanwenfei
- * @since 2022-03-07
+ * @author zhouss
+ * @since 2022-09-28
  */
-public class TracingMessageHeader {
-    private String instanceId;
-
-    private String appId;
-
-    public String getInstanceId() {
-        return instanceId;
-    }
-
-    public void setInstanceId(String instanceId) {
-        this.instanceId = instanceId;
-    }
-
-    public String getAppId() {
-        return appId;
+public class AdaptiveLimitServerReqHandler extends AdaptiveLimitRequestHandler {
+    @Override
+    protected RequestType direct() {
+        return RequestType.SERVER;
     }
 
-    public void setAppId(String appId) {
-        this.appId = appId;
+    @Override
+    public int getOrder() {
+        return super.getOrder() - 1;
     }
 }
@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.fowcontrol.res4j.cluster;
+
+import com.huawei.flowcontrol.common.core.rule.RateLimitingRule;
+import com.huawei.flowcontrol.common.factory.FlowControlThreadFactory;
+
+import com.huaweicloud.sermant.core.common.LoggerFactory;
+
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.vavr.collection.Map;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * 集群限流器
+ * <p>从令牌服务端批量申请许可租约, 在本地扣减; 租约剩余许可低于阈值时异步预取下一批, 使大部分请求无需访问服务端</p>
+ * <p>服务端不可达时, 在重试间隔内退化为本地限流器</p>
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class ClusterRateLimiter implements RateLimiter {
+    private static final Logger LOGGER = LoggerFactory.getLogger();
+
+    /**
+     * 单次申请的租约许可数占rate的比例
+     */
+    private static final double LEASE_PERCENT = 0.1d;
+
+    /**
+     * 剩余许可低于租约许可数的该比例时触发预取
+     */
+    private static final double PREFETCH_PERCENT = 0.2d;
+
+    /**
+     * 服务端不可达后的重试间隔
+     */
+    private static final long SERVER_RETRY_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(3L);
+
+    private static final ExecutorService PREFETCH_EXECUTOR = Executors.newSingleThreadExecutor(
+            new FlowControlThreadFactory("CLUSTER_TOKEN_PREFETCH_THREAD"));
+
+    private final String name;
+
+    private final TokenServer tokenServer;
+
+    private final RateLimiter localRateLimiter;
+
+    private final int rate;
+
+    private final long periodMs;
+
+    private final int leaseSize;
+
+    private final int prefetchThreshold;
+
+    private final Object fetchLock = new Object();
+
+    private final AtomicBoolean isPrefetching = new AtomicBoolean();
+
+    private volatile Lease lease;
+
+    private volatile boolean isServerUnavailable;
+
+    private volatile long serverRetryTime;
+
+    /**
+     * 构造器
+     *
+     * @param name 业务场景名
+     * @param tokenServer 令牌服务端
+     * @param localRateLimiter 服务端不可达时使用的本地限流器
+     * @param rule 限流规则
+     */
+    public ClusterRateLimiter(String name, TokenServer tokenServer, RateLimiter localRateLimiter,
+            RateLimitingRule rule) {
+        this.name = name;
+        this.tokenServer = tokenServer;
+        this.localRateLimiter = localRateLimiter;
+        this.rate = rule.getRate();
+        this.periodMs = rule.getParsedLimitRefreshPeriod();
+        this.leaseSize = Math.max(1, (int) (rate * LEASE_PERCENT));
+        this.prefetchThreshold = (int) (leaseSize * PREFETCH_PERCENT);
+        this.lease = new Lease(0, -1L, System.nanoTime(), false);
+    }
+
+    @Override
+    public boolean acquirePermission(int permits) {
+        final long now = System.nanoTime();
+        if (isServerUnavailable && now - serverRetryTime < 0) {
+            return localRateLimiter.acquirePermission(permits);
+        }
+        final Lease curLease = lease;
+        if (!curLease.isExpired(now)) {
+            if (curLease.tryAcquire(permits)) {
+                prefetchIfNeeded(curLease);
+                return true;
+            }
+            if (curLease.isExhausted) {
+                // 当前统计周期的集群许可已耗尽, 周期结束前无需再访问服务端
+                return false;
+            }
+        }
+        return acquireFromServer(permits);
+    }
+
+    private boolean acquireFromServer(int permits) {
+        synchronized (fetchLock) {
+            final long now = System.nanoTime();
+            final Lease curLease = lease;
+            if (!curLease.isExpired(now)) {
+                if (curLease.tryAcquire(permits)) {
+                    return true;
+                }
+                if (curLease.isExhausted) {
+                    return false;
+                }
+            }
+            final int requested = Math.max(permits, leaseSize);
+            final Optional<TokenResponse> response = requestLease(requested);
+            if (!response.isPresent()) {
+                return localRateLimiter.acquirePermission(permits);
+            }
+            return merge(curLease, response.get(), requested, now).tryAcquire(permits);
+        }
+    }
+
+    private void prefetchIfNeeded(Lease curLease) {
+        if (curLease.isExhausted || curLease.remaining.get() > prefetchThreshold) {
+            return;
+        }
+        if (isPrefetching.compareAndSet(false, true)) {
+            PREFETCH_EXECUTOR.execute(this::prefetch);
+        }
+    }
+
+    private void prefetch() {
+        try {
+            synchronized (fetchLock) {
+                final long now = System.nanoTime();
+                final Lease curLease = lease;
+                if (curLease.isExpired(now) || curLease.isExhausted || curLease.remaining.get() > prefetchThreshold) {
+                    return;
+                }
+                requestLease(leaseSize).ifPresent(response -> merge(curLease, response, leaseSize, now));
+            }
+        } finally {
+            isPrefetching.set(false);
+        }
+    }
+
+    private Optional<TokenResponse> requestLease(int permits) {
+        try {
+            final TokenResponse response = tokenServer.acquire(new TokenRequest(name, permits, rate, periodMs));
+            isServerUnavailable = false;
+            return Optional.of(response);
+        } catch (RuntimeException ex) {
+            serverRetryTime = System.nanoTime() + SERVER_RETRY_INTERVAL_NANOS;
+            isServerUnavailable = true;
+            LOGGER.warning(String.format(Locale.ENGLISH,
+                    "Token server is unreachable, rate limiter [%s] falls back to local mode, reason: %s", name,
+                    ex.getMessage()));
+            return Optional.empty();
+        }
+    }
+
+    private Lease merge(Lease curLease, TokenResponse response, int requested, long now) {
+        final boolean isExhausted = response.getGranted() < requested;
+        if (!curLease.isExpired(now) && curLease.windowId == response.getWindowId()) {
+            curLease.remaining.addAndGet(response.getGranted());
+            if (isExhausted) {
+                curLease.isExhausted = true;
+            }
+            return curLease;
+        }
+        final Lease newLease = new Lease(response.getGranted(), response.getWindowId(),
+                now + TimeUnit.MILLISECONDS.toNanos(response.getRemainingMs()), isExhausted);
+        lease = newLease;
+        return newLease;
+    }
+
+    @Override
+    public long reservePermission(int permits) {
+        return acquirePermission(permits) ? 0L : -1L;
+    }
+
+    @Override
+    public void drainPermissions() {
+        lease.remaining.set(0);
+        localRateLimiter.drainPermissions();
+    }
+
+    @Override
+    public void changeTimeoutDuration(Duration timeoutDuration) {
+        localRateLimiter.changeTimeoutDuration(timeoutDuration);
+    }
+
+    @Override
+    public void changeLimitForPeriod(int limitForPeriod) {
+        localRateLimiter.changeLimitForPeriod(limitForPeriod);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public RateLimiterConfig getRateLimiterConfig() {
+        return localRateLimiter.getRateLimiterConfig();
+    }
+
+    @Override
+    public Map<String, String> getTags() {
+        return localRateLimiter.getTags();
+    }
+
+    @Override
+    public Metrics getMetrics() {
+        return localRateLimiter.getMetrics();
+    }
+
+    @Override
+    public EventPublisher getEventPublisher() {
+        return localRateLimiter.getEventPublisher();
+    }
+
+    /**
+     * 许可租约, 在统计周期结束时失效
+     *
+     * @since 2022-09-28
+     */
+    private static class Lease {
+        private final AtomicInteger remaining;
+
+        private final long windowId;
+
+        private final long expireTime;
+
+        /**
+         * 服务端授予的许可少于申请数, 当前统计周期的集群许可已耗尽
+         */
+        private volatile boolean isExhausted;
+
+        Lease(int remaining, long windowId, long expireTime, boolean isExhausted) {
+            this.remaining = new AtomicInteger(remaining);
+            this.windowId = windowId;
+            this.expireTime = expireTime;
+            this.isExhausted = isExhausted;
+        }
+
+        boolean isExpired(long now) {
+            return now - expireTime >= 0;
+        }
+
+        boolean tryAcquire(int permits) {
+            int cur;
+            do {
+                cur = remaining.get();
+                if (cur < permits) {
+                    return false;
+                }
+            } while (!remaining.compareAndSet(cur, cur - permits));
+            return true;
+        }
+    }
+}
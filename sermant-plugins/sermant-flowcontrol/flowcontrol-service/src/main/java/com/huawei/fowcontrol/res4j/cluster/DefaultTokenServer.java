@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.fowcontrol.res4j.cluster;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 默认令牌服务端, 按资源以固定窗口统计集群许可
+ * <p>可由sermant-backend或选举出的agent承载, 统计周期按时间戳对齐, 各客户端的租约在周期结束时同时失效</p>
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class DefaultTokenServer implements TokenServer {
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    private final LongSupplier clock;
+
+    /**
+     * 构造器
+     */
+    public DefaultTokenServer() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * 构造器
+     *
+     * @param clock 时钟, 单位毫秒
+     */
+    public DefaultTokenServer(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public TokenResponse acquire(TokenRequest request) {
+        final long now = clock.getAsLong();
+        final long periodMs = Math.max(1L, request.getPeriodMs());
+        final long windowId = now / periodMs;
+        final long remainingMs = (windowId + 1) * periodMs - now;
+        final Window window = windows.computeIfAbsent(request.getResource(), resource -> new Window());
+        synchronized (window) {
+            if (window.windowId != windowId || window.periodMs != periodMs) {
+                window.windowId = windowId;
+                window.periodMs = periodMs;
+                window.used = 0;
+            }
+            final int granted = Math.max(0, Math.min(request.getPermits(), request.getRate() - window.used));
+            window.used += granted;
+            return new TokenResponse(granted, windowId, remainingMs);
+        }
+    }
+
+    /**
+     * 移除资源的统计, 规则删除时调用
+     *
+     * @param resource 资源名
+     */
+    public void remove(String resource) {
+        windows.remove(resource);
+    }
+
+    /**
+     * 资源统计窗口
+     *
+     * @since 2022-09-28
+     */
+    private static class Window {
+        private long windowId = -1L;
+
+        private long periodMs;
+
+        private int used;
+    }
+}
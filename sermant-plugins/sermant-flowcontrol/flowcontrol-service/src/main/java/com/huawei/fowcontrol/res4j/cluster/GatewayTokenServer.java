@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.fowcontrol.res4j.cluster;
+
+import com.huaweicloud.sermant.core.service.send.api.GatewayClient;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * 基于统一网关连接的令牌服务端远程桩, 租约请求由sermant-backend的令牌服务端处理
+ * <p>请求与应答为JSON, 连接不可用、应答超时或服务端处理失败时抛出运行时异常, 由{@link ClusterRateLimiter}退化为本地限流</p>
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class GatewayTokenServer implements TokenServer {
+    /**
+     * 令牌租约的请求类型号, 与网关协议ServiceRequest.RequestType.TOKEN_LEASE一致
+     */
+    private static final int TOKEN_LEASE_TYPE = 0;
+
+    /**
+     * 等待服务端应答的超时时间, 申请租约时业务线程同步等待, 因此取值较小
+     */
+    private static final long REQUEST_TIMEOUT_MS = 300L;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final GatewayClient gatewayClient;
+
+    /**
+     * 构造器
+     *
+     * @param gatewayClient 网关客户端
+     */
+    public GatewayTokenServer(GatewayClient gatewayClient) {
+        this.gatewayClient = gatewayClient;
+    }
+
+    @Override
+    public TokenResponse acquire(TokenRequest request) {
+        try {
+            final byte[] response = gatewayClient.request(MAPPER.writeValueAsBytes(request), TOKEN_LEASE_TYPE,
+                    REQUEST_TIMEOUT_MS);
+            final JsonNode node = MAPPER.readTree(response);
+            return new TokenResponse(node.path("granted").asInt(), node.path("windowId").asLong(),
+                    node.path("remainingMs").asLong());
+        } catch (IOException ex) {
+            throw new IllegalStateException("Can not resolve token lease: " + ex.getMessage(), ex);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.fowcontrol.res4j.cluster;
+
+/**
+ * 令牌租约申请
+ * <p>申请携带规则的rate与统计周期, 服务端无需同步规则, 以客户端下发的规则统计集群许可</p>
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class TokenRequest {
+    private final String resource;
+
+    private final int permits;
+
+    private final int rate;
+
+    private final long periodMs;
+
+    /**
+     * 构造器
+     *
+     * @param resource 资源名, 即业务场景名
+     * @param permits 申请的许可数
+     * @param rate 集群在单位统计时间内的总许可数
+     * @param periodMs 单位统计时间, 单位毫秒
+     */
+    public TokenRequest(String resource, int permits, int rate, long periodMs) {
+        this.resource = resource;
+        this.permits = permits;
+        this.rate = rate;
+        this.periodMs = periodMs;
+    }
+
+    public String getResource() {
+        return resource;
+    }
+
+    public int getPermits() {
+        return permits;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    public long getPeriodMs() {
+        return periodMs;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.fowcontrol.res4j.cluster;
+
+/**
+ * 令牌租约响应
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class TokenResponse {
+    private final int granted;
+
+    private final long windowId;
+
+    private final long remainingMs;
+
+    /**
+     * 构造器
+     *
+     * @param granted 授予的许可数, 小于申请数时表示当前统计周期的集群许可已耗尽
+     * @param windowId 统计周期标识, 同一周期内的租约可以合并
+     * @param remainingMs 当前统计周期剩余时间, 租约在此之后失效
+     */
+    public TokenResponse(int granted, long windowId, long remainingMs) {
+        this.granted = granted;
+        this.windowId = windowId;
+        this.remainingMs = remainingMs;
+    }
+
+    public int getGranted() {
+        return granted;
+    }
+
+    public long getWindowId() {
+        return windowId;
+    }
+
+    public long getRemainingMs() {
+        return remainingMs;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.fowcontrol.res4j.cluster;
+
+/**
+ * 集群限流令牌服务端
+ * <p>客户端通过该接口批量申请许可租约, 远程传输的实现以该接口作为桩, 服务端不可达时抛出运行时异常</p>
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public interface TokenServer {
+    /**
+     * 申请许可租约
+     *
+     * @param request 申请
+     * @return 响应
+     */
+    TokenResponse acquire(TokenRequest request);
+}
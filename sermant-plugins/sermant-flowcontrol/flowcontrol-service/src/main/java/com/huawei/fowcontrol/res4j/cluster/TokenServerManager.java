@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.fowcontrol.res4j.cluster;
+
+import com.huaweicloud.sermant.core.service.ServiceManager;
+import com.huaweicloud.sermant.core.service.send.api.GatewayClient;
+
+import java.util.Optional;
+
+/**
+ * 令牌服务端管理, 未注册服务端时使用统一网关连接访问sermant-backend的令牌服务端;
+ * 网关客户端服务也未加载时集群限流规则退化为单实例限流
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public enum TokenServerManager {
+    /**
+     * 单例
+     */
+    INSTANCE;
+
+    private volatile TokenServer tokenServer;
+
+    /**
+     * 注册令牌服务端
+     *
+     * @param server 服务端或其远程桩
+     */
+    public void setTokenServer(TokenServer server) {
+        this.tokenServer = server;
+    }
+
+    /**
+     * 获取令牌服务端
+     *
+     * @return 令牌服务端
+     */
+    public Optional<TokenServer> getTokenServer() {
+        if (tokenServer == null) {
+            getGatewayClient().ifPresent(client -> tokenServer = new GatewayTokenServer(client));
+        }
+        return Optional.ofNullable(tokenServer);
+    }
+
+    private Optional<GatewayClient> getGatewayClient() {
+        try {
+            return Optional.of(ServiceManager.getService(GatewayClient.class));
+        } catch (IllegalArgumentException ex) {
+            // 网关客户端服务在服务黑名单中, 未加载
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.fowcontrol.res4j.exceptions;
+
+import com.huawei.fowcontrol.res4j.adaptive.AdaptiveLimiter;
+
+import java.util.Locale;
+
+/**
+ * 自适应并发限制异常, 在途请求超过当前并发上限时抛出
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class AdaptiveLimitExceededException extends RuntimeException {
+    private static final long serialVersionUID = -2457412046813052641L;
+
+    /**
+     * 构造器
+     *
+     * @param message 异常信息
+     */
+    public AdaptiveLimitExceededException(String message) {
+        super(message, null, false, false);
+    }
+
+    /**
+     * 构建异常信息
+     *
+     * @param limiter 自适应并发限制器
+     * @return 异常
+     */
+    public static AdaptiveLimitExceededException createException(AdaptiveLimiter limiter) {
+        return new AdaptiveLimitExceededException(String.format(Locale.ENGLISH,
+                "Adaptive concurrency limit [%s] is exceeded, current limit is %d and does not permit further calls!",
+                limiter.getName(), limiter.getLimit()));
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.fowcontrol.res4j.handler;
+
+import com.huawei.flowcontrol.common.core.resolver.AdaptiveLimitRuleResolver;
+import com.huawei.flowcontrol.common.core.rule.AdaptiveLimitRule;
+import com.huawei.flowcontrol.common.handler.AbstractRequestHandler;
+import com.huawei.fowcontrol.res4j.adaptive.AdaptiveLimiter;
+import com.huawei.fowcontrol.res4j.service.ServiceCollectorService;
+import com.huawei.fowcontrol.res4j.util.MonitorUtils;
+
+import java.util.Optional;
+
+/**
+ * 自适应并发限制处理器
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class AdaptiveLimitHandler extends AbstractRequestHandler<AdaptiveLimiter, AdaptiveLimitRule> {
+    @Override
+    protected final Optional<AdaptiveLimiter> createProcessor(String businessName, AdaptiveLimitRule rule) {
+        final AdaptiveLimiter adaptiveLimiter = new AdaptiveLimiter(businessName, rule);
+        if (MonitorUtils.isStartMonitor()) {
+            ServiceCollectorService.ADAPTIVE_LIMITER_MAP.put(businessName, adaptiveLimiter);
+        }
+        return Optional.of(adaptiveLimiter);
+    }
+
+    @Override
+    protected final String configKey() {
+        return AdaptiveLimitRuleResolver.CONFIG_KEY;
+    }
+}
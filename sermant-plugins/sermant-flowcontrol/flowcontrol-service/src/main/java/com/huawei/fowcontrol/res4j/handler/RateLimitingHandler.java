@@ -20,13 +20,20 @@ package com.huawei.fowcontrol.res4j.handler;
 import com.huawei.flowcontrol.common.core.resolver.RateLimitingRuleResolver;
 import com.huawei.flowcontrol.common.core.rule.RateLimitingRule;
 import com.huawei.flowcontrol.common.handler.AbstractRequestHandler;
+import com.huawei.fowcontrol.res4j.cluster.ClusterRateLimiter;
+import com.huawei.fowcontrol.res4j.cluster.TokenServer;
+import com.huawei.fowcontrol.res4j.cluster.TokenServerManager;
+
+import com.huaweicloud.sermant.core.common.LoggerFactory;
 
 import io.github.resilience4j.ratelimiter.RateLimiter;
 import io.github.resilience4j.ratelimiter.RateLimiterConfig;
 import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
 
 import java.time.Duration;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.logging.Logger;
 
 /**
  * 流控处理器
@@ -35,6 +42,8 @@ import java.util.Optional;
  * @since 2022-01-22
  */
 public class RateLimitingHandler extends AbstractRequestHandler<RateLimiter, RateLimitingRule> {
+    private static final Logger LOGGER = LoggerFactory.getLogger();
+
     @Override
     protected final Optional<RateLimiter> createProcessor(String businessName, RateLimitingRule rule) {
         RateLimiterConfig config = RateLimiterConfig.custom()
@@ -43,7 +52,18 @@ public class RateLimitingHandler extends AbstractRequestHandler<RateLimiter, Rat
             .timeoutDuration(Duration.ofMillis(rule.getParsedTimeoutDuration()))
             .build();
         RateLimiterRegistry rateLimiterRegistry = RateLimiterRegistry.of(config);
-        return Optional.of(rateLimiterRegistry.rateLimiter(businessName));
+        final RateLimiter localRateLimiter = rateLimiterRegistry.rateLimiter(businessName);
+        if (!rule.isClusterMode()) {
+            return Optional.of(localRateLimiter);
+        }
+        final Optional<TokenServer> tokenServer = TokenServerManager.INSTANCE.getTokenServer();
+        if (!tokenServer.isPresent()) {
+            LOGGER.warning(String.format(Locale.ENGLISH,
+                    "No token server is available, cluster rate limiting [%s] falls back to local mode",
+                    businessName));
+            return Optional.of(localRateLimiter);
+        }
+        return Optional.of(new ClusterRateLimiter(businessName, tokenServer.get(), localRateLimiter, rule));
     }
 
     @Override
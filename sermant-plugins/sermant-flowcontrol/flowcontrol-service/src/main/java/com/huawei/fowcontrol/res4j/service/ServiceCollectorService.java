@@ -18,6 +18,7 @@ package com.huawei.fowcontrol.res4j.service;
 import com.huawei.flowcontrol.common.entity.MetricCalEntity;
 import com.huawei.flowcontrol.common.entity.MetricEntity;
 import com.huawei.flowcontrol.common.enums.MetricType;
+import com.huawei.fowcontrol.res4j.adaptive.AdaptiveLimiter;
 import com.huawei.fowcontrol.res4j.chain.handler.MonitorHandler;
 import com.huawei.fowcontrol.res4j.util.MonitorUtils;
 
@@ -48,6 +49,11 @@ public class ServiceCollectorService extends Collector implements PluginService
      */
     public static final Map<String, CircuitBreaker> CIRCUIT_BREAKER_MAP = new ConcurrentHashMap<>();
 
+    /**
+     * 自适应并发限制器集合，用于获取并发上限、在途请求数与耗时指标
+     */
+    public static final Map<String, AdaptiveLimiter> ADAPTIVE_LIMITER_MAP = new ConcurrentHashMap<>();
+
     private static Map<String, MetricEntity> monitors;
 
     private static final List<String> DEFAULT_LABEL_NAME = Collections.singletonList("name");
@@ -71,6 +77,7 @@ public class ServiceCollectorService extends Collector implements PluginService
     public List<MetricFamilySamples> collect() {
         Map<String, GaugeMetricFamily> metricMap = new HashMap<>();
         collectCircuitBreakerMetric(metricMap);
+        collectAdaptiveLimitMetric(metricMap);
         List<MetricFamilySamples> samples = new ArrayList<>();
         if (monitors == null || monitors.isEmpty()) {
             buildDefaultMetric(samples);
@@ -224,6 +231,20 @@ public class ServiceCollectorService extends Collector implements PluginService
         }
     }
 
+    /**
+     * 采集自适应并发限制指标
+     *
+     * @param metricMap 指标Map
+     */
+    private void collectAdaptiveLimitMetric(Map<String, GaugeMetricFamily> metricMap) {
+        ADAPTIVE_LIMITER_MAP.forEach((key, limiter) -> {
+            addMetric(metricMap, MetricType.ADAPTIVE_LIMIT, limiter.getLimit(), key);
+            addMetric(metricMap, MetricType.ADAPTIVE_IN_FLIGHT, limiter.getInFlight(), key);
+            addMetric(metricMap, MetricType.ADAPTIVE_RTT, limiter.getRttMs(), key);
+            addMetric(metricMap, MetricType.ADAPTIVE_REJECTED, limiter.getRejectedCount(), key);
+        });
+    }
+
     /**
      * 构造指标收集器
      *
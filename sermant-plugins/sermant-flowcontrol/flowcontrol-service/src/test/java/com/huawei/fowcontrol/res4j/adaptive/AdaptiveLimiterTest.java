@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.fowcontrol.res4j.adaptive;
+
+import com.huawei.flowcontrol.common.core.rule.AdaptiveLimitRule;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 自适应并发限制器测试, 以固定耗时模型模拟服务端
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class AdaptiveLimiterTest {
+    private static final long BASE_RTT_NANOS = 1000000L;
+
+    private static final int INITIAL_LIMIT = 20;
+
+    private static final int ROUNDS = 200;
+
+    /**
+     * 在途请求达到上限时拒绝
+     */
+    @Test
+    public void testReject() {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter("test", buildRule());
+        for (int i = 0; i < INITIAL_LIMIT; i++) {
+            Assert.assertTrue(limiter.tryAcquire());
+        }
+        Assert.assertFalse(limiter.tryAcquire());
+        Assert.assertEquals(INITIAL_LIMIT, limiter.getInFlight());
+        Assert.assertEquals(1L, limiter.getRejectedCount());
+        limiter.release();
+        Assert.assertTrue(limiter.tryAcquire());
+    }
+
+    /**
+     * 耗时稳定且请求充足时并发上限增长, 低负载时不增长
+     */
+    @Test
+    public void testGrow() {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter("test", buildRule());
+        simulate(limiter, INITIAL_LIMIT / 4, 1);
+        Assert.assertEquals(INITIAL_LIMIT, limiter.getLimit());
+        simulate(limiter, Integer.MAX_VALUE, 1);
+        Assert.assertTrue(limiter.getLimit() > INITIAL_LIMIT * 2);
+    }
+
+    /**
+     * 耗时突增时并发上限快速下降
+     */
+    @Test
+    public void testShrinkOnLatencyIncrease() {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter("test", buildRule());
+        simulate(limiter, Integer.MAX_VALUE, 1);
+        final int stableLimit = limiter.getLimit();
+        simulate(limiter, Integer.MAX_VALUE, 4);
+        Assert.assertTrue(limiter.getLimit() < stableLimit / 2);
+        Assert.assertTrue(limiter.getLimit() >= AdaptiveLimitRule.DEFAULT_MIN_LIMIT);
+        Assert.assertEquals(4.0d, limiter.getRttMs(), 0.0d);
+    }
+
+    private void simulate(AdaptiveLimiter limiter, int demand, int rttTimes) {
+        for (int round = 0; round < ROUNDS; round++) {
+            int acquired = 0;
+            while (acquired < demand && limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.onComplete(BASE_RTT_NANOS * rttTimes);
+            }
+        }
+    }
+
+    private AdaptiveLimitRule buildRule() {
+        final AdaptiveLimitRule rule = new AdaptiveLimitRule();
+        rule.setName("test");
+        rule.setInitialLimit(INITIAL_LIMIT);
+        return rule;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.fowcontrol.res4j.cluster;
+
+import com.huawei.flowcontrol.common.core.rule.RateLimitingRule;
+
+import com.huaweicloud.sermant.core.common.LoggerFactory;
+
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * 集群限流测试, 在本地模拟多个agent共享同一令牌服务端
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class ClusterRateLimiterTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger();
+
+    private static final int AGENT_COUNT = 5;
+
+    private static final int RATE = 1000;
+
+    private static final int ATTEMPTS_PER_AGENT = 1000;
+
+    private static final String PERIOD = "60S";
+
+    /**
+     * 多个agent的通过总数不超过集群rate, 而单实例模式的通过总数随实例数增长
+     *
+     * @throws InterruptedException 中断异常
+     */
+    @Test
+    public void testClusterSimulation() throws InterruptedException {
+        final DefaultTokenServer tokenServer = new DefaultTokenServer(() -> 0L);
+        final List<RateLimiter> clusterLimiters = new ArrayList<>();
+        final List<RateLimiter> localLimiters = new ArrayList<>();
+        for (int i = 0; i < AGENT_COUNT; i++) {
+            clusterLimiters.add(new ClusterRateLimiter("flow", tokenServer, buildLocalRateLimiter(RATE), buildRule()));
+            localLimiters.add(buildLocalRateLimiter(RATE));
+        }
+        final AtomicLong clusterCost = new AtomicLong();
+        final int clusterPassed = simulate(clusterLimiters, clusterCost);
+        final int localPassed = simulate(localLimiters, new AtomicLong());
+        LOGGER.info(String.format(Locale.ENGLISH, "%d agents, cluster passed: %d, local passed: %d, "
+                + "cluster acquire cost: %d ns/op", AGENT_COUNT, clusterPassed, localPassed,
+                clusterCost.get() / (AGENT_COUNT * ATTEMPTS_PER_AGENT)));
+        Assert.assertTrue(clusterPassed <= RATE);
+        Assert.assertTrue(clusterPassed >= RATE / 2);
+        Assert.assertEquals(AGENT_COUNT * RATE, localPassed);
+    }
+
+    /**
+     * 服务端不可达时退化为本地限流
+     */
+    @Test
+    public void testFallbackToLocal() {
+        final AtomicInteger requestCount = new AtomicInteger();
+        final TokenServer unreachableServer = request -> {
+            requestCount.incrementAndGet();
+            throw new IllegalStateException("connection refused");
+        };
+        final int localRate = 10;
+        final RateLimiter rateLimiter = new ClusterRateLimiter("flow", unreachableServer,
+                buildLocalRateLimiter(localRate), buildRule());
+        int passed = 0;
+        for (int i = 0; i < localRate * 2; i++) {
+            if (rateLimiter.acquirePermission(1)) {
+                passed++;
+            }
+        }
+        Assert.assertEquals(localRate, passed);
+        Assert.assertEquals(1, requestCount.get());
+    }
+
+    /**
+     * 服务端按统计周期重置许可
+     */
+    @Test
+    public void testTokenServerWindow() {
+        final AtomicLong clock = new AtomicLong();
+        final DefaultTokenServer tokenServer = new DefaultTokenServer(clock::get);
+        final TokenRequest request = new TokenRequest("flow", RATE / 2, RATE, 1000L);
+        Assert.assertEquals(RATE / 2, tokenServer.acquire(request).getGranted());
+        Assert.assertEquals(RATE / 2, tokenServer.acquire(request).getGranted());
+        final TokenResponse exhausted = tokenServer.acquire(request);
+        Assert.assertEquals(0, exhausted.getGranted());
+        Assert.assertEquals(1000L, exhausted.getRemainingMs());
+        clock.set(1500L);
+        final TokenResponse nextWindow = tokenServer.acquire(request);
+        Assert.assertEquals(RATE / 2, nextWindow.getGranted());
+        Assert.assertEquals(1L, nextWindow.getWindowId());
+        Assert.assertEquals(500L, nextWindow.getRemainingMs());
+    }
+
+    private int simulate(List<RateLimiter> limiters, AtomicLong cost) throws InterruptedException {
+        final AtomicInteger passed = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(limiters.size());
+        for (RateLimiter limiter : limiters) {
+            new Thread(() -> {
+                try {
+                    final long start = System.nanoTime();
+                    for (int i = 0; i < ATTEMPTS_PER_AGENT; i++) {
+                        if (limiter.acquirePermission(1)) {
+                            passed.incrementAndGet();
+                        }
+                    }
+                    cost.addAndGet(System.nanoTime() - start);
+                } finally {
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        return passed.get();
+    }
+
+    private RateLimitingRule buildRule() {
+        final RateLimitingRule rule = new RateLimitingRule();
+        rule.setRate(RATE);
+        rule.setLimitRefreshPeriod(PERIOD);
+        rule.setMode(RateLimitingRule.MODE_CLUSTER);
+        return rule;
+    }
+
+    private RateLimiter buildLocalRateLimiter(int rate) {
+        return RateLimiter.of("flow", RateLimiterConfig.custom()
+                .limitForPeriod(rate)
+                .limitRefreshPeriod(Duration.ofSeconds(60L))
+                .timeoutDuration(Duration.ZERO)
+                .build());
+    }
+}
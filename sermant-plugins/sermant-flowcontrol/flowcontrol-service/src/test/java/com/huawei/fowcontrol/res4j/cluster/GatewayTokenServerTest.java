@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.fowcontrol.res4j.cluster;
+
+import com.huawei.flowcontrol.common.core.rule.RateLimitingRule;
+
+import com.huaweicloud.sermant.core.service.send.api.GatewayClient;
+import com.huaweicloud.sermant.implement.service.send.NettyClient;
+import com.huaweicloud.sermant.implement.service.send.netty.pojo.Message;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.ByteString;
+
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.protobuf.ProtobufDecoder;
+import io.netty.handler.codec.protobuf.ProtobufEncoder;
+import io.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
+import io.netty.handler.codec.protobuf.ProtobufVarint32LengthFieldPrepender;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于统一网关连接的集群限流测试, 多个agent各自通过真实的Netty连接向同一令牌服务端申请租约
+ *
+ * @author zhouss
+ * @since 2022-09-28
+ */
+public class GatewayTokenServerTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final int AGENT_COUNT = 5;
+
+    private static final int RATE = 1000;
+
+    private static final int ATTEMPTS_PER_AGENT = 1000;
+
+    private static final long CONNECT_TIMEOUT_MS = 5000L;
+
+    private final List<NettyClient> clients = new ArrayList<>();
+
+    private EventLoopGroup serverGroup;
+
+    private Channel serverChannel;
+
+    private AtomicInteger leaseCount;
+
+    /**
+     * 启动令牌服务端, 在统一网关协议上应答租约请求
+     *
+     * @throws InterruptedException 中断异常
+     */
+    @Before
+    public void setUp() throws InterruptedException {
+        final DefaultTokenServer tokenServer = new DefaultTokenServer(() -> 0L);
+        leaseCount = new AtomicInteger();
+        serverGroup = new NioEventLoopGroup(1);
+        serverChannel = new ServerBootstrap().group(serverGroup).channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel channel) {
+                        channel.pipeline().addLast(new ProtobufVarint32FrameDecoder(),
+                                new ProtobufDecoder(Message.NettyMessage.getDefaultInstance()),
+                                new ProtobufVarint32LengthFieldPrepender(), new ProtobufEncoder(),
+                                new TokenLeaseHandler(tokenServer));
+                    }
+                }).bind(0).sync().channel();
+    }
+
+    /**
+     * 停止客户端与服务端
+     */
+    @After
+    public void tearDown() {
+        clients.forEach(NettyClient::stop);
+        serverGroup.shutdownGracefully(0L, 0L, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 多个agent的通过总数不超过集群rate, 大部分请求在本地租约内扣减, 无需访问服务端
+     *
+     * @throws InterruptedException 中断异常
+     */
+    @Test
+    public void testMultiAgentSimulation() throws InterruptedException {
+        final List<RateLimiter> limiters = new ArrayList<>();
+        for (int i = 0; i < AGENT_COUNT; i++) {
+            limiters.add(new ClusterRateLimiter("flow", new GatewayTokenServer(connect()),
+                    buildLocalRateLimiter(RATE), buildRule()));
+        }
+        final AtomicInteger passed = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(AGENT_COUNT);
+        for (RateLimiter limiter : limiters) {
+            new Thread(() -> {
+                try {
+                    for (int i = 0; i < ATTEMPTS_PER_AGENT; i++) {
+                        if (limiter.acquirePermission(1)) {
+                            passed.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        Assert.assertTrue(passed.get() <= RATE);
+        Assert.assertTrue(passed.get() >= RATE / 2);
+        Assert.assertTrue(leaseCount.get() < AGENT_COUNT * ATTEMPTS_PER_AGENT / 10);
+    }
+
+    /**
+     * 令牌服务端停止后, 等待中的请求立即失败, 集群限流器退化为本地限流
+     *
+     * @throws InterruptedException 中断异常
+     */
+    @Test
+    public void testFallbackWhenServerStopped() throws InterruptedException {
+        final GatewayClient gatewayClient = connect();
+        final TokenRequest request = new TokenRequest("flow", 1, RATE, TimeUnit.SECONDS.toMillis(60L));
+        Assert.assertEquals(1, new GatewayTokenServer(gatewayClient).acquire(request).getGranted());
+        serverChannel.close().sync();
+        serverGroup.shutdownGracefully(0L, 0L, TimeUnit.MILLISECONDS).sync();
+        final int localRate = 10;
+        final RateLimiter limiter = new ClusterRateLimiter("flow", new GatewayTokenServer(gatewayClient),
+                buildLocalRateLimiter(localRate), buildRule());
+        int passed = 0;
+        for (int i = 0; i < localRate * 2; i++) {
+            if (limiter.acquirePermission(1)) {
+                passed++;
+            }
+        }
+        Assert.assertEquals(localRate, passed);
+    }
+
+    private GatewayClient connect() throws InterruptedException {
+        final NettyClient client = new NettyClient("127.0.0.1",
+                ((InetSocketAddress) serverChannel.localAddress()).getPort());
+        clients.add(client);
+        final long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MS;
+        while (client.getChannel() == null || !client.getChannel().isActive()) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10L);
+        }
+        return new GatewayClient() {
+            @Override
+            public void send(byte[] data, int typeNum) {
+            }
+
+            @Override
+            public byte[] request(byte[] data, int typeNum, long timeoutMs) {
+                return client.request(data, Message.ServiceRequest.RequestType.forNumber(typeNum), timeoutMs);
+            }
+        };
+    }
+
+    private RateLimitingRule buildRule() {
+        final RateLimitingRule rule = new RateLimitingRule();
+        rule.setRate(RATE);
+        rule.setLimitRefreshPeriod("60S");
+        rule.setMode(RateLimitingRule.MODE_CLUSTER);
+        return rule;
+    }
+
+    private RateLimiter buildLocalRateLimiter(int rate) {
+        return RateLimiter.of("flow", RateLimiterConfig.custom()
+                .limitForPeriod(rate)
+                .limitRefreshPeriod(Duration.ofSeconds(60L))
+                .timeoutDuration(Duration.ZERO)
+                .build());
+    }
+
+    /**
+     * 令牌服务端的网关协议处理, 与sermant-backend的令牌服务端使用相同的JSON格式
+     *
+     * @since 2022-09-28
+     */
+    private class TokenLeaseHandler extends SimpleChannelInboundHandler<Message.NettyMessage> {
+        private final TokenServer tokenServer;
+
+        TokenLeaseHandler(TokenServer tokenServer) {
+            this.tokenServer = tokenServer;
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, Message.NettyMessage msg) throws IOException {
+            if (msg.getMessageType() != Message.NettyMessage.MessageType.SERVICE_REQUEST) {
+                return;
+            }
+            leaseCount.incrementAndGet();
+            final Message.ServiceRequest request = msg.getServiceRequest();
+            final JsonNode node = MAPPER.readTree(request.getData().toByteArray());
+            final TokenResponse response = tokenServer.acquire(new TokenRequest(node.path("resource").asText(),
+                    node.path("permits").asInt(), node.path("rate").asInt(), node.path("periodMs").asLong()));
+            ctx.writeAndFlush(Message.NettyMessage.newBuilder()
+                    .setMessageType(Message.NettyMessage.MessageType.SERVICE_RESPONSE)
+                    .setServiceResponse(Message.ServiceResponse.newBuilder().setRequestId(request.getRequestId())
+                            .setSuccess(true).setData(ByteString.copyFrom(MAPPER.writeValueAsBytes(response))))
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.tracing.context.interceptors;
+
+import com.huawei.tracing.context.wrapper.TracingContextCallable;
+import com.huawei.tracing.context.wrapper.TracingContextRunnable;
+
+import com.huaweicloud.sermant.core.common.LoggerFactory;
+import com.huaweicloud.sermant.core.plugin.agent.entity.ExecuteContext;
+import com.huaweicloud.sermant.core.plugin.agent.interceptor.AbstractInterceptor;
+import com.huaweicloud.sermant.core.service.ServiceManager;
+import com.huaweicloud.sermant.core.service.tracing.api.TracingService;
+import com.huaweicloud.sermant.core.service.tracing.common.SpanEventContext;
+
+import java.util.concurrent.Callable;
+import java.util.logging.Logger;
+
+/**
+ * 线程池提交任务拦截器，将Runnable和Callable参数替换为传递链路上下文的包装类
+ * <p>仅替换声明类型为Runnable或Callable的参数，ForkJoinTask等其他类型的任务不做处理。当前线程没有链路上下文时不做包装
+ *
+ * @author luanwenfei
+ * @since 2022-09-28
+ */
+public class ExecutorInterceptor extends AbstractInterceptor {
+    private static final Logger LOGGER = LoggerFactory.getLogger();
+
+    private final TracingService tracingService;
+
+    /**
+     * 构造方法，链路追踪服务未启用时拦截器不做任何处理
+     */
+    public ExecutorInterceptor() {
+        TracingService service = null;
+        try {
+            service = ServiceManager.getService(TracingService.class);
+        } catch (IllegalArgumentException ignored) {
+            LOGGER.info("TracingService is not enabled, tracing context will not be propagated to executors.");
+        }
+        this.tracingService = service;
+    }
+
+    @Override
+    public ExecuteContext before(ExecuteContext context) {
+        if (tracingService == null) {
+            return context;
+        }
+        Object[] arguments = context.getArguments();
+        if (arguments == null || arguments.length == 0) {
+            return context;
+        }
+        Class<?>[] parameterTypes = context.getMethod().getParameterTypes();
+        for (int i = 0; i < arguments.length; i++) {
+            if (parameterTypes[i] == Runnable.class && arguments[i] instanceof Runnable
+                && !(arguments[i] instanceof TracingContextRunnable)) {
+                SpanEventContext spanEventContext = tracingService.captureContext();
+                if (spanEventContext != null) {
+                    arguments[i] = new TracingContextRunnable((Runnable) arguments[i], tracingService,
+                        spanEventContext);
+                }
+                continue;
+            }
+            if (parameterTypes[i] == Callable.class && arguments[i] instanceof Callable
+                && !(arguments[i] instanceof TracingContextCallable)) {
+                SpanEventContext spanEventContext = tracingService.captureContext();
+                if (spanEventContext != null) {
+                    arguments[i] = new TracingContextCallable<>((Callable<?>) arguments[i], tracingService,
+                        spanEventContext);
+                }
+            }
+        }
+        return context;
+    }
+
+    @Override
+    public ExecuteContext after(ExecuteContext context) {
+        return context;
+    }
+}
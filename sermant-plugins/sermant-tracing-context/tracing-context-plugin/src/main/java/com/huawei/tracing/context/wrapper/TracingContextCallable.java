@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.tracing.context.wrapper;
+
+import com.huaweicloud.sermant.core.service.tracing.api.TracingService;
+import com.huaweicloud.sermant.core.service.tracing.common.SpanEventContext;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 传递链路上下文的Callable，执行前恢复提交任务时捕获的上下文，执行后还原执行线程原有的上下文
+ *
+ * @param <V> 任务结果类型
+ * @author luanwenfei
+ * @since 2022-09-28
+ */
+public class TracingContextCallable<V> implements Callable<V> {
+    private final Callable<V> callable;
+
+    private final TracingService tracingService;
+
+    private final SpanEventContext spanEventContext;
+
+    /**
+     * 构造方法
+     *
+     * @param callable 被包装的任务
+     * @param tracingService 链路追踪服务
+     * @param spanEventContext 提交任务时捕获的上下文快照
+     */
+    public TracingContextCallable(Callable<V> callable, TracingService tracingService,
+        SpanEventContext spanEventContext) {
+        this.callable = callable;
+        this.tracingService = tracingService;
+        this.spanEventContext = spanEventContext;
+    }
+
+    @Override
+    public V call() throws Exception {
+        SpanEventContext previousContext = tracingService.restoreContext(spanEventContext);
+        try {
+            return callable.call();
+        } finally {
+            tracingService.restoreContext(previousContext);
+        }
+    }
+
+    public Callable<V> getCallable() {
+        return callable;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.tracing.context.wrapper;
+
+import com.huaweicloud.sermant.core.service.tracing.api.TracingService;
+import com.huaweicloud.sermant.core.service.tracing.common.SpanEventContext;
+
+/**
+ * 传递链路上下文的Runnable，执行前恢复提交任务时捕获的上下文，执行后还原执行线程原有的上下文
+ *
+ * @author luanwenfei
+ * @since 2022-09-28
+ */
+public class TracingContextRunnable implements Runnable {
+    private final Runnable runnable;
+
+    private final TracingService tracingService;
+
+    private final SpanEventContext spanEventContext;
+
+    /**
+     * 构造方法
+     *
+     * @param runnable 被包装的任务
+     * @param tracingService 链路追踪服务
+     * @param spanEventContext 提交任务时捕获的上下文快照
+     */
+    public TracingContextRunnable(Runnable runnable, TracingService tracingService,
+        SpanEventContext spanEventContext) {
+        this.runnable = runnable;
+        this.tracingService = tracingService;
+        this.spanEventContext = spanEventContext;
+    }
+
+    @Override
+    public void run() {
+        SpanEventContext previousContext = tracingService.restoreContext(spanEventContext);
+        try {
+            runnable.run();
+        } finally {
+            tracingService.restoreContext(previousContext);
+        }
+    }
+
+    public Runnable getRunnable() {
+        return runnable;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.tracing.context.interceptors;
+
+import com.huawei.tracing.context.wrapper.TracingContextRunnable;
+
+import com.huaweicloud.sermant.core.config.ConfigManager;
+import com.huaweicloud.sermant.core.plugin.agent.entity.ExecuteContext;
+import com.huaweicloud.sermant.core.service.ServiceManager;
+import com.huaweicloud.sermant.core.service.send.api.GatewayClient;
+import com.huaweicloud.sermant.core.service.tracing.api.TracingService;
+import com.huaweicloud.sermant.core.service.tracing.common.SpanEventContext;
+import com.huaweicloud.sermant.core.service.tracing.common.TracingRequest;
+import com.huaweicloud.sermant.core.service.tracing.config.TracingConfig;
+import com.huaweicloud.sermant.implement.service.tracing.TracingServiceImpl;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 线程池提交任务拦截器测试
+ *
+ * @author luanwenfei
+ * @since 2022-09-28
+ */
+public class ExecutorInterceptorTest {
+    private MockedStatic<ServiceManager> mockedService;
+
+    private MockedStatic<ConfigManager> mockedConfig;
+
+    private TracingServiceImpl tracingService;
+
+    private ExecutorService executorService;
+
+    /**
+     * 初始化不采样任何请求的链路追踪服务
+     */
+    @Before
+    public void setUp() {
+        TracingConfig tracingConfig = new TracingConfig();
+        tracingConfig.setSamplerType(TracingConfig.SamplerType.PROBABILITY);
+        tracingConfig.setSampleRate(0.0d);
+        mockedService = Mockito.mockStatic(ServiceManager.class);
+        mockedConfig = Mockito.mockStatic(ConfigManager.class);
+        mockedService.when(() -> ServiceManager.getService(GatewayClient.class))
+            .thenReturn(Mockito.mock(GatewayClient.class));
+        mockedConfig.when(() -> ConfigManager.getConfig(TracingConfig.class)).thenReturn(tracingConfig);
+        tracingService = new TracingServiceImpl();
+        tracingService.start();
+        mockedService.when(() -> ServiceManager.getService(TracingService.class)).thenReturn(tracingService);
+        executorService = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * 释放资源
+     */
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+        tracingService.stop();
+        mockedConfig.close();
+        mockedService.close();
+    }
+
+    /**
+     * 测试未采样请求结束后提交的任务不携带上下文，且在空上下文中执行
+     *
+     * @throws Exception 执行异常
+     */
+    @Test
+    public void testSubmitAfterNotSampledRequestFinished() throws Exception {
+        ExecutorInterceptor interceptor = new ExecutorInterceptor();
+        TracingRequest tracingRequest = new TracingRequest("", "", "", "", "");
+        tracingService.onProviderSpanStart(tracingRequest, (request, carrier) -> {
+        }, Collections.emptyMap());
+
+        // 请求处理中提交的任务携带未采样结果
+        AtomicReference<SpanEventContext> duringRequest = new AtomicReference<>();
+        Object task = submit(interceptor, () -> duringRequest.set(tracingService.captureContext()));
+        Assert.assertTrue(task instanceof TracingContextRunnable);
+        Assert.assertNotNull(duringRequest.get());
+        Assert.assertFalse(tracingService.getContext().isPresent());
+
+        // 入口Span结束后提交的任务不再包装，任务线程中没有残留的上下文
+        tracingService.onSpanFinally();
+        Assert.assertNull(tracingService.captureContext());
+        AtomicReference<SpanEventContext> afterRequest = new AtomicReference<>(duringRequest.get());
+        Runnable runnable = () -> afterRequest.set(tracingService.captureContext());
+        Assert.assertSame(runnable, submit(interceptor, runnable));
+        Assert.assertNull(afterRequest.get());
+    }
+
+    private Object submit(ExecutorInterceptor interceptor, Runnable runnable)
+        throws NoSuchMethodException, ExecutionException, InterruptedException {
+        Method method = ExecutorService.class.getMethod("submit", Runnable.class);
+        ExecuteContext context = ExecuteContext.forMemberMethod(executorService, method, new Object[]{runnable},
+            null, null);
+        interceptor.before(context);
+        Object task = context.getArguments()[0];
+        executorService.submit((Runnable) task).get();
+        return task;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2022-2022 Huawei Technologies Co., Ltd. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.huawei.tracing.context.wrapper;
+
+import com.huaweicloud.sermant.core.service.tracing.api.TracingService;
+import com.huaweicloud.sermant.core.service.tracing.common.SpanEventContext;
+import com.huaweicloud.sermant.core.service.tracing.common.TracingRequest;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 上下文传递包装类测试
+ *
+ * @author luanwenfei
+ * @since 2022-09-28
+ */
+public class TracingContextWrapperTest {
+    private final SpanEventContext snapshot = new SpanEventContext(new TracingRequest("", ""));
+
+    private final SpanEventContext previousContext = new SpanEventContext(new TracingRequest("", ""));
+
+    /**
+     * 测试Runnable执行前恢复快照，执行后还原原有上下文，任务异常时同样还原
+     */
+    @Test
+    public void testRunnable() {
+        TracingService tracingService = Mockito.mock(TracingService.class);
+        Mockito.when(tracingService.restoreContext(snapshot)).thenReturn(previousContext);
+        AtomicBoolean isRun = new AtomicBoolean();
+        Runnable runnable = () -> {
+            Mockito.verify(tracingService).restoreContext(snapshot);
+            isRun.set(true);
+        };
+        new TracingContextRunnable(runnable, tracingService, snapshot).run();
+        Assert.assertTrue(isRun.get());
+        Mockito.verify(tracingService).restoreContext(previousContext);
+
+        Runnable failedRunnable = () -> {
+            throw new IllegalStateException();
+        };
+        try {
+            new TracingContextRunnable(failedRunnable, tracingService, snapshot).run();
+            Assert.fail();
+        } catch (IllegalStateException ignored) {
+            Mockito.verify(tracingService, Mockito.times(2)).restoreContext(previousContext);
+        }
+    }
+
+    /**
+     * 测试Callable执行前恢复快照，执行后还原原有上下文
+     *
+     * @throws Exception 执行异常
+     */
+    @Test
+    public void testCallable() throws Exception {
+        TracingService tracingService = Mockito.mock(TracingService.class);
+        Mockito.when(tracingService.restoreContext(snapshot)).thenReturn(previousContext);
+        Assert.assertEquals("result",
+            new TracingContextCallable<>(() -> "result", tracingService, snapshot).call());
+        Mockito.verify(tracingService).restoreContext(snapshot);
+        Mockito.verify(tracingService).restoreContext(previousContext);
+    }
+}